@@ -144,6 +144,16 @@ public class StreamMessageBenchmark {
         return streamObjects.computedSum();
     }
 
+    // Measures a stream which is written and aborted on its event loop without being subscribed, e.g.
+    // the content of a request which is rejected before it is consumed.
+    @Benchmark
+    public boolean jmhEventLoopAbort(StreamObjects streamObjects) {
+        final StreamMessage<Integer> stream = newStream(streamObjects);
+        streamObjects.writeAllValues(stream);
+        stream.abort();
+        return stream.isOpen();
+    }
+
     // Has synchronization overhead, but does not require the stream to execute events inline so can be used
     // to compare approaches.
     @Benchmark
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.core.client;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.client.ConnectionPoolListenerAdapter;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+import com.linecorp.armeria.common.util.EventLoopGroups;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerPort;
+import com.linecorp.armeria.shared.AsyncCounters;
+
+import io.netty.util.AttributeMap;
+
+/**
+ * Compares the cost of acquiring and releasing HTTP/2 connections and the number of connections opened
+ * when connections are pooled per event loop and when they are shared between event loops.
+ */
+@State(Scope.Benchmark)
+public class HttpChannelPoolBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean shareHttp2Connections;
+
+    @Param({ "16" })
+    private int numEventLoops;
+
+    private final AtomicInteger numOpenConnections = new AtomicInteger();
+
+    private Server server;
+    private ClientFactory clientFactory;
+    private HttpClient httpClient;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ConnectionCounters {
+        private HttpChannelPoolBenchmark benchmark;
+
+        @Setup
+        public void setup(HttpChannelPoolBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        public int openConnections() {
+            return benchmark.numOpenConnections.get();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        server = new ServerBuilder()
+                .service("/empty", (ctx, req) -> HttpResponse.of(HttpStatus.OK))
+                .defaultRequestTimeout(Duration.ZERO)
+                .meterRegistry(NoopMeterRegistry.get())
+                .build();
+        server.start().join();
+        final ServerPort httpPort = server.activePorts().values().stream()
+                                          .filter(ServerPort::hasHttp).findAny()
+                                          .get();
+
+        clientFactory = new ClientFactoryBuilder()
+                .workerGroup(EventLoopGroups.newEventLoopGroup(numEventLoops), true)
+                .shareHttp2Connections(shareHttp2Connections)
+                .connectionPoolListener(new ConnectionPoolListenerAdapter() {
+                    @Override
+                    public void connectionOpen(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                               InetSocketAddress localAddr, AttributeMap attrs) {
+                        numOpenConnections.incrementAndGet();
+                    }
+
+                    @Override
+                    public void connectionClosed(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                                 InetSocketAddress localAddr, AttributeMap attrs) {
+                        numOpenConnections.decrementAndGet();
+                    }
+                })
+                .meterRegistry(NoopMeterRegistry.get())
+                .build();
+        httpClient = HttpClient.of(clientFactory,
+                                   "h2c://127.0.0.1:" + httpPort.localAddress().getPort() + '/');
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientFactory.close();
+        server.stop().join();
+    }
+
+    @Benchmark
+    public void acquireAndRelease(Blackhole bh, AsyncCounters counters, ConnectionCounters connections) {
+        counters.incrementCurrentRequests();
+        bh.consume(
+                httpClient.get("/empty")
+                          .aggregate()
+                          .handle((msg, t) -> {
+                              counters.decrementCurrentRequests();
+                              if (t != null) {
+                                  counters.incrementNumFailures();
+                              } else {
+                                  counters.incrementNumSuccesses();
+                              }
+                              return null;
+                          }));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.core.client.circuitbreaker;
+
+import java.time.Duration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreaker;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreakerBuilder;
+
+/**
+ * Compares the cost of recording the result of a request into a {@link CircuitBreaker} when many threads
+ * record at the same time, with the default sliding window counter and with the ring-buffer counter.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class CircuitBreakerCounterBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean useRingBufferCounter;
+
+    @Param({ "1000" })
+    private long counterUpdateIntervalMillis;
+
+    private CircuitBreaker circuitBreaker;
+
+    @Setup
+    public void setup() {
+        circuitBreaker = new CircuitBreakerBuilder()
+                .counterSlidingWindow(Duration.ofSeconds(20))
+                .counterUpdateIntervalMillis(counterUpdateIntervalMillis)
+                // Never open the circuit so that every event is counted.
+                .failureRateThreshold(1)
+                .useRingBufferCounter(useRingBufferCounter)
+                .build();
+    }
+
+    @Benchmark
+    public void onSuccess() {
+        circuitBreaker.onSuccess();
+    }
+
+    @Benchmark
+    public void onFailure() {
+        circuitBreaker.onFailure();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.core.client.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Strings;
+
+import com.linecorp.armeria.client.encoding.GzipStreamDecoderFactory;
+import com.linecorp.armeria.client.encoding.StreamDecoder;
+import com.linecorp.armeria.common.HttpData;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Microbenchmarks for decoding small and large gzip-compressed responses.
+ */
+@State(Scope.Thread)
+public class StreamDecoderBenchmark {
+
+    private static final GzipStreamDecoderFactory factory = new GzipStreamDecoderFactory();
+
+    @Param({ "128", "131072" })
+    private int contentLength;
+
+    // The number of HttpData the compressed content is split into.
+    @Param({ "1", "8" })
+    private int numChunks;
+
+    private HttpData[] chunks;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] content = Strings.repeat("{\"name\":\"armeria\",\"value\":12345}", contentLength / 32 + 1)
+                                      .substring(0, contentLength)
+                                      .getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(content);
+        }
+        final byte[] compressed = out.toByteArray();
+
+        chunks = new HttpData[numChunks];
+        final int chunkSize = (compressed.length + numChunks - 1) / numChunks;
+        for (int i = 0; i < numChunks; i++) {
+            final int offset = Math.min(compressed.length, i * chunkSize);
+            chunks[i] = HttpData.of(compressed, offset, Math.min(chunkSize, compressed.length - offset));
+        }
+    }
+
+    @Benchmark
+    public void unpooled(Blackhole bh) {
+        decode(factory.newDecoder(), bh);
+    }
+
+    @Benchmark
+    public void pooled(Blackhole bh) {
+        decode(factory.newDecoder(PooledByteBufAllocator.DEFAULT), bh);
+    }
+
+    private void decode(StreamDecoder decoder, Blackhole bh) {
+        for (HttpData chunk : chunks) {
+            final HttpData decoded = decoder.decode(chunk);
+            bh.consume(decoded);
+            ReferenceCountUtil.safeRelease(decoded);
+        }
+        bh.consume(decoder.finish());
+    }
+}
@@ -66,10 +66,14 @@ public class WeightedRoundRobinStrategyBenchmark {
     private EndpointSelector getEndpointSelector(List<Endpoint> endpoints, String groupName) {
         EndpointGroupRegistry.register(groupName,
                 new StaticEndpointGroup(endpoints),
-                EndpointSelectionStrategy.WEIGHTED_ROUND_ROBIN);
+                strategy());
         return EndpointGroupRegistry.getNodeSelector(groupName);
     }
 
+    EndpointSelectionStrategy strategy() {
+        return EndpointSelectionStrategy.WEIGHTED_ROUND_ROBIN;
+    }
+
     @Setup
     public void setupCases() {
         Random rand = new Random();
@@ -31,6 +31,9 @@ import com.linecorp.armeria.server.ServerPort;
 @State(Scope.Benchmark)
 public abstract class RetryingHttpClientBase {
 
+    // Large enough to be spilled by WithSpillingDuplicator.
+    private static final byte[] POST_CONTENT = new byte[1024 * 1024];
+
     private Server server;
     private HttpClient client;
 
@@ -39,6 +42,8 @@ public abstract class RetryingHttpClientBase {
         server = new ServerBuilder()
                 .http(0)
                 .service("/empty", (ctx, req) -> HttpResponse.of("\"\""))
+                .service("/post", (ctx, req) -> HttpResponse.from(
+                        req.aggregate().thenApply(unused -> HttpResponse.of("\"\""))))
                 .build();
         server.start().join();
         client = newClient();
@@ -62,4 +67,9 @@ public abstract class RetryingHttpClientBase {
     public void empty() {
         client.get("/empty").aggregate().join();
     }
+
+    @Benchmark
+    public void post() {
+        client.post("/post", POST_CONTENT).aggregate().join();
+    }
 }
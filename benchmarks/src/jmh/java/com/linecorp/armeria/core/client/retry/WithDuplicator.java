@@ -34,7 +34,11 @@ public class WithDuplicator extends RetryingHttpClientBase {
                 (ctx, response) -> response.aggregate().handle((unused1, unused2) -> null);
 
         return new HttpClientBuilder(baseUrl())
-                .decorator(new RetryingHttpClientBuilder(retryStrategy).newDecorator())
+                .decorator(configure(new RetryingHttpClientBuilder(retryStrategy)).newDecorator())
                 .build();
     }
+
+    protected RetryingHttpClientBuilder configure(RetryingHttpClientBuilder builder) {
+        return builder;
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.core.server;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.HttpClientBuilder;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.Flags;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+import com.linecorp.armeria.common.util.VirtualThreads;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Compares the throughput and the latency of the blocking handlers which run on a platform thread pool
+ * and on virtual threads. Each invocation sends a burst of requests at the same time, and each request
+ * blocks a thread for a while. The platform thread pool has {@link Flags#numCommonBlockingTaskThreads()}
+ * threads like {@linkplain com.linecorp.armeria.common.CommonPools#blockingTaskExecutor() the common pool},
+ * so the requests beyond the pool size are queued.
+ *
+ * <p>The {@code virtual} executor requires Java 21 or above. Use the {@code SampleTime} mode result to see
+ * the p99 latency of a burst, e.g. {@code -Pjmh.params=executor=platform,virtual}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingTaskExecutorBenchmark {
+
+    @Param({ "platform", "virtual" })
+    private String executor;
+
+    @Param({ "100", "1000" })
+    private int burstSize;
+
+    @Param("10")
+    private long blockingMillis;
+
+    private ExecutorService blockingTaskExecutor;
+    private Server server;
+    private ClientFactory clientFactory;
+    private HttpClient client;
+
+    @Setup
+    public void startServer() throws Exception {
+        if ("virtual".equals(executor)) {
+            blockingTaskExecutor = VirtualThreads.newThreadPerTaskExecutor("blocking-tasks-");
+        } else {
+            blockingTaskExecutor = new ThreadPoolExecutor(
+                    Flags.numCommonBlockingTaskThreads(), Flags.numCommonBlockingTaskThreads(),
+                    60, TimeUnit.SECONDS, new LinkedTransferQueue<>(),
+                    new DefaultThreadFactory("blocking-tasks", true));
+        }
+
+        server = new ServerBuilder()
+                .service("/blocking", (ctx, req) -> HttpResponse.from(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Thread.sleep(blockingMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return HttpResponse.of(HttpStatus.OK);
+                }, ctx.blockingTaskExecutor())))
+                .blockingTaskExecutor(blockingTaskExecutor)
+                .defaultRequestTimeout(Duration.ZERO)
+                .meterRegistry(NoopMeterRegistry.get())
+                .build();
+        server.start().join();
+
+        clientFactory = new ClientFactoryBuilder().useHttp2Preface(true).build();
+        final int port = server.activePort().get().localAddress().getPort();
+        client = new HttpClientBuilder("h2c://127.0.0.1:" + port)
+                .factory(clientFactory)
+                .defaultResponseTimeout(Duration.ZERO)
+                .build();
+    }
+
+    @TearDown
+    public void stopServer() throws Exception {
+        server.stop().join();
+        clientFactory.close();
+        blockingTaskExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void burst() {
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<AggregatedHttpMessage>[] futures = new CompletableFuture[burstSize];
+        for (int i = 0; i < burstSize; i++) {
+            futures[i] = client.get("/blocking").aggregate();
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
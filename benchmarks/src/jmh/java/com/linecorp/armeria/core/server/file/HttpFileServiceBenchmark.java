@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.core.server.file;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.linecorp.armeria.client.ClientBuilder;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerPort;
+import com.linecorp.armeria.server.file.HttpFileServiceBuilder;
+import com.linecorp.armeria.shared.AsyncCounters;
+
+/**
+ * Compares the throughput of serving a large uncached file over cleartext HTTP/1 with and without
+ * {@link HttpFileServiceBuilder#useFileRegion(boolean)}.
+ */
+@State(Scope.Benchmark)
+public class HttpFileServiceBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean useFileRegion;
+
+    @Param({ "65536", "8388608" })
+    private int fileSize;
+
+    private Path rootDir;
+    private Server server;
+    private HttpClient httpClient;
+
+    @Setup
+    public void setup() throws Exception {
+        rootDir = Files.createTempDirectory("armeria-benchmark");
+        final byte[] content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        Files.write(rootDir.resolve("file.bin"), content);
+
+        server = new ServerBuilder()
+                .serviceUnder("/", HttpFileServiceBuilder.forFileSystem(rootDir)
+                                                         .maxCacheEntries(0)
+                                                         .useFileRegion(useFileRegion)
+                                                         .build())
+                .defaultRequestTimeout(Duration.ZERO)
+                .meterRegistry(NoopMeterRegistry.get())
+                .build();
+        server.start().join();
+        final ServerPort httpPort = server.activePorts().values().stream()
+                                          .filter(ServerPort::hasHttp).findAny()
+                                          .get();
+        httpClient = new ClientBuilder("none+h1c://127.0.0.1:" + httpPort.localAddress().getPort() + '/')
+                .defaultResponseTimeout(Duration.ZERO)
+                .defaultMaxResponseLength(0)
+                .build(HttpClient.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop().join();
+        Files.delete(rootDir.resolve("file.bin"));
+        Files.delete(rootDir);
+    }
+
+    @Benchmark
+    public void get(Blackhole bh, AsyncCounters counters) throws Exception {
+        counters.incrementCurrentRequests();
+        bh.consume(
+                httpClient.get("/file.bin")
+                          .aggregate()
+                          .handle((msg, t) -> {
+                              counters.decrementCurrentRequests();
+                              if (t != null) {
+                                  counters.incrementNumFailures();
+                              } else {
+                                  counters.incrementNumSuccesses();
+                              }
+                              return null;
+                          }));
+    }
+}
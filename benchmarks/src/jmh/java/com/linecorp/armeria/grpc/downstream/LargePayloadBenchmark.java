@@ -30,21 +30,38 @@ import com.google.protobuf.util.Timestamps;
 
 import com.linecorp.armeria.client.Clients;
 import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.grpc.GrpcSerializationFormats;
+import com.linecorp.armeria.grpc.BinaryProxyGrpc;
 import com.linecorp.armeria.grpc.BinaryProxyGrpc.BinaryProxyImplBase;
 import com.linecorp.armeria.grpc.BinaryProxyGrpc.BinaryProxyStub;
 import com.linecorp.armeria.grpc.BinaryProxyOuterClass.BinaryPayload;
+import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer;
+import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer.ByteBufOrStream;
+import com.linecorp.armeria.internal.grpc.ArmeriaMessageFramer;
+import com.linecorp.armeria.internal.grpc.GrpcMessageMarshaller;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.server.ServerPort;
 import com.linecorp.armeria.server.grpc.GrpcServiceBuilder;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
 
 import io.grpc.stub.StreamObserver;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import joptsimple.internal.Strings;
 
 /**
  * A {@link Benchmark} to check performance of armeria-grpc with large payloads in the megabytes, which is
  * a relatively common use case for a binary proxy (metadata + large binary blobs).
+ *
+ * <p>{@link #frame(FrameState)} measures only serializing and framing a message, either writing the header
+ * into the space reserved by {@link GrpcMessageMarshaller} or composing it with a separate header buffer.
+ *
+ * <p>{@link #parse(ParseState)} measures only parsing a message which was received in many buffers, either
+ * merged into one buffer as {@link ArmeriaMessageDeframer} does or composed of the received buffers. Run it
+ * with {@code -prof gc} to compare the allocation of both.
  */
 @State(Scope.Benchmark)
 public class LargePayloadBenchmark {
@@ -120,6 +137,83 @@ public class LargePayloadBenchmark {
         return responseObserver.finish(2);
     }
 
+    @Benchmark
+    public int frame(FrameState state) throws Exception {
+        return state.serializeAndFrame();
+    }
+
+    @Benchmark
+    public BinaryPayload parse(ParseState state) throws Exception {
+        return state.parse();
+    }
+
+    @State(Scope.Thread)
+    public static class FrameState {
+
+        @Param({ "reserved", "composed" })
+        private String header;
+
+        private GrpcMessageMarshaller<BinaryPayload, BinaryPayload> marshaller;
+        private ArmeriaMessageFramer framer;
+
+        @Setup
+        public void setUp() {
+            marshaller = new GrpcMessageMarshaller<>(ByteBufAllocator.DEFAULT, GrpcSerializationFormats.PROTO,
+                                                     BinaryProxyGrpc.getEchoMethod(), null, false);
+            framer = new ArmeriaMessageFramer(ByteBufAllocator.DEFAULT,
+                                              ArmeriaMessageFramer.NO_MAX_OUTBOUND_MESSAGE_SIZE);
+        }
+
+        int serializeAndFrame() throws Exception {
+            final ByteBuf serialized = marshaller.serializeResponse(PAYLOAD);
+            // Unless told that the header is reserved, the framer composes the header with the message.
+            final ByteBufHttpData framed = framer.writePayload(serialized, "reserved".equals(header));
+            final int length = framed.length();
+            framed.release();
+            return length;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParseState {
+
+        // The maximum size of an HTTP/2 DATA frame by default.
+        private static final int RECEIVED_BUFFER_SIZE = 16384;
+
+        @Param({ "merged", "composed" })
+        private String body;
+
+        private GrpcMessageMarshaller<BinaryPayload, BinaryPayload> marshaller;
+        private byte[] serialized;
+
+        @Setup
+        public void setUp() {
+            marshaller = new GrpcMessageMarshaller<>(ByteBufAllocator.DEFAULT, GrpcSerializationFormats.PROTO,
+                                                     BinaryProxyGrpc.getEchoMethod(), null, false);
+            serialized = PAYLOAD.toByteArray();
+        }
+
+        BinaryPayload parse() throws Exception {
+            // Receive the message in many buffers, as a server reads it from the network.
+            final CompositeByteBuf received = ByteBufAllocator.DEFAULT.compositeBuffer(Integer.MAX_VALUE);
+            for (int i = 0; i < serialized.length; i += RECEIVED_BUFFER_SIZE) {
+                final int length = Math.min(RECEIVED_BUFFER_SIZE, serialized.length - i);
+                received.addComponent(true, ByteBufAllocator.DEFAULT.directBuffer(length)
+                                                                    .writeBytes(serialized, i, length));
+            }
+
+            final ByteBuf buf;
+            if ("merged".equals(body)) {
+                buf = ByteBufAllocator.DEFAULT.buffer(serialized.length).writeBytes(received);
+                received.release();
+            } else {
+                buf = received;
+            }
+            // The marshaller releases the buffer as soon as the message is parsed.
+            return marshaller.deserializeRequest(new ByteBufOrStream(buf));
+        }
+    }
+
     private static final class EchoObserver implements StreamObserver<BinaryPayload> {
 
         private final CountDownLatch latch = new CountDownLatch(1);
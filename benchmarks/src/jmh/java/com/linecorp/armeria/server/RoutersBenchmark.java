@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+
+/**
+ * Microbenchmarks for finding a route among thousands of exact and parameterized routes.
+ */
+@State(Scope.Benchmark)
+public class RoutersBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int numRoutes;
+
+    private Router<PathMapping> router;
+    private PathMappingContext exactCtx;
+    private PathMappingContext parameterizedCtx;
+    private PathMappingContext notFoundCtx;
+
+    @Setup
+    public void setUp() {
+        final List<PathMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < numRoutes / 2; i++) {
+            mappings.add(PathMapping.ofExact("/exact/" + i + "/resource"));
+            mappings.add(PathMapping.of("/parameterized/" + i + "/{id}/resource"));
+        }
+        router = new CompositeRouter<>(Routers.routers(mappings, Function.identity(), (a, b) -> {
+            throw new IllegalStateException("duplicate path mapping: " + a + " vs. " + b);
+        }), Function.identity());
+
+        final VirtualHost virtualHost = new VirtualHostBuilder().build();
+        final int index = numRoutes / 4;
+        exactCtx = newContext(virtualHost, "/exact/" + index + "/resource");
+        parameterizedCtx = newContext(virtualHost, "/parameterized/" + index + "/armeria/resource");
+        notFoundCtx = newContext(virtualHost, "/exact/" + index + "/not-found");
+    }
+
+    private static PathMappingContext newContext(VirtualHost virtualHost, String path) {
+        return DefaultPathMappingContext.of(virtualHost, "localhost", path, null,
+                                            HttpHeaders.of(HttpMethod.GET, path), null);
+    }
+
+    @Benchmark
+    public PathMapped<PathMapping> exact() {
+        return router.find(exactCtx);
+    }
+
+    @Benchmark
+    public PathMapped<PathMapping> parameterized() {
+        return router.find(parameterizedCtx);
+    }
+
+    @Benchmark
+    public PathMapped<PathMapping> notFound() {
+        return router.find(notFoundCtx);
+    }
+}
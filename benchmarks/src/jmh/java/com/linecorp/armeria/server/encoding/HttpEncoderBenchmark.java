@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Strings;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Compares {@link ZlibEncoder} with the {@link DeflaterOutputStream} which was used by
+ * {@link HttpEncodedResponse} previously. Run with {@code -prof gc} to compare the allocation rate.
+ */
+@State(Scope.Thread)
+public class HttpEncoderBenchmark {
+
+    // HttpEncodingType is not visible to the generated code, so it is specified by name.
+    @Param({ "GZIP", "DEFLATE" })
+    private String encoding;
+
+    @Param({ "1024", "65536" })
+    private int chunkSize;
+
+    @Param({ "1", "8" })
+    private int numChunks;
+
+    private HttpEncodingType encodingType;
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() {
+        encodingType = HttpEncodingType.valueOf(encoding);
+        chunk = Strings.repeat("{\"name\":\"armeria\",\"value\":12345}", chunkSize / 32 + 1)
+                       .substring(0, chunkSize)
+                       .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void outputStream(Blackhole bh) throws IOException {
+        final ByteArrayOutputStream encodedStream = new ByteArrayOutputStream();
+        final DeflaterOutputStream encodingStream =
+                encodingType == HttpEncodingType.GZIP ? new GZIPOutputStream(encodedStream, true)
+                                                      : new DeflaterOutputStream(encodedStream, true);
+        for (int i = 0; i < numChunks; i++) {
+            encodingStream.write(chunk);
+            encodingStream.flush();
+            bh.consume(encodedStream.toByteArray());
+            encodedStream.reset();
+        }
+        encodingStream.close();
+        bh.consume(encodedStream.toByteArray());
+    }
+
+    @Benchmark
+    public void zlibEncoder(Blackhole bh) {
+        final ZlibEncoder encoder = new ZlibEncoder(encodingType, Deflater.DEFAULT_COMPRESSION,
+                                                    PooledByteBufAllocator.DEFAULT);
+        for (int i = 0; i < numChunks; i++) {
+            final ByteBuf buf = encoder.encode(chunk, 0, chunk.length);
+            bh.consume(buf);
+            buf.release();
+        }
+        final ByteBuf buf = encoder.finish();
+        bh.consume(buf);
+        buf.release();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+/**
+ * Microbenchmarks for formatting an access log in the common, combined and custom formats.
+ */
+@State(Scope.Benchmark)
+public class AccessLogFormatterBenchmark {
+
+    private static final String CUSTOM_FORMAT =
+            "%h %t \"%r\" %s %b \"%{User-Agent}i\" %{requestDurationMillis}L %{content-type}o";
+
+    @Param({ "common", "combined", "custom" })
+    private String format;
+
+    private AccessLogFormatter formatter;
+    private RequestLog log;
+    private StringBuilder buf;
+
+    @Setup
+    public void setUp() {
+        switch (format) {
+            case "common":
+                formatter = AccessLogFormatter.COMMON;
+                break;
+            case "combined":
+                formatter = AccessLogFormatter.COMBINED;
+                break;
+            default:
+                formatter = AccessLogFormatter.of(AccessLogFormats.parseCustom(CUSTOM_FORMAT));
+        }
+
+        final ServiceRequestContext ctx = ServiceRequestContextBuilder.of(
+                HttpRequest.of(HttpHeaders.of(HttpMethod.GET, "/armeria/log")
+                                          .add(HttpHeaderNames.USER_AGENT, "armeria/x.y.z")
+                                          .add(HttpHeaderNames.REFERER, "http://log.example.com")
+                                          .add(HttpHeaderNames.COOKIE, "a=1;b=2"))).build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.endRequest();
+        logBuilder.responseHeaders(HttpHeaders.of(HttpStatus.OK)
+                                              .add(HttpHeaderNames.CONTENT_TYPE, "text/plain"));
+        logBuilder.responseLength(1024);
+        logBuilder.endResponse();
+        log = ctx.log();
+        buf = new StringBuilder(256);
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(log);
+    }
+
+    @Benchmark
+    public int formatIntoReusedBuilder() {
+        buf.setLength(0);
+        return formatter.format(buf, log).length();
+    }
+}
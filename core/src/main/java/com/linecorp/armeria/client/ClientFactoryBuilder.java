@@ -108,6 +108,7 @@ public final class ClientFactoryBuilder {
     private long idleTimeoutMillis = Flags.defaultClientIdleTimeoutMillis();
     private boolean useHttp2Preface = Flags.defaultUseHttp2Preface();
     private boolean useHttp1Pipelining = Flags.defaultUseHttp1Pipelining();
+    private boolean shareHttp2Connections = Flags.defaultShareHttp2Connections();
     private ConnectionPoolListener connectionPoolListener = DEFAULT_CONNECTION_POOL_LISTENER;
     private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
@@ -352,6 +353,19 @@ public final class ClientFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets whether to share HTTP/2 connections between the event loops of the {@link ClientFactory}.
+     * When enabled, a request acquires a stream from the least loaded HTTP/2 connection to the endpoint,
+     * regardless of which event loop the connection belongs to, so that a client with many event loops
+     * does not open as many connections to each endpoint. A new connection is made only when all existing
+     * connections reached their {@code MAX_CONCURRENT_STREAMS}. This does not affect HTTP/1 connections.
+     * This option is disabled by default.
+     */
+    public ClientFactoryBuilder shareHttp2Connections(boolean shareHttp2Connections) {
+        this.shareHttp2Connections = shareHttp2Connections;
+        return this;
+    }
+
     /**
      * Sets the listener which is notified on a connection pool event.
      */
@@ -387,7 +401,7 @@ public final class ClientFactoryBuilder {
                 addressResolverGroupFactory, http2InitialConnectionWindowSize, http2InitialStreamWindowSize,
                 http2MaxFrameSize, http2MaxHeaderListSize, http1MaxInitialLineLength, http1MaxHeaderSize,
                 http1MaxChunkSize, idleTimeoutMillis, useHttp2Preface,
-                useHttp1Pipelining, connectionPoolListener, meterRegistry));
+                useHttp1Pipelining, shareHttp2Connections, connectionPoolListener, meterRegistry));
     }
 
     @Override
@@ -396,7 +410,8 @@ public final class ClientFactoryBuilder {
                         sslContextCustomizer, addressResolverGroupFactory, http2InitialConnectionWindowSize,
                         http2InitialStreamWindowSize, http2MaxFrameSize, http2MaxHeaderListSize,
                         http1MaxInitialLineLength, http1MaxHeaderSize, http1MaxChunkSize, idleTimeoutMillis,
-                        useHttp2Preface, useHttp1Pipelining, connectionPoolListener, meterRegistry);
+                        useHttp2Preface, useHttp1Pipelining, shareHttp2Connections, connectionPoolListener,
+                        meterRegistry);
     }
 
     static String toString(
@@ -410,7 +425,7 @@ public final class ClientFactoryBuilder {
             int http2InitialConnectionWindowSize, int http2InitialStreamWindowSize, int http2MaxFrameSize,
             long http2MaxHeaderListSize, int http1MaxInitialLineLength, int http1MaxHeaderSize,
             int http1MaxChunkSize, long idleTimeoutMillis, boolean useHttp2Preface, boolean useHttp1Pipelining,
-            ConnectionPoolListener connectionPoolListener,
+            boolean shareHttp2Connections, ConnectionPoolListener connectionPoolListener,
             MeterRegistry meterRegistry) {
 
         final ToStringHelper helper = MoreObjects.toStringHelper(self).omitNullValues();
@@ -425,7 +440,8 @@ public final class ClientFactoryBuilder {
               .add("http1MaxChunkSize", http1MaxChunkSize)
               .add("idleTimeoutMillis", idleTimeoutMillis)
               .add("useHttp2Preface", useHttp2Preface)
-              .add("useHttp1Pipelining", useHttp1Pipelining);
+              .add("useHttp1Pipelining", useHttp1Pipelining)
+              .add("shareHttp2Connections", shareHttp2Connections);
 
         if (connectionPoolListener != DEFAULT_CONNECTION_POOL_LISTENER) {
             helper.add("connectionPoolListener", connectionPoolListener);
@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.MoreObjects;
 
+import com.linecorp.armeria.client.SharedHttp2ChannelPool.SharedHttp2PooledChannel;
 import com.linecorp.armeria.common.SessionProtocol;
 
 import io.netty.bootstrap.Bootstrap;
@@ -66,13 +67,17 @@ final class HttpChannelPool implements AutoCloseable {
     private final Map<PoolKey, CompletableFuture<PooledChannel>>[] pendingAcquisitions;
     private final Map<Channel, Boolean> allChannels;
     private final ConnectionPoolListener listener;
+    @Nullable
+    private final SharedHttp2ChannelPool sharedHttp2Pool;
 
     // Fields for creating a new connection:
     private final Bootstrap[] bootstraps;
     private final int connectTimeoutMillis;
 
-    HttpChannelPool(HttpClientFactory clientFactory, EventLoop eventLoop, ConnectionPoolListener listener) {
+    HttpChannelPool(HttpClientFactory clientFactory, EventLoop eventLoop, ConnectionPoolListener listener,
+                    @Nullable SharedHttp2ChannelPool sharedHttp2Pool) {
         this.eventLoop = eventLoop;
+        this.sharedHttp2Pool = sharedHttp2Pool;
         pool = newEnumMap(
                 Map.class,
                 unused -> new HashMap<>(),
@@ -161,6 +166,10 @@ final class HttpChannelPool implements AutoCloseable {
      */
     @Nullable
     PooledChannel acquireNow(SessionProtocol desiredProtocol, PoolKey key) {
+        if (sharedHttp2Pool != null) {
+            return acquireNowShared(desiredProtocol, key);
+        }
+
         PooledChannel ch;
         switch (desiredProtocol) {
             case HTTP:
@@ -181,6 +190,37 @@ final class HttpChannelPool implements AutoCloseable {
         return ch;
     }
 
+    /**
+     * Similar to {@link #acquireNow(SessionProtocol, PoolKey)}, but HTTP/2 connections are acquired from
+     * the {@link SharedHttp2ChannelPool} while HTTP/1 connections are acquired from this pool.
+     */
+    @Nullable
+    private PooledChannel acquireNowShared(SessionProtocol desiredProtocol, PoolKey key) {
+        assert sharedHttp2Pool != null;
+        PooledChannel ch;
+        switch (desiredProtocol) {
+            case HTTP:
+                ch = sharedHttp2Pool.acquireNow(SessionProtocol.H2C, key);
+                if (ch == null) {
+                    ch = acquireNowExact(key, SessionProtocol.H1C);
+                }
+                break;
+            case HTTPS:
+                ch = sharedHttp2Pool.acquireNow(SessionProtocol.H2, key);
+                if (ch == null) {
+                    ch = acquireNowExact(key, SessionProtocol.H1);
+                }
+                break;
+            case H2:
+            case H2C:
+                ch = sharedHttp2Pool.acquireNow(desiredProtocol, key);
+                break;
+            default:
+                ch = acquireNowExact(key, desiredProtocol);
+        }
+        return ch;
+    }
+
     @Nullable
     private PooledChannel acquireNowExact(PoolKey key, SessionProtocol protocol) {
         final Deque<PooledChannel> queue = getPool(protocol, key);
@@ -256,24 +296,45 @@ final class HttpChannelPool implements AutoCloseable {
             return false;
         }
 
-        final CompletableFuture<PooledChannel> pendingAcquisition =
-                getPendingAcquisition(desiredProtocol, key);
+        final CompletableFuture<PooledChannel> pendingAcquisition;
+        if (sharedHttp2Pool != null) {
+            // Note that the promise is registered as a new pending acquisition if there's none,
+            // so that the other event loops can wait for the connection attempt we are about to make.
+            pendingAcquisition = sharedHttp2Pool.pendingAcquisition(desiredProtocol, key, promise);
+        } else {
+            pendingAcquisition = getPendingAcquisition(desiredProtocol, key);
+        }
 
         if (pendingAcquisition == null) {
             return false;
         }
 
         pendingAcquisition.handle((pch, cause) -> {
-            if (cause == null) {
-                final SessionProtocol actualProtocol = pch.protocol();
-                if (actualProtocol.isMultiplex()) {
+            if (eventLoop.inEventLoop()) {
+                handlePendingAcquisition(desiredProtocol, key, pch, cause, promise);
+            } else {
+                // The connection attempt was made by another event loop.
+                eventLoop.execute(() -> handlePendingAcquisition(desiredProtocol, key, pch, cause, promise));
+            }
+            return null;
+        });
+
+        return true;
+    }
+
+    private void handlePendingAcquisition(SessionProtocol desiredProtocol, PoolKey key,
+                                          @Nullable PooledChannel pch, @Nullable Throwable cause,
+                                          CompletableFuture<PooledChannel> promise) {
+        if (cause == null) {
+            assert pch != null;
+            final SessionProtocol actualProtocol = pch.protocol();
+            if (actualProtocol.isMultiplex()) {
+                if (sharedHttp2Pool == null) {
                     promise.complete(pch);
                 } else {
-                    // Try to acquire again because the connection was not HTTP/2.
-                    // We use the exact protocol (H1 or H1C) instead of 'desiredProtocol' so that
-                    // we do not waste our time looking for pending acquisitions for the host
-                    // that does not support HTTP/2.
-                    final PooledChannel ch = acquireNow(actualProtocol, key);
+                    // The stream reserved in 'pch' belongs to the request which made the connection
+                    // attempt, so we have to reserve our own stream.
+                    final PooledChannel ch = sharedHttp2Pool.acquireNow(actualProtocol, key);
                     if (ch != null) {
                         promise.complete(ch);
                     } else {
@@ -281,13 +342,21 @@ final class HttpChannelPool implements AutoCloseable {
                     }
                 }
             } else {
-                // The pending connection attempt has failed.
-                connect(desiredProtocol, key, promise);
+                // Try to acquire again because the connection was not HTTP/2.
+                // We use the exact protocol (H1 or H1C) instead of 'desiredProtocol' so that
+                // we do not waste our time looking for pending acquisitions for the host
+                // that does not support HTTP/2.
+                final PooledChannel ch = acquireNow(actualProtocol, key);
+                if (ch != null) {
+                    promise.complete(ch);
+                } else {
+                    connect(actualProtocol, key, promise);
+                }
             }
-            return null;
-        });
-
-        return true;
+        } else {
+            // The pending connection attempt has failed.
+            connect(desiredProtocol, key, promise);
+        }
     }
 
     private void connect(SessionProtocol desiredProtocol, PoolKey key,
@@ -375,6 +444,9 @@ final class HttpChannelPool implements AutoCloseable {
                                Future<Channel> future, CompletableFuture<PooledChannel> promise) {
         assert future.isDone();
         removePendingAcquisition(desiredProtocol, key);
+        if (sharedHttp2Pool != null) {
+            sharedHttp2Pool.removePendingAcquisition(desiredProtocol, key, promise);
+        }
 
         try {
             if (future.isSuccess()) {
@@ -401,8 +473,23 @@ final class HttpChannelPool implements AutoCloseable {
                 }
 
                 final HttpSession session = HttpSession.get(channel);
+                final SharedHttp2PooledChannel sharedPooledChannel;
+                if (sharedHttp2Pool != null && protocol.isMultiplex()) {
+                    sharedPooledChannel = new SharedHttp2PooledChannel(channel, protocol);
+                } else {
+                    sharedPooledChannel = null;
+                }
+
                 if (session.unfinishedResponses() < session.maxUnfinishedResponses()) {
-                    if (protocol.isMultiplex()) {
+                    if (sharedPooledChannel != null) {
+                        assert sharedHttp2Pool != null;
+                        // Reserve a stream for the current request before exposing the connection
+                        // to other event loops.
+                        final boolean reserved = sharedPooledChannel.tryReserveStream();
+                        assert reserved;
+                        sharedHttp2Pool.add(key, sharedPooledChannel);
+                        promise.complete(sharedPooledChannel);
+                    } else if (protocol.isMultiplex()) {
                         final Http2PooledChannel pooledChannel = new Http2PooledChannel(channel, protocol);
                         addToPool(protocol, key, pooledChannel);
                         promise.complete(pooledChannel);
@@ -418,6 +505,11 @@ final class HttpChannelPool implements AutoCloseable {
                 channel.closeFuture().addListener(f -> {
                     allChannels.remove(channel);
 
+                    if (sharedPooledChannel != null) {
+                        assert sharedHttp2Pool != null;
+                        sharedHttp2Pool.remove(key, sharedPooledChannel);
+                    }
+
                     // Clean up old unhealthy channels by iterating from the beginning of the queue.
                     final Deque<PooledChannel> queue = getPool(protocol, key);
                     if (queue != null) {
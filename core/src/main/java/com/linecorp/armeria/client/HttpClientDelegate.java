@@ -26,6 +26,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 
 import com.linecorp.armeria.client.HttpChannelPool.PoolKey;
+import com.linecorp.armeria.client.SharedHttp2ChannelPool.SharedHttp2PooledChannel;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.SessionProtocol;
@@ -188,6 +189,13 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
     private void doExecute(PooledChannel pooledChannel, ClientRequestContext ctx,
                            HttpRequest req, DecodedHttpResponse res) {
         final Channel channel = pooledChannel.get();
+        final EventLoop channelEventLoop = channel.eventLoop();
+        if (!channelEventLoop.inEventLoop()) {
+            // A shared HTTP/2 connection which belongs to another event loop.
+            channelEventLoop.execute(() -> doExecute(pooledChannel, ctx, req, res));
+            return;
+        }
+
         boolean needsRelease = true;
         try {
             final HttpSession session = HttpSession.get(channel);
@@ -219,6 +227,12 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
                         pooledChannel.release();
                         return null;
                     });
+                } else if (pooledChannel instanceof SharedHttp2PooledChannel) {
+                    // Return the reserved stream when the response is complete.
+                    res.completionFuture().handle((ret, cause) -> {
+                        pooledChannel.release();
+                        return null;
+                    });
                 } else {
                     // HTTP/2 connections do not need to get returned.
                 }
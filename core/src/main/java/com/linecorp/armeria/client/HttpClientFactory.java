@@ -31,6 +31,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.MapMaker;
 
 import com.linecorp.armeria.common.HttpRequest;
@@ -75,6 +77,8 @@ final class HttpClientFactory extends AbstractClientFactory {
     private final long idleTimeoutMillis;
     private final boolean useHttp2Preface;
     private final boolean useHttp1Pipelining;
+    @Nullable
+    private final SharedHttp2ChannelPool sharedHttp2Pool;
     private final ConnectionPoolListener connectionPoolListener;
     private MeterRegistry meterRegistry;
 
@@ -96,7 +100,8 @@ final class HttpClientFactory extends AbstractClientFactory {
             int http2InitialConnectionWindowSize, int http2InitialStreamWindowSize, int http2MaxFrameSize,
             long http2MaxHeaderListSize, int http1MaxInitialLineLength, int http1MaxHeaderSize,
             int http1MaxChunkSize, long idleTimeoutMillis, boolean useHttp2Preface, boolean useHttp1Pipelining,
-            ConnectionPoolListener connectionPoolListener, MeterRegistry meterRegistry) {
+            boolean shareHttp2Connections, ConnectionPoolListener connectionPoolListener,
+            MeterRegistry meterRegistry) {
 
         @SuppressWarnings("unchecked")
         final AddressResolverGroup<InetSocketAddress> addressResolverGroup =
@@ -126,6 +131,7 @@ final class HttpClientFactory extends AbstractClientFactory {
         this.idleTimeoutMillis = idleTimeoutMillis;
         this.useHttp2Preface = useHttp2Preface;
         this.useHttp1Pipelining = useHttp1Pipelining;
+        sharedHttp2Pool = shareHttp2Connections ? new SharedHttp2ChannelPool() : null;
         this.connectionPoolListener = connectionPoolListener;
         this.meterRegistry = meterRegistry;
 
@@ -293,6 +299,7 @@ final class HttpClientFactory extends AbstractClientFactory {
         }
 
         return pools.computeIfAbsent(eventLoop,
-                                     e -> new HttpChannelPool(this, eventLoop, connectionPoolListener()));
+                                     e -> new HttpChannelPool(this, eventLoop, connectionPoolListener(),
+                                                               sharedHttp2Pool));
     }
 }
@@ -83,9 +83,10 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
 
     /**
      * The maximum number of unfinished requests. In HTTP/2, this value is identical to MAX_CONCURRENT_STREAMS.
-     * In HTTP/1, this value stays at {@link Integer#MAX_VALUE}.
+     * In HTTP/1, this value stays at {@link Integer#MAX_VALUE}. This field is volatile because it is read by
+     * other event loops when the connection is shared via {@link SharedHttp2ChannelPool}.
      */
-    private int maxUnfinishedResponses = Integer.MAX_VALUE;
+    private volatile int maxUnfinishedResponses = Integer.MAX_VALUE;
 
     /**
      * The number of requests sent. Disconnects when it reaches at {@link #MAX_NUM_REQUESTS_SENT}.
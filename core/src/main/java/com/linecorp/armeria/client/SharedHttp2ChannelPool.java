@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.HttpChannelPool.PoolKey;
+import com.linecorp.armeria.common.SessionProtocol;
+
+import io.netty.channel.Channel;
+
+/**
+ * A pool of HTTP/2 connections which is shared by all {@link HttpChannelPool}s of an
+ * {@link HttpClientFactory}, so that a client with many event loops does not open a separate connection
+ * to the same endpoint for each event loop. Acquisition never takes a lock; the connections of each
+ * {@link PoolKey} are kept in a copy-on-write array and a stream is reserved with a CAS operation on
+ * the per-connection stream counter.
+ */
+final class SharedHttp2ChannelPool {
+
+    private final ConcurrentMap<PoolKey, SharedHttp2PooledChannel[]> h2Pool = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PoolKey, SharedHttp2PooledChannel[]> h2cPool = new ConcurrentHashMap<>();
+
+    /**
+     * The connection attempts in progress, indexed by {@link SessionProtocol#ordinal()} of
+     * the desired protocol.
+     */
+    @SuppressWarnings("unchecked")
+    private final ConcurrentMap<PoolKey, CompletableFuture<PooledChannel>>[] pendingAcquisitions =
+            new ConcurrentMap[SessionProtocol.values().length];
+
+    SharedHttp2ChannelPool() {
+        for (SessionProtocol p : new SessionProtocol[] {
+                SessionProtocol.HTTP, SessionProtocol.HTTPS, SessionProtocol.H2, SessionProtocol.H2C }) {
+            pendingAcquisitions[p.ordinal()] = new ConcurrentHashMap<>();
+        }
+    }
+
+    private ConcurrentMap<PoolKey, SharedHttp2PooledChannel[]> pool(SessionProtocol protocol) {
+        switch (protocol) {
+            case H2:
+                return h2Pool;
+            case H2C:
+                return h2cPool;
+            default:
+                throw new Error(); // Should never reach here.
+        }
+    }
+
+    /**
+     * Returns the pending acquisitions of the specified {@link SessionProtocol}, or {@code null} for HTTP/1
+     * because HTTP/1 connections are never shared.
+     */
+    @Nullable
+    private ConcurrentMap<PoolKey, CompletableFuture<PooledChannel>> pendingAcquisitions(
+            SessionProtocol desiredProtocol) {
+        return pendingAcquisitions[desiredProtocol.ordinal()];
+    }
+
+    /**
+     * Attempts to reserve a stream from the connection with the fewest active streams.
+     *
+     * @return {@code null} if there's no connection which can accept a new stream.
+     */
+    @Nullable
+    SharedHttp2PooledChannel acquireNow(SessionProtocol protocol, PoolKey key) {
+        final SharedHttp2PooledChannel[] channels = pool(protocol).get(key);
+        if (channels == null) {
+            return null;
+        }
+
+        for (;;) {
+            SharedHttp2PooledChannel leastLoaded = null;
+            int minActiveStreams = Integer.MAX_VALUE;
+            for (SharedHttp2PooledChannel pch : channels) {
+                if (!pch.isHealthy()) {
+                    continue;
+                }
+                final int activeStreams = pch.activeStreams;
+                if (activeStreams < minActiveStreams && activeStreams < pch.maxStreams()) {
+                    leastLoaded = pch;
+                    minActiveStreams = activeStreams;
+                }
+            }
+
+            if (leastLoaded == null) {
+                return null;
+            }
+
+            if (leastLoaded.tryReserveStream()) {
+                return leastLoaded;
+            }
+            // Lost the race for the last stream of the selected connection. Try again.
+        }
+    }
+
+    /**
+     * Adds the specified {@link SharedHttp2PooledChannel} to this pool.
+     */
+    void add(PoolKey key, SharedHttp2PooledChannel pch) {
+        pool(pch.protocol()).compute(key, (unused, oldChannels) -> {
+            if (oldChannels == null) {
+                return new SharedHttp2PooledChannel[] { pch };
+            }
+            final SharedHttp2PooledChannel[] newChannels =
+                    Arrays.copyOf(oldChannels, oldChannels.length + 1);
+            newChannels[oldChannels.length] = pch;
+            return newChannels;
+        });
+    }
+
+    /**
+     * Removes the specified {@link SharedHttp2PooledChannel} and all other unhealthy connections
+     * from this pool.
+     */
+    void remove(PoolKey key, SharedHttp2PooledChannel pch) {
+        pool(pch.protocol()).computeIfPresent(key, (unused, oldChannels) -> {
+            int numHealthyChannels = 0;
+            final SharedHttp2PooledChannel[] newChannels = new SharedHttp2PooledChannel[oldChannels.length];
+            for (SharedHttp2PooledChannel c : oldChannels) {
+                if (c != pch && c.isHealthy()) {
+                    newChannels[numHealthyChannels++] = c;
+                }
+            }
+
+            if (numHealthyChannels == 0) {
+                return null;
+            }
+            return numHealthyChannels == oldChannels.length ? newChannels
+                                                            : Arrays.copyOf(newChannels, numHealthyChannels);
+        });
+    }
+
+    /**
+     * Returns the connection attempt in progress for the specified {@link PoolKey} if there's any.
+     * Otherwise, registers the specified {@code promise} as a new connection attempt and returns
+     * {@code null}.
+     */
+    @Nullable
+    CompletableFuture<PooledChannel> pendingAcquisition(SessionProtocol desiredProtocol, PoolKey key,
+                                                        CompletableFuture<PooledChannel> promise) {
+        final ConcurrentMap<PoolKey, CompletableFuture<PooledChannel>> pendingAcquisitions =
+                pendingAcquisitions(desiredProtocol);
+        if (pendingAcquisitions == null) {
+            return null;
+        }
+        return pendingAcquisitions.putIfAbsent(key, promise);
+    }
+
+    void removePendingAcquisition(SessionProtocol desiredProtocol, PoolKey key,
+                                  CompletableFuture<PooledChannel> promise) {
+        final ConcurrentMap<PoolKey, CompletableFuture<PooledChannel>> pendingAcquisitions =
+                pendingAcquisitions(desiredProtocol);
+        if (pendingAcquisitions != null) {
+            pendingAcquisitions.remove(key, promise);
+        }
+    }
+
+    /**
+     * An HTTP/2 {@link PooledChannel} which may be acquired by any event loop. {@link #release()} must be
+     * called when the response is complete so that the reserved stream is returned.
+     */
+    static final class SharedHttp2PooledChannel extends PooledChannel {
+
+        private static final AtomicIntegerFieldUpdater<SharedHttp2PooledChannel> activeStreamsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(SharedHttp2PooledChannel.class, "activeStreams");
+
+        private volatile int activeStreams;
+
+        SharedHttp2PooledChannel(Channel channel, SessionProtocol protocol) {
+            super(channel, protocol);
+        }
+
+        boolean isHealthy() {
+            final Channel ch = get();
+            return ch.isActive() && HttpSession.get(ch).canSendRequest();
+        }
+
+        int maxStreams() {
+            return HttpSession.get(get()).maxUnfinishedResponses();
+        }
+
+        boolean tryReserveStream() {
+            for (;;) {
+                final int activeStreams = this.activeStreams;
+                if (activeStreams >= maxStreams()) {
+                    return false;
+                }
+                if (activeStreamsUpdater.compareAndSet(this, activeStreams, activeStreams + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void release() {
+            activeStreamsUpdater.decrementAndGet(this);
+        }
+    }
+}
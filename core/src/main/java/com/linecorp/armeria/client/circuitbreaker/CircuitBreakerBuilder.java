@@ -63,6 +63,8 @@ public final class CircuitBreakerBuilder {
 
     private Duration counterUpdateInterval = Defaults.COUNTER_UPDATE_INTERVAL;
 
+    private boolean useRingBufferCounter;
+
     private Ticker ticker = Defaults.TICKER;
 
     private List<CircuitBreakerListener> listeners = Collections.emptyList();
@@ -197,6 +199,18 @@ public final class CircuitBreakerBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the count of events is accumulated into a preallocated ring buffer of
+     * {@code ceil(counterSlidingWindow / counterUpdateInterval)} buckets which are updated without
+     * a lock or an allocation. It reduces the contention and garbage under a high request rate, but it
+     * consumes more memory than the default counter when the ratio of the sliding window to
+     * the update interval is large. The default value is {@code false}.
+     */
+    public CircuitBreakerBuilder useRingBufferCounter(boolean useRingBufferCounter) {
+        this.useRingBufferCounter = useRingBufferCounter;
+        return this;
+    }
+
     /**
      * Adds a {@link CircuitBreakerListener}.
      */
@@ -228,6 +242,7 @@ public final class CircuitBreakerBuilder {
                 new CircuitBreakerConfig(name, failureRateThreshold, minimumRequestThreshold,
                                          circuitOpenWindow, trialRequestInterval,
                                          counterSlidingWindow, counterUpdateInterval,
+                                         useRingBufferCounter,
                                          Collections.unmodifiableList(listeners)));
     }
 }
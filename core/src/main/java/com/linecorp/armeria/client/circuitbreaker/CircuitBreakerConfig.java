@@ -41,13 +41,15 @@ class CircuitBreakerConfig {
 
     private final Duration counterUpdateInterval;
 
+    private final boolean useRingBufferCounter;
+
     private final List<CircuitBreakerListener> listeners;
 
     CircuitBreakerConfig(Optional<String> name,
                          double failureRateThreshold, long minimumRequestThreshold,
                          Duration circuitOpenWindow, Duration trialRequestInterval,
                          Duration counterSlidingWindow, Duration counterUpdateInterval,
-                         List<CircuitBreakerListener> listeners) {
+                         boolean useRingBufferCounter, List<CircuitBreakerListener> listeners) {
         this.name = name;
         this.failureRateThreshold = failureRateThreshold;
         this.minimumRequestThreshold = minimumRequestThreshold;
@@ -55,6 +57,7 @@ class CircuitBreakerConfig {
         this.trialRequestInterval = trialRequestInterval;
         this.counterSlidingWindow = counterSlidingWindow;
         this.counterUpdateInterval = counterUpdateInterval;
+        this.useRingBufferCounter = useRingBufferCounter;
         this.listeners = listeners;
     }
 
@@ -86,6 +89,10 @@ class CircuitBreakerConfig {
         return counterUpdateInterval;
     }
 
+    boolean useRingBufferCounter() {
+        return useRingBufferCounter;
+    }
+
     List<CircuitBreakerListener> listeners() {
         return listeners;
     }
@@ -101,6 +108,7 @@ class CircuitBreakerConfig {
                 .add("trialRequestInterval", trialRequestInterval)
                 .add("counterSlidingWindow", counterSlidingWindow)
                 .add("counterUpdateInterval", counterUpdateInterval)
+                .add("useRingBufferCounter", useRingBufferCounter)
                 .toString();
     }
 }
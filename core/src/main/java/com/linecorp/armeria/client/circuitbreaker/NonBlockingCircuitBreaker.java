@@ -148,11 +148,15 @@ final class NonBlockingCircuitBreaker implements CircuitBreaker {
     }
 
     private State newClosedState() {
-        return new State(
-                CircuitState.CLOSED,
-                Duration.ZERO,
-                new SlidingWindowCounter(ticker, config.counterSlidingWindow(),
-                                         config.counterUpdateInterval()));
+        final EventCounter counter;
+        if (config.useRingBufferCounter()) {
+            counter = new RingBufferCounter(ticker, config.counterSlidingWindow(),
+                                            config.counterUpdateInterval());
+        } else {
+            counter = new SlidingWindowCounter(ticker, config.counterSlidingWindow(),
+                                               config.counterUpdateInterval());
+        }
+        return new State(CircuitState.CLOSED, Duration.ZERO, counter);
     }
 
     private void logStateTransition(CircuitState circuitState, @Nullable EventCount count) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.circuitbreaker;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Ticker;
+import com.google.common.math.LongMath;
+
+/**
+ * An {@link EventCounter} that accumulates the count of events within a time window, using a preallocated
+ * ring buffer of buckets instead of allocating a new bucket for every {@code updateInterval}.
+ *
+ * <p>Each bucket is a {@code long} whose upper 32 bits are the sequence number of the {@code updateInterval}
+ * it belongs to, i.e. its epoch, and whose lower 32 bits are the count of events. A bucket of an old epoch
+ * is reset with a single CAS operation when it is reused, so no lock is required and nothing is allocated
+ * on each event. To reduce contention, the buckets are striped by thread.
+ *
+ * <p>Note that the ring buffer has {@code ceil(slidingWindow / updateInterval) + 1} buckets, so this counter
+ * is suitable when the ratio of {@code slidingWindow} to {@code updateInterval} is not large.
+ */
+final class RingBufferCounter implements EventCounter {
+
+    private static final int NUM_STRIPES =
+            Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private static final int SUCCESS = 0;
+    private static final int FAILURE = 1;
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final Ticker ticker;
+
+    private final long startNanos;
+
+    private final long updateIntervalNanos;
+
+    /**
+     * The number of buckets in the time window, excluding the current bucket.
+     */
+    private final int numWindowBuckets;
+
+    private final int ringSize;
+
+    /**
+     * The buckets laid out as {@code [stripe][ringSize][SUCCESS, FAILURE]}.
+     */
+    private final AtomicLongArray buckets;
+
+    /**
+     * The epoch when {@link #snapshot} was updated last time.
+     */
+    private final AtomicLong lastUpdatedEpoch = new AtomicLong();
+
+    private volatile EventCount snapshot = EventCount.ZERO;
+
+    RingBufferCounter(Ticker ticker, Duration slidingWindow, Duration updateInterval) {
+        this.ticker = requireNonNull(ticker, "ticker");
+        final long slidingWindowNanos = requireNonNull(slidingWindow, "slidingWindow").toNanos();
+        updateIntervalNanos = requireNonNull(updateInterval, "updateInterval").toNanos();
+        numWindowBuckets = Math.toIntExact(
+                LongMath.divide(slidingWindowNanos, updateIntervalNanos, RoundingMode.CEILING));
+        ringSize = numWindowBuckets + 1;
+        buckets = new AtomicLongArray(NUM_STRIPES * ringSize * 2);
+        startNanos = ticker.read();
+    }
+
+    @Override
+    public EventCount count() {
+        return snapshot;
+    }
+
+    @Override
+    public Optional<EventCount> onSuccess() {
+        return onEvent(SUCCESS);
+    }
+
+    @Override
+    public Optional<EventCount> onFailure() {
+        return onEvent(FAILURE);
+    }
+
+    private Optional<EventCount> onEvent(int event) {
+        // A negative epoch may happen when the ticker goes backward. Count it into the first bucket.
+        final long epoch = Math.max(0, (ticker.read() - startNanos) / updateIntervalNanos);
+        increment(epoch, event);
+
+        final long lastUpdatedEpoch = this.lastUpdatedEpoch.get();
+        if (epoch <= lastUpdatedEpoch || !this.lastUpdatedEpoch.compareAndSet(lastUpdatedEpoch, epoch)) {
+            return Optional.empty();
+        }
+
+        // It's time to update the count with the buckets before the current one.
+        final EventCount eventCount = sum(epoch);
+        snapshot = eventCount;
+        return Optional.of(eventCount);
+    }
+
+    private void increment(long epoch, int event) {
+        final int stripe = (int) Thread.currentThread().getId() & (NUM_STRIPES - 1);
+        final int index = index(stripe, (int) (epoch % ringSize), event);
+        final int epochBits = (int) epoch;
+        for (;;) {
+            final long oldValue = buckets.get(index);
+            final long newValue;
+            if ((int) (oldValue >>> 32) == epochBits) {
+                newValue = oldValue + 1;
+            } else if (epochBits - (int) (oldValue >>> 32) > 0) {
+                // Reuse the bucket of an old epoch.
+                newValue = pack(epochBits, 1);
+            } else {
+                // The bucket has been reused for a newer epoch already because the current thread
+                // was delayed for longer than the time window. Count it into the newer epoch not to lose it.
+                newValue = oldValue + 1;
+            }
+
+            if (buckets.compareAndSet(index, oldValue, newValue)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sums up the buckets within the time window which ends right before the specified epoch.
+     */
+    private EventCount sum(long currentEpoch) {
+        final int currentEpochBits = (int) currentEpoch;
+        long success = 0;
+        long failure = 0;
+        for (int stripe = 0; stripe < NUM_STRIPES; stripe++) {
+            for (int slot = 0; slot < ringSize; slot++) {
+                success += countIfInWindow(buckets.get(index(stripe, slot, SUCCESS)), currentEpochBits);
+                failure += countIfInWindow(buckets.get(index(stripe, slot, FAILURE)), currentEpochBits);
+            }
+        }
+        return new EventCount(success, failure);
+    }
+
+    private long countIfInWindow(long value, int currentEpochBits) {
+        final int age = currentEpochBits - (int) (value >>> 32);
+        if (age < 1 || age > numWindowBuckets) {
+            return 0;
+        }
+        return value & COUNT_MASK;
+    }
+
+    private int index(int stripe, int slot, int event) {
+        return (stripe * ringSize + slot) * 2 + event;
+    }
+
+    private static long pack(int epochBits, long count) {
+        return (long) epochBits << 32 | count;
+    }
+}
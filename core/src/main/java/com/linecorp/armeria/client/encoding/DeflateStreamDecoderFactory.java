@@ -16,6 +16,9 @@
 
 package com.linecorp.armeria.client.encoding;
 
+import static java.util.Objects.requireNonNull;
+
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.compression.ZlibWrapper;
 
 /**
@@ -32,4 +35,9 @@ public class DeflateStreamDecoderFactory implements StreamDecoderFactory {
     public StreamDecoder newDecoder() {
         return new ZlibStreamDecoder(ZlibWrapper.ZLIB);
     }
+
+    @Override
+    public StreamDecoder newDecoder(ByteBufAllocator alloc) {
+        return new ZlibStreamDecoder(ZlibWrapper.ZLIB, requireNonNull(alloc, "alloc"));
+    }
 }
@@ -32,6 +32,12 @@ import com.linecorp.armeria.common.HttpObject;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.HttpStatusClass;
+import com.linecorp.armeria.common.stream.CancelledSubscriptionException;
+import com.linecorp.armeria.internal.PooledObjects;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * A {@link FilteredHttpResponse} that applies HTTP decoding to {@link HttpObject}s as they are published.
@@ -39,14 +45,46 @@ import com.linecorp.armeria.common.HttpStatusClass;
 class HttpDecodedResponse extends FilteredHttpResponse {
 
     private final Map<String, StreamDecoderFactory> availableDecoders;
+    private final ByteBufAllocator alloc;
 
     @Nullable
     private StreamDecoder responseDecoder;
     private boolean headersReceived;
+    private boolean withPooledObjects;
 
-    HttpDecodedResponse(HttpResponse delegate, Map<String, StreamDecoderFactory> availableDecoders) {
-        super(delegate);
+    HttpDecodedResponse(HttpResponse delegate, Map<String, StreamDecoderFactory> availableDecoders,
+                        ByteBufAllocator alloc) {
+        // Receive the pooled objects, so that the content is inflated without making a copy.
+        super(delegate, true);
         this.availableDecoders = availableDecoders;
+        this.alloc = alloc;
+    }
+
+    // Always subscribe to the delegate with the pooled objects, and remember whether the subscriber accepts
+    // them, so that the decoder can publish the decoded content in the pooled buffers and the content is
+    // copied only when the subscriber does not accept the pooled objects.
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber) {
+        subscribe(subscriber, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, true);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, EventExecutor executor) {
+        subscribe(subscriber, executor, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, EventExecutor executor,
+                          boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, executor, true);
     }
 
     @Override
@@ -79,7 +117,16 @@ class HttpDecodedResponse extends FilteredHttpResponse {
                 // If the server returned an encoding we don't support (shouldn't happen since we set
                 // Accept-Encoding), decoding will be skipped which is ok.
                 if (decoderFactory != null) {
-                    responseDecoder = decoderFactory.newDecoder();
+                    final StreamDecoder responseDecoder =
+                            withPooledObjects ? decoderFactory.newDecoder(alloc) : decoderFactory.newDecoder();
+                    this.responseDecoder = responseDecoder;
+                    // Release the resources of the decoder when the subscription is cancelled, which
+                    // calls neither beforeComplete() nor beforeError().
+                    completionFuture().whenComplete((unused, cause) -> {
+                        if (cause instanceof CancelledSubscriptionException) {
+                            ReferenceCountUtil.safeRelease(responseDecoder.finish());
+                        }
+                    });
                 }
             }
 
@@ -88,7 +135,16 @@ class HttpDecodedResponse extends FilteredHttpResponse {
 
         assert obj instanceof HttpData;
 
-        return responseDecoder != null ? responseDecoder.decode((HttpData) obj) : obj;
+        final StreamDecoder responseDecoder = this.responseDecoder;
+        if (responseDecoder == null) {
+            return withPooledObjects ? obj : PooledObjects.toUnpooled(obj);
+        }
+        if (responseDecoder instanceof ZlibStreamDecoder) {
+            // Inflate from the pooled buffer directly. The decoder releases it.
+            return responseDecoder.decode((HttpData) obj);
+        }
+        // A custom decoder may not release the pooled buffer, so give it a copy.
+        return responseDecoder.decode(PooledObjects.toUnpooled((HttpData) obj));
     }
 
     @Override
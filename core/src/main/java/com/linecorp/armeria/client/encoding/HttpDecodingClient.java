@@ -85,6 +85,6 @@ public final class HttpDecodingClient extends SimpleDecoratingClient<HttpRequest
         }
         req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncodingHeader);
         final HttpResponse res = delegate().execute(ctx, req);
-        return new HttpDecodedResponse(res, decoderFactories);
+        return new HttpDecodedResponse(res, decoderFactories, ctx.alloc());
     }
 }
@@ -16,8 +16,11 @@
 
 package com.linecorp.armeria.client.encoding;
 
+import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpResponse;
 
+import io.netty.buffer.ByteBufAllocator;
+
 /**
  * An interface that constructs a new {@link StreamDecoder} for a given Content-Encoding header value.
  * A new decoder is valid for the lifetime of an {@link HttpResponse}.
@@ -34,4 +37,14 @@ public interface StreamDecoderFactory {
      * {@link HttpResponse}.
      */
     StreamDecoder newDecoder();
+
+    /**
+     * Construct a new {@link StreamDecoder} to use to decode an {@link HttpResponse}. The returned
+     * {@link StreamDecoder} may return the pooled {@link HttpData}s allocated by the specified
+     * {@link ByteBufAllocator}, which must be released by the caller. By default, this method returns
+     * the {@link StreamDecoder} created by {@link #newDecoder()}.
+     */
+    default StreamDecoder newDecoder(ByteBufAllocator alloc) {
+        return newDecoder();
+    }
 }
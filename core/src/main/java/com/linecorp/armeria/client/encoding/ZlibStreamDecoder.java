@@ -16,65 +16,380 @@
 
 package com.linecorp.armeria.client.encoding;
 
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+
 import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufHolder;
-import io.netty.buffer.ByteBufUtil;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.embedded.EmbeddedChannel;
-import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.DecompressionException;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.util.concurrent.FastThreadLocal;
 
 /**
- * A {@link StreamDecoder} that user zlib ('gzip' or 'deflate'). Netty implementation used to allow
- * for incremental decoding using an {@link EmbeddedChannel}.
+ * A {@link StreamDecoder} that user zlib ('gzip' or 'deflate'). The content is inflated by an {@link Inflater}
+ * borrowed from the pool of the current thread, directly into the {@link ByteBuf}s allocated by
+ * the specified {@link ByteBufAllocator}. If no {@link ByteBufAllocator} is specified, the decoded
+ * {@link HttpData} is backed by an unpooled byte array.
+ *
+ * <p>The {@link Inflater} is returned to the pool by {@link #finish()} only when it is called by the thread
+ * which borrowed the {@link Inflater}. Otherwise, the {@link Inflater} is ended.
  */
 class ZlibStreamDecoder implements StreamDecoder {
 
-    private final EmbeddedChannel decoder;
+    /**
+     * The maximum number of the {@link Inflater}s kept in the pool of each thread.
+     */
+    private static final int MAX_POOLED_INFLATERS = 8;
+
+    private static final FastThreadLocal<ArrayDeque<Inflater>> wrappedInflaters = new InflaterPool();
+    private static final FastThreadLocal<ArrayDeque<Inflater>> unwrappedInflaters = new InflaterPool();
+
+    // See RFC 1952 for the gzip format.
+    private static final int GZIP_MAGIC1 = 0x1f;
+    private static final int GZIP_MAGIC2 = 0x8b;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+
+    /**
+     * Returns the number of the {@link Inflater}s in the pool of the current thread.
+     */
+    @VisibleForTesting
+    static int numPooledInflaters(boolean nowrap) {
+        return (nowrap ? unwrappedInflaters : wrappedInflaters).get().size();
+    }
+
+    private enum State {
+        HEADER, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HEADER_CRC, BODY, TRAILER, DONE
+    }
+
+    private final boolean gzip;
+    private final boolean nowrap;
+    @Nullable
+    private final ByteBufAllocator alloc;
+    @Nullable
+    private final CRC32 crc;
+    @Nullable
+    private Inflater inflater;
+    @Nullable
+    private Thread inflaterOwner;
+    @Nullable
+    private byte[] directInput;
+    private boolean finished;
+
+    private State state;
+    private int flags;
+    // The number of bytes read in the current state.
+    private int count;
+    private int extraLength;
+    private long trailer;
 
     ZlibStreamDecoder(ZlibWrapper zlibWrapper) {
-        decoder = new EmbeddedChannel(false, ZlibCodecFactory.newZlibDecoder(zlibWrapper));
+        this(zlibWrapper, null);
+    }
+
+    ZlibStreamDecoder(ZlibWrapper zlibWrapper, @Nullable ByteBufAllocator alloc) {
+        requireNonNull(zlibWrapper, "zlibWrapper");
+        switch (zlibWrapper) {
+            case GZIP:
+                gzip = true;
+                nowrap = true;
+                break;
+            case ZLIB:
+                gzip = false;
+                nowrap = false;
+                break;
+            case NONE:
+                gzip = false;
+                nowrap = true;
+                break;
+            default:
+                throw new IllegalArgumentException("zlibWrapper: " + zlibWrapper +
+                                                   " (expected: " + ZlibWrapper.GZIP + ", " +
+                                                   ZlibWrapper.ZLIB + " or " + ZlibWrapper.NONE + ')');
+        }
+        this.alloc = alloc;
+        crc = gzip ? new CRC32() : null;
+        state = gzip ? State.HEADER : State.BODY;
     }
 
     @Override
     public HttpData decode(HttpData obj) {
         if (obj instanceof ByteBufHolder) {
-            decoder.writeInbound(((ByteBufHolder) obj).content());
-        } else {
-            final ByteBuf compressed = Unpooled.wrappedBuffer(obj.array(), obj.offset(), obj.length());
-            decoder.writeInbound(compressed);
+            final ByteBufHolder holder = (ByteBufHolder) obj;
+            try {
+                final ByteBuf buf = holder.content();
+                final int length = buf.readableBytes();
+                if (buf.hasArray()) {
+                    return decode(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+                }
+
+                // An Inflater accepts only a byte array, so copy a direct buffer into a reusable array.
+                // It can be reused because decode() consumes all of its input.
+                byte[] directInput = this.directInput;
+                if (directInput == null || directInput.length < length) {
+                    this.directInput = directInput = new byte[length];
+                }
+                buf.getBytes(buf.readerIndex(), directInput, 0, length);
+                return decode(directInput, 0, length);
+            } finally {
+                holder.release();
+            }
+        }
+        return decode(obj.array(), obj.offset(), obj.length());
+    }
+
+    private HttpData decode(byte[] in, int offset, int length) {
+        final int end = offset + length;
+
+        ByteBuf out = null;
+        boolean success = false;
+        try {
+            while (offset < end) {
+                switch (state) {
+                    case BODY:
+                        if (out == null) {
+                            out = allocate(end - offset);
+                        }
+                        offset = inflate(in, offset, end, out);
+                        break;
+                    case TRAILER:
+                        offset = readTrailer(in, offset, end);
+                        break;
+                    case DONE:
+                        // Ignore the garbage after the end of the stream.
+                        offset = end;
+                        break;
+                    default:
+                        offset = readHeader(in, offset, end);
+                }
+            }
+            success = true;
+        } finally {
+            if (!success && out != null) {
+                out.release();
+            }
         }
-        return HttpData.of(fetchDecoderOutput());
+
+        return toHttpData(out);
     }
 
     @Override
     public HttpData finish() {
-        if (decoder.finish()) {
-            return HttpData.of(fetchDecoderOutput());
+        // Everything has been inflated by decode() already, so we only need to release the Inflater.
+        finished = true;
+        directInput = null;
+        final Inflater inflater = this.inflater;
+        if (inflater != null) {
+            this.inflater = null;
+            if (Thread.currentThread() == inflaterOwner) {
+                final ArrayDeque<Inflater> pool = pool();
+                if (pool.size() < MAX_POOLED_INFLATERS) {
+                    inflater.reset();
+                    pool.add(inflater);
+                    return HttpData.EMPTY_DATA;
+                }
+            }
+            inflater.end();
+        }
+        return HttpData.EMPTY_DATA;
+    }
+
+    private int inflate(byte[] in, int offset, int end, ByteBuf out) {
+        final Inflater inflater = inflater();
+        inflater.setInput(in, offset, end - offset);
+        try {
+            for (;;) {
+                if (!out.isWritable()) {
+                    out.ensureWritable(out.capacity());
+                }
+                final int writerIndex = out.writerIndex();
+                final int numBytes = inflater.inflate(out.array(), out.arrayOffset() + writerIndex,
+                                                      out.writableBytes());
+                if (numBytes > 0) {
+                    if (crc != null) {
+                        crc.update(out.array(), out.arrayOffset() + writerIndex, numBytes);
+                    }
+                    out.writerIndex(writerIndex + numBytes);
+                }
+
+                if (inflater.finished()) {
+                    state = gzip ? State.TRAILER : State.DONE;
+                    count = 0;
+                    return end - inflater.getRemaining();
+                }
+                if (inflater.needsDictionary()) {
+                    throw new DecompressionException("decompression failure: dictionary required");
+                }
+                if (inflater.needsInput() || (numBytes == 0 && out.isWritable())) {
+                    return end;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new DecompressionException("decompression failure", e);
+        }
+    }
+
+    private int readHeader(byte[] in, int offset, int end) {
+        while (offset < end && state != State.BODY) {
+            final int b = in[offset++] & 0xFF;
+            switch (state) {
+                case HEADER:
+                    if ((count == 0 && b != GZIP_MAGIC1) || (count == 1 && b != GZIP_MAGIC2)) {
+                        throw new DecompressionException("input is not in the GZIP format");
+                    }
+                    if (count == 2 && b != 8) {
+                        throw new DecompressionException("unsupported compression method " + b +
+                                                         " in the GZIP header");
+                    }
+                    if (count == 3) {
+                        flags = b;
+                    }
+                    if (++count == GZIP_HEADER_LENGTH) {
+                        nextHeaderState(State.HEADER);
+                    }
+                    break;
+                case EXTRA_LENGTH:
+                    // XLEN is in the little endian.
+                    if (count++ == 0) {
+                        extraLength = b;
+                    } else {
+                        extraLength |= b << 8;
+                        if (extraLength == 0) {
+                            nextHeaderState(State.EXTRA);
+                        } else {
+                            state = State.EXTRA;
+                            count = 0;
+                        }
+                    }
+                    break;
+                case EXTRA:
+                    if (++count == extraLength) {
+                        nextHeaderState(State.EXTRA);
+                    }
+                    break;
+                case NAME:
+                case COMMENT:
+                    if (b == 0) {
+                        nextHeaderState(state);
+                    }
+                    break;
+                case HEADER_CRC:
+                    if (++count == 2) {
+                        nextHeaderState(State.HEADER_CRC);
+                    }
+                    break;
+                default:
+                    throw new Error();
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Moves to the state which follows the specified state, skipping the optional fields which do not exist.
+     */
+    private void nextHeaderState(State current) {
+        count = 0;
+        if (current == State.HEADER && (flags & FEXTRA) != 0) {
+            state = State.EXTRA_LENGTH;
+        } else if (current.compareTo(State.NAME) < 0 && (flags & FNAME) != 0) {
+            state = State.NAME;
+        } else if (current.compareTo(State.COMMENT) < 0 && (flags & FCOMMENT) != 0) {
+            state = State.COMMENT;
+        } else if (current.compareTo(State.HEADER_CRC) < 0 && (flags & FHCRC) != 0) {
+            state = State.HEADER_CRC;
         } else {
-            return HttpData.EMPTY_DATA;
+            state = State.BODY;
         }
     }
 
-    // Mostly copied from netty's HttpContentDecoder.
-    private byte[] fetchDecoderOutput() {
-        final CompositeByteBuf decoded = Unpooled.compositeBuffer();
-        for (;;) {
-            final ByteBuf buf = decoder.readInbound();
-            if (buf == null) {
-                break;
+    private int readTrailer(byte[] in, int offset, int end) {
+        while (offset < end && count < GZIP_TRAILER_LENGTH) {
+            trailer |= (long) (in[offset++] & 0xFF) << (count++ * 8);
+        }
+
+        if (count == GZIP_TRAILER_LENGTH) {
+            assert crc != null;
+            final long expectedCrc = trailer & 0xFFFFFFFFL;
+            final long expectedSize = trailer >>> 32;
+            if (expectedCrc != crc.getValue()) {
+                throw new DecompressionException("CRC value mismatch. Expected: " + expectedCrc +
+                                                 ", Got: " + crc.getValue());
             }
-            if (!buf.isReadable()) {
-                buf.release();
-                continue;
+            if (expectedSize != (inflater().getBytesWritten() & 0xFFFFFFFFL)) {
+                throw new DecompressionException("Number of bytes mismatch. Expected: " + expectedSize +
+                                                 ", Got: " + inflater().getBytesWritten());
             }
-            decoded.addComponent(true, buf);
+            state = State.DONE;
+        }
+        return offset;
+    }
+
+    private Inflater inflater() {
+        if (finished) {
+            throw new IllegalStateException("decoder finished already");
+        }
+
+        Inflater inflater = this.inflater;
+        if (inflater == null) {
+            // Borrow from the pool of the current thread, to which it is returned by finish().
+            inflater = pool().poll();
+            if (inflater == null) {
+                inflater = new Inflater(nowrap);
+            }
+            this.inflater = inflater;
+            inflaterOwner = Thread.currentThread();
+        }
+        return inflater;
+    }
+
+    private ArrayDeque<Inflater> pool() {
+        // gzip uses the raw deflate format with its own header and trailer.
+        return (nowrap ? unwrappedInflaters : wrappedInflaters).get();
+    }
+
+    private ByteBuf allocate(int inputLength) {
+        // Assume the compression ratio is about 1/4 so that we do not need to expand the buffer usually.
+        final int initialCapacity = Math.max(256, inputLength << 2);
+        return alloc != null ? alloc.heapBuffer(initialCapacity) : Unpooled.buffer(initialCapacity);
+    }
+
+    private HttpData toHttpData(@Nullable ByteBuf out) {
+        if (out == null) {
+            return HttpData.EMPTY_DATA;
+        }
+        if (!out.isReadable()) {
+            out.release();
+            return HttpData.EMPTY_DATA;
+        }
+        if (alloc != null) {
+            return new ByteBufHttpData(out, false);
+        }
+        // An unpooled heap buffer can be wrapped without a copy.
+        return HttpData.of(out.array(), out.arrayOffset() + out.readerIndex(), out.readableBytes());
+    }
+
+    private static final class InflaterPool extends FastThreadLocal<ArrayDeque<Inflater>> {
+        @Override
+        protected ArrayDeque<Inflater> initialValue() {
+            return new ArrayDeque<>(MAX_POOLED_INFLATERS);
         }
-        final byte[] ret = ByteBufUtil.getBytes(decoded);
-        decoded.release();
-        return ret;
     }
 }
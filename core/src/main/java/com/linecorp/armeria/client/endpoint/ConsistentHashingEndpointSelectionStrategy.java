@@ -0,0 +1,384 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.logging.RequestLogListener;
+
+/**
+ * An {@link EndpointSelector} strategy which implements sticky load-balancing using a consistent hash ring.
+ * Unlike {@link StickyEndpointSelectionStrategy}, only the keys which belonged to the added or removed
+ * {@link Endpoint}s are remapped when the {@link EndpointGroup} is updated, so that the affinity between
+ * a key and an {@link Endpoint}, e.g. a backend cache, survives scaling out and in.
+ *
+ * <p>Each {@link Endpoint} is placed at {@code numVirtualNodes} points on the ring, and a request is sent to
+ * the {@link Endpoint} which owns the first point at or after the hash of the {@code long} computed by
+ * the user passed {@link ToLongFunction}. Note that {@link Endpoint#weight()} is not taken into account.
+ *
+ * <p>If {@code maxLoadFactor} is specified, the strategy also implements
+ * <a href="https://arxiv.org/abs/1608.01350">consistent hashing with bounded loads</a>. An {@link Endpoint}
+ * never has more in-flight requests than {@code maxLoadFactor} times the average. When the {@link Endpoint}
+ * which owns the key is full, the request overflows to the next {@link Endpoint} on the ring. The in-flight
+ * requests are counted from the {@link RequestLog} of the {@link ClientRequestContext}.
+ */
+public final class ConsistentHashingEndpointSelectionStrategy implements EndpointSelectionStrategy {
+
+    /**
+     * The default number of points of an {@link Endpoint} on the ring.
+     */
+    public static final int DEFAULT_NUM_VIRTUAL_NODES = 160;
+
+    private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+    private final ToLongFunction<ClientRequestContext> requestContextHasher;
+    private final int numVirtualNodes;
+    private final double maxLoadFactor;
+
+    /**
+     * Creates a new instance with {@value #DEFAULT_NUM_VIRTUAL_NODES} virtual nodes per {@link Endpoint} and
+     * with no bound on the load of an {@link Endpoint}.
+     *
+     * @param requestContextHasher the {@link ToLongFunction} which computes the key of
+     *                             a {@link ClientRequestContext}
+     */
+    public ConsistentHashingEndpointSelectionStrategy(
+            ToLongFunction<ClientRequestContext> requestContextHasher) {
+        this(requestContextHasher, DEFAULT_NUM_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a new instance with no bound on the load of an {@link Endpoint}.
+     *
+     * @param requestContextHasher the {@link ToLongFunction} which computes the key of
+     *                             a {@link ClientRequestContext}
+     * @param numVirtualNodes the number of points of an {@link Endpoint} on the ring. The more points,
+     *                        the more evenly the keys are distributed.
+     */
+    public ConsistentHashingEndpointSelectionStrategy(
+            ToLongFunction<ClientRequestContext> requestContextHasher, int numVirtualNodes) {
+        this(requestContextHasher, numVirtualNodes, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Creates a new instance which bounds the load of an {@link Endpoint}.
+     *
+     * @param requestContextHasher the {@link ToLongFunction} which computes the key of
+     *                             a {@link ClientRequestContext}
+     * @param numVirtualNodes the number of points of an {@link Endpoint} on the ring. The more points,
+     *                        the more evenly the keys are distributed.
+     * @param maxLoadFactor the maximum number of in-flight requests of an {@link Endpoint} relative to
+     *                      the average, e.g. {@code 1.25}. The smaller, the more evenly the load is
+     *                      distributed but the more keys overflow to other {@link Endpoint}s.
+     */
+    public ConsistentHashingEndpointSelectionStrategy(
+            ToLongFunction<ClientRequestContext> requestContextHasher, int numVirtualNodes,
+            double maxLoadFactor) {
+        this.requestContextHasher = requireNonNull(requestContextHasher, "requestContextHasher");
+        checkArgument(numVirtualNodes > 0, "numVirtualNodes: %s (expected: > 0)", numVirtualNodes);
+        checkArgument(maxLoadFactor >= 1, "maxLoadFactor: %s (expected: >= 1)", maxLoadFactor);
+        this.numVirtualNodes = numVirtualNodes;
+        this.maxLoadFactor = maxLoadFactor;
+    }
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new ConsistentHashingSelector(endpointGroup);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("numVirtualNodes", numVirtualNodes)
+                          .add("maxLoadFactor", maxLoadFactor)
+                          .toString();
+    }
+
+    private final class ConsistentHashingSelector implements EndpointSelector {
+
+        private final EndpointGroup endpointGroup;
+        private final AtomicInteger totalInFlightRequests = new AtomicInteger();
+        private volatile HashRing ring;
+
+        ConsistentHashingSelector(EndpointGroup endpointGroup) {
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            ring = new HashRing(endpointGroup.endpoints(), null);
+            endpointGroup.addListener(endpoints -> ring = new HashRing(endpoints, ring));
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return ConsistentHashingEndpointSelectionStrategy.this;
+        }
+
+        @Override
+        public Endpoint select(ClientRequestContext ctx) {
+            final HashRing ring = this.ring;
+            if (ring.isEmpty()) {
+                throw new EndpointGroupException(endpointGroup + " is empty");
+            }
+
+            final long key = hashFunction.hashLong(requestContextHasher.applyAsLong(ctx)).asLong();
+            final int start = ring.indexOf(key);
+            if (maxLoadFactor == Double.POSITIVE_INFINITY) {
+                return ring.owner(start).endpoint;
+            }
+
+            final double capacity =
+                    Math.ceil(maxLoadFactor * (totalInFlightRequests.get() + 1) / ring.numEndpoints());
+            EndpointState selected = ring.owner(start);
+            for (int i = 0; i < ring.size(); i++) {
+                final EndpointState state = ring.owner(start + i);
+                if (state.inFlightRequests < capacity) {
+                    selected = state;
+                    break;
+                }
+            }
+
+            selected.onRequest();
+            ctx.log().addListener(selected, RequestLogAvailability.COMPLETE);
+            return selected.endpoint;
+        }
+
+        /**
+         * A sorted array of the points on the ring and their owners. The points of the {@link Endpoint}s
+         * which were already in the previous ring are reused rather than hashed again, and they are taken
+         * from the previous ring in order, so that only the points of the added {@link Endpoint}s are
+         * merged into them.
+         */
+        private final class HashRing {
+
+            private final long[] points;
+            private final EndpointState[] owners;
+            private final Map<Endpoint, EndpointState> states;
+
+            HashRing(List<Endpoint> endpoints, @Nullable HashRing oldRing) {
+                states = new HashMap<>(endpoints.size());
+                final List<EndpointState> addedStates = new ArrayList<>();
+                for (Endpoint e : endpoints) {
+                    if (states.containsKey(e)) {
+                        continue;
+                    }
+                    EndpointState state = oldRing != null ? oldRing.states.get(e) : null;
+                    if (state == null) {
+                        state = new EndpointState(e, totalInFlightRequests);
+                        addedStates.add(state);
+                    }
+                    states.put(e, state);
+                }
+
+                final int numPoints = states.size() * numVirtualNodes;
+                points = new long[numPoints];
+                owners = new EndpointState[numPoints];
+
+                // Every run of the points below is sorted already, so they only need to be merged.
+                // It's done only when the group is updated.
+                final int[] runEnds = new int[addedStates.size() + 1];
+                int numRuns = 0;
+                int i = 0;
+                if (oldRing != null) {
+                    // The points of the remaining endpoints, in the order of the previous ring.
+                    for (int j = 0; j < oldRing.points.length; j++) {
+                        final EndpointState owner = oldRing.owners[j];
+                        if (states.get(owner.endpoint) == owner) {
+                            points[i] = oldRing.points[j];
+                            owners[i] = owner;
+                            i++;
+                        }
+                    }
+                    if (i > 0) {
+                        runEnds[numRuns++] = i;
+                    }
+                }
+                for (EndpointState state : addedStates) {
+                    for (long point : state.points(numVirtualNodes)) {
+                        points[i] = point;
+                        owners[i] = state;
+                        i++;
+                    }
+                    runEnds[numRuns++] = i;
+                }
+                mergeRuns(points, owners, runEnds, numRuns);
+            }
+
+            boolean isEmpty() {
+                return points.length == 0;
+            }
+
+            int size() {
+                return points.length;
+            }
+
+            int numEndpoints() {
+                return states.size();
+            }
+
+            /**
+             * Returns the index of the first point at or after the specified key.
+             */
+            int indexOf(long key) {
+                final int index = Arrays.binarySearch(points, key);
+                return index >= 0 ? index : -index - 1;
+            }
+
+            EndpointState owner(int index) {
+                return owners[index % owners.length];
+            }
+        }
+    }
+
+    /**
+     * Sorts the specified points along with their owners by merging the adjacent runs, each of which is
+     * sorted already and ends at the index in {@code runEnds}, until only one run is left.
+     */
+    private static void mergeRuns(long[] points, EndpointState[] owners, int[] runEnds, int numRuns) {
+        long[] srcPoints = points;
+        EndpointState[] srcOwners = owners;
+        long[] dstPoints = new long[points.length];
+        EndpointState[] dstOwners = new EndpointState[owners.length];
+        while (numRuns > 1) {
+            int numMergedRuns = 0;
+            int start = 0;
+            for (int i = 0; i < numRuns; i += 2) {
+                final int end;
+                if (i + 1 < numRuns) {
+                    end = runEnds[i + 1];
+                    merge(srcPoints, srcOwners, start, runEnds[i], end, dstPoints, dstOwners);
+                } else {
+                    end = runEnds[i];
+                    System.arraycopy(srcPoints, start, dstPoints, start, end - start);
+                    System.arraycopy(srcOwners, start, dstOwners, start, end - start);
+                }
+                runEnds[numMergedRuns++] = end;
+                start = end;
+            }
+            numRuns = numMergedRuns;
+
+            final long[] tmpPoints = srcPoints;
+            final EndpointState[] tmpOwners = srcOwners;
+            srcPoints = dstPoints;
+            srcOwners = dstOwners;
+            dstPoints = tmpPoints;
+            dstOwners = tmpOwners;
+        }
+
+        if (srcPoints != points) {
+            System.arraycopy(srcPoints, 0, points, 0, points.length);
+            System.arraycopy(srcOwners, 0, owners, 0, owners.length);
+        }
+    }
+
+    private static void merge(long[] srcPoints, EndpointState[] srcOwners, int start, int mid, int end,
+                              long[] dstPoints, EndpointState[] dstOwners) {
+        int i = start;
+        int j = mid;
+        int k = start;
+        while (i < mid && j < end) {
+            if (srcPoints[i] <= srcPoints[j]) {
+                dstPoints[k] = srcPoints[i];
+                dstOwners[k++] = srcOwners[i++];
+            } else {
+                dstPoints[k] = srcPoints[j];
+                dstOwners[k++] = srcOwners[j++];
+            }
+        }
+        System.arraycopy(srcPoints, i, dstPoints, k, mid - i);
+        System.arraycopy(srcOwners, i, dstOwners, k, mid - i);
+        k += mid - i;
+        System.arraycopy(srcPoints, j, dstPoints, k, end - j);
+        System.arraycopy(srcOwners, j, dstOwners, k, end - j);
+    }
+
+    /**
+     * The points and the number of in-flight requests of an {@link Endpoint}. It is also
+     * the {@link RequestLogListener} which decreases the number of in-flight requests when a request is done.
+     */
+    private static final class EndpointState implements RequestLogListener {
+
+        private static final AtomicIntegerFieldUpdater<EndpointState> inFlightRequestsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(EndpointState.class, "inFlightRequests");
+
+        final Endpoint endpoint;
+        private final AtomicInteger totalInFlightRequests;
+        @Nullable
+        private long[] points;
+
+        volatile int inFlightRequests;
+
+        EndpointState(Endpoint endpoint, AtomicInteger totalInFlightRequests) {
+            this.endpoint = endpoint;
+            this.totalInFlightRequests = totalInFlightRequests;
+        }
+
+        long[] points(int numVirtualNodes) {
+            long[] points = this.points;
+            if (points == null) {
+                points = new long[numVirtualNodes];
+                final byte[] authority = endpoint.authority().getBytes(StandardCharsets.UTF_8);
+                final String ipAddr = endpoint.ipAddr();
+                for (int i = 0; i < numVirtualNodes; i++) {
+                    final Hasher hasher = hashFunction.newHasher().putBytes(authority);
+                    if (ipAddr != null) {
+                        hasher.putString(ipAddr, StandardCharsets.UTF_8);
+                    }
+                    points[i] = hasher.putInt(i).hash().asLong();
+                }
+                // Sorted, so that they are merged into the ring without sorting the whole ring.
+                Arrays.sort(points);
+                this.points = points;
+            }
+            return points;
+        }
+
+        void onRequest() {
+            inFlightRequestsUpdater.incrementAndGet(this);
+            totalInFlightRequests.incrementAndGet();
+        }
+
+        @Override
+        public void onRequestLog(RequestLog log) {
+            inFlightRequestsUpdater.decrementAndGet(this);
+            totalInFlightRequests.decrementAndGet();
+        }
+    }
+}
@@ -34,6 +34,13 @@ public interface EndpointSelectionStrategy {
      */
     EndpointSelectionStrategy WEIGHTED_ROUND_ROBIN = new WeightedRoundRobinStrategy();
 
+    /**
+     * Weighted random strategy which selects an {@link Endpoint} with the probability proportional to its
+     * weight in constant time. Unlike {@link #WEIGHTED_ROUND_ROBIN}, the cost of selection does not grow
+     * with the number of distinct weights.
+     */
+    EndpointSelectionStrategy WEIGHTED_RANDOM = new WeightedRandomStrategy();
+
     /**
      * Creates a new {@link EndpointSelector} that selects an {@link Endpoint} from the specified
      * {@link EndpointGroup}.
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.logging.RequestLogListener;
+
+/**
+ * An {@link EndpointSelectionStrategy} which sends a request to the less loaded one of two randomly chosen
+ * {@link Endpoint}s, which is known as 'the power of two choices'. The load of an {@link Endpoint} is
+ * the number of its in-flight requests multiplied by the exponentially weighted moving average of its
+ * latency and divided by its {@link Endpoint#weight()}, so that a slow replica, e.g. one suffering from
+ * a long GC pause, stops receiving its full share of requests.
+ *
+ * <p>The number of in-flight requests and the latency are collected from the {@link RequestLog} of
+ * the {@link ClientRequestContext} specified in {@link EndpointSelector#select(ClientRequestContext)}.
+ * No statistics are collected if the {@link ClientRequestContext} is {@code null}.
+ */
+public final class LeastLoadedEndpointSelectionStrategy implements EndpointSelectionStrategy {
+
+    private static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+    private final long decayTimeNanos;
+
+    /**
+     * Creates a new instance whose moving average of latency decays in 10 seconds.
+     */
+    public LeastLoadedEndpointSelectionStrategy() {
+        this(DEFAULT_DECAY_TIME);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param decayTime the time it takes for the moving average of latency to forget the latency
+     *                  observed in the past by about 63%. The longer it is, the less sensitive to
+     *                  a temporary latency spike.
+     */
+    public LeastLoadedEndpointSelectionStrategy(Duration decayTime) {
+        requireNonNull(decayTime, "decayTime");
+        checkArgument(!decayTime.isNegative() && !decayTime.isZero(),
+                      "decayTime: %s (expected: > 0)", decayTime);
+        decayTimeNanos = decayTime.toNanos();
+    }
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new LeastLoadedSelector(endpointGroup);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("decayTime", Duration.ofNanos(decayTimeNanos))
+                          .toString();
+    }
+
+    private final class LeastLoadedSelector implements EndpointSelector {
+
+        private final EndpointGroup endpointGroup;
+        private volatile EndpointStats[] stats;
+
+        LeastLoadedSelector(EndpointGroup endpointGroup) {
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            stats = newStats(endpointGroup.endpoints(), new EndpointStats[0]);
+            endpointGroup.addListener(endpoints -> stats = newStats(endpoints, stats));
+        }
+
+        /**
+         * Creates the {@link EndpointStats} of the specified {@link Endpoint}s, retaining the statistics of
+         * the {@link Endpoint}s which were already in the group.
+         */
+        private EndpointStats[] newStats(List<Endpoint> endpoints, EndpointStats[] oldStats) {
+            final Map<Endpoint, EndpointStats> oldStatsMap = new HashMap<>(oldStats.length);
+            for (EndpointStats s : oldStats) {
+                oldStatsMap.put(s.endpoint, s);
+            }
+
+            final EndpointStats[] newStats = new EndpointStats[endpoints.size()];
+            for (int i = 0; i < newStats.length; i++) {
+                final Endpoint endpoint = endpoints.get(i);
+                final EndpointStats s = oldStatsMap.get(endpoint);
+                newStats[i] = s != null ? s : new EndpointStats(endpoint, decayTimeNanos);
+            }
+            return newStats;
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return LeastLoadedEndpointSelectionStrategy.this;
+        }
+
+        @Override
+        public Endpoint select(@Nullable ClientRequestContext ctx) {
+            final EndpointStats[] stats = this.stats;
+            final int numEndpoints = stats.length;
+            if (numEndpoints == 0) {
+                throw new EndpointGroupException(endpointGroup + " is empty");
+            }
+
+            final EndpointStats selected;
+            if (numEndpoints == 1) {
+                selected = stats[0];
+            } else {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int i = random.nextInt(numEndpoints);
+                int j = random.nextInt(numEndpoints - 1);
+                if (j >= i) {
+                    j++;
+                }
+                selected = EndpointStats.lessLoaded(stats[i], stats[j]);
+            }
+
+            if (ctx != null) {
+                selected.onRequest();
+                ctx.log().addListener(selected, RequestLogAvailability.COMPLETE);
+            }
+            return selected.endpoint;
+        }
+    }
+
+    /**
+     * The load statistics of an {@link Endpoint}. It is also the {@link RequestLogListener} which records
+     * the result of a request, so that no object is created for each selection.
+     */
+    private static final class EndpointStats implements RequestLogListener {
+
+        private static final AtomicIntegerFieldUpdater<EndpointStats> inFlightRequestsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(EndpointStats.class, "inFlightRequests");
+
+        final Endpoint endpoint;
+        private final long decayTimeNanos;
+
+        private volatile int inFlightRequests;
+
+        /**
+         * The moving average of latency in nanoseconds, or {@code 0} if no request has completed yet.
+         */
+        private volatile double latencyNanos;
+
+        private long lastUpdateTimeNanos;
+
+        EndpointStats(Endpoint endpoint, long decayTimeNanos) {
+            this.endpoint = endpoint;
+            this.decayTimeNanos = decayTimeNanos;
+        }
+
+        static EndpointStats lessLoaded(EndpointStats a, EndpointStats b) {
+            final double loadA = (a.inFlightRequests + 1.0) / Math.max(1, a.endpoint.weight());
+            final double loadB = (b.inFlightRequests + 1.0) / Math.max(1, b.endpoint.weight());
+            final double latencyA = a.latencyNanos;
+            final double latencyB = b.latencyNanos;
+
+            if (latencyA == 0 || latencyB == 0) {
+                // Compare only the number of in-flight requests until both have the latency samples.
+                return loadA <= loadB ? a : b;
+            }
+            return loadA * latencyA <= loadB * latencyB ? a : b;
+        }
+
+        void onRequest() {
+            inFlightRequestsUpdater.incrementAndGet(this);
+        }
+
+        @Override
+        public void onRequestLog(RequestLog log) {
+            inFlightRequestsUpdater.decrementAndGet(this);
+            long sampleNanos = log.totalDurationNanos();
+            if (log.responseCause() != null) {
+                // A failure is often faster than a success, e.g. a refused connection. Count it as
+                // a request which took as long as the decay time, so that a failing endpoint is
+                // penalized rather than preferred. The penalty fades away as the average decays.
+                sampleNanos = Math.max(sampleNanos, decayTimeNanos);
+            }
+            updateLatency(sampleNanos, log.responseEndTimeNanos());
+        }
+
+        private synchronized void updateLatency(long sampleNanos, long nowNanos) {
+            final double oldLatencyNanos = latencyNanos;
+            if (oldLatencyNanos == 0) {
+                latencyNanos = Math.max(1, sampleNanos);
+            } else {
+                // Decay the weight of the old average by the time elapsed since the last update.
+                final long elapsedNanos = Math.max(0, nowNanos - lastUpdateTimeNanos);
+                final double weight = Math.exp(-(double) elapsedNanos / decayTimeNanos);
+                latencyNanos = Math.max(1, oldLatencyNanos * weight + sampleNanos * (1 - weight));
+            }
+            lastUpdateTimeNanos = nowNanos;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("endpoint", endpoint)
+                              .add("inFlightRequests", inFlightRequests)
+                              .add("latencyNanos", latencyNanos)
+                              .toString();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+
+final class WeightedRandomStrategy implements EndpointSelectionStrategy {
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new WeightedRandomSelector(endpointGroup);
+    }
+
+    /**
+     * A weighted random select strategy which selects an {@link Endpoint} with the probability proportional
+     * to its weight in constant time, using the alias table built by Vose's alias method whenever
+     * the {@link EndpointGroup} is updated.
+     */
+    private static final class WeightedRandomSelector implements EndpointSelector {
+        private final EndpointGroup endpointGroup;
+        private volatile AliasTable aliasTable;
+
+        WeightedRandomSelector(EndpointGroup endpointGroup) {
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            aliasTable = new AliasTable(endpointGroup.endpoints());
+            endpointGroup.addListener(endpoints -> aliasTable = new AliasTable(endpoints));
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return WEIGHTED_RANDOM;
+        }
+
+        @Override
+        public Endpoint select(ClientRequestContext ctx) {
+            final AliasTable aliasTable = this.aliasTable;
+            final int numColumns = aliasTable.numColumns();
+            if (numColumns == 0) {
+                throw new EndpointGroupException(endpointGroup + " is empty");
+            }
+
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            return aliasTable.select(random.nextInt(numColumns), random.nextDouble());
+        }
+    }
+
+    /**
+     * An alias table whose each column has an {@link Endpoint}, the probability of selecting it and
+     * the alias {@link Endpoint} which is selected otherwise. Selecting a column uniformly at random and then
+     * tossing a biased coin gives each {@link Endpoint} the probability proportional to its weight.
+     */
+    @VisibleForTesting
+    static final class AliasTable {
+        private final Endpoint[] endpoints;
+        private final Endpoint[] aliases;
+        private final double[] probabilities;
+
+        AliasTable(List<Endpoint> endpoints) {
+            long totalWeight = 0;
+            int numEndpoints = 0;
+            for (Endpoint e : endpoints) {
+                // only process endpoint with weight > 0
+                if (e.weight() > 0) {
+                    totalWeight += e.weight();
+                    numEndpoints++;
+                }
+            }
+
+            this.endpoints = new Endpoint[numEndpoints];
+            aliases = new Endpoint[numEndpoints];
+            probabilities = new double[numEndpoints];
+
+            // Scale the weights so that their average is 1 and split the columns into the ones below and
+            // above the average. The two work lists share a single array; small from the head and large
+            // from the tail.
+            final double[] scaledWeights = new double[numEndpoints];
+            final int[] workList = new int[numEndpoints];
+            int numSmall = 0;
+            int numLarge = 0;
+            int i = 0;
+            for (Endpoint e : endpoints) {
+                if (e.weight() <= 0) {
+                    continue;
+                }
+                this.endpoints[i] = e;
+                scaledWeights[i] = (double) e.weight() * numEndpoints / totalWeight;
+                if (scaledWeights[i] < 1) {
+                    workList[numSmall++] = i;
+                } else {
+                    workList[numEndpoints - ++numLarge] = i;
+                }
+                i++;
+            }
+
+            // Fill each small column with a large one, which then may become a small one.
+            while (numSmall > 0 && numLarge > 0) {
+                final int small = workList[--numSmall];
+                final int large = workList[numEndpoints - numLarge--];
+
+                probabilities[small] = scaledWeights[small];
+                aliases[small] = this.endpoints[large];
+
+                scaledWeights[large] = scaledWeights[large] + scaledWeights[small] - 1;
+                if (scaledWeights[large] < 1) {
+                    workList[numSmall++] = large;
+                } else {
+                    workList[numEndpoints - ++numLarge] = large;
+                }
+            }
+
+            // The remaining columns are full, except the rounding errors.
+            while (numLarge > 0) {
+                final int large = workList[numEndpoints - numLarge--];
+                probabilities[large] = 1;
+                aliases[large] = this.endpoints[large];
+            }
+            while (numSmall > 0) {
+                final int small = workList[--numSmall];
+                probabilities[small] = 1;
+                aliases[small] = this.endpoints[small];
+            }
+        }
+
+        int numColumns() {
+            return endpoints.length;
+        }
+
+        Endpoint select(int column, double coin) {
+            return coin < probabilities[column] ? endpoints[column] : aliases[column];
+        }
+
+        @VisibleForTesting
+        Endpoint endpoint(int column) {
+            return endpoints[column];
+        }
+
+        @VisibleForTesting
+        Endpoint alias(int column) {
+            return aliases[column];
+        }
+
+        @VisibleForTesting
+        double probability(int column) {
+            return probabilities[column];
+        }
+    }
+}
@@ -24,14 +24,22 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.ResponseTimeoutException;
 import com.linecorp.armeria.client.SimpleDecoratingClient;
+import com.linecorp.armeria.client.UnprocessedRequestException;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.common.limit.ConcurrencyLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
 import com.linecorp.armeria.common.util.SafeCloseable;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.util.concurrent.ScheduledFuture;
 
 /**
@@ -43,6 +51,11 @@ import io.netty.util.concurrent.ScheduledFuture;
  * at the configured {@code maxConcurrency} the {@link Request}s are deferred until the currently active
  * {@link Request}s are completed.
  *
+ * <p>The {@code maxConcurrency} is determined by a {@link ConcurrencyLimit}, which may adjust the limit from
+ * the round-trip time recorded in the {@link RequestLog} of each delegated {@link Request}. A deferred
+ * {@link Request} fails with a {@link ResponseTimeoutException} when it is not delegated until its deadline,
+ * which is the configured timeout or the response timeout of the {@link Request}, whichever comes first.
+ *
  * @param <I> the {@link Request} type
  * @param <O> the {@link Response} type
  */
@@ -51,10 +64,14 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
 
     private static final long DEFAULT_TIMEOUT_MILLIS = 10000L;
 
-    private final int maxConcurrency;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final boolean unlimited;
     private final long timeoutMillis;
     private final AtomicInteger numActiveRequests = new AtomicInteger();
+    private final AtomicInteger numPendingRequests = new AtomicInteger();
     private final Queue<PendingTask> pendingRequests = new ConcurrentLinkedQueue<>();
+    @Nullable
+    private final ConcurrencyLimitingMetrics metrics;
 
     /**
      * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
@@ -79,16 +96,65 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
      */
     protected ConcurrencyLimitingClient(Client<I, O> delegate,
                                         int maxConcurrency, long timeout, TimeUnit unit) {
+        this(delegate, ConcurrencyLimit.fixed(maxConcurrency), timeout, unit);
+    }
+
+    /**
+     * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
+     * active requests to the limit determined by the specified {@link ConcurrencyLimit}.
+     *
+     * @param delegate the delegate {@link Client}
+     * @param concurrencyLimit the {@link ConcurrencyLimit} which determines the maximum number of
+     *                         concurrent active requests
+     * @param timeout the amount of time until this decorator fails the request if the request was not
+     *                delegated to the {@code delegate} before then
+     */
+    protected ConcurrencyLimitingClient(Client<I, O> delegate, ConcurrencyLimit concurrencyLimit,
+                                        long timeout, TimeUnit unit) {
+        this(delegate, concurrencyLimit, timeout, unit, null, null);
+    }
+
+    /**
+     * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
+     * active requests to the limit determined by the specified {@link ConcurrencyLimit}, exporting the
+     * current limit, the number of active and pending requests and the number of rejected requests to
+     * the specified {@link MeterRegistry}.
+     *
+     * @param delegate the delegate {@link Client}
+     * @param concurrencyLimit the {@link ConcurrencyLimit} which determines the maximum number of
+     *                         concurrent active requests
+     * @param timeout the amount of time until this decorator fails the request if the request was not
+     *                delegated to the {@code delegate} before then
+     * @param meterRegistry the {@link MeterRegistry} to register the meters to
+     * @param idPrefix the {@link MeterIdPrefix} of the meters
+     */
+    protected ConcurrencyLimitingClient(Client<I, O> delegate, ConcurrencyLimit concurrencyLimit,
+                                        long timeout, TimeUnit unit,
+                                        @Nullable MeterRegistry meterRegistry,
+                                        @Nullable MeterIdPrefix idPrefix) {
         super(delegate);
 
-        validateAll(maxConcurrency, timeout, unit);
+        requireNonNull(concurrencyLimit, "concurrencyLimit");
+        validateTimeout(timeout, unit);
 
-        this.maxConcurrency = maxConcurrency;
+        this.concurrencyLimit = concurrencyLimit;
+        unlimited = concurrencyLimit == ConcurrencyLimit.unlimited();
         timeoutMillis = unit.toMillis(timeout);
+
+        if (meterRegistry != null) {
+            requireNonNull(idPrefix, "idPrefix");
+            metrics = new ConcurrencyLimitingMetrics(meterRegistry, idPrefix, this);
+        } else {
+            metrics = null;
+        }
     }
 
     static void validateAll(int maxConcurrency, long timeout, TimeUnit unit) {
         validateMaxConcurrency(maxConcurrency);
+        validateTimeout(timeout, unit);
+    }
+
+    static void validateTimeout(long timeout, TimeUnit unit) {
         if (timeout < 0) {
             throw new IllegalArgumentException("timeout: " + timeout + " (expected: >= 0)");
         }
@@ -108,30 +174,70 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
         return numActiveRequests.get();
     }
 
+    /**
+     * Returns the number of the {@link Request}s that are deferred because of the limit.
+     */
+    public int numPendingRequests() {
+        return numPendingRequests.get();
+    }
+
+    /**
+     * Returns the {@link ConcurrencyLimit} which determines the maximum number of concurrent active requests.
+     */
+    public ConcurrencyLimit concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     @Override
     public O execute(ClientRequestContext ctx, I req) throws Exception {
-        return maxConcurrency == 0 ? unlimitedExecute(ctx, req)
-                                   : limitedExecute(ctx, req);
+        return unlimited ? unlimitedExecute(ctx, req)
+                         : limitedExecute(ctx, req);
     }
 
     private O limitedExecute(ClientRequestContext ctx, I req) throws Exception {
         final Deferred<O> deferred = defer(ctx, req);
         final PendingTask currentTask = new PendingTask(ctx, req, deferred);
 
+        numPendingRequests.incrementAndGet();
         pendingRequests.add(currentTask);
         drain();
 
-        if (!currentTask.isRun() && timeoutMillis != 0) {
+        final long deadlineMillis = deadlineMillis(ctx);
+        if (!currentTask.isRun() && deadlineMillis != 0) {
             // Current request was not delegated. Schedule a timeout.
             final ScheduledFuture<?> timeoutFuture = ctx.eventLoop().schedule(
-                    () -> deferred.close(ResponseTimeoutException.get()),
-                    timeoutMillis, TimeUnit.MILLISECONDS);
+                    () -> {
+                        if (pendingRequests.remove(currentTask)) {
+                            // Not polled by drain() yet, so it's our job to stop counting it as pending.
+                            numPendingRequests.decrementAndGet();
+                        }
+                        if (metrics != null) {
+                            metrics.onRequestRejected();
+                        }
+                        deferred.close(ResponseTimeoutException.get());
+                    },
+                    deadlineMillis, TimeUnit.MILLISECONDS);
             currentTask.set(timeoutFuture);
         }
 
         return deferred.response();
     }
 
+    /**
+     * Returns the amount of time a deferred request can wait for delegation. There's no point of delegating
+     * a request after its response timeout, so the request is shed at whichever deadline comes first.
+     */
+    private long deadlineMillis(ClientRequestContext ctx) {
+        final long responseTimeoutMillis = ctx.responseTimeoutMillis();
+        if (responseTimeoutMillis <= 0) {
+            return timeoutMillis;
+        }
+        if (timeoutMillis == 0) {
+            return responseTimeoutMillis;
+        }
+        return Math.min(timeoutMillis, responseTimeoutMillis);
+    }
+
     private O unlimitedExecute(ClientRequestContext ctx, I req) throws Exception {
         numActiveRequests.incrementAndGet();
         boolean success = false;
@@ -153,7 +259,7 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
     void drain() {
         while (!pendingRequests.isEmpty()) {
             final int currentActiveRequests = numActiveRequests.get();
-            if (currentActiveRequests >= maxConcurrency) {
+            if (currentActiveRequests >= concurrencyLimit.limit()) {
                 break;
             }
 
@@ -170,11 +276,21 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
                     }
                 }
 
+                numPendingRequests.decrementAndGet();
                 task.run();
             }
         }
     }
 
+    private void onComplete(RequestLog log) {
+        final Throwable cause = log.responseCause();
+        final boolean dropped = cause instanceof ResponseTimeoutException ||
+                                cause instanceof UnprocessedRequestException;
+        concurrencyLimit.onSample(log.totalDurationNanos(), numActiveRequests.get(), dropped);
+        // The limit might have been increased.
+        drain();
+    }
+
     /**
      * Defers the specified {@link Request}.
      *
@@ -241,6 +357,8 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
 
             try (SafeCloseable ignored = ctx.push()) {
                 try {
+                    ctx.log().addListener(ConcurrencyLimitingClient.this::onComplete,
+                                          RequestLogAvailability.COMPLETE);
                     final O actualRes = delegate().execute(ctx, req);
                     actualRes.completionFuture().handleAsync((unused, cause) -> {
                         numActiveRequests.decrementAndGet();
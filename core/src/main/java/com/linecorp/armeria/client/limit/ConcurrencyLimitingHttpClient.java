@@ -16,14 +16,22 @@
 
 package com.linecorp.armeria.client.limit;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.limit.ConcurrencyLimit;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * A {@link Client} decorator that limits the concurrent number of active HTTP requests.
@@ -56,6 +64,40 @@ public final class ConcurrencyLimitingHttpClient extends ConcurrencyLimitingClie
         return delegate -> new ConcurrencyLimitingHttpClient(delegate, maxConcurrency, timeout, unit);
     }
 
+    /**
+     * Creates a new {@link Client} decorator that limits the concurrent number of active HTTP requests
+     * to the limit determined by the specified {@link ConcurrencyLimit}.
+     *
+     * <p>Note that the decorator creates a new {@link Client} with the same {@link ConcurrencyLimit}
+     * whenever it is applied. Use a separate decorator for each {@link Client}.
+     */
+    public static Function<Client<HttpRequest, HttpResponse>, ConcurrencyLimitingHttpClient> newDecorator(
+            ConcurrencyLimit concurrencyLimit, long timeout, TimeUnit unit) {
+        requireNonNull(concurrencyLimit, "concurrencyLimit");
+        validateTimeout(timeout, unit);
+        return delegate -> new ConcurrencyLimitingHttpClient(delegate, concurrencyLimit, timeout, unit,
+                                                             null, null);
+    }
+
+    /**
+     * Creates a new {@link Client} decorator that limits the concurrent number of active HTTP requests
+     * to the limit determined by the specified {@link ConcurrencyLimit}, exporting its stats to
+     * the specified {@link MeterRegistry}.
+     *
+     * <p>Note that the decorator creates a new {@link Client} with the same {@link ConcurrencyLimit}
+     * whenever it is applied. Use a separate decorator for each {@link Client}.
+     */
+    public static Function<Client<HttpRequest, HttpResponse>, ConcurrencyLimitingHttpClient> newDecorator(
+            ConcurrencyLimit concurrencyLimit, long timeout, TimeUnit unit,
+            MeterRegistry meterRegistry, MeterIdPrefix idPrefix) {
+        requireNonNull(concurrencyLimit, "concurrencyLimit");
+        validateTimeout(timeout, unit);
+        requireNonNull(meterRegistry, "meterRegistry");
+        requireNonNull(idPrefix, "idPrefix");
+        return delegate -> new ConcurrencyLimitingHttpClient(delegate, concurrencyLimit, timeout, unit,
+                                                             meterRegistry, idPrefix);
+    }
+
     private ConcurrencyLimitingHttpClient(Client<HttpRequest, HttpResponse> delegate, int maxConcurrency) {
         super(delegate, maxConcurrency);
     }
@@ -65,6 +107,13 @@ public final class ConcurrencyLimitingHttpClient extends ConcurrencyLimitingClie
         super(delegate, maxConcurrency, timeout, unit);
     }
 
+    private ConcurrencyLimitingHttpClient(Client<HttpRequest, HttpResponse> delegate,
+                                          ConcurrencyLimit concurrencyLimit, long timeout, TimeUnit unit,
+                                          @Nullable MeterRegistry meterRegistry,
+                                          @Nullable MeterIdPrefix idPrefix) {
+        super(delegate, concurrencyLimit, timeout, unit, meterRegistry, idPrefix);
+    }
+
     @Override
     protected Deferred<HttpResponse> defer(ClientRequestContext ctx, HttpRequest req) throws Exception {
         return new Deferred<HttpResponse>() {
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Provides {@link ConcurrencyLimitingClient} stats.
+ */
+final class ConcurrencyLimitingMetrics {
+
+    private final Counter rejectedRequests;
+
+    ConcurrencyLimitingMetrics(MeterRegistry parent, MeterIdPrefix idPrefix,
+                               ConcurrencyLimitingClient<?, ?> client) {
+        requireNonNull(parent, "parent");
+        requireNonNull(idPrefix, "idPrefix");
+
+        parent.gauge(idPrefix.name("limit"), idPrefix.tags(), client, c -> c.concurrencyLimit().limit());
+        parent.gauge(idPrefix.name("activeRequests"), idPrefix.tags(),
+                     client, ConcurrencyLimitingClient::numActiveRequests);
+        parent.gauge(idPrefix.name("pendingRequests"), idPrefix.tags(),
+                     client, ConcurrencyLimitingClient::numPendingRequests);
+        rejectedRequests = parent.counter(idPrefix.name("rejectedRequests"), idPrefix.tags());
+    }
+
+    void onRequestRejected() {
+        rejectedRequests.increment();
+    }
+}
@@ -102,16 +102,20 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
 
     private final boolean needsContentInStrategy;
 
+    private final long maxInMemoryRequestLength;
+
     /**
      * Creates a new instance that decorates the specified {@link Client}.
      */
     RetryingHttpClient(Client<HttpRequest, HttpResponse> delegate,
                        RetryStrategy retryStrategy, int totalMaxAttempts,
-                       long responseTimeoutMillisForEachAttempt, boolean useRetryAfter) {
+                       long responseTimeoutMillisForEachAttempt, boolean useRetryAfter,
+                       long maxInMemoryRequestLength) {
         super(delegate, retryStrategy, totalMaxAttempts, responseTimeoutMillisForEachAttempt);
         needsContentInStrategy = false;
         this.useRetryAfter = useRetryAfter;
         contentPreviewLength = 0;
+        this.maxInMemoryRequestLength = maxInMemoryRequestLength;
     }
 
     /**
@@ -120,13 +124,14 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
     RetryingHttpClient(Client<HttpRequest, HttpResponse> delegate,
                        RetryStrategyWithContent<HttpResponse> retryStrategyWithContent, int totalMaxAttempts,
                        long responseTimeoutMillisForEachAttempt, boolean useRetryAfter,
-                       int contentPreviewLength) {
+                       int contentPreviewLength, long maxInMemoryRequestLength) {
         super(delegate, retryStrategyWithContent, totalMaxAttempts, responseTimeoutMillisForEachAttempt);
         needsContentInStrategy = true;
         this.useRetryAfter = useRetryAfter;
         checkArgument(contentPreviewLength > 0,
                       "contentPreviewLength: %s (expected: > 0)", contentPreviewLength);
         this.contentPreviewLength = contentPreviewLength;
+        this.maxInMemoryRequestLength = maxInMemoryRequestLength;
     }
 
     @Override
@@ -134,7 +139,8 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
         final boolean hasInitialAuthority = !isNullOrEmpty(req.headers().authority());
         final CompletableFuture<HttpResponse> responseFuture = new CompletableFuture<>();
         final HttpResponse res = HttpResponse.from(responseFuture);
-        final HttpRequestDuplicator reqDuplicator = new HttpRequestDuplicator(req, 0, ctx.eventLoop());
+        final HttpRequestDuplicator reqDuplicator =
+                new HttpRequestDuplicator(req, 0, ctx.eventLoop(), maxInMemoryRequestLength);
         doExecute0(ctx, reqDuplicator, req, res, responseFuture, hasInitialAuthority);
         return res;
     }
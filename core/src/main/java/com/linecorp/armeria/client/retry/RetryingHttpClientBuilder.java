@@ -39,6 +39,8 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
 
     private int contentPreviewLength = DEFAULT_CONTENT_PREVIEW_LENGTH;
 
+    private long maxInMemoryRequestLength;
+
     private final boolean needsContentInStrategy;
 
     /**
@@ -97,6 +99,26 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
         return self();
     }
 
+    /**
+     * Sets the maximum length of the request content kept in memory for retrying. The request content
+     * beyond this length is stored in a temporary file until the retries are over, so that retrying
+     * large requests does not exhaust the memory. The default value of this property is {@code 0}, which
+     * keeps the whole request content in memory.
+     *
+     * @param maxInMemoryRequestLength the maximum length of the request content kept in memory.
+     *                                 {@code 0} keeps the whole request content in memory.
+     *
+     * @return {@link RetryingHttpClientBuilder} to support method chaining
+     *
+     * @throws IllegalArgumentException if the specified {@code maxInMemoryRequestLength} is negative
+     */
+    public RetryingHttpClientBuilder maxInMemoryRequestLength(long maxInMemoryRequestLength) {
+        checkArgument(maxInMemoryRequestLength >= 0,
+                      "maxInMemoryRequestLength: %s (expected: >= 0)", maxInMemoryRequestLength);
+        this.maxInMemoryRequestLength = maxInMemoryRequestLength;
+        return self();
+    }
+
     /**
      * Returns a newly-created {@link RetryingHttpClient} based on the properties of this builder.
      */
@@ -105,11 +127,12 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
         if (needsContentInStrategy) {
             return new RetryingHttpClient(delegate, retryStrategyWithContent(), maxTotalAttempts(),
                                           responseTimeoutMillisForEachAttempt(), useRetryAfter,
-                                          contentPreviewLength);
+                                          contentPreviewLength, maxInMemoryRequestLength);
         }
 
         return new RetryingHttpClient(delegate, retryStrategy(), maxTotalAttempts(),
-                                      responseTimeoutMillisForEachAttempt(), useRetryAfter);
+                                      responseTimeoutMillisForEachAttempt(), useRetryAfter,
+                                      maxInMemoryRequestLength);
     }
 
     /**
@@ -123,7 +146,9 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
 
     @Override
     public String toString() {
-        final ToStringHelper stringHelper = toStringHelper().add("useRetryAfter", this.useRetryAfter);
+        final ToStringHelper stringHelper = toStringHelper().add("useRetryAfter", this.useRetryAfter)
+                                                         .add("maxInMemoryRequestLength",
+                                                              maxInMemoryRequestLength);
         if (needsContentInStrategy) {
             stringHelper.add("contentPreviewLength", contentPreviewLength);
         }
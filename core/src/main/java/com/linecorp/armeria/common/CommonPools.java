@@ -23,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 
 import com.linecorp.armeria.client.ClientFactoryBuilder;
 import com.linecorp.armeria.common.util.EventLoopGroups;
+import com.linecorp.armeria.common.util.VirtualThreads;
 import com.linecorp.armeria.server.ServerBuilder;
 
 import io.netty.channel.EventLoopGroup;
@@ -37,14 +38,19 @@ public final class CommonPools {
     private static final EventLoopGroup WORKER_GROUP;
 
     static {
-        // Threads spawned as needed and reused, with a 60s timeout and unbounded work queue.
-        final ThreadPoolExecutor blockingTaskExecutor = new ThreadPoolExecutor(
-                Flags.numCommonBlockingTaskThreads(), Flags.numCommonBlockingTaskThreads(),
-                60, TimeUnit.SECONDS, new LinkedTransferQueue<>(),
-                new DefaultThreadFactory("armeria-common-blocking-tasks", true));
+        if (Flags.useVirtualThreadBlockingTaskExecutor()) {
+            // A new virtual thread for each task.
+            BLOCKING_TASK_EXECUTOR = VirtualThreads.newThreadPerTaskExecutor("armeria-common-blocking-tasks-");
+        } else {
+            // Threads spawned as needed and reused, with a 60s timeout and unbounded work queue.
+            final ThreadPoolExecutor blockingTaskExecutor = new ThreadPoolExecutor(
+                    Flags.numCommonBlockingTaskThreads(), Flags.numCommonBlockingTaskThreads(),
+                    60, TimeUnit.SECONDS, new LinkedTransferQueue<>(),
+                    new DefaultThreadFactory("armeria-common-blocking-tasks", true));
 
-        blockingTaskExecutor.allowCoreThreadTimeOut(true);
-        BLOCKING_TASK_EXECUTOR = blockingTaskExecutor;
+            blockingTaskExecutor.allowCoreThreadTimeOut(true);
+            BLOCKING_TASK_EXECUTOR = blockingTaskExecutor;
+        }
 
         WORKER_GROUP = EventLoopGroups.newEventLoopGroup(Flags.numCommonWorkers(),
                                                          "armeria-common-worker", true);
@@ -52,7 +58,8 @@ public final class CommonPools {
 
     /**
      * Returns the default common blocking task {@link Executor} which is used for
-     * potentially long-running tasks which may block I/O threads.
+     * potentially long-running tasks which may block I/O threads. The returned {@link Executor} starts
+     * a new virtual thread for each task if {@link Flags#useVirtualThreadBlockingTaskExecutor()} is enabled.
      */
     public static Executor blockingTaskExecutor() {
         return BLOCKING_TASK_EXECUTOR;
@@ -44,6 +44,7 @@ import com.linecorp.armeria.client.retry.Backoff;
 import com.linecorp.armeria.client.retry.RetryingHttpClient;
 import com.linecorp.armeria.client.retry.RetryingRpcClient;
 import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.common.util.VirtualThreads;
 import com.linecorp.armeria.server.PathMappingContext;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.server.ServiceConfig;
@@ -95,6 +96,10 @@ public final class Flags {
                    DEFAULT_NUM_COMMON_BLOCKING_TASK_THREADS,
                    value -> value > 0);
 
+    private static final boolean USE_VIRTUAL_THREAD_BLOCKING_TASK_EXECUTOR =
+            getBoolean("useVirtualThreadBlockingTaskExecutor", false,
+                       value -> VirtualThreads.isAvailable() || !value);
+
     private static final long DEFAULT_DEFAULT_MAX_REQUEST_LENGTH = 10 * 1024 * 1024; // 10 MiB
     private static final long DEFAULT_MAX_REQUEST_LENGTH =
             getLong("defaultMaxRequestLength",
@@ -194,6 +199,8 @@ public final class Flags {
 
     private static final boolean DEFAULT_USE_HTTP2_PREFACE = getBoolean("defaultUseHttp2Preface", true);
     private static final boolean DEFAULT_USE_HTTP1_PIPELINING = getBoolean("defaultUseHttp1Pipelining", false);
+    private static final boolean DEFAULT_SHARE_HTTP2_CONNECTIONS =
+            getBoolean("defaultShareHttp2Connections", false);
 
     private static final String DEFAULT_DEFAULT_BACKOFF_SPEC =
             "exponential=200:10000,jitter=0.2";
@@ -265,6 +272,10 @@ public final class Flags {
                         OpenSsl.versionString(),
                         Long.toHexString(OpenSsl.version() & 0xFFFFFFFFL));
         }
+
+        if (USE_VIRTUAL_THREAD_BLOCKING_TASK_EXECUTOR) {
+            logger.info("Using virtual threads for the common blocking task executor");
+        }
     }
 
     private static boolean isEpollAvailable() {
@@ -380,6 +391,19 @@ public final class Flags {
         return NUM_COMMON_BLOCKING_TASK_THREADS;
     }
 
+    /**
+     * Returns whether the {@linkplain CommonPools#blockingTaskExecutor() common blocking task executor}
+     * starts a new virtual thread for each task instead of using a thread pool whose size is
+     * {@link #numCommonBlockingTaskThreads()}. This flag has effect only if the current JVM supports
+     * virtual threads. See {@link VirtualThreads} for more information.
+     *
+     * <p>This flag is disabled by default. Specify the
+     * {@code -Dcom.linecorp.armeria.useVirtualThreadBlockingTaskExecutor=true} JVM option to enable it.
+     */
+    public static boolean useVirtualThreadBlockingTaskExecutor() {
+        return USE_VIRTUAL_THREAD_BLOCKING_TASK_EXECUTOR;
+    }
+
     /**
      * Returns the default server-side maximum length of a request. Note that this value has effect
      * only if a user did not specify it.
@@ -524,6 +548,17 @@ public final class Flags {
         return DEFAULT_USE_HTTP1_PIPELINING;
     }
 
+    /**
+     * Returns the default value of the {@link ClientFactoryBuilder#shareHttp2Connections(boolean)} option.
+     * Note that this value has effect only if a user did not specify it.
+     *
+     * <p>This flag is disabled by default. Specify the
+     * {@code -Dcom.linecorp.armeria.defaultShareHttp2Connections=true} JVM option to enable it.
+     */
+    public static boolean defaultShareHttp2Connections() {
+        return DEFAULT_SHARE_HTTP2_CONNECTIONS;
+    }
+
     /**
      * Returns the default value of the {@link ServerBuilder#http2InitialConnectionWindowSize(int)} and
      * {@link ClientFactoryBuilder#http2InitialConnectionWindowSize(int)} option.
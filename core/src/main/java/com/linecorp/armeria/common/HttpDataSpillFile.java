@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.spotify.futures.CompletableFutures;
+
+import io.netty.buffer.ByteBufHolder;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * A temporary file which stores the {@link HttpData}s which do not fit in memory. The file is created
+ * when the first {@link HttpData} is written and deleted when {@link #close()} is called.
+ *
+ * <p>All file I/O is performed by the specified {@link Executor}, which is usually a blocking task executor,
+ * so that an event loop is not blocked. {@link #write(HttpData)} must be called by a single thread, but
+ * {@link #read(SpilledHttpData)} can be called by any thread.
+ */
+final class HttpDataSpillFile implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpDataSpillFile.class);
+
+    private final Executor executor;
+    private final AtomicInteger numPendingWrites = new AtomicInteger();
+    @Nullable
+    private FileChannel channel;
+    private long size;
+    private boolean closed;
+    private volatile boolean closeRequested;
+    private volatile boolean failed;
+
+    HttpDataSpillFile(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns whether this file has failed to store an {@link HttpData}, e.g. due to a disk full error.
+     * The {@link HttpData}s should be kept in memory from then on.
+     */
+    boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Appends the content of the specified {@link HttpData} to this file asynchronously. The specified
+     * {@link HttpData} is released when it is written. If it fails to be written, its content is kept in
+     * the returned {@link SpilledHttpData} instead.
+     *
+     * @return the {@link SpilledHttpData} which can be read by {@link #read(SpilledHttpData)}
+     */
+    SpilledHttpData write(HttpData data) {
+        final long position = size;
+        final SpilledHttpData spilledData = new SpilledHttpData(position, data.length(), data.isEndOfStream());
+        if (closeRequested) {
+            // Nothing reads the data anymore, e.g. the request has been aborted.
+            ReferenceCountUtil.safeRelease(data);
+            spilledData.whenWritten.complete(null);
+            return spilledData;
+        }
+
+        numPendingWrites.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    doWrite(data, position);
+                } catch (Exception e) {
+                    if (!failed) {
+                        failed = true;
+                        logger.warn("Failed to write the request content to a temporary file: {}", this, e);
+                    }
+                    spilledData.fallback = Arrays.copyOfRange(data.array(), data.offset(),
+                                                              data.offset() + data.length());
+                } finally {
+                    ReferenceCountUtil.safeRelease(data);
+                    spilledData.whenWritten.complete(null);
+                    onWritten();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            numPendingWrites.decrementAndGet();
+            throw e;
+        }
+        size += data.length();
+        return spilledData;
+    }
+
+    private void onWritten() {
+        if (numPendingWrites.decrementAndGet() == 0 && closeRequested) {
+            // The last write before close() is done.
+            doClose();
+        }
+    }
+
+    private void doWrite(HttpData data, long position) throws IOException {
+        final FileChannel channel = channel();
+        final ByteBuffer buf;
+        if (data instanceof ByteBufHolder) {
+            buf = ((ByteBufHolder) data).content().nioBuffer();
+        } else {
+            buf = ByteBuffer.wrap(data.array(), data.offset(), data.length());
+        }
+
+        final int length = buf.remaining();
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + length - buf.remaining());
+        }
+    }
+
+    private synchronized FileChannel channel() throws IOException {
+        if (closed) {
+            throw new IOException("spill file closed already");
+        }
+
+        FileChannel channel = this.channel;
+        if (channel == null) {
+            final Path path = Files.createTempFile("armeria-spill-", ".tmp");
+            this.channel = channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                                      StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        return channel;
+    }
+
+    /**
+     * Reads the content of the specified {@link SpilledHttpData} asynchronously.
+     *
+     * @return the {@link CompletableFuture} which is completed with an {@link HttpData} in memory, which
+     *         can be accessed without any file I/O
+     */
+    CompletableFuture<HttpData> read(SpilledHttpData data) {
+        if (!data.whenWritten.isDone()) {
+            // Read by the thread which completes the write.
+            return data.whenWritten.thenApply(unused -> doRead(data));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> doRead(data), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFutures.exceptionallyCompletedFuture(e);
+        }
+    }
+
+    private HttpData doRead(SpilledHttpData data) {
+        byte[] array = data.fallback;
+        if (array == null) {
+            try {
+                array = doRead(data.position, data.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to read spilled data: " + data, e);
+            }
+        }
+        return new DefaultHttpData(array, 0, array.length, data.isEndOfStream());
+    }
+
+    private byte[] doRead(long position, int length) throws IOException {
+        final FileChannel channel = channel();
+        final byte[] array = new byte[length];
+        final ByteBuffer buf = ByteBuffer.wrap(array);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Closes and deletes this file asynchronously, after the pending writes are done. {@link SpilledHttpData}s
+     * cannot be read anymore, and the {@link HttpData}s written from now on are released without being
+     * stored.
+     */
+    @Override
+    public void close() {
+        closeRequested = true;
+        if (numPendingWrites.get() == 0) {
+            executor.execute(this::doClose);
+        }
+    }
+
+    private void doClose() {
+        final FileChannel channel;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channel = this.channel;
+        }
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to delete a temporary file: {}", this, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("size", size)
+                          .add("failed", failed)
+                          .toString();
+    }
+
+    /**
+     * An {@link HttpObject} which refers to the content of an {@link HttpData} stored in
+     * an {@link HttpDataSpillFile}. It does not occupy memory, and its content has to be read by
+     * {@link HttpDataSpillFile#read(SpilledHttpData)} before it is published to a subscriber.
+     */
+    static final class SpilledHttpData implements HttpObject {
+
+        private final long position;
+        private final int length;
+        private final boolean endOfStream;
+        private final CompletableFuture<Void> whenWritten = new CompletableFuture<>();
+        @Nullable
+        private volatile byte[] fallback;
+
+        SpilledHttpData(long position, int length, boolean endOfStream) {
+            this.position = position;
+            this.length = length;
+            this.endOfStream = endOfStream;
+        }
+
+        int length() {
+            return length;
+        }
+
+        @Override
+        public boolean isEndOfStream() {
+            return endOfStream;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("position", position)
+                              .add("length", length)
+                              .add("endOfStream", endOfStream)
+                              .toString();
+        }
+    }
+}
@@ -16,16 +16,30 @@
 
 package com.linecorp.armeria.common;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Nullable;
 
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.MoreObjects;
 
+import com.linecorp.armeria.common.HttpDataSpillFile.SpilledHttpData;
 import com.linecorp.armeria.common.stream.AbstractStreamMessageDuplicator;
+import com.linecorp.armeria.common.stream.DefaultStreamMessage;
+import com.linecorp.armeria.common.stream.FilteredStreamMessage;
 import com.linecorp.armeria.common.stream.StreamMessage;
 import com.linecorp.armeria.common.stream.StreamMessageWrapper;
 
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
 
 /**
@@ -51,7 +65,11 @@ import io.netty.util.concurrent.EventExecutor;
  */
 public class HttpRequestDuplicator extends AbstractStreamMessageDuplicator<HttpObject, HttpRequest> {
 
+    private static final Logger logger = LoggerFactory.getLogger(HttpRequestDuplicator.class);
+
     private final HttpHeaders headers;
+    @Nullable
+    private final HttpDataSpillFile spillFile;
 
     /**
      * Creates a new instance wrapping a {@link HttpRequest} and publishing to multiple subscribers.
@@ -81,20 +99,213 @@ public class HttpRequestDuplicator extends AbstractStreamMessageDuplicator<HttpO
      * @param executor the executor to use for upstream signals.
      */
     public HttpRequestDuplicator(HttpRequest req, long maxSignalLength, @Nullable EventExecutor executor) {
-        super(requireNonNull(req, "req"), obj -> {
+        this(req, maxSignalLength, executor, 0);
+    }
+
+    /**
+     * Creates a new instance wrapping a {@link HttpRequest} and publishing to multiple subscribers.
+     * The {@link HttpData}s published after the total length of the {@link HttpData}s exceeds
+     * {@code maxInMemoryLength} are stored in a temporary file rather than in memory, and they are read from
+     * the file again when they are published to subscribers. The temporary file is written, read and
+     * deleted by {@link CommonPools#blockingTaskExecutor()}, and it is deleted when {@link #close()} is called.
+     *
+     * @param req the request that will publish data to subscribers
+     * @param maxSignalLength the maximum length of signals. {@code 0} disables the length limit
+     * @param executor the executor to use for upstream signals.
+     * @param maxInMemoryLength the maximum length of the {@link HttpData}s kept in memory.
+     *                          {@code 0} keeps all {@link HttpData}s in memory.
+     */
+    public HttpRequestDuplicator(HttpRequest req, long maxSignalLength, @Nullable EventExecutor executor,
+                                 long maxInMemoryLength) {
+        this(requireNonNull(req, "req"), maxSignalLength, executor,
+             validateMaxInMemoryLength(maxInMemoryLength) != 0 ?
+             new HttpDataSpillFile(CommonPools.blockingTaskExecutor()) : null, maxInMemoryLength);
+    }
+
+    private HttpRequestDuplicator(HttpRequest req, long maxSignalLength, @Nullable EventExecutor executor,
+                                  @Nullable HttpDataSpillFile spillFile, long maxInMemoryLength) {
+        super(spillFile != null ? new SpillingHttpRequest(req, spillFile, maxInMemoryLength) : req, obj -> {
             if (obj instanceof HttpData) {
                 return ((HttpData) obj).length();
             }
+            if (obj instanceof SpilledHttpData) {
+                return ((SpilledHttpData) obj).length();
+            }
             return 0;
         }, executor, maxSignalLength);
         headers = req.headers();
+        this.spillFile = spillFile;
+    }
+
+    private static long validateMaxInMemoryLength(long maxInMemoryLength) {
+        checkArgument(maxInMemoryLength >= 0,
+                      "maxInMemoryLength: %s (expected: >= 0)", maxInMemoryLength);
+        return maxInMemoryLength;
     }
 
     @Override
     protected HttpRequest doDuplicateStream(StreamMessage<HttpObject> delegate) {
+        if (spillFile != null) {
+            return new DuplicateHttpRequest(
+                    new SpillReadingStreamMessage(delegate, spillFile, duplicatorExecutor()));
+        }
         return new DuplicateHttpRequest(delegate);
     }
 
+    @Override
+    public void close() {
+        super.close();
+        final HttpDataSpillFile spillFile = this.spillFile;
+        if (spillFile != null) {
+            // Delete the file after the duplicate streams are aborted by super.close(). The file is closed
+            // only after the pending writes are done, so that they do not fail.
+            duplicatorExecutor().execute(spillFile::close);
+        }
+    }
+
+    /**
+     * An {@link HttpRequest} which replaces the {@link HttpData}s beyond the in-memory limit with
+     * the {@link SpilledHttpData}s stored in an {@link HttpDataSpillFile}.
+     */
+    private static final class SpillingHttpRequest
+            extends FilteredStreamMessage<HttpObject, HttpObject> implements HttpRequest {
+
+        private final HttpHeaders headers;
+        private final HttpDataSpillFile spillFile;
+        private final long maxInMemoryLength;
+        private long inMemoryLength;
+        private boolean failedToSpill;
+
+        SpillingHttpRequest(HttpRequest delegate, HttpDataSpillFile spillFile, long maxInMemoryLength) {
+            super(delegate, true);
+            headers = delegate.headers();
+            this.spillFile = spillFile;
+            this.maxInMemoryLength = maxInMemoryLength;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        protected HttpObject filter(HttpObject obj) {
+            if (!(obj instanceof HttpData)) {
+                return obj;
+            }
+
+            final HttpData data = (HttpData) obj;
+            final int length = data.length();
+            if (failedToSpill || spillFile.hasFailed() || inMemoryLength + length <= maxInMemoryLength) {
+                inMemoryLength += length;
+                return data;
+            }
+
+            try {
+                return spillFile.write(data);
+            } catch (Exception e) {
+                // Keep the data in memory rather than failing the request.
+                logger.warn("Failed to write the request content to a temporary file: {}", spillFile, e);
+                failedToSpill = true;
+                inMemoryLength += length;
+                return data;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .addValue(headers()).toString();
+        }
+    }
+
+    /**
+     * A {@link StreamMessage} which publishes the {@link HttpObject}s of a duplicate stream, replacing
+     * the {@link SpilledHttpData}s with the {@link HttpData}s read from the {@link HttpDataSpillFile}.
+     * The next {@link HttpObject} is requested only after the previous one is written, so that the order of
+     * the {@link HttpObject}s is preserved.
+     */
+    private static final class SpillReadingStreamMessage extends DefaultStreamMessage<HttpObject>
+            implements Subscriber<HttpObject> {
+
+        private final HttpDataSpillFile spillFile;
+        private final Executor executor;
+        @Nullable
+        private Subscription subscription;
+        private CompletableFuture<?> lastWriteFuture = completedFuture(null);
+
+        SpillReadingStreamMessage(StreamMessage<HttpObject> delegate, HttpDataSpillFile spillFile,
+                                  EventExecutor executor) {
+            this.spillFile = spillFile;
+            this.executor = executor;
+            delegate.subscribe(this, executor, true);
+            completionFuture().whenComplete((unused, cause) -> {
+                if (cause != null) {
+                    // Aborted by the subscriber of this stream.
+                    executor.execute(this::cancelUpstream);
+                }
+            });
+        }
+
+        private void cancelUpstream() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (isOpen()) {
+                requestNext();
+            } else {
+                subscription.cancel();
+            }
+        }
+
+        private void requestNext() {
+            assert subscription != null;
+            final Subscription subscription = this.subscription;
+            onDemand(() -> subscription.request(1));
+        }
+
+        @Override
+        public void onNext(HttpObject obj) {
+            if (!(obj instanceof SpilledHttpData)) {
+                writeAndRequestNext(obj);
+                return;
+            }
+
+            lastWriteFuture = spillFile.read((SpilledHttpData) obj).handle((data, cause) -> {
+                if (cause != null) {
+                    executor.execute(this::cancelUpstream);
+                    close(cause);
+                } else {
+                    writeAndRequestNext(data);
+                }
+                return null;
+            });
+        }
+
+        private void writeAndRequestNext(HttpObject obj) {
+            if (tryWrite(obj)) {
+                requestNext();
+            } else {
+                ReferenceCountUtil.safeRelease(obj);
+            }
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            lastWriteFuture.thenRun(() -> close(cause));
+        }
+
+        @Override
+        public void onComplete() {
+            lastWriteFuture.thenRun(this::close);
+        }
+    }
+
     private class DuplicateHttpRequest
             extends StreamMessageWrapper<HttpObject> implements HttpRequest {
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A skeletal {@link ConcurrencyLimit} implementation whose limit is adjusted by
+ * {@link #update(int, long, int, boolean)} under a lock and read without a lock.
+ */
+abstract class AbstractAdaptiveConcurrencyLimit implements ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+
+    AbstractAdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        checkArgument(minLimit > 0, "minLimit: %s (expected: > 0)", minLimit);
+        checkArgument(maxLimit >= minLimit, "maxLimit: %s (expected: >= %s)", maxLimit, minLimit);
+        checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit,
+                      "initialLimit: %s (expected: %s <= initialLimit <= %s)",
+                      initialLimit, minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = initialLimit;
+    }
+
+    final int minLimit() {
+        return minLimit;
+    }
+
+    final int maxLimit() {
+        return maxLimit;
+    }
+
+    @Override
+    public final int limit() {
+        return limit;
+    }
+
+    @Override
+    public final synchronized void onSample(long rttNanos, int numActiveRequests, boolean dropped) {
+        final int newLimit = update(limit, rttNanos, numActiveRequests, dropped);
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * Returns the new limit calculated from the specified sample. The returned value is clamped between
+     * the minimum and maximum limit.
+     */
+    abstract int update(int limit, long rttNanos, int numActiveRequests, boolean dropped);
+
+    /**
+     * Returns {@code true} if the number of active requests is too small for the sample to tell whether
+     * the limit is too low.
+     */
+    static boolean isApplicationLimited(int limit, int numActiveRequests) {
+        return numActiveRequests * 2 < limit;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("limit", limit)
+                          .add("minLimit", minLimit)
+                          .add("maxLimit", maxLimit)
+                          .toString();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+/**
+ * A {@link ConcurrencyLimit} which implements Additive Increase/Multiplicative Decrease.
+ */
+final class AimdConcurrencyLimit extends AbstractAdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    int update(int limit, long rttNanos, int numActiveRequests, boolean dropped) {
+        if (dropped) {
+            return (int) (limit * BACKOFF_RATIO);
+        }
+        if (isApplicationLimited(limit, numActiveRequests)) {
+            return limit;
+        }
+        return limit + 1;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+
+/**
+ * Determines the maximum number of concurrent active requests, such as the requests sent by
+ * a {@link com.linecorp.armeria.client.limit.ConcurrencyLimitingClient} or the requests served by
+ * a {@link com.linecorp.armeria.server.throttling.ConcurrencyLimitingThrottlingStrategy}.
+ * An adaptive implementation adjusts its {@link #limit()} continuously from the latency and the result of
+ * each completed request, so that the limit follows the capacity of the backend without hand-tuning.
+ *
+ * <p>Note that a {@link ConcurrencyLimit} is stateful. Do not share an instance between different backends
+ * or services.
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * Returns the {@link ConcurrencyLimit} which does not limit the number of concurrent active requests.
+     */
+    static ConcurrencyLimit unlimited() {
+        return FixedConcurrencyLimit.UNLIMITED;
+    }
+
+    /**
+     * Returns a {@link ConcurrencyLimit} which always returns the specified {@code limit}.
+     *
+     * @param limit the maximum number of concurrent active requests. {@code 0} to disable the limit.
+     */
+    static ConcurrencyLimit fixed(int limit) {
+        return limit == 0 ? unlimited() : new FixedConcurrencyLimit(limit);
+    }
+
+    /**
+     * Returns a new {@link ConcurrencyLimit} which increases the limit by 1 on a successful request and
+     * multiplies the limit by {@code 0.9} when a request was dropped, i.e. Additive Increase/Multiplicative
+     * Decrease.
+     */
+    static ConcurrencyLimit aimd(int initialLimit, int minLimit, int maxLimit) {
+        return new AimdConcurrencyLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Returns a new {@link ConcurrencyLimit} which estimates the number of queued requests at the backend
+     * from the difference between the minimum round-trip time and the current round-trip time, similarly to
+     * <a href="https://en.wikipedia.org/wiki/TCP_Vegas">TCP Vegas</a>.
+     */
+    static ConcurrencyLimit vegas(int initialLimit, int maxLimit) {
+        return new VegasConcurrencyLimit(initialLimit, maxLimit);
+    }
+
+    /**
+     * Returns a new {@link ConcurrencyLimit} which adjusts the limit by the gradient of the long-term
+     * average round-trip time and the current round-trip time.
+     */
+    static ConcurrencyLimit gradient(int initialLimit, int minLimit, int maxLimit) {
+        return new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Returns the current maximum number of concurrent active requests. {@code 0} means unlimited.
+     */
+    int limit();
+
+    /**
+     * Invoked when a {@link RequestLog} of an admitted request is complete.
+     *
+     * @param rttNanos the latency of the request since it was admitted
+     * @param numActiveRequests the number of the active requests when the request was complete
+     * @param dropped {@code true} if the request failed in a way which signals an overloaded backend,
+     *                such as a timeout
+     */
+    void onSample(long rttNanos, int numActiveRequests, boolean dropped);
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+final class FixedConcurrencyLimit implements ConcurrencyLimit {
+
+    static final FixedConcurrencyLimit UNLIMITED = new FixedConcurrencyLimit(0);
+
+    private final int limit;
+
+    FixedConcurrencyLimit(int limit) {
+        checkArgument(limit >= 0, "limit: %s (expected: >= 0)", limit);
+        this.limit = limit;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int numActiveRequests, boolean dropped) {}
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("limit", limit).toString();
+    }
+}
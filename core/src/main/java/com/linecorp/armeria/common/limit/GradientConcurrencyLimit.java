@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+/**
+ * A {@link ConcurrencyLimit} which compares the current round-trip time with the exponentially weighted
+ * moving average of the round-trip time. When the current round-trip time exceeds the average beyond
+ * the tolerance, the limit is reduced in proportion to the ratio. Otherwise, the limit grows by
+ * the square root of the current limit, which is the number of requests allowed to be queued.
+ */
+final class GradientConcurrencyLimit extends AbstractAdaptiveConcurrencyLimit {
+
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private double longRttNanos;
+    private double estimatedLimit;
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        estimatedLimit = initialLimit;
+    }
+
+    @Override
+    int update(int limit, long rttNanos, int numActiveRequests, boolean dropped) {
+        if (rttNanos <= 0 && !dropped) {
+            return limit;
+        }
+
+        final double gradient;
+        if (dropped) {
+            gradient = MIN_GRADIENT;
+        } else {
+            if (longRttNanos == 0) {
+                longRttNanos = rttNanos;
+            } else {
+                longRttNanos = longRttNanos * (1 - LONG_RTT_SMOOTHING) + rttNanos * LONG_RTT_SMOOTHING;
+            }
+
+            if (isApplicationLimited(limit, numActiveRequests)) {
+                return limit;
+            }
+            gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        }
+
+        final double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+        // Do not let the estimate go out of the range that can be represented by the actual limit.
+        estimatedLimit = Math.max(minLimit(), Math.min(maxLimit(), estimatedLimit));
+        return (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+/**
+ * A {@link ConcurrencyLimit} inspired by <a href="https://en.wikipedia.org/wiki/TCP_Vegas">TCP Vegas</a>.
+ * The number of requests queued at the backend is estimated as {@code limit * (1 - minRtt / rtt)}, where
+ * {@code minRtt} is the lowest round-trip time observed, i.e. the round-trip time without queueing.
+ * The limit grows quickly while the estimated queue is short and shrinks when it grows long.
+ */
+final class VegasConcurrencyLimit extends AbstractAdaptiveConcurrencyLimit {
+
+    /**
+     * The number of samples after which {@link #minRttNanos} is reset, so that a permanent change of
+     * the backend latency is eventually reflected.
+     */
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private long minRttNanos = Long.MAX_VALUE;
+    private int numSamples;
+
+    VegasConcurrencyLimit(int initialLimit, int maxLimit) {
+        super(initialLimit, 1, maxLimit);
+    }
+
+    @Override
+    int update(int limit, long rttNanos, int numActiveRequests, boolean dropped) {
+        if (++numSamples >= MIN_RTT_RESET_SAMPLES) {
+            numSamples = 0;
+            minRttNanos = Long.MAX_VALUE;
+        }
+
+        final int log10 = log10(limit);
+        if (dropped) {
+            return limit - log10;
+        }
+
+        if (rttNanos <= 0) {
+            return limit;
+        }
+        if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+            return limit;
+        }
+        if (isApplicationLimited(limit, numActiveRequests)) {
+            return limit;
+        }
+
+        final int queueSize = (int) Math.ceil(limit * (1 - (double) minRttNanos / rttNanos));
+        final int alpha = 3 * log10;
+        final int beta = 6 * log10;
+        if (queueSize <= log10) {
+            return limit + beta;
+        }
+        if (queueSize < alpha) {
+            return limit + log10;
+        }
+        if (queueSize > beta) {
+            return limit - log10;
+        }
+        return limit;
+    }
+
+    private static int log10(int value) {
+        return Math.max(1, (int) Math.log10(value));
+    }
+}
@@ -22,7 +22,6 @@ import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.annotation.Nullable;
 
@@ -50,6 +49,11 @@ import io.netty.util.concurrent.ImmediateEventExecutor;
  * <p>Note that when {@link Subscription#cancel()} or {@link #abort()} are called from a different thread, the
  * stream will continue to signal objects until demand is satisfied, rather than stopping in the middle. If this
  * is an issue, it is recommended to use {@link DefaultStreamMessage}.
+ *
+ * <p>When the writer and the {@link Subscriber} run on the provided {@link EventLoop}, publishing an object
+ * performs neither a compare-and-set nor a volatile write. Subscription and abortion are also serialized by
+ * the {@link EventLoop} rather than by atomic updates, so calls from the other threads are safe but pay for
+ * a task submission.
  */
 // NB: Methods in this class prefixed with 'do' must be run on the stream's event loop.
 public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T> {
@@ -57,13 +61,6 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
     private static final ConcurrentHashMap<List<StackTraceElement>, Boolean>
             UNEXPECTED_EVENT_LOOP_STACK_TRACES = new ConcurrentHashMap<>();
 
-    @SuppressWarnings("rawtypes")
-    private static final AtomicIntegerFieldUpdater<EventLoopStreamMessage> abortedUpdater =
-            AtomicIntegerFieldUpdater.newUpdater(EventLoopStreamMessage.class, "aborted");
-    @SuppressWarnings("rawtypes")
-    private static final AtomicIntegerFieldUpdater<EventLoopStreamMessage> subscribedUpdater =
-            AtomicIntegerFieldUpdater.newUpdater(EventLoopStreamMessage.class, "subscribed");
-
     private static final Logger logger = LoggerFactory.getLogger(EventLoopStreamMessage.class);
 
     private final EventLoop eventLoop;
@@ -77,11 +74,8 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
 
     private State state = State.OPEN;
 
-    @SuppressWarnings("unused")
-    private volatile int subscribed;  // set only via subscribedUpdater
-    @SuppressWarnings("unused")
-    private volatile int aborted;  // set only via abortedUpdater
     private volatile boolean isOpen = true;
+    // Written only once, so that a write does not pay for a volatile write on every object.
     private volatile boolean wroteAny;
 
     /**
@@ -127,12 +121,6 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
 
     @Override
     void subscribe(SubscriptionImpl subscription) {
-        final Subscriber<?> subscriber = subscription.subscriber();
-        if (!subscribedUpdater.compareAndSet(this, 0, 1)) {
-            eventLoop.execute(() -> failLateSubscriber(this.subscription, subscriber));
-            return;
-        }
-
         if (eventLoop.inEventLoop()) {
             doSubscribe(subscription);
         } else {
@@ -165,24 +153,12 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
 
     @Override
     public void abort() {
-        if (abortedUpdater.compareAndSet(this, 0, 1)) {
+        if (eventLoop.inEventLoop()) {
+            doAbort();
+        } else {
             // Let readers of isOpen know immediately that the stream was aborted.
             isOpen = false;
-
-            if (subscribedUpdater.compareAndSet(this, 0, 1)) {
-                if (eventLoop.inEventLoop()) {
-                    doSetAbortedSubscription();
-                    doCancelOrAbort(false);
-                } else {
-                    eventLoop.execute(() -> {
-                        doSetAbortedSubscription();
-                        doCancelOrAbort(false);
-                    });
-                }
-                return;
-            }
-
-            cancelOrAbort(false);
+            eventLoop.execute(this::doAbort);
         }
     }
 
@@ -228,7 +204,9 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
 
     @Override
     void addObject(T obj) {
-        wroteAny = true;
+        if (!wroteAny) {
+            wroteAny = true;
+        }
         if (eventLoop.inEventLoop()) {
             doAddObject(obj);
         } else {
@@ -260,6 +238,11 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
     }
 
     private void doSubscribe(SubscriptionImpl subscription) {
+        if (this.subscription != null) {
+            failLateSubscriber(this.subscription, subscription.subscriber());
+            return;
+        }
+
         this.subscription = subscription;
 
         if (subscription.needsDirectInvocation()) {
@@ -444,6 +427,13 @@ public class EventLoopStreamMessage<T> extends AbstractStreamMessageAndWriter<T>
         }
     }
 
+    private void doAbort() {
+        if (subscription == null) {
+            doSetAbortedSubscription();
+        }
+        doCancelOrAbort(false);
+    }
+
     private void doSetAbortedSubscription() {
         subscription = new SubscriptionImpl(this, AbortingSubscriber.get(),
                                             ImmediateEventExecutor.INSTANCE, false);
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.Flags;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * Creates the blocking task {@link ExecutorService}s backed by virtual threads, which are available since
+ * Java 21. A virtual thread is cheap enough to be created for each task, so the blocking tasks are not queued
+ * even if many of them block at the same time, unlike {@linkplain CommonPools#blockingTaskExecutor()
+ * the common pool} whose size is limited by {@link Flags#numCommonBlockingTaskThreads()}.
+ *
+ * <p>The availability of virtual threads is detected at runtime, so that Armeria still runs on older Java
+ * versions. Specify the {@code -Dcom.linecorp.armeria.useVirtualThreadBlockingTaskExecutor=true} JVM option
+ * to use virtual threads for {@linkplain CommonPools#blockingTaskExecutor() the common pool}, or specify
+ * an {@link ExecutorService} created by {@link #newThreadPerTaskExecutor(String)} to
+ * {@link ServerBuilder#blockingTaskExecutor(java.util.concurrent.Executor)}.
+ *
+ * <p>A {@link ServiceRequestContext} is propagated to a virtual thread just like to a platform thread when
+ * a task is submitted via {@link ServiceRequestContext#blockingTaskExecutor()}. Note that a virtual thread
+ * which blocks inside a {@code synchronized} block pins its carrier thread, so such a task does not benefit
+ * from virtual threads.
+ */
+public final class VirtualThreads {
+
+    @Nullable
+    private static final Method OF_VIRTUAL;
+    @Nullable
+    private static final Method NAME;
+    @Nullable
+    private static final Method FACTORY;
+    @Nullable
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    @Nullable
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        Throwable unavailabilityCause = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor",
+                                                                 ThreadFactory.class);
+
+            // Make sure virtual threads are not disabled, e.g. by a preview feature flag.
+            final Object builder = ofVirtual.invoke(null);
+            factory.invoke(name.invoke(builder, "armeria-virtual-thread-probe-", 0L));
+        } catch (Throwable cause) {
+            ofVirtual = null;
+            name = null;
+            factory = null;
+            newThreadPerTaskExecutor = null;
+            unavailabilityCause = Exceptions.peel(cause);
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        UNAVAILABILITY_CAUSE = unavailabilityCause;
+    }
+
+    /**
+     * Returns whether the current JVM supports virtual threads.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Returns the cause of the unavailability of virtual threads, or {@code null} if available.
+     */
+    @Nullable
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    /**
+     * Returns a new {@link ExecutorService} which starts a new virtual thread for each task.
+     * The threads are named {@code <threadNamePrefix><sequence>}.
+     *
+     * @throws IllegalStateException if virtual threads are not {@linkplain #isAvailable() available}
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        requireNonNull(threadNamePrefix, "threadNamePrefix");
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw new IllegalStateException("virtual threads not available", UNAVAILABILITY_CAUSE);
+        }
+
+        assert OF_VIRTUAL != null;
+        assert NAME != null;
+        assert FACTORY != null;
+        assert NEW_THREAD_PER_TASK_EXECUTOR != null;
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), threadNamePrefix, 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to create a virtual thread executor",
+                                            Exceptions.peel(e));
+        }
+    }
+
+    private VirtualThreads() {}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.AbstractHttpData;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+
+/**
+ * An {@link HttpData} that is backed by a region of a file, which is written to a cleartext HTTP/1 connection
+ * as a {@link FileRegion} so that the file content is transferred without being copied into user space,
+ * e.g. using {@code sendfile()}.
+ *
+ * <p>The file content should not be accessed, because reading it blocks the current thread, which is usually
+ * an event loop. Therefore, this {@link HttpData} should be used only when nothing accesses the content until
+ * it is written, e.g. when no decorator transforms the content and it is not written to an HTTP/2 or TLS
+ * connection. If the content is accessed anyway, e.g. by {@link #array()} or {@link #content()}, the region
+ * is read into the heap once, which is the slow path.
+ *
+ * <p>The reference count is shared with the {@link FileRegion}.
+ */
+public final class FileRegionHttpData extends AbstractHttpData implements ByteBufHolder {
+
+    private final Path path;
+    private final long position;
+    private final int length;
+    private final boolean endOfStream;
+    private final DefaultFileRegion region;
+    @Nullable
+    private byte[] content;
+
+    /**
+     * Creates a new instance. The file is not opened until the content is transferred.
+     */
+    public FileRegionHttpData(Path path, long position, int length, boolean endOfStream) {
+        this.path = requireNonNull(path, "path");
+        checkArgument(position >= 0, "position: %s (expected: >= 0)", position);
+        checkArgument(length > 0, "length: %s (expected: > 0)", length);
+        this.position = position;
+        this.length = length;
+        this.endOfStream = endOfStream;
+        region = new DefaultFileRegion(path.toFile(), position, length);
+    }
+
+    /**
+     * Returns the {@link FileRegion} which shares the reference count with this {@link HttpData}.
+     * Writing it to a {@link io.netty.channel.Channel} transfers the ownership of this {@link HttpData}.
+     */
+    public FileRegion fileRegion() {
+        return region;
+    }
+
+    @Override
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    @Override
+    public byte[] array() {
+        return readContent();
+    }
+
+    @Override
+    public int offset() {
+        return 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    protected byte getByte(int index) {
+        return readContent()[index];
+    }
+
+    /**
+     * Returns the content read from the file region, which is not pooled. Note that it does not share
+     * the reference count with this {@link HttpData}.
+     */
+    @Override
+    public ByteBuf content() {
+        return Unpooled.wrappedBuffer(readContent());
+    }
+
+    @Override
+    public ByteBufHttpData copy() {
+        return new ByteBufHttpData(Unpooled.copiedBuffer(readContent()), endOfStream);
+    }
+
+    @Override
+    public FileRegionHttpData duplicate() {
+        return this;
+    }
+
+    @Override
+    public FileRegionHttpData retainedDuplicate() {
+        return retain();
+    }
+
+    @Override
+    public ByteBufHttpData replace(ByteBuf content) {
+        requireNonNull(content, "content");
+        return new ByteBufHttpData(content, endOfStream);
+    }
+
+    @Override
+    public int refCnt() {
+        return region.refCnt();
+    }
+
+    @Override
+    public FileRegionHttpData retain() {
+        region.retain();
+        return this;
+    }
+
+    @Override
+    public FileRegionHttpData retain(int increment) {
+        region.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FileRegionHttpData touch() {
+        region.touch();
+        return this;
+    }
+
+    @Override
+    public FileRegionHttpData touch(Object hint) {
+        region.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return region.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return region.release(decrement);
+    }
+
+    /**
+     * Reads the content of the file region, blocking the current thread. It is read only once.
+     */
+    private byte[] readContent() {
+        byte[] content = this.content;
+        if (content != null) {
+            return content;
+        }
+
+        content = new byte[length];
+        final ByteBuffer buf = ByteBuffer.wrap(content);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, position + buf.position()) < 0) {
+                    throw new EOFException("unexpected end of file: " + path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read the content of a file region: " + this, e);
+        }
+        return this.content = content;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("position", position)
+                          .add("length", length)
+                          .add("endOfStream", endOfStream)
+                          .toString();
+    }
+}
@@ -327,6 +327,10 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         try {
+            if (!isTls && data instanceof FileRegionHttpData) {
+                // Cleartext connection and the content is a file region.
+                return doWriteFileRegion(id, (FileRegionHttpData) data, endStream);
+            }
             if (!isTls || length <= MAX_TLS_DATA_LENGTH) {
                 // Cleartext connection or data.length() <= MAX_TLS_DATA_LENGTH
                 return doWriteUnsplitData(id, data, endStream);
@@ -361,6 +365,16 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
+    private ChannelFuture doWriteFileRegion(int id, FileRegionHttpData data, boolean endStream) {
+        // HttpObjectEncoder writes a FileRegion as the content of the current message without copying.
+        ChannelFuture future = write(id, data.fileRegion(), false);
+        if (endStream) {
+            future = write(id, LastHttpContent.EMPTY_LAST_CONTENT, true);
+        }
+        ch.flush();
+        return future;
+    }
+
     private ChannelFuture doWriteSplitData(int id, HttpData data, boolean endStream) {
         try {
             int offset = data.offset();
@@ -397,7 +411,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
-    private ChannelFuture write(int id, HttpObject obj, boolean endStream) {
+    private ChannelFuture write(int id, Object obj, boolean endStream) {
         if (id < currentId) {
             // Attempted to write something on a finished request/response; discard.
             // e.g. the request already timed out.
@@ -436,7 +450,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             return future;
         } else {
             final ChannelPromise promise = ch.newPromise();
-            final Entry<HttpObject, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
+            final Entry<Object, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
             final PendingWrites pendingWrites;
             if (currentPendingWrites == null) {
                 pendingWrites = new PendingWrites();
@@ -458,7 +472,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
 
     private void flushPendingWrites(PendingWrites pendingWrites) {
         for (;;) {
-            final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+            final Entry<Object, ChannelPromise> e = pendingWrites.poll();
             if (e == null) {
                 break;
             }
@@ -476,7 +490,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         for (int i = minClosedId; i <= maxIdWithPendingWrites; i++) {
             final PendingWrites pendingWrites = pendingWritesMap.remove(i);
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+                final Entry<Object, ChannelPromise> e = pendingWrites.poll();
                 if (e == null) {
                     break;
                 }
@@ -499,9 +513,9 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         final ClosedSessionException cause = ClosedSessionException.get();
-        for (Queue<Entry<HttpObject, ChannelPromise>> queue : pendingWritesMap.values()) {
+        for (Queue<Entry<Object, ChannelPromise>> queue : pendingWritesMap.values()) {
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = queue.poll();
+                final Entry<Object, ChannelPromise> e = queue.poll();
                 if (e == null) {
                     break;
                 }
@@ -513,7 +527,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         pendingWritesMap.clear();
     }
 
-    private static final class PendingWrites extends ArrayDeque<Entry<HttpObject, ChannelPromise>> {
+    private static final class PendingWrites extends ArrayDeque<Entry<Object, ChannelPromise>> {
 
         private static final long serialVersionUID = 4241891747461017445L;
 
@@ -524,7 +538,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         @Override
-        public boolean add(Entry<HttpObject, ChannelPromise> httpObjectChannelPromiseEntry) {
+        public boolean add(Entry<Object, ChannelPromise> httpObjectChannelPromiseEntry) {
             return isEndOfStream() ? false : super.add(httpObjectChannelPromiseEntry);
         }
 
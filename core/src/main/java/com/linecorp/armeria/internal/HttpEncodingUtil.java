@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.MediaType;
+
+/**
+ * A utility class for the HTTP content encoding (e.g., gzip) applied by a server, which is shared by
+ * {@code HttpEncodingService} and {@code HttpFileService}.
+ */
+public final class HttpEncodingUtil {
+
+    /**
+     * The default minimum length of a response content to encode.
+     */
+    public static final int DEFAULT_MIN_BYTES_TO_ENCODE = 1024;
+
+    private static final List<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPES =
+            ImmutableList.of(MediaType.ANY_TEXT_TYPE,
+                             MediaType.APPLICATION_XML_UTF_8,
+                             MediaType.JAVASCRIPT_UTF_8,
+                             MediaType.JSON_UTF_8);
+
+    /**
+     * Returns whether the specified {@code contentType} is one of the common web text formats, which are
+     * encoded by default.
+     */
+    public static boolean isEncodableContentType(MediaType contentType) {
+        for (MediaType type : DEFAULT_ENCODABLE_CONTENT_TYPES) {
+            if (contentType.is(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content encoding which is preferred by the specified {@code accept-encoding} header value,
+     * {@code "gzip"} or {@code "deflate"}, taking the q-values into account. {@code null} is returned if
+     * the client accepts neither.
+     */
+    // Copied from netty's HttpContentCompressor.
+    @Nullable
+    @SuppressWarnings("FloatingPointEquality")
+    public static String determineEncoding(String acceptEncoding) {
+        float starQ = -1.0f;
+        float gzipQ = -1.0f;
+        float deflateQ = -1.0f;
+        for (String encoding : acceptEncoding.split(",")) {
+            float q = 1.0f;
+            final int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            if (encoding.contains("*")) {
+                starQ = q;
+            } else if (encoding.contains("gzip") && q > gzipQ) {
+                gzipQ = q;
+            } else if (encoding.contains("deflate") && q > deflateQ) {
+                deflateQ = q;
+            }
+        }
+        if (gzipQ > 0.0f || deflateQ > 0.0f) {
+            if (gzipQ >= deflateQ) {
+                return "gzip";
+            } else {
+                return "deflate";
+            }
+        }
+        if (starQ > 0.0f) {
+            if (gzipQ == -1.0f) {
+                return "gzip";
+            }
+            if (deflateQ == -1.0f) {
+                return "deflate";
+            }
+        }
+        return null;
+    }
+
+    private HttpEncodingUtil() {}
+}
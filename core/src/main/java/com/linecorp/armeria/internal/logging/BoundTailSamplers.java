@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.logging;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.linecorp.armeria.server.PathMapping;
+import com.linecorp.armeria.server.ServiceConfig;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.VirtualHost;
+import com.linecorp.armeria.server.logging.TailSampler;
+
+/**
+ * Holds the {@link TailSampler}s bound to each {@link ServiceConfig} of a logging decorator, which may be
+ * added to a server under more than one {@link PathMapping} or {@link VirtualHost}.
+ */
+public final class BoundTailSamplers {
+
+    private final TailSampler tailSampler;
+    private final Map<VirtualHost, Map<PathMapping, TailSampler>> boundTailSamplers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance which binds the specified unbound {@link TailSampler}.
+     */
+    public BoundTailSamplers(TailSampler tailSampler) {
+        this.tailSampler = requireNonNull(tailSampler, "tailSampler");
+    }
+
+    /**
+     * Binds the {@link TailSampler} to the specified {@link ServiceConfig}.
+     */
+    public void add(ServiceConfig cfg) {
+        boundTailSamplers.computeIfAbsent(cfg.virtualHost(), unused -> new ConcurrentHashMap<>())
+                         .put(cfg.pathMapping(), tailSampler.forService(cfg));
+    }
+
+    /**
+     * Returns the {@link TailSampler} bound to the {@link ServiceConfig} of the specified
+     * {@link ServiceRequestContext}, or the unbound {@link TailSampler} if the service has not been added.
+     */
+    public TailSampler get(ServiceRequestContext ctx) {
+        final Map<PathMapping, TailSampler> tailSamplers = boundTailSamplers.get(ctx.virtualHost());
+        if (tailSamplers == null) {
+            return tailSampler;
+        }
+        final TailSampler boundTailSampler = tailSamplers.get(ctx.pathMapping());
+        return boundTailSampler != null ? boundTailSampler : tailSampler;
+    }
+}
@@ -28,6 +28,8 @@ import java.net.InetAddress;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -326,6 +328,30 @@ abstract class AbstractVirtualHostBuilder<B extends AbstractVirtualHostBuilder>
         return self();
     }
 
+    /**
+     * Binds the specified {@link Service} at the specified path pattern, which runs its blocking tasks on
+     * the specified {@link ExecutorService} instead of {@link ServerBuilder#blockingTaskExecutor(Executor)}.
+     *
+     * @see #service(PathMapping, Service, ExecutorService)
+     */
+    public B service(String pathPattern, Service<HttpRequest, HttpResponse> service,
+                     ExecutorService blockingTaskExecutor) {
+        return service(PathMapping.of(pathPattern), service, blockingTaskExecutor);
+    }
+
+    /**
+     * Binds the specified {@link Service} at the specified {@link PathMapping}, which runs its blocking tasks
+     * on the specified {@link ExecutorService} instead of {@link ServerBuilder#blockingTaskExecutor(Executor)}.
+     * Use a separate {@link BoundedBlockingTaskExecutor} for a {@link Service} which may block for a long
+     * time, so that it does not starve the other {@link Service}s.
+     */
+    public B service(PathMapping pathMapping, Service<HttpRequest, HttpResponse> service,
+                     ExecutorService blockingTaskExecutor) {
+        requireNonNull(blockingTaskExecutor, "blockingTaskExecutor");
+        services.add(new ServiceConfig(pathMapping, service, null, blockingTaskExecutor));
+        return self();
+    }
+
     /**
      * Binds the specified {@link Service} at the specified {@link PathMapping}.
      *
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * A blocking task {@link ThreadPoolExecutor} with a limited number of threads and a bounded queue.
+ * Unlike {@linkplain com.linecorp.armeria.common.CommonPools#blockingTaskExecutor() the common pool} whose
+ * queue is unbounded, a task submitted when the queue is full is rejected with
+ * a {@link RejectedExecutionException} whose cause is an {@link HttpStatusException} of
+ * {@link HttpStatus#SERVICE_UNAVAILABLE}, which is converted into a {@code 503 Service Unavailable} response
+ * when a {@link Service} fails with it. Specify a {@link BoundedBlockingTaskExecutor} for each service
+ * which may block for a long time, e.g. with
+ * {@link ServerBuilder#service(PathMapping, Service, java.util.concurrent.ExecutorService)}, so that it
+ * does not starve the other services which share the same executor.
+ *
+ * @see BoundedBlockingTaskExecutorBuilder
+ */
+public final class BoundedBlockingTaskExecutor extends ThreadPoolExecutor {
+
+    private final String threadNamePrefix;
+    private final int maxQueuedTasks;
+
+    private final LongAdder numRejectedTasks = new LongAdder();
+    private final LongAdder numExecutedTasks = new LongAdder();
+    private final LongAdder totalWaitTimeNanos = new LongAdder();
+
+    BoundedBlockingTaskExecutor(String threadNamePrefix, int maxThreads, int maxQueuedTasks,
+                                long keepAliveTimeNanos) {
+        super(maxThreads, maxThreads, keepAliveTimeNanos, TimeUnit.NANOSECONDS,
+              new LinkedBlockingQueue<>(maxQueuedTasks),
+              new DefaultThreadFactory(threadNamePrefix, true),
+              RejectionHandler.INSTANCE);
+        this.threadNamePrefix = threadNamePrefix;
+        this.maxQueuedTasks = maxQueuedTasks;
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        requireNonNull(command, "command");
+        super.execute(new TimedTask(command));
+    }
+
+    /**
+     * Returns the number of the tasks which are waiting in the queue.
+     */
+    public int numQueuedTasks() {
+        return getQueue().size();
+    }
+
+    /**
+     * Returns the number of the tasks which were rejected because the queue was full.
+     */
+    public long numRejectedTasks() {
+        return numRejectedTasks.sum();
+    }
+
+    /**
+     * Registers the metrics of this executor, i.e. the number of the active threads, the number of
+     * the queued tasks, the number of the rejected tasks and the time which the tasks waited in the queue,
+     * to the specified {@link MeterRegistry}.
+     */
+    public void registerMetrics(MeterRegistry registry, MeterIdPrefix idPrefix) {
+        requireNonNull(registry, "registry");
+        requireNonNull(idPrefix, "idPrefix");
+        registry.gauge(idPrefix.name("activeThreads"), idPrefix.tags(),
+                       this, BoundedBlockingTaskExecutor::getActiveCount);
+        registry.gauge(idPrefix.name("queuedTasks"), idPrefix.tags(),
+                       this, BoundedBlockingTaskExecutor::numQueuedTasks);
+        registry.more().counter(idPrefix.name("rejectedTasks"), idPrefix.tags(),
+                                this, BoundedBlockingTaskExecutor::numRejectedTasks);
+        registry.more().timer(idPrefix.name("waitTime"), idPrefix.tags(), this,
+                              executor -> executor.numExecutedTasks.sum(),
+                              executor -> executor.totalWaitTimeNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the {@link HttpStatusException} which the specified {@link Throwable} carries if it is
+     * a {@link RejectedExecutionException} raised because the queue of a {@link BoundedBlockingTaskExecutor}
+     * is full. Otherwise, e.g. when an executor has been shut down, returns {@code null}.
+     */
+    @Nullable
+    static HttpStatusException rejectionStatus(Throwable cause) {
+        if (cause instanceof RejectedExecutionException && cause.getCause() instanceof HttpStatusException) {
+            return (HttpStatusException) cause.getCause();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("threadNamePrefix", threadNamePrefix)
+                          .add("maxThreads", getMaximumPoolSize())
+                          .add("maxQueuedTasks", maxQueuedTasks)
+                          .add("activeThreads", getActiveCount())
+                          .add("queuedTasks", numQueuedTasks())
+                          .toString();
+    }
+
+    private final class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final long submittedNanos = System.nanoTime();
+
+        TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            totalWaitTimeNanos.add(System.nanoTime() - submittedNanos);
+            numExecutedTasks.increment();
+            task.run();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+    private static final class RejectionHandler implements RejectedExecutionHandler {
+
+        static final RejectionHandler INSTANCE = new RejectionHandler();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("executor shut down: " + executor);
+            }
+
+            final BoundedBlockingTaskExecutor boundedExecutor = (BoundedBlockingTaskExecutor) executor;
+            boundedExecutor.numRejectedTasks.increment();
+            throw new RejectedExecutionException(
+                    "too many queued tasks: " + boundedExecutor.maxQueuedTasks +
+                    " (executor: " + boundedExecutor.threadNamePrefix + ')',
+                    HttpStatusException.of(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+    }
+}
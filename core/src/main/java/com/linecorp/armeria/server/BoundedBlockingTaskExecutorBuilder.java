@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.Flags;
+
+/**
+ * Builds a new {@link BoundedBlockingTaskExecutor}. For example, the following executor runs at most
+ * 20 JDBC tasks at the same time, and responds with {@code 503 Service Unavailable} when more than
+ * 100 tasks are waiting:
+ * <pre>{@code
+ * BoundedBlockingTaskExecutor executor =
+ *         new BoundedBlockingTaskExecutorBuilder("jdbc-tasks").maxThreads(20)
+ *                                                              .maxQueuedTasks(100)
+ *                                                              .build();
+ * }</pre>
+ */
+public final class BoundedBlockingTaskExecutorBuilder {
+
+    private static final int DEFAULT_MAX_QUEUED_TASKS = 1024;
+    private static final Duration DEFAULT_KEEP_ALIVE_TIME = Duration.ofMinutes(1);
+
+    private final String threadNamePrefix;
+    private int maxThreads = Flags.numCommonBlockingTaskThreads();
+    private int maxQueuedTasks = DEFAULT_MAX_QUEUED_TASKS;
+    private Duration keepAliveTime = DEFAULT_KEEP_ALIVE_TIME;
+
+    /**
+     * Creates a new builder whose threads are named with the specified prefix.
+     */
+    public BoundedBlockingTaskExecutorBuilder(String threadNamePrefix) {
+        this.threadNamePrefix = requireNonNull(threadNamePrefix, "threadNamePrefix");
+    }
+
+    /**
+     * Sets the maximum number of the threads. The default is {@link Flags#numCommonBlockingTaskThreads()}.
+     */
+    public BoundedBlockingTaskExecutorBuilder maxThreads(int maxThreads) {
+        checkArgument(maxThreads > 0, "maxThreads: %s (expected: > 0)", maxThreads);
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the tasks waiting for a thread. A task submitted beyond the limit is
+     * rejected with {@code 503 Service Unavailable}. The default is {@code 1024}.
+     */
+    public BoundedBlockingTaskExecutorBuilder maxQueuedTasks(int maxQueuedTasks) {
+        checkArgument(maxQueuedTasks > 0, "maxQueuedTasks: %s (expected: > 0)", maxQueuedTasks);
+        this.maxQueuedTasks = maxQueuedTasks;
+        return this;
+    }
+
+    /**
+     * Sets the time an idle thread waits for a new task before it terminates. The default is 1 minute.
+     */
+    public BoundedBlockingTaskExecutorBuilder keepAliveTime(Duration keepAliveTime) {
+        requireNonNull(keepAliveTime, "keepAliveTime");
+        checkArgument(!keepAliveTime.isNegative() && !keepAliveTime.isZero(),
+                      "keepAliveTime: %s (expected: > 0)", keepAliveTime);
+        this.keepAliveTime = keepAliveTime;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link BoundedBlockingTaskExecutor} based on the properties of this builder.
+     */
+    public BoundedBlockingTaskExecutor build() {
+        return new BoundedBlockingTaskExecutor(threadNamePrefix, maxThreads, maxQueuedTasks,
+                                               keepAliveTime.toNanos());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("threadNamePrefix", threadNamePrefix)
+                          .add("maxThreads", maxThreads)
+                          .add("maxQueuedTasks", maxQueuedTasks)
+                          .add("keepAliveTime", keepAliveTime)
+                          .toString();
+    }
+}
@@ -332,7 +332,9 @@ public class DefaultServiceRequestContext extends NonWrappingRequestContext impl
             return blockingTaskExecutor;
         }
 
-        return blockingTaskExecutor = makeContextAware(server().config().blockingTaskExecutor());
+        final ExecutorService executor = cfg.blockingTaskExecutor().orElse(
+                server().config().blockingTaskExecutor());
+        return blockingTaskExecutor = makeContextAware(executor);
     }
 
     @Override
@@ -31,18 +31,24 @@ final class ExactPathMapping extends AbstractPathMapping {
     private final String loggerName;
     private final String meterTag;
     private final Optional<String> exactPathOpt;
+    private final PathMappingResult resultWithoutQuery;
 
     ExactPathMapping(String exactPath) {
         this.exactPath = ensureAbsolutePath(exactPath, "exactPath");
         exactPathOpt = Optional.of(exactPath);
+        resultWithoutQuery = PathMappingResult.ofShared(exactPath);
         loggerName = newLoggerName(exactPath);
         meterTag = EXACT + exactPath;
     }
 
     @Override
     protected PathMappingResult doApply(PathMappingContext mappingCtx) {
-        return exactPath.equals(mappingCtx.path()) ? PathMappingResult.of(mappingCtx.path(), mappingCtx.query())
-                                                   : PathMappingResult.empty();
+        if (!exactPath.equals(mappingCtx.path())) {
+            return PathMappingResult.empty();
+        }
+        final String query = mappingCtx.query();
+        // Every request without a query gets the same result, so a matched request does not allocate.
+        return query == null ? resultWithoutQuery : PathMappingResult.of(exactPath, query);
     }
 
     @Override
@@ -131,13 +131,15 @@ final class HttpHeaderPathMapping implements PathMapping {
         for (MediaType produceType : producibleTypes) {
             for (int i = 0; i < types.size(); i++) {
                 if (produceType.belongsTo(types.get(i))) {
+                    // The result of an exact path mapping is shared by the requests.
+                    final PathMappingResult negotiated = result.toMutable();
                     // To early stop path mapping traversal,
                     // we set the score as the best score when the index is 0.
-                    result.setScore(i == 0 ? PathMappingResult.HIGHEST_SCORE : -1 * i);
+                    negotiated.setScore(i == 0 ? PathMappingResult.HIGHEST_SCORE : -1 * i);
                     if (!produceTypes.isEmpty()) {
-                        result.setNegotiatedResponseMediaType(produceType);
+                        negotiated.setNegotiatedResponseMediaType(produceType);
                     }
-                    return result;
+                    return negotiated;
                 }
             }
         }
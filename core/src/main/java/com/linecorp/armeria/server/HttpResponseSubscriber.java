@@ -231,6 +231,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
 
     @Override
     public void onError(Throwable cause) {
+        final HttpStatusException rejectionStatus = BoundedBlockingTaskExecutor.rejectionStatus(cause);
         if (cause instanceof HttpResponseException) {
             // Timeout may occur when the aggregation of the error response takes long.
             // If timeout occurs, respond with 503 Service Unavailable.
@@ -250,6 +251,9 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
             failAndRespond(cause,
                            AggregatedHttpMessage.of(((HttpStatusException) cause).httpStatus()),
                            Http2Error.CANCEL);
+        } else if (rejectionStatus != null) {
+            // The queue of a BoundedBlockingTaskExecutor is full.
+            failAndRespond(cause, AggregatedHttpMessage.of(rejectionStatus.httpStatus()), Http2Error.CANCEL);
         } else if (cause instanceof AbortedStreamException) {
             // One of the two cases:
             // - Client closed the connection too early.
@@ -391,8 +391,13 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
                 serviceResponse = cause.httpResponse();
             } catch (Throwable cause) {
                 try {
+                    final HttpStatusException rejectionStatus =
+                            BoundedBlockingTaskExecutor.rejectionStatus(cause);
                     if (cause instanceof HttpStatusException) {
                         respond(ctx, reqCtx, ((HttpStatusException) cause).httpStatus(), null, cause);
+                    } else if (rejectionStatus != null) {
+                        // The queue of a BoundedBlockingTaskExecutor is full.
+                        respond(ctx, reqCtx, rejectionStatus.httpStatus(), null, cause);
                     } else {
                         logger.warn("{} Unexpected exception: {}, {}", reqCtx, service, req, cause);
                         respond(ctx, reqCtx, HttpStatus.INTERNAL_SERVER_ERROR, null, cause);
@@ -78,12 +78,22 @@ public final class PathMappingResult {
         return new PathMappingResult(path, query, rawPathParams, score);
     }
 
+    /**
+     * Creates a new instance with the specified {@code path}, which is preallocated and returned for every
+     * request to the {@code path} without a query. Use {@link #toMutable()} to update it.
+     */
+    static PathMappingResult ofShared(String path) {
+        requireNonNull(path, "path");
+        return new PathMappingResult(path, null, ImmutableMap.of(), LOWEST_SCORE, true);
+    }
+
     @Nullable
     private final String path;
     @Nullable
     private final String query;
     @Nullable
     private final Map<String, String> pathParams;
+    private final boolean shared;
 
     private int score;
     @Nullable
@@ -93,12 +103,18 @@ public final class PathMappingResult {
 
     PathMappingResult(@Nullable String path, @Nullable String query,
                       Map<String, String> pathParams, int score) {
+        this(path, query, pathParams, score, false);
+    }
+
+    private PathMappingResult(@Nullable String path, @Nullable String query,
+                              Map<String, String> pathParams, int score, boolean shared) {
         assert path != null || query == null && pathParams.isEmpty();
 
         this.path = path;
         this.query = query;
         this.pathParams = ImmutableMap.copyOf(pathParams);
         this.score = score;
+        this.shared = shared;
     }
 
     /**
@@ -184,6 +200,7 @@ public final class PathMappingResult {
      */
     void setScore(int score) {
         ensurePresence();
+        assert !shared : "cannot update a shared result";
         this.score = score;
     }
 
@@ -212,9 +229,23 @@ public final class PathMappingResult {
      */
     void setNegotiatedResponseMediaType(MediaType negotiatedResponseMediaType) {
         ensurePresence();
+        assert !shared : "cannot update a shared result";
         this.negotiatedResponseMediaType = negotiatedResponseMediaType;
     }
 
+    /**
+     * Returns this result, or a copy of it if it was created by {@link #ofShared(String)}, so that
+     * {@link #setScore(int)} and {@link #setNegotiatedResponseMediaType(MediaType)} do not affect
+     * the other requests.
+     */
+    PathMappingResult toMutable() {
+        if (!shared) {
+            return this;
+        }
+        assert path != null;
+        return new PathMappingResult(path, query, pathParams, score);
+    }
+
     private void ensurePresence() {
         if (!isPresent()) {
             throw new IllegalStateException("mapping unavailable");
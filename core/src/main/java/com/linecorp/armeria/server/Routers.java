@@ -72,7 +72,9 @@ public final class Routers {
             }
         };
 
-        return wrapVirtualHostRouter(defaultRouter(configs, ServiceConfig::pathMapping, rejectionConsumer));
+        final Router<ServiceConfig> router =
+                defaultRouter(configs, ServiceConfig::pathMapping, rejectionConsumer);
+        return allExact(configs, ServiceConfig::pathMapping) ? router : wrapVirtualHostRouter(router);
     }
 
     /**
@@ -82,7 +84,7 @@ public final class Routers {
             List<CompositeServiceEntry<I, O>> entries) {
         requireNonNull(entries, "entries");
 
-        final Router<CompositeServiceEntry<I, O>> delegate = wrapCompositeServiceRouter(defaultRouter(
+        final Router<CompositeServiceEntry<I, O>> router = defaultRouter(
                 entries, CompositeServiceEntry::pathMapping,
                 (mapping, existingMapping) -> {
                     final String a = mapping.toString();
@@ -95,7 +97,10 @@ public final class Routers {
                     throw new IllegalStateException(
                             "Your composite service has path mappings with a conflict: " +
                             a + " vs. " + b);
-                }));
+                });
+        final Router<CompositeServiceEntry<I, O>> delegate =
+                allExact(entries, CompositeServiceEntry::pathMapping) ? router
+                                                                      : wrapCompositeServiceRouter(router);
 
         return new CompositeRouter<>(delegate, result ->
                 result.isPresent() ? PathMapped.of(result.mapping(), result.mappingResult(),
@@ -116,6 +121,19 @@ public final class Routers {
                                      Function.identity());
     }
 
+    /**
+     * Returns whether all values have an exact path mapping. Such values are found by a single hash table
+     * lookup of {@link RoutingTrie}, which is cheaper than looking up a {@link RouteCache}.
+     */
+    private static <V> boolean allExact(Iterable<V> values, Function<V, PathMapping> pathMappingResolver) {
+        for (V value : values) {
+            if (!pathMappingResolver.apply(value).exactPath().isPresent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns a list of {@link Router}s.
      */
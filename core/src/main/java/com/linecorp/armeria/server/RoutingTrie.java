@@ -26,6 +26,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -33,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeSet;
 
 import javax.annotation.Nullable;
 
@@ -40,6 +42,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.MoreObjects.ToStringHelper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 /**
@@ -61,15 +64,41 @@ import com.google.common.collect.Maps;
  *     "/hello/new/world/for/armeria</li>
  * </ul>
  *
+ * <p>When built, the children of every node are flattened into a sorted array, and the nodes of the paths
+ * without a path variable or a catch-all are put into a hash table, so that a request to such a path is
+ * routed by a single lookup without traversing the trie.
+ *
  * @param <V> Value type of {@link RoutingTrie}.
  */
 final class RoutingTrie<V> {
 
     private final Node<V> root;
+    private final Map<String, Node<V>> exactNodes;
 
     private RoutingTrie(Node<V> root) {
         requireNonNull(root, "root");
         this.root = root;
+
+        final ImmutableMap.Builder<String, Node<V>> exactNodes = ImmutableMap.builder();
+        collectExactNodes(root, "", exactNodes);
+        this.exactNodes = exactNodes.build();
+    }
+
+    /**
+     * Collects the {@link Node}s which have values and are reachable only via {@link Type#EXACT} nodes.
+     */
+    private static <V> void collectExactNodes(Node<V> node, String parentPath,
+                                              ImmutableMap.Builder<String, Node<V>> exactNodes) {
+        if (node.type() != Type.EXACT) {
+            return;
+        }
+        final String path = parentPath + node.path();
+        if (node.hasValues()) {
+            exactNodes.put(path, node);
+        }
+        for (Node<V> child : node.children()) {
+            collectExactNodes(child, path, exactNodes);
+        }
     }
 
     /**
@@ -77,7 +106,12 @@ final class RoutingTrie<V> {
      */
     @Nullable
     List<V> find(String path) {
-        final Node<V> node = findNode(path, false);
+        // Look up the exact paths first, which yields the same node as the traversal below because
+        // a node with values is always preferred over the other nodes when the path is fully consumed.
+        Node<V> node = exactNodes.get(path);
+        if (node == null) {
+            node = findNode(path, false);
+        }
         return node == null ? ImmutableList.of() : node.values();
     }
 
@@ -229,6 +263,7 @@ final class RoutingTrie<V> {
                 final Entry<String, V> route = routes.get(i);
                 addRoute(root, route.getKey(), route.getValue());
             }
+            root.freeze();
             return new RoutingTrie<>(root);
         }
 
@@ -366,6 +401,12 @@ final class RoutingTrie<V> {
         @Nullable
         private Map<Character, Node<V>> children;
 
+        // The flattened children which are used after the trie is built, sorted by the keys.
+        @Nullable
+        private char[] childKeys;
+        @Nullable
+        private Node<V>[] childNodes;
+
         // Short-cuts to the special-purpose children.
         @Nullable
         private Node<V> parameterChild;
@@ -405,6 +446,9 @@ final class RoutingTrie<V> {
         }
 
         Collection<Node<V>> children() {
+            if (childNodes != null) {
+                return Collections.unmodifiableList(Arrays.asList(childNodes));
+            }
             return children == null ?
                    ImmutableList.of() : Collections.unmodifiableCollection(children.values());
         }
@@ -445,9 +489,45 @@ final class RoutingTrie<V> {
 
         @Nullable
         private Node<V> child(char key) {
+            final char[] childKeys = this.childKeys;
+            if (childKeys != null) {
+                assert childNodes != null;
+                final int index = Arrays.binarySearch(childKeys, key);
+                return index >= 0 ? childNodes[index] : null;
+            }
             return children == null ? null : children.get(key);
         }
 
+        /**
+         * Flattens the children of this {@link Node} and its descendants into the arrays, so that
+         * a child is found without boxing a {@link Character} or following the buckets of a {@link Map}.
+         * The trie must not be modified after this method is called.
+         */
+        private void freeze() {
+            if (children == null) {
+                return;
+            }
+
+            final int size = children.size();
+            final char[] childKeys = new char[size];
+            @SuppressWarnings("unchecked")
+            final Node<V>[] childNodes = new Node[size];
+            int i = 0;
+            for (Character key : new TreeSet<>(children.keySet())) {
+                childKeys[i] = key;
+                childNodes[i] = children.get(key);
+                i++;
+            }
+            this.childKeys = childKeys;
+            this.childNodes = childNodes;
+            // Not used anymore.
+            children = null;
+
+            for (Node<V> child : childNodes) {
+                child.freeze();
+            }
+        }
+
         /**
          * Attaches a given {@code value} to the value list. If the list is not empty
          * the {@code value} is added, and sorted by the given {@link Comparator}.
@@ -20,6 +20,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.net.InetSocketAddress;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -59,6 +60,7 @@ import com.linecorp.armeria.internal.ConnectionLimitingHandler;
 import com.linecorp.armeria.internal.PathAndQuery;
 import com.linecorp.armeria.internal.TransportType;
 import com.linecorp.armeria.server.logging.AccessLogWriter;
+import com.linecorp.armeria.server.logging.BatchingAccessLogWriter;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.bootstrap.ServerBootstrap;
@@ -106,12 +108,50 @@ public final class Server implements AutoCloseable {
         // Server-wide cache metrics.
         final MeterIdPrefix idPrefix = new MeterIdPrefix("armeria.server.parsedPathCache");
         PathAndQuery.registerMetrics(config.meterRegistry(), idPrefix);
+        if (config.accessLogWriter() instanceof BatchingAccessLogWriter) {
+            ((BatchingAccessLogWriter) config.accessLogWriter()).registerMetrics(
+                    config.meterRegistry(), new MeterIdPrefix("armeria.server.accessLog"));
+        }
+        registerBlockingTaskExecutorMetrics(config);
 
         // Invoke the serviceAdded() method in Service so that it can keep the reference to this Server or
         // add a listener to it.
         config.serviceConfigs().forEach(cfg -> ServiceCallbackInvoker.invokeServiceAdded(cfg, cfg.service()));
     }
 
+    /**
+     * Registers the metrics of the {@link BoundedBlockingTaskExecutor}s. The metrics of an executor used by
+     * services are tagged with the first service which uses it.
+     */
+    private static void registerBlockingTaskExecutorMetrics(ServerConfig config) {
+        final String name = "armeria.server.blockingTaskExecutor";
+        final Set<ExecutorService> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ExecutorService defaultExecutor = unwrap(config.blockingTaskExecutor());
+        if (defaultExecutor instanceof BoundedBlockingTaskExecutor) {
+            registered.add(defaultExecutor);
+            ((BoundedBlockingTaskExecutor) defaultExecutor).registerMetrics(
+                    config.meterRegistry(), new MeterIdPrefix(name));
+        }
+
+        for (ServiceConfig cfg : config.serviceConfigs()) {
+            final ExecutorService executor = cfg.blockingTaskExecutor().map(Server::unwrap).orElse(null);
+            if (executor instanceof BoundedBlockingTaskExecutor && registered.add(executor)) {
+                ((BoundedBlockingTaskExecutor) executor).registerMetrics(
+                        config.meterRegistry(),
+                        new MeterIdPrefix(name,
+                                          "hostnamePattern", cfg.virtualHost().hostnamePattern(),
+                                          "pathMapping", cfg.pathMapping().meterTag()));
+            }
+        }
+    }
+
+    private static ExecutorService unwrap(ExecutorService executor) {
+        if (executor instanceof InterminableExecutorService) {
+            return ((InterminableExecutorService) executor).delegate();
+        }
+        return executor;
+    }
+
     /**
      * Returns the configuration of this {@link Server}.
      */
@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -862,6 +863,41 @@ public final class ServerBuilder {
         return this;
     }
 
+    /**
+     * Binds the specified {@link Service} at the specified path pattern of the default {@link VirtualHost},
+     * which runs its blocking tasks on the specified {@link ExecutorService} instead of
+     * {@link #blockingTaskExecutor(Executor)}.
+     *
+     * @see #service(PathMapping, Service, ExecutorService)
+     */
+    public ServerBuilder service(String pathPattern, Service<HttpRequest, HttpResponse> service,
+                                 ExecutorService blockingTaskExecutor) {
+        defaultVirtualHostBuilderUpdated();
+        defaultVirtualHostBuilder.service(pathPattern, service, blockingTaskExecutor);
+        return this;
+    }
+
+    /**
+     * Binds the specified {@link Service} at the specified {@link PathMapping} of the default
+     * {@link VirtualHost}, which runs its blocking tasks on the specified {@link ExecutorService} instead of
+     * {@link #blockingTaskExecutor(Executor)}. Use a separate {@link BoundedBlockingTaskExecutor} for
+     * a {@link Service} which may block for a long time, so that it does not starve the other
+     * {@link Service}s. e.g.
+     * <pre>{@code
+     * ServerBuilder sb = new ServerBuilder();
+     * sb.service(PathMapping.of("/jdbc"), jdbcService,
+     *            new BoundedBlockingTaskExecutorBuilder("jdbc-tasks").maxThreads(20)
+     *                                                                 .maxQueuedTasks(100)
+     *                                                                 .build());
+     * }</pre>
+     */
+    public ServerBuilder service(PathMapping pathMapping, Service<HttpRequest, HttpResponse> service,
+                                 ExecutorService blockingTaskExecutor) {
+        defaultVirtualHostBuilderUpdated();
+        defaultVirtualHostBuilder.service(pathMapping, service, blockingTaskExecutor);
+        return this;
+    }
+
     /**
      * Binds the specified {@link Service} at the specified {@link PathMapping} of the default
      * {@link VirtualHost}.
@@ -1336,7 +1372,8 @@ public final class ServerBuilder {
         return new VirtualHost(
                 h.defaultHostname(), "*", sslCtx,
                 h.serviceConfigs().stream().map(
-                        e -> new ServiceConfig(e.pathMapping(), e.service(), e.loggerName().orElse(null)))
+                        e -> new ServiceConfig(e.pathMapping(), e.service(), e.loggerName().orElse(null),
+                                               e.blockingTaskExecutor().orElse(null)))
                  .collect(Collectors.toList()), h.producibleMediaTypes(),
                           rejectedPathMappingHandler, host -> h.accessLogger());
     }
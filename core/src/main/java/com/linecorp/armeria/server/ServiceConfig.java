@@ -19,6 +19,7 @@ package com.linecorp.armeria.server;
 import static java.util.Objects.requireNonNull;
 
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
@@ -48,6 +49,8 @@ public final class ServiceConfig {
     @Nullable
     private final String loggerName;
     private final Service<HttpRequest, HttpResponse> service;
+    @Nullable
+    private final ExecutorService blockingTaskExecutor;
 
     /**
      * Creates a new instance.
@@ -72,9 +75,22 @@ public final class ServiceConfig {
      */
     ServiceConfig(PathMapping pathMapping, Service<HttpRequest, HttpResponse> service,
                   @Nullable String loggerName) {
+        this(pathMapping, service, loggerName, null);
+    }
+
+    /**
+     * Creates a new instance.
+     */
+    ServiceConfig(PathMapping pathMapping, Service<HttpRequest, HttpResponse> service,
+                  @Nullable String loggerName, @Nullable ExecutorService blockingTaskExecutor) {
         this.pathMapping = requireNonNull(pathMapping, "pathMapping");
         this.service = requireNonNull(service, "service");
         this.loggerName = loggerName != null ? validateLoggerName(loggerName, "loggerName") : null;
+        if (blockingTaskExecutor == null || blockingTaskExecutor instanceof InterminableExecutorService) {
+            this.blockingTaskExecutor = blockingTaskExecutor;
+        } else {
+            this.blockingTaskExecutor = new InterminableExecutorService(blockingTaskExecutor);
+        }
     }
 
     static String validateLoggerName(String value, String propertyName) {
@@ -87,7 +103,9 @@ public final class ServiceConfig {
 
     ServiceConfig build(VirtualHost virtualHost) {
         requireNonNull(virtualHost, "virtualHost");
-        return new ServiceConfig(virtualHost, pathMapping(), service());
+        final ServiceConfig cfg = new ServiceConfig(pathMapping(), service(), null, blockingTaskExecutor);
+        cfg.virtualHost = virtualHost;
+        return cfg;
     }
 
     /**
@@ -122,6 +140,17 @@ public final class ServiceConfig {
         return (T) service;
     }
 
+    /**
+     * Returns the {@link ExecutorService} dedicated to the execution of the blocking tasks of
+     * the {@link #service()}, if specified. If not specified, {@link ServerConfig#blockingTaskExecutor()}
+     * is used instead. Note that the {@link ExecutorService} returned by this method does not set
+     * the {@link ServiceRequestContext} when executing a submitted task.
+     * Use {@link ServiceRequestContext#blockingTaskExecutor()} if possible.
+     */
+    public Optional<ExecutorService> blockingTaskExecutor() {
+        return Optional.ofNullable(blockingTaskExecutor);
+    }
+
     /**
      * Returns the logger name for the {@link Service}.
      *
@@ -23,6 +23,7 @@ import java.net.IDN;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -323,7 +324,8 @@ public final class VirtualHost {
                     final PathMapping pathMapping = cfg.pathMapping();
                     final Service<HttpRequest, HttpResponse> service = decorator.apply(cfg.service());
                     final String loggerName = cfg.loggerName().orElse(null);
-                    return new ServiceConfig(pathMapping, service, loggerName);
+                    final ExecutorService blockingTaskExecutor = cfg.blockingTaskExecutor().orElse(null);
+                    return new ServiceConfig(pathMapping, service, loggerName, blockingTaskExecutor);
                 }).collect(Collectors.toList());
 
         return new VirtualHost(defaultHostname(), hostnamePattern(), sslContext(),
@@ -18,10 +18,7 @@ package com.linecorp.armeria.server.encoding;
 
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.function.Predicate;
-import java.util.zip.DeflaterOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -36,7 +33,17 @@ import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.HttpStatusClass;
 import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.stream.CancelledSubscriptionException;
 import com.linecorp.armeria.common.stream.FilteredStreamMessage;
+import com.linecorp.armeria.internal.PooledObjects;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * A {@link FilteredStreamMessage} that applies HTTP encoding to {@link HttpObject}s as they are published.
@@ -46,26 +53,60 @@ class HttpEncodedResponse extends FilteredHttpResponse {
     private final HttpEncodingType encodingType;
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final long minBytesToForceChunkedAndEncoding;
+    private final int compressionLevel;
+    private final HttpEncodingFlushPolicy flushPolicy;
+    private final ByteBufAllocator alloc;
 
     @Nullable
-    private ByteArrayOutputStream encodedStream;
-
-    @Nullable
-    private DeflaterOutputStream encodingStream;
+    private ZlibEncoder encoder;
 
     private boolean headersSent;
+    private boolean withPooledObjects;
 
     HttpEncodedResponse(
             HttpResponse delegate,
             HttpEncodingType encodingType,
             Predicate<MediaType> encodableContentTypePredicate,
-            long minBytesToForceChunkedAndEncoding) {
-        super(delegate);
+            long minBytesToForceChunkedAndEncoding,
+            int compressionLevel,
+            HttpEncodingFlushPolicy flushPolicy,
+            ByteBufAllocator alloc) {
+        // Receive the pooled objects, so that the content is compressed without making a copy.
+        super(delegate, true);
         this.encodingType = requireNonNull(encodingType, "encodingType");
         this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
                                                             "encodableContentTypePredicate");
         this.minBytesToForceChunkedAndEncoding = HttpEncodingService.validateMinBytesToForceChunkedAndEncoding(
                 minBytesToForceChunkedAndEncoding);
+        this.compressionLevel = HttpEncodingService.validateCompressionLevel(compressionLevel);
+        this.flushPolicy = requireNonNull(flushPolicy, "flushPolicy");
+        this.alloc = requireNonNull(alloc, "alloc");
+    }
+
+    // Always subscribe to the delegate with the pooled objects, and remember whether the subscriber accepts
+    // them, so that the content is copied only when the subscriber does not accept the pooled objects.
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber) {
+        subscribe(subscriber, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, true);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, EventExecutor executor) {
+        subscribe(subscriber, executor, false);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super HttpObject> subscriber, EventExecutor executor,
+                          boolean withPooledObjects) {
+        this.withPooledObjects = withPooledObjects;
+        super.subscribe(subscriber, executor, true);
     }
 
     @Override
@@ -94,8 +135,15 @@ class HttpEncodedResponse extends FilteredHttpResponse {
                 return obj;
             }
 
-            encodedStream = new ByteArrayOutputStream();
-            encodingStream = HttpEncoders.getEncodingOutputStream(encodingType, encodedStream);
+            final ZlibEncoder encoder = new ZlibEncoder(encodingType, compressionLevel, flushPolicy, alloc);
+            this.encoder = encoder;
+            // Release the Deflater when the subscription is cancelled, which calls neither
+            // beforeComplete() nor beforeError().
+            completionFuture().whenComplete((unused, cause) -> {
+                if (cause instanceof CancelledSubscriptionException) {
+                    encoder.release();
+                }
+            });
 
             final HttpHeaders mutable = headers.toMutable();
             // Always use chunked encoding when compressing.
@@ -112,50 +160,60 @@ class HttpEncodedResponse extends FilteredHttpResponse {
             return mutable;
         }
 
-        if (encodingStream == null) {
+        if (encoder == null) {
             // Encoding was disabled for this response.
-            return obj;
+            return withPooledObjects ? obj : PooledObjects.toUnpooled(obj);
         }
 
-        final HttpData data = (HttpData) obj;
-        assert encodedStream != null;
-        try {
-            encodingStream.write(data.array(), data.offset(), data.length());
-            encodingStream.flush();
-            return HttpData.of(encodedStream.toByteArray());
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error encoding HttpData, this should not happen with byte arrays.",
-                    e);
-        } finally {
-            encodedStream.reset();
+        if (obj instanceof ByteBufHolder) {
+            // Compress from the pooled buffer directly and release it.
+            final ByteBufHolder holder = (ByteBufHolder) obj;
+            try {
+                return toHttpData(encoder.encode(holder.content()));
+            } finally {
+                ReferenceCountUtil.safeRelease(holder);
+            }
         }
+
+        final HttpData data = (HttpData) obj;
+        return toHttpData(encoder.encode(data.array(), data.offset(), data.length()));
     }
 
     @Override
     protected void beforeComplete(Subscriber<? super HttpObject> subscriber) {
-        closeEncoder();
-        if (encodedStream != null && encodedStream.size() > 0) {
-            subscriber.onNext(HttpData.of(encodedStream.toByteArray()));
+        if (encoder == null) {
+            return;
+        }
+        final ByteBuf buf = encoder.finish();
+        if (buf.isReadable()) {
+            subscriber.onNext(toHttpData(buf));
+        } else {
+            buf.release();
         }
     }
 
     @Override
     protected Throwable beforeError(Subscriber<? super HttpObject> subscriber, Throwable cause) {
-        closeEncoder();
+        if (encoder != null) {
+            encoder.release();
+        }
         return cause;
     }
 
-    private void closeEncoder() {
-        if (encodingStream == null) {
-            return;
+    private HttpData toHttpData(ByteBuf buf) {
+        if (!buf.isReadable()) {
+            // The Deflater is holding the compressed content until the next flush.
+            buf.release();
+            return HttpData.EMPTY_DATA;
         }
+        if (withPooledObjects) {
+            return new ByteBufHttpData(buf, false);
+        }
+
         try {
-            encodingStream.close();
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error closing encodingStream, this should not happen with byte arrays.",
-                    e);
+            return HttpData.of(ByteBufUtil.getBytes(buf));
+        } finally {
+            buf.release();
         }
     }
 
@@ -16,15 +16,11 @@
 
 package com.linecorp.armeria.server.encoding;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
-
 import javax.annotation.Nullable;
 
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.internal.HttpEncodingUtil;
 
 /**
  * Support utilities for dealing with HTTP encoding (e.g., gzip).
@@ -40,64 +36,13 @@ final class HttpEncoders {
         return determineEncoding(acceptEncoding);
     }
 
-    static DeflaterOutputStream getEncodingOutputStream(HttpEncodingType encodingType, OutputStream out) {
-        switch (encodingType) {
-            case GZIP:
-                try {
-                    return new GZIPOutputStream(out, true);
-                } catch (IOException e) {
-                    throw new IllegalStateException(
-                            "Error writing gzip header. This should not happen with byte arrays.", e);
-                }
-            case DEFLATE:
-                return new DeflaterOutputStream(out, true);
-            default:
-                throw new IllegalArgumentException("Unexpected zlib type, this is a programming bug.");
-        }
-    }
-
-    // Copied from netty's HttpContentCompressor.
     @Nullable
-    @SuppressWarnings("FloatingPointEquality")
     private static HttpEncodingType determineEncoding(String acceptEncoding) {
-        float starQ = -1.0f;
-        float gzipQ = -1.0f;
-        float deflateQ = -1.0f;
-        for (String encoding : acceptEncoding.split(",")) {
-            float q = 1.0f;
-            final int equalsPos = encoding.indexOf('=');
-            if (equalsPos != -1) {
-                try {
-                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
-                } catch (NumberFormatException e) {
-                    // Ignore encoding
-                    q = 0.0f;
-                }
-            }
-            if (encoding.contains("*")) {
-                starQ = q;
-            } else if (encoding.contains("gzip") && q > gzipQ) {
-                gzipQ = q;
-            } else if (encoding.contains("deflate") && q > deflateQ) {
-                deflateQ = q;
-            }
-        }
-        if (gzipQ > 0.0f || deflateQ > 0.0f) {
-            if (gzipQ >= deflateQ) {
-                return HttpEncodingType.GZIP;
-            } else {
-                return HttpEncodingType.DEFLATE;
-            }
-        }
-        if (starQ > 0.0f) {
-            if (gzipQ == -1.0f) {
-                return HttpEncodingType.GZIP;
-            }
-            if (deflateQ == -1.0f) {
-                return HttpEncodingType.DEFLATE;
-            }
+        final String encoding = HttpEncodingUtil.determineEncoding(acceptEncoding);
+        if (encoding == null) {
+            return null;
         }
-        return null;
+        return "gzip".equals(encoding) ? HttpEncodingType.GZIP : HttpEncodingType.DEFLATE;
     }
 
     private HttpEncoders() {}
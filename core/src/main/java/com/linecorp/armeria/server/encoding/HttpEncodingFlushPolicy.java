@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.encoding;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.zip.Deflater;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Determines when {@link HttpEncodingService} flushes the compressed content of a response, so that
+ * the client can decompress everything sent so far. A flush ends the current deflate block, which costs
+ * a few bytes and some compression ratio, so flushing less often produces a smaller response while
+ * the client receives the content later.
+ */
+public final class HttpEncodingFlushPolicy {
+
+    private static final HttpEncodingFlushPolicy EVERY_CHUNK = new HttpEncodingFlushPolicy(0);
+    private static final HttpEncodingFlushPolicy ONLY_AT_END = new HttpEncodingFlushPolicy(Long.MAX_VALUE);
+
+    /**
+     * Returns the {@link HttpEncodingFlushPolicy} which flushes after every chunk of a response with
+     * {@link Deflater#SYNC_FLUSH}. This is the default, which suits a streaming response whose every chunk
+     * must reach the client without a delay.
+     */
+    public static HttpEncodingFlushPolicy everyChunk() {
+        return EVERY_CHUNK;
+    }
+
+    /**
+     * Returns the {@link HttpEncodingFlushPolicy} which does not flush until the end of a response, which
+     * gives the best compression ratio. A chunk is sent only when the compressed content fills a deflate
+     * block, so use this policy only for a response which is not consumed while it is being streamed.
+     */
+    public static HttpEncodingFlushPolicy onlyAtEnd() {
+        return ONLY_AT_END;
+    }
+
+    /**
+     * Returns the {@link HttpEncodingFlushPolicy} which flushes when the chunks of a response since the last
+     * flush add up to {@code numBytes} or more, before compression.
+     */
+    public static HttpEncodingFlushPolicy everyBytes(long numBytes) {
+        checkArgument(numBytes > 0, "numBytes: %s (expected: > 0)", numBytes);
+        return new HttpEncodingFlushPolicy(numBytes);
+    }
+
+    private final long flushIntervalBytes;
+
+    private HttpEncodingFlushPolicy(long flushIntervalBytes) {
+        this.flushIntervalBytes = flushIntervalBytes;
+    }
+
+    /**
+     * Returns the number of the uncompressed bytes after which the compressed content is flushed.
+     */
+    long flushIntervalBytes() {
+        return flushIntervalBytes;
+    }
+
+    @Override
+    public String toString() {
+        if (this == EVERY_CHUNK) {
+            return "everyChunk";
+        }
+        if (this == ONLY_AT_END) {
+            return "onlyAtEnd";
+        }
+        return MoreObjects.toStringHelper(this)
+                          .add("flushIntervalBytes", flushIntervalBytes)
+                          .toString();
+    }
+}
@@ -19,12 +19,13 @@ package com.linecorp.armeria.server.encoding;
 import static java.util.Objects.requireNonNull;
 
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.internal.HttpEncodingUtil;
 import com.linecorp.armeria.server.DecoratingService;
 import com.linecorp.armeria.server.HttpService;
 import com.linecorp.armeria.server.Service;
@@ -45,20 +46,19 @@ public class HttpEncodingService
         extends SimpleDecoratingService<HttpRequest, HttpResponse> {
 
     private static final Predicate<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE =
-            contentType -> Stream.of(MediaType.ANY_TEXT_TYPE,
-                                     MediaType.APPLICATION_XML_UTF_8,
-                                     MediaType.JAVASCRIPT_UTF_8,
-                                     MediaType.JSON_UTF_8)
-                                 .anyMatch(contentType::is);
+            HttpEncodingUtil::isEncodableContentType;
 
     private static final Predicate<HttpHeaders> DEFAULT_ENCODABLE_REQUEST_HEADERS_PREDICATE =
             headers -> true;
 
-    private static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING = 1024;
+    private static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING =
+            HttpEncodingUtil.DEFAULT_MIN_BYTES_TO_ENCODE;
 
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final Predicate<HttpHeaders> encodableRequestHeadersPredicate;
     private final long minBytesToForceChunkedAndEncoding;
+    private final int compressionLevel;
+    private final HttpEncodingFlushPolicy flushPolicy;
 
     /**
      * Creates a new {@link DecoratingService} that HTTP-encodes the response data published from
@@ -95,6 +95,47 @@ public class HttpEncodingService
                                Predicate<MediaType> encodableContentTypePredicate,
                                Predicate<HttpHeaders> encodableRequestHeadersPredicate,
                                long minBytesToForceChunkedAndEncoding) {
+        this(delegate, encodableContentTypePredicate, encodableRequestHeadersPredicate,
+             minBytesToForceChunkedAndEncoding, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new {@link DecoratingService} that HTTP-encodes the response data published from
+     * {@code delegate} with the specified {@code compressionLevel}. Encoding will be applied when the client
+     * supports it, the response content type passes the supplied {@code encodableContentTypePredicate},
+     * the request headers passes the supplied {@code encodableRequestHeadersPredicate} and the response either
+     * has variable content length or a length greater than {@code minBytesToForceChunkedAndEncoding}.
+     *
+     * @param compressionLevel the compression level between {@code 0} and {@code 9}, or
+     *                         {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public HttpEncodingService(Service<HttpRequest, HttpResponse> delegate,
+                               Predicate<MediaType> encodableContentTypePredicate,
+                               Predicate<HttpHeaders> encodableRequestHeadersPredicate,
+                               long minBytesToForceChunkedAndEncoding,
+                               int compressionLevel) {
+        this(delegate, encodableContentTypePredicate, encodableRequestHeadersPredicate,
+             minBytesToForceChunkedAndEncoding, compressionLevel, HttpEncodingFlushPolicy.everyChunk());
+    }
+
+    /**
+     * Creates a new {@link DecoratingService} that HTTP-encodes the response data published from
+     * {@code delegate} with the specified {@code compressionLevel} and {@link HttpEncodingFlushPolicy}.
+     * Encoding will be applied when the client supports it, the response content type passes the supplied
+     * {@code encodableContentTypePredicate}, the request headers passes the supplied
+     * {@code encodableRequestHeadersPredicate} and the response either has variable content length or
+     * a length greater than {@code minBytesToForceChunkedAndEncoding}.
+     *
+     * @param compressionLevel the compression level between {@code 0} and {@code 9}, or
+     *                         {@link Deflater#DEFAULT_COMPRESSION}
+     * @param flushPolicy when the compressed content is flushed to the client
+     */
+    public HttpEncodingService(Service<HttpRequest, HttpResponse> delegate,
+                               Predicate<MediaType> encodableContentTypePredicate,
+                               Predicate<HttpHeaders> encodableRequestHeadersPredicate,
+                               long minBytesToForceChunkedAndEncoding,
+                               int compressionLevel,
+                               HttpEncodingFlushPolicy flushPolicy) {
         super(delegate);
         this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
                                                             "encodableContentTypePredicate");
@@ -102,6 +143,8 @@ public class HttpEncodingService
                                                                "encodableRequestHeadersPredicate");
         this.minBytesToForceChunkedAndEncoding = validateMinBytesToForceChunkedAndEncoding(
                 minBytesToForceChunkedAndEncoding);
+        this.compressionLevel = validateCompressionLevel(compressionLevel);
+        this.flushPolicy = requireNonNull(flushPolicy, "flushPolicy");
     }
 
     @Override
@@ -115,7 +158,10 @@ public class HttpEncodingService
                 delegateResponse,
                 encodingType,
                 encodableContentTypePredicate,
-                minBytesToForceChunkedAndEncoding);
+                minBytesToForceChunkedAndEncoding,
+                compressionLevel,
+                flushPolicy,
+                ctx.alloc());
     }
 
     static long validateMinBytesToForceChunkedAndEncoding(long minBytesToForceChunkedAndEncoding) {
@@ -124,4 +170,13 @@ public class HttpEncodingService
         }
         return minBytesToForceChunkedAndEncoding;
     }
+
+    static int validateCompressionLevel(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION &&
+            (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("compressionLevel: " + compressionLevel +
+                                               " (expected: -1 or 0-9)");
+        }
+        return compressionLevel;
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Compresses the content of a response in the gzip or deflate format into the heap {@link ByteBuf}s
+ * allocated by a {@link ByteBufAllocator}. Unlike {@link java.util.zip.DeflaterOutputStream}, this encoder
+ * writes the compressed content directly into the output buffer and borrows a {@link Deflater} from
+ * the pool of the current thread rather than creating a new one for every response.
+ *
+ * <p>An encoder must be used by one thread at a time, and {@link #release()} must be called when it is not
+ * used anymore so that its {@link Deflater} is returned to the pool. The {@link Deflater} is returned to
+ * the pool only when {@link #release()} is called by the thread which borrowed the {@link Deflater}.
+ * Otherwise, the {@link Deflater} is ended.
+ */
+final class ZlibEncoder {
+
+    /**
+     * The maximum number of the {@link Deflater}s kept in the pool of each thread.
+     */
+    private static final int MAX_POOLED_DEFLATERS = 8;
+
+    private static final FastThreadLocal<ArrayDeque<Deflater>> wrappedDeflaters = new DeflaterPool();
+    private static final FastThreadLocal<ArrayDeque<Deflater>> unwrappedDeflaters = new DeflaterPool();
+
+    // See RFC 1952 for the gzip format.
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    /**
+     * Returns the number of the {@link Deflater}s in the pool of the current thread.
+     */
+    @VisibleForTesting
+    static int numPooledDeflaters(HttpEncodingType encodingType) {
+        return (encodingType == HttpEncodingType.GZIP ? unwrappedDeflaters : wrappedDeflaters).get().size();
+    }
+
+    private final boolean gzip;
+    private final int compressionLevel;
+    private final ByteBufAllocator alloc;
+    private final long flushIntervalBytes;
+    @Nullable
+    private final CRC32 crc;
+    @Nullable
+    private Deflater deflater;
+    @Nullable
+    private Thread deflaterOwner;
+    @Nullable
+    private byte[] directInput;
+    private long unflushedBytes;
+    private boolean released;
+    private boolean writtenHeader;
+
+    ZlibEncoder(HttpEncodingType encodingType, int compressionLevel, ByteBufAllocator alloc) {
+        this(encodingType, compressionLevel, HttpEncodingFlushPolicy.everyChunk(), alloc);
+    }
+
+    ZlibEncoder(HttpEncodingType encodingType, int compressionLevel, HttpEncodingFlushPolicy flushPolicy,
+                ByteBufAllocator alloc) {
+        requireNonNull(encodingType, "encodingType");
+        this.alloc = requireNonNull(alloc, "alloc");
+        gzip = encodingType == HttpEncodingType.GZIP;
+        this.compressionLevel = compressionLevel;
+        flushIntervalBytes = requireNonNull(flushPolicy, "flushPolicy").flushIntervalBytes();
+        crc = gzip ? new CRC32() : null;
+    }
+
+    /**
+     * Compresses the readable bytes of the specified {@link ByteBuf} without changing its reader index.
+     * The {@link ByteBuf} is not referred to after this method returns, so the caller may release it.
+     */
+    ByteBuf encode(ByteBuf in) {
+        final int length = in.readableBytes();
+        if (in.hasArray()) {
+            return encode(in.array(), in.arrayOffset() + in.readerIndex(), length);
+        }
+
+        // A Deflater accepts only a byte array, so copy a direct buffer into a reusable array.
+        byte[] directInput = this.directInput;
+        if (directInput == null || directInput.length < length) {
+            this.directInput = directInput = new byte[length];
+        }
+        in.getBytes(in.readerIndex(), directInput, 0, length);
+        return encode(directInput, 0, length);
+    }
+
+    /**
+     * Compresses the specified bytes. The compressed content is flushed, so that the peer can decompress
+     * everything written so far, when the bytes compressed since the last flush reach the flush interval of
+     * the {@link HttpEncodingFlushPolicy}. Otherwise, the returned {@link ByteBuf} may be empty.
+     */
+    ByteBuf encode(byte[] in, int offset, int length) {
+        final Deflater deflater = deflater();
+        final int flush;
+        unflushedBytes += length;
+        if (unflushedBytes >= flushIntervalBytes) {
+            unflushedBytes = 0;
+            flush = Deflater.SYNC_FLUSH;
+        } else {
+            flush = Deflater.NO_FLUSH;
+        }
+        // Without a flush, the Deflater usually keeps the compressed content until its block is full.
+        final ByteBuf out = alloc.heapBuffer(flush == Deflater.SYNC_FLUSH ? estimateLength(length) : 64);
+        boolean success = false;
+        try {
+            writeHeaderIfNeeded(out);
+            if (crc != null) {
+                crc.update(in, offset, length);
+            }
+            deflater.setInput(in, offset, length);
+            deflate(deflater, out, flush);
+            success = true;
+            return out;
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Finishes the compression and returns the remaining compressed content including the trailer.
+     * The {@link Deflater} is returned to the pool.
+     */
+    ByteBuf finish() {
+        final Deflater deflater = deflater();
+        final ByteBuf out = alloc.heapBuffer(64);
+        boolean success = false;
+        try {
+            writeHeaderIfNeeded(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(deflater, out, Deflater.NO_FLUSH);
+            }
+            if (crc != null) {
+                out.ensureWritable(GZIP_TRAILER_LENGTH);
+                out.writeIntLE((int) crc.getValue());
+                out.writeIntLE((int) deflater.getBytesRead());
+            }
+            success = true;
+            return out;
+        } finally {
+            release();
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link Deflater} to the pool, or ends it if called by a thread other than the one which
+     * borrowed it. Does nothing if released already.
+     */
+    void release() {
+        released = true;
+        directInput = null;
+        final Deflater deflater = this.deflater;
+        if (deflater == null) {
+            return;
+        }
+        this.deflater = null;
+
+        if (Thread.currentThread() == deflaterOwner) {
+            final ArrayDeque<Deflater> pool = pool();
+            if (pool.size() < MAX_POOLED_DEFLATERS) {
+                deflater.reset();
+                pool.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    private Deflater deflater() {
+        if (released) {
+            throw new IllegalStateException("encoder released already");
+        }
+
+        Deflater deflater = this.deflater;
+        if (deflater == null) {
+            // Borrow from the pool of the current thread, to which it is returned by release().
+            deflater = pool().poll();
+            if (deflater == null) {
+                deflater = new Deflater(compressionLevel, gzip);
+            } else {
+                deflater.setLevel(compressionLevel);
+            }
+            this.deflater = deflater;
+            deflaterOwner = Thread.currentThread();
+        }
+        return deflater;
+    }
+
+    private ArrayDeque<Deflater> pool() {
+        // gzip uses the raw deflate format with its own header and trailer.
+        return (gzip ? unwrappedDeflaters : wrappedDeflaters).get();
+    }
+
+    private void writeHeaderIfNeeded(ByteBuf out) {
+        if (gzip && !writtenHeader) {
+            writtenHeader = true;
+            out.writeBytes(GZIP_HEADER);
+        }
+    }
+
+    private static void deflate(Deflater deflater, ByteBuf out, int flush) {
+        for (;;) {
+            // Always leave some room so that we can tell whether the output is complete.
+            out.ensureWritable(32);
+            final int writableBytes = out.writableBytes();
+            final int numBytes = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(),
+                                                  writableBytes, flush);
+            out.writerIndex(out.writerIndex() + numBytes);
+            // Without a flush, the output may have room before all input is consumed. Consume all input
+            // anyway, so that the caller can release or reuse the input.
+            if (numBytes < writableBytes && (flush != Deflater.NO_FLUSH || deflater.needsInput())) {
+                break;
+            }
+        }
+    }
+
+    private static int estimateLength(int length) {
+        // The worst-case expansion of deflate is 5 bytes per 16KiB block plus the header and the flush marker.
+        return length + (length >>> 12) + GZIP_HEADER.length + 16;
+    }
+
+    private static final class DeflaterPool extends FastThreadLocal<ArrayDeque<Deflater>> {
+        @Override
+        protected ArrayDeque<Deflater> initialValue() {
+            return new ArrayDeque<>(MAX_POOLED_DEFLATERS);
+        }
+    }
+}
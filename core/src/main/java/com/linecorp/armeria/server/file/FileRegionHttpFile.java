@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.internal.FileRegionHttpData;
+
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * An {@link HttpFile} which streams the content of a {@link FileSystemHttpFile} as
+ * {@link FileRegionHttpData}s, so that a cleartext HTTP/1 connection transfers the file without copying
+ * the content into user space. It is created by {@link HttpFileService} only for a cleartext HTTP/1 session
+ * when the {@link HttpFileService} is not decorated, because accessing the content of
+ * a {@link FileRegionHttpData} blocks the current thread.
+ */
+final class FileRegionHttpFile extends AbstractHttpFile {
+
+    /**
+     * The maximum length of a file region, so that a large file is transferred in the flow-controlled
+     * chunks.
+     */
+    private static final int MAX_REGION_LENGTH = 1024 * 1024;
+
+    private final FileSystemHttpFile file;
+
+    FileRegionHttpFile(FileSystemHttpFile file) {
+        super(file.contentType(), file.clock(), file.isDateEnabled(), file.isLastModifiedEnabled(),
+              (pathOrUri, attrs) -> file.generateEntityTag(attrs), file.headers());
+        this.file = file;
+    }
+
+    @Override
+    protected String pathOrUri() {
+        return file.pathOrUri();
+    }
+
+    @Nullable
+    @Override
+    public HttpFileAttributes readAttributes() throws IOException {
+        return file.readAttributes();
+    }
+
+    @Override
+    protected HttpResponse doRead(HttpHeaders headers, long length,
+                                  Executor fileReadExecutor, ByteBufAllocator alloc) {
+        // Opening and transferring a file region is done by the event loop, so no need to use
+        // the fileReadExecutor.
+        final HttpResponseWriter res = HttpResponse.streaming();
+        res.write(headers);
+        if (length == 0) {
+            res.close();
+        } else {
+            write(res, file.path(), 0, length);
+        }
+        return res;
+    }
+
+    private static void write(HttpResponseWriter res, Path path, long offset, long end) {
+        final int length = (int) Math.min(MAX_REGION_LENGTH, end - offset);
+        final long nextOffset = offset + length;
+        final boolean endOfStream = nextOffset == end;
+        final FileRegionHttpData data = new FileRegionHttpData(path, offset, length, endOfStream);
+        if (!res.tryWrite(data)) {
+            // The response was closed, e.g. aborted by the client. Make sure the file region is not leaked,
+            // because it keeps the file open once transferred.
+            if (data.refCnt() > 0) {
+                data.release();
+            }
+            return;
+        }
+
+        if (endOfStream) {
+            res.close();
+            return;
+        }
+
+        res.onDemand(() -> write(res, path, nextOffset, end));
+    }
+
+    @Override
+    public CompletableFuture<AggregatedHttpFile> aggregate(Executor fileReadExecutor) {
+        return file.aggregate(fileReadExecutor);
+    }
+
+    @Override
+    public CompletableFuture<AggregatedHttpFile> aggregateWithPooledObjects(Executor fileReadExecutor,
+                                                                            ByteBufAllocator alloc) {
+        return file.aggregateWithPooledObjects(fileReadExecutor, alloc);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("file", file)
+                          .toString();
+    }
+}
@@ -50,6 +50,10 @@ final class FileSystemHttpFile extends StreamingHttpFile<ByteChannel> {
         this.path = path;
     }
 
+    Path path() {
+        return path;
+    }
+
     @Override
     protected String pathOrUri() {
         return path.toString();
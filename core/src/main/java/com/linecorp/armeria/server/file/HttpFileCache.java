@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.file;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpData;
+
+import io.netty.buffer.ByteBufHolder;
+
+/**
+ * A cache of the content of the files served by {@link HttpFileService}s. The cache is bounded either by
+ * the number of the cached files or by the total size of their content, and the least valuable entries
+ * are evicted first using the Window TinyLFU policy of
+ * <a href="https://github.com/ben-manes/caffeine">Caffeine</a>.
+ *
+ * <p>An {@link HttpFileCache} created with {@link #ofMaxSizeBytes(long)} can be shared by more than one
+ * {@link HttpFileService} using {@link HttpFileServiceBuilder#cache(HttpFileCache)}, so that the files from
+ * all {@link HttpVfs}es are kept within a single memory budget.
+ */
+public final class HttpFileCache {
+
+    /**
+     * Creates a new {@link HttpFileCache} whose total size of the cached content does not exceed
+     * the specified {@code maxSizeBytes}.
+     */
+    public static HttpFileCache ofMaxSizeBytes(long maxSizeBytes) {
+        checkArgument(maxSizeBytes > 0, "maxSizeBytes: %s (expected: > 0)", maxSizeBytes);
+        return new HttpFileCache(0, maxSizeBytes);
+    }
+
+    /**
+     * Creates a new {@link HttpFileCache} which caches at most the specified number of files.
+     */
+    static HttpFileCache ofMaxEntries(int maxEntries) {
+        checkArgument(maxEntries > 0, "maxEntries: %s (expected: > 0)", maxEntries);
+        return new HttpFileCache(maxEntries, 0);
+    }
+
+    private final Cache<Key, AggregatedHttpFile> cache;
+    private final int maxEntries;
+    private final long maxSizeBytes;
+
+    private HttpFileCache(int maxEntries, long maxSizeBytes) {
+        this.maxEntries = maxEntries;
+        this.maxSizeBytes = maxSizeBytes;
+
+        final Caffeine<Object, Object> b = Caffeine.newBuilder();
+        if (maxSizeBytes > 0) {
+            b.maximumWeight(maxSizeBytes)
+             .weigher((Key key, AggregatedHttpFile value) -> {
+                 // Give an empty file non-zero weight so that it is evicted as well.
+                 final HttpData content = value.content();
+                 return content != null ? Math.max(1, content.length()) : 1;
+             });
+        } else {
+            b.maximumSize(maxEntries);
+        }
+        cache = b.recordStats()
+                 .removalListener((RemovalListener<Key, AggregatedHttpFile>) (key, value, cause) -> {
+                     if (value != null) {
+                         final HttpData content = value.content();
+                         if (content instanceof ByteBufHolder) {
+                             ((ByteBufHolder) content).release();
+                         }
+                     }
+                 })
+                 .build();
+    }
+
+    Cache<Key, AggregatedHttpFile> cache() {
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("maxEntries", maxEntries != 0 ? maxEntries : null)
+                          .add("maxSizeBytes", maxSizeBytes != 0 ? maxSizeBytes : null)
+                          .add("estimatedSize", cache.estimatedSize())
+                          .toString();
+    }
+
+    /**
+     * The key of a cached file. The {@link HttpVfs} is compared by identity so that the files of
+     * different {@link HttpFileService}s do not collide in a shared cache. The content compressed by
+     * {@link HttpFileService} is keyed by the entity tag of the original file as well, so that the content
+     * compressed from an outdated file is never served.
+     */
+    static final class Key {
+        private final HttpVfs vfs;
+        private final String path;
+        @Nullable
+        private final String contentEncoding;
+        @Nullable
+        private final String entityTag;
+
+        Key(HttpVfs vfs, String path, @Nullable String contentEncoding) {
+            this(vfs, path, contentEncoding, null);
+        }
+
+        Key(HttpVfs vfs, String path, @Nullable String contentEncoding, @Nullable String entityTag) {
+            this.vfs = requireNonNull(vfs, "vfs");
+            this.path = requireNonNull(path, "path");
+            this.contentEncoding = contentEncoding;
+            this.entityTag = entityTag;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) obj;
+            return vfs == that.vfs &&
+                   path.equals(that.path) &&
+                   Objects.equals(contentEncoding, that.contentEncoding) &&
+                   Objects.equals(entityTag, that.entityTag);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(vfs) * 31 + path.hashCode()) * 31 +
+                    Objects.hashCode(contentEncoding)) * 31 + Objects.hashCode(entityTag);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this).omitNullValues()
+                              .add("path", path)
+                              .add("contentEncoding", contentEncoding)
+                              .add("entityTag", entityTag)
+                              .toString();
+        }
+    }
+}
@@ -18,11 +18,15 @@ package com.linecorp.armeria.server.file;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -30,20 +34,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.google.common.base.Splitter;
 import com.google.common.util.concurrent.MoreExecutors;
 
+import com.linecorp.armeria.common.FilteredHttpResponse;
 import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpObject;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.HttpStatusClass;
 import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.common.metric.MeterIdPrefix;
 import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.internal.HttpEncodingUtil;
 import com.linecorp.armeria.internal.metric.CaffeineMetricSupport;
 import com.linecorp.armeria.server.AbstractHttpService;
 import com.linecorp.armeria.server.HttpResponseException;
@@ -68,6 +75,12 @@ public final class HttpFileService extends AbstractHttpService {
 
     private static final Splitter COMMA_SPLITTER = Splitter.on(',');
 
+    /**
+     * The cache entry which indicates that the compressed content of a file is not smaller than
+     * the original content. Caffeine does not cache {@code null}.
+     */
+    private static final AggregatedHttpFile NOT_WORTH_COMPRESSING = HttpFile.nonExistent();
+
     /**
      * Creates a new {@link HttpFileService} for the specified {@code rootDir} in an O/S file system.
      */
@@ -106,36 +119,29 @@ public final class HttpFileService extends AbstractHttpService {
     private final HttpFileServiceConfig config;
 
     @Nullable
-    private final Cache<PathAndEncoding, AggregatedHttpFile> cache;
+    private final Cache<HttpFileCache.Key, AggregatedHttpFile> cache;
+    private final Set<HttpFileCache.Key> pendingCompressions = ConcurrentHashMap.newKeySet();
 
     HttpFileService(HttpFileServiceConfig config) {
         this.config = requireNonNull(config, "config");
-        if (config.maxCacheEntries() != 0) {
-            cache = newCache(config);
+        final HttpFileCache sharedCache = config.cache();
+        if (sharedCache != null) {
+            cache = sharedCache.cache();
+        } else if (config.maxCacheEntries() != 0) {
+            cache = HttpFileCache.ofMaxEntries(config.maxCacheEntries()).cache();
         } else {
             cache = null;
         }
     }
 
-    private static Cache<PathAndEncoding, AggregatedHttpFile> newCache(HttpFileServiceConfig config) {
-        final Caffeine<Object, Object> b = Caffeine.newBuilder();
-        b.maximumSize(config.maxCacheEntries())
-         .recordStats()
-         .removalListener((RemovalListener<PathAndEncoding, AggregatedHttpFile>) (key, value, cause) -> {
-             if (value != null) {
-                 final HttpData content = value.content();
-                 if (content instanceof ByteBufHolder) {
-                     ((ByteBufHolder) content).release();
-                 }
-             }
-         });
-        return b.build();
-    }
-
     @Override
     public void serviceAdded(ServiceConfig cfg) throws Exception {
         final MeterRegistry registry = cfg.server().meterRegistry();
-        if (cache != null) {
+        if (config.cache() != null) {
+            // Do not tag the meters with the service properties because the cache may be shared.
+            CaffeineMetricSupport.setup(
+                    registry, new MeterIdPrefix("armeria.server.file.sharedVfsCache"), cache);
+        } else if (cache != null) {
             CaffeineMetricSupport.setup(
                     registry,
                     new MeterIdPrefix("armeria.server.file.vfsCache",
@@ -159,13 +165,63 @@ public final class HttpFileService extends AbstractHttpService {
         return config;
     }
 
+    /**
+     * Returns whether the content of a file can be sent as file regions, which is possible only when
+     * nothing accesses the content until it is written to a cleartext HTTP/1 connection. Otherwise,
+     * the content is read by the {@code fileReadExecutor} as usual.
+     */
+    private boolean canUseFileRegion(ServiceRequestContext ctx) {
+        if (!config.useFileRegion() || ctx.sessionProtocol() != SessionProtocol.H1C) {
+            return false;
+        }
+
+        // A decorator, e.g. HttpEncodingService, may transform or inspect the content.
+        final Service<HttpRequest, HttpResponse> service = ctx.service();
+        return service == this;
+    }
+
     @Override
     protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req) throws Exception {
-        final HttpFile file = findFile(ctx, req);
+        HttpFile file = findFile(ctx, req);
         if (file == null) {
             return HttpResponse.of(HttpStatus.NOT_FOUND);
         }
-        return file.asService().serve(ctx, req);
+        if (file instanceof FileSystemHttpFile && canUseFileRegion(ctx)) {
+            // Transfer the file content without copying.
+            file = new FileRegionHttpFile((FileSystemHttpFile) file);
+        }
+
+        final HttpResponse res = file.asService().serve(ctx, req);
+        if (!config.serveCompressedFiles() && !config.compressCachedFiles()) {
+            return res;
+        }
+
+        // The content may vary depending on the 'accept-encoding' header.
+        return new FilteredHttpResponse(res, true) {
+            @Override
+            protected HttpObject filter(HttpObject obj) {
+                if (!(obj instanceof HttpHeaders)) {
+                    return obj;
+                }
+                final HttpHeaders headers = (HttpHeaders) obj;
+                final HttpStatus status = headers.status();
+                if (status == null || status.codeClass() == HttpStatusClass.INFORMATIONAL) {
+                    return obj;
+                }
+                return addVaryAcceptEncoding(headers);
+            }
+        };
+    }
+
+    private static HttpHeaders addVaryAcceptEncoding(HttpHeaders headers) {
+        for (String vary : headers.getAll(HttpHeaderNames.VARY)) {
+            for (String field : COMMA_SPLITTER.trimResults().split(vary)) {
+                if ("*".equals(field) || HttpHeaderNames.ACCEPT_ENCODING.contentEqualsIgnoreCase(field)) {
+                    return headers;
+                }
+            }
+        }
+        return headers.toMutable().add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString());
     }
 
     @Nullable
@@ -174,12 +230,13 @@ public final class HttpFileService extends AbstractHttpService {
 
         final EnumSet<FileServiceContentEncoding> supportedEncodings =
                 EnumSet.noneOf(FileServiceContentEncoding.class);
+        String compressionEncoding = null;
 
-        if (config.serveCompressedFiles()) {
-            // We do a simple parse of the accept-encoding header, without worrying about star values
-            // or priorities.
-            final String acceptEncoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
-            if (acceptEncoding != null) {
+        final String acceptEncoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        if (acceptEncoding != null) {
+            if (config.serveCompressedFiles()) {
+                // We do a simple parse of the accept-encoding header, without worrying about star values
+                // or priorities.
                 for (String encoding : COMMA_SPLITTER.split(acceptEncoding)) {
                     for (FileServiceContentEncoding possibleEncoding : FileServiceContentEncoding.values()) {
                         if (encoding.contains(possibleEncoding.headerValue)) {
@@ -188,9 +245,13 @@ public final class HttpFileService extends AbstractHttpService {
                     }
                 }
             }
+            if (config.compressCachedFiles() && cache != null) {
+                // Honor the q-values, so that an encoding the client refused is never chosen.
+                compressionEncoding = HttpEncodingUtil.determineEncoding(acceptEncoding);
+            }
         }
 
-        final HttpFile file = findFile(ctx, decodedMappedPath, supportedEncodings);
+        final HttpFile file = findFile(ctx, decodedMappedPath, supportedEncodings, compressionEncoding);
         if (file != null) {
             return file;
         }
@@ -198,7 +259,8 @@ public final class HttpFileService extends AbstractHttpService {
         final boolean endsWithSlash = decodedMappedPath.charAt(decodedMappedPath.length() - 1) == '/';
         if (endsWithSlash) {
             // Try index.html if it was a directory access.
-            final HttpFile indexFile = findFile(ctx, decodedMappedPath + "index.html", supportedEncodings);
+            final HttpFile indexFile = findFile(ctx, decodedMappedPath + "index.html",
+                                                supportedEncodings, compressionEncoding);
             if (indexFile != null) {
                 return indexFile;
             }
@@ -214,7 +276,7 @@ public final class HttpFileService extends AbstractHttpService {
             }
         } else {
             // Redirect to the slash appended path if 1) /index.html exists or 2) it has a directory listing.
-            if (findFile(ctx, decodedMappedPath + "/index.html", supportedEncodings) != null ||
+            if (findFile(ctx, decodedMappedPath + "/index.html", supportedEncodings, null) != null ||
                 config.autoIndex() && config.vfs().canList(decodedMappedPath)) {
                 throw HttpResponseException.of(HttpResponse.of(
                         HttpHeaders.of(HttpStatus.TEMPORARY_REDIRECT)
@@ -227,7 +289,8 @@ public final class HttpFileService extends AbstractHttpService {
 
     @Nullable
     private HttpFile findFile(ServiceRequestContext ctx, String path,
-                              EnumSet<FileServiceContentEncoding> supportedEncodings) throws IOException {
+                              EnumSet<FileServiceContentEncoding> supportedEncodings,
+                              @Nullable String compressionEncoding) throws IOException {
         for (FileServiceContentEncoding encoding : supportedEncodings) {
             final String contentEncoding = encoding.headerValue;
             final HttpFile file = findFile(ctx, path + encoding.extension, contentEncoding);
@@ -236,7 +299,12 @@ public final class HttpFileService extends AbstractHttpService {
             }
         }
 
-        return findFile(ctx, path, (String) null);
+        final HttpFile file = findFile(ctx, path, (String) null);
+        if (compressionEncoding != null && file instanceof AggregatedHttpFile) {
+            // No pre-compressed file, but the file is cached. Compress it once and cache the result.
+            return compress(ctx, path, (AggregatedHttpFile) file, compressionEncoding);
+        }
+        return file;
     }
 
     @Nullable
@@ -248,23 +316,23 @@ public final class HttpFileService extends AbstractHttpService {
             return uncachedAttrs != null ? uncachedFile : null;
         }
 
-        final PathAndEncoding pathAndEncoding = new PathAndEncoding(path, contentEncoding);
+        final HttpFileCache.Key key = new HttpFileCache.Key(config.vfs(), path, contentEncoding);
         if (uncachedAttrs == null) {
             // Non-existent file. Invalidate the cache just in case it existed before.
-            cache.invalidate(pathAndEncoding);
+            cache.invalidate(key);
             return null;
         }
 
         if (uncachedAttrs.length() > config.maxCacheEntrySizeBytes()) {
             // Invalidate the cache just in case the file was small previously.
-            cache.invalidate(pathAndEncoding);
+            cache.invalidate(key);
             return uncachedFile;
         }
 
-        final AggregatedHttpFile cachedFile = cache.getIfPresent(pathAndEncoding);
+        final AggregatedHttpFile cachedFile = cache.getIfPresent(key);
         if (cachedFile == null) {
             // Cache miss. Add a new entry to the cache.
-            return cache(ctx, pathAndEncoding, uncachedFile);
+            return cache(ctx, key, uncachedFile);
         }
 
         final HttpFileAttributes cachedAttrs = cachedFile.readAttributes();
@@ -275,16 +343,16 @@ public final class HttpFileService extends AbstractHttpService {
         }
 
         // Cache hit, but the cached file is out of date. Replace the old entry from the cache.
-        cache.invalidate(pathAndEncoding);
-        return cache(ctx, pathAndEncoding, uncachedFile);
+        cache.invalidate(key);
+        return cache(ctx, key, uncachedFile);
     }
 
-    private HttpFile cache(ServiceRequestContext ctx, PathAndEncoding pathAndEncoding, HttpFile file) {
+    private HttpFile cache(ServiceRequestContext ctx, HttpFileCache.Key key, HttpFile file) {
         assert cache != null;
 
         // TODO(trustin): We assume here that the file being read is small enough that it will not block
         //                an event loop for a long time. Revisit if the assumption turns out to be false.
-        final AggregatedHttpFile cachedFile = cache.get(pathAndEncoding, key -> {
+        final AggregatedHttpFile cachedFile = cache.get(key, unused -> {
             try {
                 return file.aggregateWithPooledObjects(MoreExecutors.directExecutor(), ctx.alloc()).get();
             } catch (Exception e) {
@@ -296,6 +364,106 @@ public final class HttpFileService extends AbstractHttpService {
         return cachedFile != null ? cachedFile : file;
     }
 
+    private HttpFile compress(ServiceRequestContext ctx, String path, AggregatedHttpFile file,
+                              String contentEncoding) {
+        assert cache != null;
+
+        final HttpData content = file.content();
+        final HttpHeaders headers = file.readHeaders();
+        final HttpFileAttributes attrs = file.readAttributes();
+        if (content == null || headers == null || attrs == null ||
+            content.length() < HttpEncodingUtil.DEFAULT_MIN_BYTES_TO_ENCODE ||
+            headers.contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return file;
+        }
+
+        final MediaType contentType = headers.contentType();
+        if (contentType == null || !HttpEncodingUtil.isEncodableContentType(contentType)) {
+            return file;
+        }
+
+        // Use the entity tag of the original file as a part of the key, so that the content compressed from
+        // an outdated file is not served.
+        final String entityTag = headers.get(HttpHeaderNames.ETAG);
+        final String originalEntityTag;
+        if (entityTag != null) {
+            originalEntityTag = entityTag.length() > 1 && entityTag.charAt(0) == '"' ?
+                                entityTag.substring(1, entityTag.length() - 1) : entityTag;
+        } else {
+            originalEntityTag = DefaultEntityTagFunction.get().apply(path, attrs);
+        }
+
+        final HttpFileCache.Key key = new HttpFileCache.Key(config.vfs(), path, contentEncoding,
+                                                            originalEntityTag);
+
+        final AggregatedHttpFile compressedFile = cache.getIfPresent(key);
+        if (compressedFile != null) {
+            return compressedFile != NOT_WORTH_COMPRESSING ? compressedFile : file;
+        }
+
+        // Compress the file using the blocking task executor not to block the event loop, and serve
+        // the original file until the compressed file is cached.
+        if (!pendingCompressions.add(key)) {
+            return file;
+        }
+        final boolean pooled = content instanceof ByteBufHolder;
+        if (pooled) {
+            // Retain the content in case the original file is evicted from the cache while compressing.
+            ((ByteBufHolder) content).retain();
+        }
+        try {
+            ctx.blockingTaskExecutor().execute(() -> {
+                try {
+                    final byte[] compressed = compress(content, contentEncoding);
+                    if (compressed.length >= content.length()) {
+                        cache.put(key, NOT_WORTH_COMPRESSING);
+                        return;
+                    }
+
+                    final HttpFileBuilder builder =
+                            HttpFileBuilder.of(HttpData.of(compressed), attrs.lastModifiedMillis())
+                                           .clock(config.clock())
+                                           .setHeader(HttpHeaderNames.CONTENT_TYPE, contentType)
+                                           .setHeader(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
+                    if (entityTag != null) {
+                        // A compressed representation must have a different entity tag.
+                        builder.entityTag((pathOrUri, compressedAttrs) -> originalEntityTag + '-' +
+                                                                          contentEncoding);
+                    } else {
+                        builder.entityTag(false);
+                    }
+                    cache.put(key, (AggregatedHttpFile) builder.build());
+                } catch (Throwable cause) {
+                    logger.warn("{} Failed to compress a file: {}", ctx, file, cause);
+                } finally {
+                    pendingCompressions.remove(key);
+                    if (pooled) {
+                        ((ByteBufHolder) content).release();
+                    }
+                }
+            });
+        } catch (Throwable cause) {
+            // e.g. The blocking task executor rejected the task. Compress the file on the next request.
+            pendingCompressions.remove(key);
+            if (pooled) {
+                ((ByteBufHolder) content).release();
+            }
+        }
+        return file;
+    }
+
+    private static byte[] compress(HttpData content, String contentEncoding) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length() / 2);
+        try (DeflaterOutputStream compressor = "gzip".equals(contentEncoding) ? new GZIPOutputStream(out)
+                                                                              : new DeflaterOutputStream(out)) {
+            compressor.write(content.array(), content.offset(), content.length());
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Error compressing a file. This should not happen with byte arrays.", e);
+        }
+        return out.toByteArray();
+    }
+
     /**
      * Creates a new {@link HttpService} that tries this {@link HttpFileService} first and then the specified
      * {@link HttpService} when this {@link HttpFileService} does not have a requested resource.
@@ -360,32 +528,4 @@ public final class HttpFileService extends AbstractHttpService {
             this.headerValue = headerValue;
         }
     }
-
-    private static final class PathAndEncoding {
-        private final String path;
-        @Nullable
-        private final String contentEncoding;
-
-        PathAndEncoding(String path, @Nullable String contentEncoding) {
-            this.path = path;
-            this.contentEncoding = contentEncoding;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (!(obj instanceof PathAndEncoding)) {
-                return false;
-            }
-            return path.equals(((PathAndEncoding) obj).path) &&
-                   Objects.equals(contentEncoding, ((PathAndEncoding) obj).contentEncoding);
-        }
-
-        @Override
-        public int hashCode() {
-            return path.hashCode() * 31 + Objects.hashCode(contentEncoding);
-        }
-    }
 }
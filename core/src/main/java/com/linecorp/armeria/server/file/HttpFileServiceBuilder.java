@@ -21,6 +21,8 @@ import static java.util.Objects.requireNonNull;
 import java.nio.file.Path;
 import java.time.Clock;
 
+import javax.annotation.Nullable;
+
 /**
  * Builds a new {@link HttpFileService} and its {@link HttpFileServiceConfig}. Use the factory methods in
  * {@link HttpFileService} if you do not override the default settings.
@@ -71,8 +73,12 @@ public final class HttpFileServiceBuilder {
     private Clock clock = Clock.systemUTC();
     private int maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
     private int maxCacheEntrySizeBytes = DEFAULT_MAX_CACHE_ENTRY_SIZE_BYTES;
+    @Nullable
+    private HttpFileCache cache;
     private boolean serveCompressedFiles;
+    private boolean compressCachedFiles;
     private boolean autoIndex;
+    private boolean useFileRegion;
 
     private HttpFileServiceBuilder(HttpVfs vfs) {
         this.vfs = requireNonNull(vfs, "vfs");
@@ -110,6 +116,23 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the content of a cached file is compressed with gzip or deflate when a client accepts it
+     * and there is no pre-compressed file. The content is compressed only once and the compressed content
+     * is cached as well, keyed by the entity tag of the original file, so that the same file is not
+     * compressed again for every request unlike
+     * {@link com.linecorp.armeria.server.encoding.HttpEncodingService}. Only a text file larger than 1024 bytes
+     * is compressed. A file is compressed by the
+     * {@linkplain com.linecorp.armeria.server.ServiceRequestContext#blockingTaskExecutor() blocking task
+     * executor}, and the original content is served until the compressed content is cached.
+     * The {@code "accept-encoding"} is added to the {@code "vary"} header when this feature or
+     * {@link #serveCompressedFiles(boolean)} is enabled. By default, this feature is disabled.
+     */
+    public HttpFileServiceBuilder compressCachedFiles(boolean compressCachedFiles) {
+        this.compressCachedFiles = compressCachedFiles;
+        return this;
+    }
+
     /**
      * Sets the maximum allowed size of a cached file entry. The file bigger than this value will not be
      * cached. If not set, {@value #DEFAULT_MAX_CACHE_ENTRY_SIZE_BYTES} is used by default.
@@ -120,6 +143,17 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the {@link HttpFileCache} which caches the files, e.g. an {@link HttpFileCache} bounded by
+     * the total size of the content which is shared by more than one {@link HttpFileService}. If set,
+     * {@link #maxCacheEntries(int)} is ignored while {@link #maxCacheEntrySizeBytes(int)} still limits
+     * the size of a cached file entry.
+     */
+    public HttpFileServiceBuilder cache(HttpFileCache cache) {
+        this.cache = requireNonNull(cache, "cache");
+        return this;
+    }
+
     /**
      * Sets whether {@link HttpFileService} auto-generates a directory listing for a directory without an
      * {@code index.html} file. By default, this feature is disabled. Consider the security implications of
@@ -130,18 +164,32 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the content of a file in an O/S file system is transferred using a
+     * {@link io.netty.channel.FileRegion}, e.g. {@code sendfile()}, without being copied into user space,
+     * when the file is not cached, the session is cleartext HTTP/1 and the {@link HttpFileService} is not
+     * decorated. Otherwise, e.g. when a decorator such as
+     * {@link com.linecorp.armeria.server.encoding.HttpEncodingService} may access the content, the content
+     * is read into memory as usual. By default, this feature is disabled.
+     */
+    public HttpFileServiceBuilder useFileRegion(boolean useFileRegion) {
+        this.useFileRegion = useFileRegion;
+        return this;
+    }
+
     /**
      * Returns a newly-created {@link HttpFileService} based on the properties of this builder.
      */
     public HttpFileService build() {
         return new HttpFileService(new HttpFileServiceConfig(
-                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
-                serveCompressedFiles, autoIndex));
+                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, cache,
+                serveCompressedFiles, compressCachedFiles, autoIndex, useFileRegion));
     }
 
     @Override
     public String toString() {
         return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
-                                              serveCompressedFiles, autoIndex);
+                                              cache, serveCompressedFiles, compressCachedFiles, autoIndex,
+                                              useFileRegion);
     }
 }
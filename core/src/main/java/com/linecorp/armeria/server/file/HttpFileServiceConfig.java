@@ -20,6 +20,8 @@ import static java.util.Objects.requireNonNull;
 
 import java.time.Clock;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.MoreObjects;
 
 /**
@@ -31,17 +33,26 @@ public final class HttpFileServiceConfig {
     private final Clock clock;
     private final int maxCacheEntries;
     private final int maxCacheEntrySizeBytes;
+    @Nullable
+    private final HttpFileCache cache;
     private final boolean serveCompressedFiles;
+    private final boolean compressCachedFiles;
     private final boolean autoIndex;
+    private final boolean useFileRegion;
 
     HttpFileServiceConfig(HttpVfs vfs, Clock clock, int maxCacheEntries, int maxCacheEntrySizeBytes,
-                          boolean serveCompressedFiles, boolean autoIndex) {
+                          @Nullable HttpFileCache cache,
+                          boolean serveCompressedFiles, boolean compressCachedFiles, boolean autoIndex,
+                          boolean useFileRegion) {
         this.vfs = requireNonNull(vfs, "vfs");
         this.clock = requireNonNull(clock, "clock");
         this.maxCacheEntries = validateMaxCacheEntries(maxCacheEntries);
         this.maxCacheEntrySizeBytes = validateMaxCacheEntrySizeBytes(maxCacheEntrySizeBytes);
+        this.cache = cache;
         this.serveCompressedFiles = serveCompressedFiles;
+        this.compressCachedFiles = compressCachedFiles;
         this.autoIndex = autoIndex;
+        this.useFileRegion = useFileRegion;
     }
 
     static int validateMaxCacheEntries(int maxCacheEntries) {
@@ -88,6 +99,17 @@ public final class HttpFileServiceConfig {
         return maxCacheEntrySizeBytes;
     }
 
+    /**
+     * Returns the {@link HttpFileCache} which caches the files instead of the cache of an
+     * {@link HttpFileService} bounded by {@link #maxCacheEntries()}.
+     *
+     * @return the {@link HttpFileCache}, or {@code null} if not set
+     */
+    @Nullable
+    public HttpFileCache cache() {
+        return cache;
+    }
+
     /**
      * Returns whether pre-compressed files should be served.
      */
@@ -95,6 +117,14 @@ public final class HttpFileServiceConfig {
         return serveCompressedFiles;
     }
 
+    /**
+     * Returns whether the content of a cached file is compressed once and the compressed content is cached
+     * as well.
+     */
+    public boolean compressCachedFiles() {
+        return compressCachedFiles;
+    }
+
     /**
      * Returns whether a directory listing for a directory without an {@code index.html} file will be
      * auto-generated.
@@ -103,23 +133,35 @@ public final class HttpFileServiceConfig {
         return autoIndex;
     }
 
+    /**
+     * Returns whether the content of a file in an O/S file system is transferred without being copied into
+     * user space over a cleartext HTTP/1 connection.
+     */
+    public boolean useFileRegion() {
+        return useFileRegion;
+    }
+
     @Override
     public String toString() {
-        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes(),
-                        serveCompressedFiles(), autoIndex());
+        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes(), cache(),
+                        serveCompressedFiles(), compressCachedFiles(), autoIndex(), useFileRegion());
     }
 
     static String toString(Object holder, HttpVfs vfs, Clock clock,
-                           int maxCacheEntries, int maxCacheEntrySizeBytes,
-                           boolean serveCompressedFiles, boolean autoIndex) {
+                           int maxCacheEntries, int maxCacheEntrySizeBytes, @Nullable HttpFileCache cache,
+                           boolean serveCompressedFiles, boolean compressCachedFiles, boolean autoIndex,
+                           boolean useFileRegion) {
 
         return MoreObjects.toStringHelper(holder)
                           .add("vfs", vfs)
                           .add("clock", clock)
                           .add("maxCacheEntries", maxCacheEntries)
                           .add("maxCacheEntrySizeBytes", maxCacheEntrySizeBytes)
+                          .add("cache", cache)
                           .add("serveCompressedFiles", serveCompressedFiles)
+                          .add("compressCachedFiles", compressCachedFiles)
                           .add("autoIndex", autoIndex)
+                          .add("useFileRegion", useFileRegion)
                           .toString();
     }
 }
@@ -32,16 +32,19 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.RpcRequest;
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
 import com.linecorp.armeria.common.util.Exceptions;
 import com.linecorp.armeria.server.ServiceRequestContext;
 
@@ -68,6 +71,14 @@ interface AccessLogComponent {
         return false;
     }
 
+    /**
+     * Returns the {@link RequestLogAvailability}s which have to be satisfied before
+     * {@link #getMessage(RequestLog)} is invoked.
+     */
+    default Set<RequestLogAvailability> requiredAvailabilities() {
+        return ImmutableSet.of();
+    }
+
     static AccessLogComponent ofText(String text) {
         return new TextComponent(text);
     }
@@ -104,6 +115,10 @@ interface AccessLogComponent {
             this.text = requireNonNull(text, "text");
         }
 
+        String text() {
+            return text;
+        }
+
         @Override
         public Object getMessage(RequestLog log) {
             return text;
@@ -143,6 +158,13 @@ interface AccessLogComponent {
         private final boolean addQuote;
         private final DateTimeFormatter formatter;
 
+        /**
+         * The last formatted timestamp. The default format has the resolution of a second, so the requests
+         * started in the same second share the same timestamp.
+         */
+        @Nullable
+        private volatile CachedTimestamp cachedTimestamp;
+
         TimestampComponent(boolean addQuote, @Nullable String variable) {
             this.addQuote = addQuote;
             formatter = findFormatter(variable);
@@ -151,8 +173,24 @@ interface AccessLogComponent {
         @Nullable
         @Override
         public Object getMessage(RequestLog log) {
-            return formatter.format(ZonedDateTime.ofInstant(
-                    Instant.ofEpochMilli(log.requestStartTimeMillis()), defaultZoneId));
+            final long requestStartTimeMillis = log.requestStartTimeMillis();
+            if (formatter != defaultDateTimeFormatter) {
+                return format(requestStartTimeMillis);
+            }
+
+            final long epochSecond = Math.floorDiv(requestStartTimeMillis, 1000);
+            final CachedTimestamp cachedTimestamp = this.cachedTimestamp;
+            if (cachedTimestamp != null && cachedTimestamp.epochSecond == epochSecond) {
+                return cachedTimestamp.text;
+            }
+
+            final String text = format(requestStartTimeMillis);
+            this.cachedTimestamp = new CachedTimestamp(epochSecond, text);
+            return text;
+        }
+
+        private String format(long epochMillis) {
+            return formatter.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), defaultZoneId));
         }
 
         @Override
@@ -160,6 +198,11 @@ interface AccessLogComponent {
             return addQuote;
         }
 
+        @Override
+        public Set<RequestLogAvailability> requiredAvailabilities() {
+            return ImmutableSet.of(RequestLogAvailability.REQUEST_START);
+        }
+
         static DateTimeFormatter findFormatter(@Nullable String variable) {
             if (variable == null) {
                 return defaultDateTimeFormatter;
@@ -178,6 +221,16 @@ interface AccessLogComponent {
                                                    variable, cause);
             }
         }
+
+        private static final class CachedTimestamp {
+            final long epochSecond;
+            final String text;
+
+            CachedTimestamp(long epochSecond, String text) {
+                this.epochSecond = epochSecond;
+                this.text = text;
+            }
+        }
     }
 
     /**
@@ -218,6 +271,27 @@ interface AccessLogComponent {
         public boolean addQuote() {
             return addQuote;
         }
+
+        @Override
+        public final Set<RequestLogAvailability> requiredAvailabilities() {
+            final Set<RequestLogAvailability> availabilities = requiredAvailabilities0();
+            if (condition == null) {
+                return availabilities;
+            }
+            // The condition is evaluated against the response headers.
+            return ImmutableSet.<RequestLogAvailability>builder()
+                               .addAll(availabilities)
+                               .add(RequestLogAvailability.RESPONSE_HEADERS)
+                               .build();
+        }
+
+        /**
+         * Returns the {@link RequestLogAvailability}s which have to be satisfied before
+         * {@link #getMessage0(RequestLog)} is invoked.
+         */
+        Set<RequestLogAvailability> requiredAvailabilities0() {
+            return ImmutableSet.of();
+        }
     }
 
     /**
@@ -256,6 +330,26 @@ interface AccessLogComponent {
             this.variable = variable;
         }
 
+        AccessLogType type() {
+            return type;
+        }
+
+        @Override
+        Set<RequestLogAvailability> requiredAvailabilities0() {
+            switch (type) {
+                case REQUEST_LINE:
+                    return ImmutableSet.of(RequestLogAvailability.REQUEST_HEADERS,
+                                           RequestLogAvailability.REQUEST_CONTENT);
+                case RESPONSE_STATUS_CODE:
+                    return ImmutableSet.of(RequestLogAvailability.RESPONSE_HEADERS);
+                case RESPONSE_LENGTH:
+                    return ImmutableSet.of(RequestLogAvailability.RESPONSE_END);
+                default:
+                    // The addresses are retrieved from the context.
+                    return ImmutableSet.of();
+            }
+        }
+
         @Nullable
         @Override
         public Object getMessage0(RequestLog log) {
@@ -324,6 +418,7 @@ interface AccessLogComponent {
 
         private final AsciiString headerName;
         private final Function<RequestLog, HttpHeaders> httpHeaders;
+        private final RequestLogAvailability availability;
 
         HttpHeaderComponent(AccessLogType logType, AsciiString headerName, boolean addQuote,
                             @Nullable Function<HttpHeaders, Boolean> condition) {
@@ -331,12 +426,19 @@ interface AccessLogComponent {
             this.headerName = requireNonNull(headerName, "headerName");
             if (logType == AccessLogType.REQUEST_HEADER) {
                 httpHeaders = RequestLog::requestHeaders;
+                availability = RequestLogAvailability.REQUEST_HEADERS;
             } else {
                 assert logType == AccessLogType.RESPONSE_HEADER : logType.name();
                 httpHeaders = RequestLog::responseHeaders;
+                availability = RequestLogAvailability.RESPONSE_HEADERS;
             }
         }
 
+        @Override
+        Set<RequestLogAvailability> requiredAvailabilities0() {
+            return ImmutableSet.of(availability);
+        }
+
         @VisibleForTesting
         AsciiString headerName() {
             return headerName;
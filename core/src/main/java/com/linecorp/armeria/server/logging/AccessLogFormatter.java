@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.server.logging.AccessLogComponent.CommonComponent;
+import com.linecorp.armeria.server.logging.AccessLogComponent.TextComponent;
+
+/**
+ * Formats a {@link RequestLog} with a list of {@link AccessLogComponent}s compiled in advance:
+ * <ul>
+ *   <li>The adjacent texts, including the components which always produce an empty field,
+ *       are merged into one.</li>
+ *   <li>The status code and the response length are appended without boxing.</li>
+ *   <li>The {@link RequestLogAvailability}s required by each component are resolved in advance, so that
+ *       a component whose properties are not available yet is skipped without raising
+ *       a {@link com.linecorp.armeria.common.logging.RequestLogAvailabilityException}. No component is
+ *       checked if the {@link RequestLog} is complete already, which is the usual case.</li>
+ * </ul>
+ */
+final class AccessLogFormatter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogFormatter.class);
+
+    private static final RequestLogAvailability[] NO_AVAILABILITIES = new RequestLogAvailability[0];
+
+    static final AccessLogFormatter COMMON = of(AccessLogFormats.COMMON);
+    static final AccessLogFormatter COMBINED = of(AccessLogFormats.COMBINED);
+
+    /**
+     * Compiles the specified {@link AccessLogComponent}s into an {@link AccessLogFormatter}.
+     */
+    static AccessLogFormatter of(List<AccessLogComponent> format) {
+        requireNonNull(format, "format");
+
+        final List<Part> parts = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+        for (AccessLogComponent component : format) {
+            if (component instanceof TextComponent) {
+                text.append(((TextComponent) component).text());
+                continue;
+            }
+
+            AccessLogType type = null;
+            if (component instanceof CommonComponent && ((CommonComponent) component).condition() == null) {
+                type = ((CommonComponent) component).type();
+            }
+            if (type == AccessLogType.RFC931 || type == AccessLogType.AUTHENTICATED_USER) {
+                // Not supported, so always an empty field.
+                appendEmptyField(text, component.addQuote());
+                continue;
+            }
+
+            if (text.length() > 0) {
+                parts.add(new TextPart(text.toString()));
+                text.setLength(0);
+            }
+
+            if (type == AccessLogType.RESPONSE_STATUS_CODE && !component.addQuote()) {
+                parts.add(new ComponentPart(component) {
+                    @Override
+                    void appendMessage(StringBuilder out, RequestLog log) {
+                        out.append(log.statusCode());
+                    }
+                });
+            } else if (type == AccessLogType.RESPONSE_LENGTH && !component.addQuote()) {
+                parts.add(new ComponentPart(component) {
+                    @Override
+                    void appendMessage(StringBuilder out, RequestLog log) {
+                        out.append(log.responseLength());
+                    }
+                });
+            } else {
+                parts.add(new ComponentPart(component));
+            }
+        }
+
+        if (text.length() > 0) {
+            parts.add(new TextPart(text.toString()));
+        }
+        return new AccessLogFormatter(parts.toArray(new Part[0]));
+    }
+
+    private final Part[] parts;
+
+    private AccessLogFormatter(Part[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Returns {@code true} if this formatter always produces an empty string.
+     */
+    boolean isEmpty() {
+        return parts.length == 0;
+    }
+
+    /**
+     * Returns the access log of the specified {@link RequestLog}.
+     */
+    String format(RequestLog log) {
+        return format(new StringBuilder(), log).toString();
+    }
+
+    /**
+     * Appends the access log of the specified {@link RequestLog} to the specified {@link StringBuilder}.
+     */
+    StringBuilder format(StringBuilder out, RequestLog log) {
+        final boolean complete = log.isAvailable(RequestLogAvailability.COMPLETE);
+        for (Part part : parts) {
+            part.append(out, log, complete);
+        }
+        return out;
+    }
+
+    private static void appendEmptyField(StringBuilder out, boolean addQuote) {
+        if (addQuote) {
+            out.append("\"-\"");
+        } else {
+            out.append('-');
+        }
+    }
+
+    private abstract static class Part {
+        abstract void append(StringBuilder out, RequestLog log, boolean complete);
+    }
+
+    private static final class TextPart extends Part {
+
+        private final String text;
+
+        TextPart(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void append(StringBuilder out, RequestLog log, boolean complete) {
+            out.append(text);
+        }
+    }
+
+    private static class ComponentPart extends Part {
+
+        private final AccessLogComponent component;
+        private final boolean addQuote;
+        private final RequestLogAvailability[] requiredAvailabilities;
+
+        ComponentPart(AccessLogComponent component) {
+            this.component = component;
+            addQuote = component.addQuote();
+            final Set<RequestLogAvailability> requiredAvailabilities = component.requiredAvailabilities();
+            this.requiredAvailabilities = requiredAvailabilities.toArray(NO_AVAILABILITIES);
+        }
+
+        @Override
+        final void append(StringBuilder out, RequestLog log, boolean complete) {
+            if (!complete && !isAvailable(log)) {
+                appendEmptyField(out, addQuote);
+                return;
+            }
+
+            final int start = out.length();
+            try {
+                appendMessage(out, log);
+            } catch (Throwable e) {
+                logger.debug("Caught an exception while formatting an access log:", e);
+                out.setLength(start);
+                appendEmptyField(out, addQuote);
+            }
+        }
+
+        private boolean isAvailable(RequestLog log) {
+            for (RequestLogAvailability availability : requiredAvailabilities) {
+                if (!log.isAvailable(availability)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void appendMessage(StringBuilder out, RequestLog log) {
+            final Object text = component.getMessage(log);
+            if (text == null) {
+                appendEmptyField(out, addQuote);
+            } else if (addQuote) {
+                AccessLogger.escapeAndQuote(out, text.toString());
+            } else {
+                out.append(text);
+            }
+        }
+    }
+}
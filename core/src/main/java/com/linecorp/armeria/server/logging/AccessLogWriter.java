@@ -35,14 +35,14 @@ public interface AccessLogWriter {
      * Returns an access log writer with a common format.
      */
     static AccessLogWriter common() {
-        return requestLog -> AccessLogger.write(AccessLogFormats.COMMON, requestLog);
+        return requestLog -> AccessLogger.write(AccessLogFormatter.COMMON, requestLog);
     }
 
     /**
      * Returns an access log writer with a combined format.
      */
     static AccessLogWriter combined() {
-        return requestLog -> AccessLogger.write(AccessLogFormats.COMBINED, requestLog);
+        return requestLog -> AccessLogger.write(AccessLogFormatter.COMBINED, requestLog);
     }
 
     /**
@@ -59,7 +59,8 @@ public interface AccessLogWriter {
         requireNonNull(formatStr, "formatStr");
         final List<AccessLogComponent> accessLogFormat = parseCustom(formatStr);
         checkArgument(!accessLogFormat.isEmpty(), "Invalid access log format string: %s", formatStr);
-        return requestLog -> AccessLogger.write(accessLogFormat, requestLog);
+        final AccessLogFormatter formatter = AccessLogFormatter.of(accessLogFormat);
+        return requestLog -> AccessLogger.write(formatter, requestLog);
     }
 
     /**
@@ -67,6 +68,31 @@ public interface AccessLogWriter {
      */
     void log(RequestLog log) throws Exception;
 
+    /**
+     * Logs the specified {@link RequestLog}s in a batch, as done by {@link BatchingAccessLogWriter}.
+     * Override this method if the {@link RequestLog}s can be written more efficiently together.
+     * The default implementation invokes {@link #log(RequestLog)} for each {@link RequestLog}. If it fails,
+     * the remaining {@link RequestLog}s are still logged and the first exception is rethrown with the others
+     * suppressed.
+     */
+    default void logAll(List<RequestLog> logs) throws Exception {
+        Exception cause = null;
+        for (RequestLog log : logs) {
+            try {
+                log(log);
+            } catch (Exception e) {
+                if (cause == null) {
+                    cause = e;
+                } else {
+                    cause.addSuppressed(e);
+                }
+            }
+        }
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
     /**
      * Returns a new {@link AccessLogWriter} which combines two {@link AccessLogWriter}s.
      */
@@ -81,6 +107,15 @@ public interface AccessLogWriter {
                 }
             }
 
+            @Override
+            public void logAll(List<RequestLog> logs) throws Exception {
+                try {
+                    AccessLogWriter.this.logAll(logs);
+                } finally {
+                    after.logAll(logs);
+                }
+            }
+
             @Override
             public CompletableFuture<Void> shutdown() {
                 final CompletableFuture<Void> f1;
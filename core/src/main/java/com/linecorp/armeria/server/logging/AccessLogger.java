@@ -19,7 +19,6 @@ package com.linecorp.armeria.server.logging;
 import java.util.List;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -100,49 +99,21 @@ import com.linecorp.armeria.server.VirtualHost;
  * }</pre>
  */
 final class AccessLogger {
-    private static final Logger logger = LoggerFactory.getLogger(AccessLogger.class);
 
     /**
      * Writes an access log for the specified {@link RequestLog}.
      */
-    static void write(List<AccessLogComponent> format, RequestLog log) {
+    static void write(AccessLogFormatter formatter, RequestLog log) {
         final VirtualHost host = ((ServiceRequestContext) log.context()).virtualHost();
         final Logger logger = host.accessLogger();
-        if (!format.isEmpty() && logger.isInfoEnabled()) {
-            logger.info(format(format, log));
+        if (!formatter.isEmpty() && logger.isInfoEnabled()) {
+            logger.info(formatter.format(log));
         }
     }
 
+    @VisibleForTesting
     static String format(List<AccessLogComponent> format, RequestLog log) {
-        final StringBuilder message = new StringBuilder();
-
-        for (final AccessLogComponent component : format) {
-            final boolean addQuote = component.addQuote();
-            try {
-                final Object text = component.getMessage(log);
-                if (text != null) {
-                    if (addQuote) {
-                        escapeAndQuote(message, text.toString());
-                    } else {
-                        message.append(text);
-                    }
-                } else {
-                    appendEmptyField(message, addQuote);
-                }
-            } catch (Throwable e) {
-                logger.debug("Caught an exception while formatting an access log:", e);
-                appendEmptyField(message, addQuote);
-            }
-        }
-        return message.toString();
-    }
-
-    private static void appendEmptyField(StringBuilder message, boolean addQuote) {
-        if (addQuote) {
-            message.append("\"-\"");
-        } else {
-            message.append('-');
-        }
+        return AccessLogFormatter.of(format).format(log);
     }
 
     @VisibleForTesting
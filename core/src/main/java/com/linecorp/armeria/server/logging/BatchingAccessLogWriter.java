@@ -0,0 +1,306 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * An {@link AccessLogWriter} which collects the completed {@link RequestLog}s into a buffer of each
+ * {@link EventLoop} and hands them to the delegate {@link AccessLogWriter} in batches from
+ * an {@link Executor}, so that an {@link EventLoop} does not spend its time on formatting and writing
+ * access logs.
+ *
+ * <p>A batch is handed over when the {@link EventLoop} finishes its current tasks or when it is full.
+ * The number of the {@link RequestLog}s which were handed over but not written yet is bounded by
+ * {@code maxPendingLogs}. When the bound is exceeded, the batch is dropped and counted in
+ * {@link #numDroppedLogs()}. The batches may be written out of order if the {@link Executor} has
+ * more than one thread.
+ *
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.accessLogWriter(new BatchingAccessLogWriter(AccessLogWriter.combined()), true);
+ * }</pre>
+ */
+public final class BatchingAccessLogWriter implements AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingAccessLogWriter.class);
+
+    /**
+     * The default maximum number of the {@link RequestLog}s in a batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    /**
+     * The default maximum number of the {@link RequestLog}s which are not written yet.
+     */
+    public static final int DEFAULT_MAX_PENDING_LOGS = 65536;
+
+    private final AccessLogWriter delegate;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final int maxPendingLogs;
+    private final Set<Batch> allBatches = ConcurrentHashMap.newKeySet();
+    private final FastThreadLocal<Batch> batches = new FastThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            final Batch batch = new Batch();
+            allBatches.add(batch);
+            return batch;
+        }
+    };
+
+    private final AtomicLong numPendingLogs = new AtomicLong();
+    private final LongAdder numDroppedLogs = new LongAdder();
+    private final CompletableFuture<Void> drainFuture = new CompletableFuture<>();
+    private volatile boolean shuttingDown;
+    private volatile boolean batchesFlushed;
+    @Nullable
+    private CompletableFuture<Void> shutdownFuture;
+
+    /**
+     * Creates a new instance which writes the batches from {@link CommonPools#blockingTaskExecutor()}
+     * with the {@linkplain #DEFAULT_MAX_BATCH_SIZE default batch size} and
+     * the {@linkplain #DEFAULT_MAX_PENDING_LOGS default bound}.
+     */
+    public BatchingAccessLogWriter(AccessLogWriter delegate) {
+        this(delegate, CommonPools.blockingTaskExecutor(), DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_PENDING_LOGS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate the {@link AccessLogWriter} which writes the batches
+     * @param executor the {@link Executor} which invokes {@link AccessLogWriter#logAll(List)} of
+     *                 the {@code delegate}
+     * @param maxBatchSize the maximum number of the {@link RequestLog}s in a batch
+     * @param maxPendingLogs the maximum number of the {@link RequestLog}s which were handed over to
+     *                       the {@code executor} but not written yet
+     */
+    public BatchingAccessLogWriter(AccessLogWriter delegate, Executor executor,
+                                   int maxBatchSize, int maxPendingLogs) {
+        this.delegate = requireNonNull(delegate, "delegate");
+        this.executor = requireNonNull(executor, "executor");
+        checkArgument(maxBatchSize > 0, "maxBatchSize: %s (expected: > 0)", maxBatchSize);
+        checkArgument(maxPendingLogs >= maxBatchSize,
+                      "maxPendingLogs: %s (expected: >= maxBatchSize)", maxPendingLogs);
+        this.maxBatchSize = maxBatchSize;
+        this.maxPendingLogs = maxPendingLogs;
+    }
+
+    /**
+     * Returns the number of the {@link RequestLog}s which were handed over to the {@link Executor} but
+     * not written yet.
+     */
+    public long numPendingLogs() {
+        return numPendingLogs.get();
+    }
+
+    /**
+     * Returns the number of the {@link RequestLog}s dropped because there were too many pending logs.
+     */
+    public long numDroppedLogs() {
+        return numDroppedLogs.sum();
+    }
+
+    /**
+     * Registers the gauge of {@link #numPendingLogs()} and the counter of {@link #numDroppedLogs()} to
+     * the specified {@link MeterRegistry}.
+     */
+    public void registerMetrics(MeterRegistry registry, MeterIdPrefix idPrefix) {
+        requireNonNull(registry, "registry");
+        requireNonNull(idPrefix, "idPrefix");
+        registry.gauge(idPrefix.name("pendingLogs"), idPrefix.tags(),
+                       this, BatchingAccessLogWriter::numPendingLogs);
+        registry.more().counter(idPrefix.name("droppedLogs"), idPrefix.tags(),
+                                this, BatchingAccessLogWriter::numDroppedLogs);
+    }
+
+    @Override
+    public void log(RequestLog log) throws Exception {
+        requireNonNull(log, "log");
+        if (shuttingDown) {
+            delegate.log(log);
+            return;
+        }
+
+        final EventLoop eventLoop = log.context().eventLoop();
+        if (!eventLoop.inEventLoop()) {
+            submit(ImmutableList.of(log));
+            return;
+        }
+
+        batches.get().add(log, eventLoop);
+    }
+
+    private void submit(List<RequestLog> logs) {
+        final int size = logs.size();
+        if (numPendingLogs.addAndGet(size) > maxPendingLogs) {
+            numPendingLogs.addAndGet(-size);
+            numDroppedLogs.add(size);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    delegate.logAll(logs);
+                } catch (Throwable cause) {
+                    logger.warn("Failed to write {} access log(s):", size, cause);
+                } finally {
+                    if (numPendingLogs.addAndGet(-size) == 0 && batchesFlushed) {
+                        drainFuture.complete(null);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            numPendingLogs.addAndGet(-size);
+            numDroppedLogs.add(size);
+        }
+    }
+
+    /**
+     * Shuts down the delegate {@link AccessLogWriter} after the {@link RequestLog}s in the buffer of each
+     * {@link EventLoop} and all pending {@link RequestLog}s are written. The {@link RequestLog}s completed
+     * after this method is invoked are written by the caller thread.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> shutdown() {
+        if (shutdownFuture != null) {
+            return shutdownFuture;
+        }
+
+        shuttingDown = true;
+        // Flush the batches from their EventLoops, after the flushes which were scheduled already.
+        final List<CompletableFuture<?>> flushFutures = new ArrayList<>(allBatches.size());
+        for (Batch batch : allBatches) {
+            flushFutures.add(batch.flushOnShutdown());
+        }
+        return shutdownFuture =
+                CompletableFuture.allOf(flushFutures.toArray(new CompletableFuture<?>[0]))
+                                 .thenCompose(unused -> {
+                                     batchesFlushed = true;
+                                     if (numPendingLogs.get() == 0) {
+                                         drainFuture.complete(null);
+                                     }
+                                     return drainFuture;
+                                 })
+                                 .thenCompose(unused -> delegate.shutdown());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("delegate", delegate)
+                          .add("maxBatchSize", maxBatchSize)
+                          .add("maxPendingLogs", maxPendingLogs)
+                          .add("numPendingLogs", numPendingLogs())
+                          .add("numDroppedLogs", numDroppedLogs())
+                          .toString();
+    }
+
+    /**
+     * The {@link RequestLog}s collected by an {@link EventLoop}. Accessed only by the {@link EventLoop}.
+     */
+    private final class Batch implements Runnable {
+
+        @Nullable
+        private volatile EventLoop eventLoop;
+        @Nullable
+        private List<RequestLog> logs;
+        private boolean flushScheduled;
+
+        void add(RequestLog log, EventLoop eventLoop) {
+            if (this.eventLoop == null) {
+                this.eventLoop = eventLoop;
+            }
+            List<RequestLog> logs = this.logs;
+            if (logs == null) {
+                this.logs = logs = new ArrayList<>(Math.min(maxBatchSize, 16));
+            }
+            logs.add(log);
+
+            if (logs.size() >= maxBatchSize) {
+                flush();
+            } else if (!flushScheduled) {
+                // Flush after the EventLoop handles the other tasks, which may complete more requests.
+                flushScheduled = true;
+                eventLoop.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            flushScheduled = false;
+            flush();
+        }
+
+        CompletableFuture<Void> flushOnShutdown() {
+            final EventLoop eventLoop = this.eventLoop;
+            if (eventLoop == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                eventLoop.execute(() -> {
+                    flush();
+                    future.complete(null);
+                });
+            } catch (RejectedExecutionException e) {
+                // The EventLoop has been shut down, so nothing accesses the batch anymore.
+                flush();
+                future.complete(null);
+            }
+            return future;
+        }
+
+        private void flush() {
+            final List<RequestLog> logs = this.logs;
+            if (logs == null) {
+                return;
+            }
+            this.logs = null;
+            submit(logs);
+        }
+    }
+}
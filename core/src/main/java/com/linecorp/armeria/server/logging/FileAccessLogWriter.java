@@ -0,0 +1,411 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * An {@link AccessLogWriter} which writes the access logs to a file from a background thread, without
+ * going through a logging framework. The access logs are rendered into a {@link StringBuilder} reused by
+ * the caller thread, encoded into a pooled {@link ByteBuf} and then queued, so that the caller thread never
+ * blocks on the file I/O. The background thread writes all queued lines with a single gathering write and
+ * rotates the file when it grows larger than the configured size or when the configured interval passes.
+ * A rotated file is renamed by appending the time of the rotation, e.g. {@code access.log.2018-12-25-10-00-00}.
+ *
+ * <p>The lines logged while too many lines are queued are dropped and counted in {@link #numDroppedLines()}.
+ * Use {@link BatchingAccessLogWriter} in front of this writer so that the access logs of an event loop are
+ * rendered and queued together:
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.accessLogWriter(new BatchingAccessLogWriter(
+ *         new FileAccessLogWriterBuilder(Paths.get("access.log")).combinedFormat().build()), true);
+ * }</pre>
+ *
+ * @see FileAccessLogWriterBuilder
+ */
+public final class FileAccessLogWriter implements AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileAccessLogWriter.class);
+
+    /**
+     * The maximum capacity of the {@link StringBuilder} kept by each thread.
+     */
+    private static final int MAX_CACHED_BUILDER_CAPACITY = 65536;
+
+    private static final FastThreadLocal<StringBuilder> builders = new FastThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(512);
+        }
+    };
+
+    private static final DateTimeFormatter rotatedFileSuffixFormatter =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss").withZone(ZoneId.systemDefault());
+
+    private static final Lines SHUTDOWN_SIGNAL = new Lines(null, 0);
+
+    private final Path path;
+    private final AccessLogFormatter formatter;
+    private final long maxFileSizeBytes;
+    private final long rotationIntervalMillis;
+    private final int maxQueuedLines;
+
+    private final BlockingQueue<Lines> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger numQueuedLines = new AtomicInteger();
+    private final LongAdder numDroppedLines = new LongAdder();
+    private final CompletableFuture<Void> shutdownFuture = new CompletableFuture<>();
+    private volatile boolean shuttingDown;
+    // Set when the background thread does not take the lines from the queue anymore.
+    private volatile boolean terminated;
+
+    // Accessed only by the background thread.
+    @Nullable
+    private FileChannel channel;
+    private long fileSize;
+    private long nextRotationTimeMillis;
+
+    FileAccessLogWriter(Path path, AccessLogFormatter formatter, long maxFileSizeBytes,
+                        long rotationIntervalMillis, int maxQueuedLines) {
+        this.path = requireNonNull(path, "path");
+        this.formatter = requireNonNull(formatter, "formatter");
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        this.maxQueuedLines = maxQueuedLines;
+    }
+
+    /**
+     * Starts the background thread which writes the queued lines. Invoked by
+     * {@link FileAccessLogWriterBuilder#build()} once this writer is fully constructed.
+     */
+    void start() {
+        final Thread thread = new DefaultThreadFactory("armeria-access-log-writer", true).newThread(this::run);
+        thread.start();
+    }
+
+    /**
+     * Returns the number of the lines which are not written to the file yet.
+     */
+    public int numQueuedLines() {
+        return numQueuedLines.get();
+    }
+
+    /**
+     * Returns the number of the lines dropped because there were too many queued lines or
+     * the file could not be written.
+     */
+    public long numDroppedLines() {
+        return numDroppedLines.sum();
+    }
+
+    /**
+     * Registers the gauge of {@link #numQueuedLines()} and the counter of {@link #numDroppedLines()} to
+     * the specified {@link MeterRegistry}.
+     */
+    public void registerMetrics(MeterRegistry registry, MeterIdPrefix idPrefix) {
+        requireNonNull(registry, "registry");
+        requireNonNull(idPrefix, "idPrefix");
+        registry.gauge(idPrefix.name("queuedLines"), idPrefix.tags(),
+                       this, FileAccessLogWriter::numQueuedLines);
+        registry.more().counter(idPrefix.name("droppedLines"), idPrefix.tags(),
+                                this, FileAccessLogWriter::numDroppedLines);
+    }
+
+    @Override
+    public void log(RequestLog log) {
+        logAll(ImmutableList.of(requireNonNull(log, "log")));
+    }
+
+    @Override
+    public void logAll(List<RequestLog> logs) {
+        requireNonNull(logs, "logs");
+        final int numLines = logs.size();
+        if (numLines == 0) {
+            return;
+        }
+        if (shuttingDown) {
+            numDroppedLines.add(numLines);
+            return;
+        }
+        if (numQueuedLines.addAndGet(numLines) > maxQueuedLines) {
+            numQueuedLines.addAndGet(-numLines);
+            numDroppedLines.add(numLines);
+            return;
+        }
+
+        boolean queued = false;
+        try {
+            final StringBuilder builder = builders.get();
+            builder.setLength(0);
+            for (RequestLog log : logs) {
+                formatter.format(builder, log).append('\n');
+            }
+
+            final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(ByteBufUtil.utf8MaxBytes(builder));
+            ByteBufUtil.writeUtf8(buf, builder);
+            if (builder.capacity() > MAX_CACHED_BUILDER_CAPACITY) {
+                // Do not keep a huge buffer forever.
+                builders.remove();
+            }
+
+            queue.add(new Lines(buf, numLines));
+            queued = true;
+            if (terminated) {
+                // Passed the shutdown check, but the background thread has stopped since then.
+                dropQueuedLines();
+            }
+        } finally {
+            if (!queued) {
+                // Give back the reserved lines if formatting or allocation failed.
+                numQueuedLines.addAndGet(-numLines);
+            }
+        }
+    }
+
+    /**
+     * Writes all queued lines and closes the file.
+     */
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        if (!shuttingDown) {
+            shuttingDown = true;
+            queue.add(SHUTDOWN_SIGNAL);
+        }
+        return shutdownFuture;
+    }
+
+    private void run() {
+        final List<Lines> drained = new ArrayList<>();
+        try {
+            nextRotationTimeMillis = System.currentTimeMillis() + rotationIntervalMillis;
+            for (;;) {
+                final long timeoutMillis;
+                if (rotationIntervalMillis > 0) {
+                    timeoutMillis = Math.max(nextRotationTimeMillis - System.currentTimeMillis(), 0);
+                } else {
+                    timeoutMillis = Long.MAX_VALUE;
+                }
+
+                final Lines first = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    drained.add(first);
+                    queue.drainTo(drained);
+                }
+
+                final boolean shutdown = write(drained);
+                drained.clear();
+                if (shutdown) {
+                    break;
+                }
+
+                if (rotationIntervalMillis > 0 && System.currentTimeMillis() >= nextRotationTimeMillis) {
+                    rotate();
+                }
+            }
+        } catch (Throwable cause) {
+            logger.warn("Unexpected exception while writing access logs to: {}", path, cause);
+        } finally {
+            closeChannel();
+            terminated = true;
+            // Drop the lines queued after the shutdown signal. logAll() drops the lines queued from now on.
+            dropQueuedLines();
+            shutdownFuture.complete(null);
+        }
+    }
+
+    /**
+     * Releases the queued {@link Lines} and counts them as dropped.
+     */
+    private void dropQueuedLines() {
+        for (;;) {
+            final Lines lines = queue.poll();
+            if (lines == null) {
+                break;
+            }
+            lines.release();
+            numQueuedLines.addAndGet(-lines.numLines);
+            numDroppedLines.add(lines.numLines);
+        }
+    }
+
+    /**
+     * Writes the specified {@link Lines} with a gathering write.
+     *
+     * @return {@code true} if the shutdown has been requested
+     */
+    private boolean write(List<Lines> drained) {
+        if (drained.isEmpty()) {
+            return false;
+        }
+
+        boolean shutdown = false;
+        int numLines = 0;
+        long numBytes = 0;
+        final List<ByteBuffer> buffers = new ArrayList<>(drained.size());
+        for (Lines lines : drained) {
+            if (lines == SHUTDOWN_SIGNAL) {
+                shutdown = true;
+                continue;
+            }
+            final ByteBuf buf = lines.buf;
+            assert buf != null;
+            numLines += lines.numLines;
+            numBytes += buf.readableBytes();
+            buffers.add(buf.nioBuffer());
+        }
+
+        try {
+            if (numLines == 0) {
+                return shutdown;
+            }
+            FileChannel channel = channel();
+            if (maxFileSizeBytes > 0 && fileSize > 0 && fileSize + numBytes > maxFileSizeBytes) {
+                rotate();
+                channel = channel();
+            }
+
+            final ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            long remaining = numBytes;
+            while (remaining > 0) {
+                remaining -= channel.write(array);
+            }
+            fileSize += numBytes;
+        } catch (IOException e) {
+            logger.warn("Failed to write {} access log(s) to: {}", numLines, path, e);
+            numDroppedLines.add(numLines);
+            // Reopen the file on the next write.
+            closeChannel();
+        } finally {
+            for (Lines lines : drained) {
+                lines.release();
+            }
+            numQueuedLines.addAndGet(-numLines);
+        }
+        return shutdown;
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel channel = this.channel;
+        if (channel == null) {
+            this.channel = channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                                      StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            fileSize = channel.size();
+        }
+        return channel;
+    }
+
+    private void rotate() {
+        final long currentTimeMillis = System.currentTimeMillis();
+        nextRotationTimeMillis = currentTimeMillis + rotationIntervalMillis;
+        closeChannel();
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        final String suffix = rotatedFileSuffixFormatter.format(Instant.ofEpochMilli(currentTimeMillis));
+        Path rotatedPath = path.resolveSibling(path.getFileName() + "." + suffix);
+        for (int i = 1; Files.exists(rotatedPath); i++) {
+            rotatedPath = path.resolveSibling(path.getFileName() + "." + suffix + '.' + i);
+        }
+        try {
+            Files.move(path, rotatedPath);
+        } catch (IOException e) {
+            logger.warn("Failed to rotate an access log file: {} -> {}", path, rotatedPath, e);
+        }
+    }
+
+    private void closeChannel() {
+        final FileChannel channel = this.channel;
+        if (channel == null) {
+            return;
+        }
+        this.channel = null;
+        fileSize = 0;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close an access log file: {}", path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("maxFileSizeBytes", maxFileSizeBytes)
+                          .add("rotationIntervalMillis", rotationIntervalMillis)
+                          .add("maxQueuedLines", maxQueuedLines)
+                          .add("numQueuedLines", numQueuedLines())
+                          .add("numDroppedLines", numDroppedLines())
+                          .toString();
+    }
+
+    /**
+     * The encoded lines of one or more access logs.
+     */
+    private static final class Lines {
+
+        @Nullable
+        final ByteBuf buf;
+        final int numLines;
+
+        Lines(@Nullable ByteBuf buf, int numLines) {
+            this.buf = buf;
+            this.numLines = numLines;
+        }
+
+        void release() {
+            if (buf != null) {
+                buf.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.linecorp.armeria.server.logging.AccessLogFormats.parseCustom;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Builds a new {@link FileAccessLogWriter}.
+ */
+public final class FileAccessLogWriterBuilder {
+
+    static final long DEFAULT_MAX_FILE_SIZE_BYTES = 1024L * 1024 * 1024;
+    static final Duration DEFAULT_ROTATION_INTERVAL = Duration.ofDays(1);
+    static final int DEFAULT_MAX_QUEUED_LINES = 65536;
+
+    private final Path path;
+    private AccessLogFormatter formatter = AccessLogFormatter.COMMON;
+    private long maxFileSizeBytes = DEFAULT_MAX_FILE_SIZE_BYTES;
+    private Duration rotationInterval = DEFAULT_ROTATION_INTERVAL;
+    private int maxQueuedLines = DEFAULT_MAX_QUEUED_LINES;
+
+    /**
+     * Creates a new builder which writes the access logs to the specified {@code path}.
+     */
+    public FileAccessLogWriterBuilder(Path path) {
+        this.path = requireNonNull(path, "path");
+    }
+
+    /**
+     * Writes the access logs in the common format. This is the default.
+     */
+    public FileAccessLogWriterBuilder commonFormat() {
+        formatter = AccessLogFormatter.COMMON;
+        return this;
+    }
+
+    /**
+     * Writes the access logs in the combined format.
+     */
+    public FileAccessLogWriterBuilder combinedFormat() {
+        formatter = AccessLogFormatter.COMBINED;
+        return this;
+    }
+
+    /**
+     * Writes the access logs in the specified {@code formatStr}.
+     *
+     * @see AccessLogWriter#custom(String)
+     */
+    public FileAccessLogWriterBuilder customFormat(String formatStr) {
+        requireNonNull(formatStr, "formatStr");
+        final List<AccessLogComponent> format = parseCustom(formatStr);
+        checkArgument(!format.isEmpty(), "Invalid access log format string: %s", formatStr);
+        formatter = AccessLogFormatter.of(format);
+        return this;
+    }
+
+    /**
+     * Sets the size of a file which triggers its rotation. {@code 0} disables the size-based rotation.
+     * The default is 1 GiB.
+     */
+    public FileAccessLogWriterBuilder maxFileSizeBytes(long maxFileSizeBytes) {
+        checkArgument(maxFileSizeBytes >= 0, "maxFileSizeBytes: %s (expected: >= 0)", maxFileSizeBytes);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        return this;
+    }
+
+    /**
+     * Sets the interval of the time-based rotation. {@link Duration#ZERO} disables the time-based rotation.
+     * The default is 1 day.
+     */
+    public FileAccessLogWriterBuilder rotationInterval(Duration rotationInterval) {
+        requireNonNull(rotationInterval, "rotationInterval");
+        checkArgument(!rotationInterval.isNegative(),
+                      "rotationInterval: %s (expected: >= 0)", rotationInterval);
+        this.rotationInterval = rotationInterval;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the lines which are not written to the file yet. The lines logged while
+     * the queue is full are dropped. The default is 65536.
+     */
+    public FileAccessLogWriterBuilder maxQueuedLines(int maxQueuedLines) {
+        checkArgument(maxQueuedLines > 0, "maxQueuedLines: %s (expected: > 0)", maxQueuedLines);
+        this.maxQueuedLines = maxQueuedLines;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link FileAccessLogWriter} based on the properties of this builder.
+     * Its background thread starts immediately.
+     */
+    public FileAccessLogWriter build() {
+        final FileAccessLogWriter writer = new FileAccessLogWriter(
+                path, formatter, maxFileSizeBytes, rotationInterval.toMillis(), maxQueuedLines);
+        writer.start();
+        return writer;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("maxFileSizeBytes", maxFileSizeBytes)
+                          .add("rotationInterval", rotationInterval)
+                          .add("maxQueuedLines", maxQueuedLines)
+                          .toString();
+    }
+}
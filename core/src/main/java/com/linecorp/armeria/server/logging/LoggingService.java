@@ -22,13 +22,18 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.logging.LogLevel;
+import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.internal.logging.BoundTailSamplers;
 import com.linecorp.armeria.internal.logging.Sampler;
 import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.SimpleDecoratingService;
 
@@ -75,6 +80,8 @@ public final class LoggingService<I extends Request, O extends Response> extends
     private final Function<Object, ?> responseContentSanitizer;
     private final Function<? super Throwable, ? extends Throwable> responseCauseSanitizer;
     private final Sampler sampler;
+    @Nullable
+    private final BoundTailSamplers tailSamplers;
 
     /**
      * Creates a new instance.
@@ -102,12 +109,15 @@ public final class LoggingService<I extends Request, O extends Response> extends
              Function.identity(),
              Function.identity(),
              Function.identity(),
-             Sampler.always());
+             Sampler.always(),
+             null);
     }
 
     /**
      * Creates a new instance that logs {@link Request}s and {@link Response}s at the specified
-     * {@link LogLevel}s with the specified sanitizers.
+     * {@link LogLevel}s with the specified sanitizers. If a {@link TailSampler} is specified, both
+     * the {@link Request} and the {@link Response} are logged when the request is complete, only if
+     * the {@link TailSampler} decides so.
      */
     LoggingService(
             Service<I, O> delegate,
@@ -119,7 +129,8 @@ public final class LoggingService<I extends Request, O extends Response> extends
             Function<? super HttpHeaders, ? extends HttpHeaders> responseHeadersSanitizer,
             Function<Object, ?> responseContentSanitizer,
             Function<? super Throwable, ? extends Throwable> responseCauseSanitizer,
-            Sampler sampler) {
+            Sampler sampler,
+            @Nullable TailSampler tailSampler) {
         super(requireNonNull(delegate, "delegate"));
         this.requestLogLevel = requireNonNull(requestLogLevel, "requestLogLevel");
         this.successfulResponseLogLevel =
@@ -131,24 +142,48 @@ public final class LoggingService<I extends Request, O extends Response> extends
         this.responseContentSanitizer = requireNonNull(responseContentSanitizer, "responseContentSanitizer");
         this.responseCauseSanitizer = requireNonNull(responseCauseSanitizer, "responseCauseSanitizer");
         this.sampler = requireNonNull(sampler, "sampler");
+        tailSamplers = tailSampler != null ? new BoundTailSamplers(tailSampler) : null;
+    }
+
+    @Override
+    public void serviceAdded(ServiceConfig cfg) throws Exception {
+        super.serviceAdded(cfg);
+        if (tailSamplers != null) {
+            tailSamplers.add(cfg);
+        }
     }
 
     @Override
     public O serve(ServiceRequestContext ctx, I req) throws Exception {
+        if (tailSamplers != null) {
+            if (sampler.isSampled()) {
+                final TailSampler tailSampler = tailSamplers.get(ctx);
+                ctx.log().addListener(log -> {
+                    if (tailSampler.isSampled(log)) {
+                        logRequest0(log);
+                        logResponse0(log);
+                    }
+                }, RequestLogAvailability.COMPLETE);
+            }
+            return delegate().serve(ctx, req);
+        }
+
         if (sampler.isSampled()) {
-            ctx.log().addListener(log -> logRequest(((ServiceRequestContext) log.context()).logger(),
-                                                    log, requestLogLevel, requestHeadersSanitizer,
-                                                    requestContentSanitizer),
-                                  RequestLogAvailability.REQUEST_END);
-            ctx.log().addListener(log -> logResponse(((ServiceRequestContext) log.context()).logger(), log,
-                                                     requestLogLevel, requestHeadersSanitizer,
-                                                     requestContentSanitizer,
-                                                     successfulResponseLogLevel, failedResponseLogLevel,
-                                                     responseHeadersSanitizer,
-                                                     responseContentSanitizer,
-                                                     responseCauseSanitizer),
-                                  RequestLogAvailability.COMPLETE);
+            ctx.log().addListener(this::logRequest0, RequestLogAvailability.REQUEST_END);
+            ctx.log().addListener(this::logResponse0, RequestLogAvailability.COMPLETE);
         }
         return delegate().serve(ctx, req);
     }
+
+    private void logRequest0(RequestLog log) {
+        logRequest(((ServiceRequestContext) log.context()).logger(),
+                   log, requestLogLevel, requestHeadersSanitizer, requestContentSanitizer);
+    }
+
+    private void logResponse0(RequestLog log) {
+        logResponse(((ServiceRequestContext) log.context()).logger(), log,
+                    requestLogLevel, requestHeadersSanitizer, requestContentSanitizer,
+                    successfulResponseLogLevel, failedResponseLogLevel,
+                    responseHeadersSanitizer, responseContentSanitizer, responseCauseSanitizer);
+    }
 }
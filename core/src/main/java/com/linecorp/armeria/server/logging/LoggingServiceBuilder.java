@@ -16,8 +16,12 @@
 
 package com.linecorp.armeria.server.logging;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.logging.LoggingDecoratorBuilder;
@@ -29,6 +33,20 @@ import com.linecorp.armeria.server.Service;
  */
 public class LoggingServiceBuilder extends LoggingDecoratorBuilder<LoggingServiceBuilder> {
 
+    @Nullable
+    private TailSampler tailSampler;
+
+    /**
+     * Sets the {@link TailSampler} which decides whether a request is logged after it is complete.
+     * If set, a request is logged when the request is complete rather than when the request ends,
+     * and only if it is sampled by both the {@linkplain #samplingRate(float) sampling rate} and
+     * the {@link TailSampler}.
+     */
+    public LoggingServiceBuilder tailSampler(TailSampler tailSampler) {
+        this.tailSampler = requireNonNull(tailSampler, "tailSampler");
+        return this;
+    }
+
     /**
      * Returns a newly-created {@link LoggingService} decorating {@code delegate} based on the properties of
      * this builder.
@@ -43,7 +61,8 @@ public class LoggingServiceBuilder extends LoggingDecoratorBuilder<LoggingServic
                                     responseHeadersSanitizer(),
                                     responseContentSanitizer(),
                                     responseCauseSanitizer(),
-                                    Sampler.create(samplingRate()));
+                                    Sampler.create(samplingRate()),
+                                    tailSampler);
     }
 
     /**
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpStatusClass;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.internal.logging.Sampler;
+import com.linecorp.armeria.server.ServiceConfig;
+
+/**
+ * Decides whether a {@link RequestLog} is logged after the request is complete, using its response status,
+ * latency and exception. A request is:
+ * <ul>
+ *   <li>failed if it has a response cause or a {@code 5xx} status,</li>
+ *   <li>slow if it is not failed and it took longer than the slow request threshold, or</li>
+ *   <li>successful otherwise,</li>
+ * </ul>
+ * and it is sampled at the rate of its kind. The rate of the successful requests can be specified for each
+ * {@link ServiceConfig}. The number of the sampled requests per second can be capped as well, so that
+ * the cost of logging does not grow during an incident.
+ *
+ * <p>A {@link TailSampler} is bound to a service with {@link #forService(ServiceConfig)} by
+ * {@link LoggingService} and {@link com.linecorp.armeria.server.logging.structured.StructuredLoggingService}
+ * when the service is added to a server.
+ *
+ * @see TailSamplerBuilder
+ */
+public final class TailSampler {
+
+    private final Function<? super ServiceConfig, Float> successRateFunction;
+    private final float successRate;
+    private final float slowRequestRate;
+    private final float failureRate;
+    private final long slowRequestThresholdNanos;
+    @Nullable
+    private final RateLimit rateLimit;
+    private final boolean bound;
+
+    private final Sampler successSampler;
+    private final Sampler slowRequestSampler;
+    private final Sampler failureSampler;
+
+    TailSampler(Function<? super ServiceConfig, Float> successRateFunction, float successRate,
+                float slowRequestRate, float failureRate, long slowRequestThresholdNanos,
+                int maxSampledPerSecond) {
+        this(successRateFunction, successRate, slowRequestRate, failureRate, slowRequestThresholdNanos,
+             maxSampledPerSecond > 0 ? new RateLimit(maxSampledPerSecond) : null, false);
+    }
+
+    private TailSampler(Function<? super ServiceConfig, Float> successRateFunction, float successRate,
+                        float slowRequestRate, float failureRate, long slowRequestThresholdNanos,
+                        @Nullable RateLimit rateLimit, boolean bound) {
+        this.successRateFunction = successRateFunction;
+        this.successRate = successRate;
+        this.slowRequestRate = slowRequestRate;
+        this.failureRate = failureRate;
+        this.slowRequestThresholdNanos = slowRequestThresholdNanos;
+        this.rateLimit = rateLimit;
+        this.bound = bound;
+
+        successSampler = Sampler.create(successRate);
+        slowRequestSampler = Sampler.create(slowRequestRate);
+        failureSampler = Sampler.create(failureRate);
+    }
+
+    /**
+     * Returns a new {@link TailSampler} which samples the successful requests at the rate specified
+     * for the specified {@link ServiceConfig}. The returned {@link TailSampler} shares the cap of
+     * the sampled requests per second with this {@link TailSampler}.
+     *
+     * @throws IllegalStateException if this {@link TailSampler} has been returned by this method, i.e.
+     *                               it is bound to a service already
+     */
+    public TailSampler forService(ServiceConfig cfg) {
+        requireNonNull(cfg, "cfg");
+        checkState(!bound, "forService() cannot be called on a TailSampler bound to a service.");
+        final Float rate = successRateFunction.apply(cfg);
+        final float successRate = rate != null ? TailSamplerBuilder.validateRate(rate, "successRate")
+                                               : this.successRate;
+        return new TailSampler(successRateFunction, successRate, slowRequestRate, failureRate,
+                               slowRequestThresholdNanos, rateLimit, true);
+    }
+
+    /**
+     * Returns whether the specified complete {@link RequestLog} should be logged.
+     */
+    public boolean isSampled(RequestLog log) {
+        requireNonNull(log, "log");
+        final Sampler sampler;
+        if (isFailure(log)) {
+            sampler = failureSampler;
+        } else if (slowRequestThresholdNanos > 0 && log.totalDurationNanos() >= slowRequestThresholdNanos) {
+            sampler = slowRequestSampler;
+        } else {
+            sampler = successSampler;
+        }
+
+        if (!sampler.isSampled()) {
+            return false;
+        }
+        return rateLimit == null || rateLimit.tryAcquire();
+    }
+
+    /**
+     * Returns the number of the sampled requests which were not logged because of the cap of
+     * the sampled requests per second.
+     */
+    public long numRateLimited() {
+        return rateLimit != null ? rateLimit.numRejected.sum() : 0;
+    }
+
+    private static boolean isFailure(RequestLog log) {
+        return log.responseCause() != null ||
+               log.status().codeClass() == HttpStatusClass.SERVER_ERROR;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("successRate", successRate)
+                          .add("slowRequestRate", slowRequestRate)
+                          .add("failureRate", failureRate)
+                          .add("slowRequestThreshold", slowRequestThresholdNanos > 0 ?
+                                                       slowRequestThresholdNanos + "ns" : null)
+                          .add("maxSampledPerSecond", rateLimit != null ? rateLimit.maxPerSecond : null)
+                          .toString();
+    }
+
+    /**
+     * Allows at most the specified number of permits in each second.
+     */
+    private static final class RateLimit {
+
+        private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        final int maxPerSecond;
+        private final AtomicLong currentSecond = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger numPermits = new AtomicInteger();
+        final LongAdder numRejected = new LongAdder();
+
+        RateLimit(int maxPerSecond) {
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        boolean tryAcquire() {
+            final long second = System.nanoTime() / ONE_SECOND_NANOS;
+            final long current = currentSecond.get();
+            if (current != second && currentSecond.compareAndSet(current, second)) {
+                numPermits.set(0);
+            }
+
+            if (numPermits.incrementAndGet() <= maxPerSecond) {
+                return true;
+            }
+            numRejected.increment();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.server.ServiceConfig;
+
+/**
+ * Builds a new {@link TailSampler}. By default, all requests are sampled. For example, the following
+ * {@link TailSampler} keeps all failed and slow requests, but only 1% of the other requests, and at most
+ * 1000 requests per second:
+ * <pre>{@code
+ * TailSampler sampler = new TailSamplerBuilder().successRate(0.01f)
+ *                                               .slowRequestThreshold(Duration.ofSeconds(1))
+ *                                               .maxSampledPerSecond(1000)
+ *                                               .build();
+ * }</pre>
+ */
+public final class TailSamplerBuilder {
+
+    private float successRate = 1.0f;
+    private Function<? super ServiceConfig, Float> successRateFunction = cfg -> null;
+    private float slowRequestRate = 1.0f;
+    private float failureRate = 1.0f;
+    private Duration slowRequestThreshold = Duration.ZERO;
+    private int maxSampledPerSecond;
+
+    /**
+     * Sets the sampling rate of the successful requests which are not slow, between {@code 0.0} and
+     * {@code 1.0}. The default is {@code 1.0}.
+     */
+    public TailSamplerBuilder successRate(float successRate) {
+        this.successRate = validateRate(successRate, "successRate");
+        return this;
+    }
+
+    /**
+     * Sets the {@link Function} which returns the sampling rate of the successful requests which are not
+     * slow for each {@link ServiceConfig}. The {@link Function} may return {@code null} to use the rate
+     * specified with {@link #successRate(float)}.
+     */
+    public TailSamplerBuilder successRate(Function<? super ServiceConfig, Float> successRateFunction) {
+        this.successRateFunction = requireNonNull(successRateFunction, "successRateFunction");
+        return this;
+    }
+
+    /**
+     * Sets the sampling rate of the successful requests which took longer than
+     * the {@linkplain #slowRequestThreshold(Duration) threshold}. The default is {@code 1.0}.
+     */
+    public TailSamplerBuilder slowRequestRate(float slowRequestRate) {
+        this.slowRequestRate = validateRate(slowRequestRate, "slowRequestRate");
+        return this;
+    }
+
+    /**
+     * Sets the sampling rate of the requests which failed with an exception or a {@code 5xx} status.
+     * The default is {@code 1.0}.
+     */
+    public TailSamplerBuilder failureRate(float failureRate) {
+        this.failureRate = validateRate(failureRate, "failureRate");
+        return this;
+    }
+
+    /**
+     * Sets the total duration of a request above which the request is considered slow.
+     * {@link Duration#ZERO} disables the detection of slow requests, which is the default.
+     */
+    public TailSamplerBuilder slowRequestThreshold(Duration slowRequestThreshold) {
+        requireNonNull(slowRequestThreshold, "slowRequestThreshold");
+        checkArgument(!slowRequestThreshold.isNegative(),
+                      "slowRequestThreshold: %s (expected: >= 0)", slowRequestThreshold);
+        this.slowRequestThreshold = slowRequestThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the sampled requests per second. The requests sampled beyond the limit
+     * are not logged. {@code 0} disables the limit, which is the default.
+     */
+    public TailSamplerBuilder maxSampledPerSecond(int maxSampledPerSecond) {
+        checkArgument(maxSampledPerSecond >= 0,
+                      "maxSampledPerSecond: %s (expected: >= 0)", maxSampledPerSecond);
+        this.maxSampledPerSecond = maxSampledPerSecond;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link TailSampler} based on the properties of this builder.
+     */
+    public TailSampler build() {
+        return new TailSampler(successRateFunction, successRate, slowRequestRate, failureRate,
+                               slowRequestThreshold.toNanos(), maxSampledPerSecond);
+    }
+
+    static float validateRate(float rate, String name) {
+        checkArgument(rate == 0.0f || (rate >= 0.01f && rate <= 1.0f),
+                      "%s: %s (expected: 0.0 or 0.01 <= %s <= 1.0)", name, rate, name);
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("successRate", successRate)
+                          .add("slowRequestRate", slowRequestRate)
+                          .add("failureRate", failureRate)
+                          .add("slowRequestThreshold", slowRequestThreshold)
+                          .add("maxSampledPerSecond", maxSampledPerSecond)
+                          .toString();
+    }
+}
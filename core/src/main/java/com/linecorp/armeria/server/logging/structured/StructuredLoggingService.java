@@ -24,6 +24,7 @@ import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.internal.logging.BoundTailSamplers;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerListenerAdapter;
 import com.linecorp.armeria.server.Service;
@@ -31,6 +32,7 @@ import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.SimpleDecoratingService;
 import com.linecorp.armeria.server.logging.AccessLogWriter;
+import com.linecorp.armeria.server.logging.TailSampler;
 
 /**
  * A decorating service which provides support of structured and optionally externalized request/response
@@ -48,6 +50,8 @@ public abstract class StructuredLoggingService<I extends Request, O extends Resp
 
     private final StructuredLogBuilder<L> logBuilder;
     @Nullable
+    private final BoundTailSamplers tailSamplers;
+    @Nullable
     private Server associatedServer;
 
     /**
@@ -58,14 +62,34 @@ public abstract class StructuredLoggingService<I extends Request, O extends Resp
      *        structured log
      */
     protected StructuredLoggingService(Service<I, O> delegate, StructuredLogBuilder<L> logBuilder) {
+        this(delegate, logBuilder, null);
+    }
+
+    /**
+     * Creates a new {@link StructuredLoggingService} which writes only the logs sampled by
+     * the specified {@link TailSampler}.
+     *
+     * @param delegate the {@link Service} being decorated
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct an entry of
+     *        structured log
+     * @param tailSampler the {@link TailSampler} which decides whether a complete {@link RequestLog} is
+     *        written, or {@code null} to write all logs
+     */
+    protected StructuredLoggingService(Service<I, O> delegate, StructuredLogBuilder<L> logBuilder,
+                                       @Nullable TailSampler tailSampler) {
         super(delegate);
         this.logBuilder = requireNonNull(logBuilder, "logBuilder");
+        tailSamplers = tailSampler != null ? new BoundTailSamplers(tailSampler) : null;
     }
 
     @Override
     public void serviceAdded(ServiceConfig cfg) throws Exception {
         super.serviceAdded(cfg);
 
+        if (tailSamplers != null) {
+            tailSamplers.add(cfg);
+        }
+
         if (associatedServer != null) {
             if (associatedServer != cfg.server()) {
                 throw new IllegalStateException("cannot be added to more than one server");
@@ -85,7 +109,11 @@ public abstract class StructuredLoggingService<I extends Request, O extends Resp
 
     @Override
     public O serve(ServiceRequestContext ctx, I req) throws Exception {
+        final TailSampler tailSampler = tailSamplers != null ? tailSamplers.get(ctx) : null;
         ctx.log().addListener(log -> {
+            if (tailSampler != null && !tailSampler.isSampled(log)) {
+                return;
+            }
             final L structuredLog = logBuilder.build(log);
             if (structuredLog != null) {
                 writeLog(log, structuredLog);
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.throttling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.MapMaker;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.limit.ConcurrencyLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A {@link ThrottlingStrategy} that limits the number of in-flight requests of each {@link Service}.
+ * The limit is determined by a {@link ConcurrencyLimit}, which is adjusted from the latency of the completed
+ * requests, so that the admitted concurrency follows the capacity of the {@link Service} under
+ * a traffic spike instead of letting the latency grow without bound.
+ *
+ * <p>A request that exceeds the limit waits in a LIFO queue of the specified size, so that the newest
+ * requests, which are the most likely to meet their deadlines, are served first. A request is rejected
+ * immediately when:
+ * <ul>
+ *   <li>the queue is full, or</li>
+ *   <li>the average latency of the {@link Service} indicates that the request cannot be handled until
+ *       its {@linkplain ServiceRequestContext#requestTimeoutMillis() request timeout}. Note that a request
+ *       is always allowed to probe the {@link Service} when no other request is in flight, so that
+ *       the average latency is updated even after the {@link Service} has been slow for a while.</li>
+ * </ul>
+ * A queued request is rejected when it is not admitted until its request timeout. The latency of a request
+ * is measured from its admission, so that the time spent in the queue does not affect the limit.
+ *
+ * <p>For example:
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.service("/foo", myService.decorate(ThrottlingHttpService.newDecorator(
+ *         new ConcurrencyLimitingThrottlingStrategy<>(
+ *                 () -> ConcurrencyLimit.gradient(20, 1, 200), 100))));
+ * }</pre>
+ */
+public final class ConcurrencyLimitingThrottlingStrategy<T extends Request> extends ThrottlingStrategy<T> {
+
+    /**
+     * The weight of a new sample in {@link ServiceState#avgLatencyNanos}.
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final Supplier<? extends ConcurrencyLimit> limitFactory;
+    private final int maxPendingRequests;
+    private final ConcurrentMap<Service<?, ?>, ServiceState> states = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Creates a new strategy with specified name.
+     *
+     * @param limitFactory the factory of the {@link ConcurrencyLimit} of each {@link Service}
+     * @param maxPendingRequests the maximum number of the requests waiting for admission for each
+     *                           {@link Service}. {@code 0} to reject immediately when the limit is reached.
+     */
+    public ConcurrencyLimitingThrottlingStrategy(Supplier<? extends ConcurrencyLimit> limitFactory,
+                                                 int maxPendingRequests, @Nullable String name) {
+        super(name);
+        this.limitFactory = requireNonNull(limitFactory, "limitFactory");
+        checkArgument(maxPendingRequests >= 0,
+                      "maxPendingRequests: %s (expected: >= 0)", maxPendingRequests);
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param limitFactory the factory of the {@link ConcurrencyLimit} of each {@link Service}
+     * @param maxPendingRequests the maximum number of the requests waiting for admission for each
+     *                           {@link Service}. {@code 0} to reject immediately when the limit is reached.
+     */
+    public ConcurrencyLimitingThrottlingStrategy(Supplier<? extends ConcurrencyLimit> limitFactory,
+                                                 int maxPendingRequests) {
+        this(limitFactory, maxPendingRequests, null);
+    }
+
+    @Override
+    public CompletionStage<Boolean> accept(ServiceRequestContext ctx, T request) {
+        final ServiceState state = states.computeIfAbsent(ctx.service(), unused -> newServiceState());
+        return state.accept(ctx);
+    }
+
+    private ServiceState newServiceState() {
+        final ConcurrencyLimit limit = limitFactory.get();
+        requireNonNull(limit, "limitFactory.get() returned null");
+        return new ServiceState(limit);
+    }
+
+    /**
+     * Returns the number of nanoseconds left until the request timeout of the specified
+     * {@link ServiceRequestContext}, or {@link Long#MAX_VALUE} if the request timeout is disabled.
+     */
+    private static long remainingNanos(ServiceRequestContext ctx) {
+        final long requestTimeoutMillis = ctx.requestTimeoutMillis();
+        if (requestTimeoutMillis <= 0) {
+            return Long.MAX_VALUE;
+        }
+
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis);
+        final RequestLog log = ctx.log();
+        if (!log.isAvailable(RequestLogAvailability.REQUEST_START)) {
+            return timeoutNanos;
+        }
+        return timeoutNanos - (System.nanoTime() - log.requestStartTimeNanos());
+    }
+
+    private final class ServiceState {
+
+        private final ConcurrencyLimit limit;
+        private final AtomicInteger numActiveRequests = new AtomicInteger();
+        private final AtomicInteger numPendingRequests = new AtomicInteger();
+        private final Deque<PendingRequest> pendingRequests = new ConcurrentLinkedDeque<>();
+
+        /**
+         * The exponentially weighted moving average of the latency, which is used for rejecting the requests
+         * that cannot meet their deadline. Updated under the lock of this object.
+         */
+        private volatile double avgLatencyNanos;
+
+        ServiceState(ConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        CompletionStage<Boolean> accept(ServiceRequestContext ctx) {
+            if (!canMeetDeadline(ctx)) {
+                return completedFuture(false);
+            }
+
+            if (tryAcquire()) {
+                onAdmitted(ctx);
+                return completedFuture(true);
+            }
+
+            if (numPendingRequests.incrementAndGet() > maxPendingRequests) {
+                numPendingRequests.decrementAndGet();
+                return completedFuture(false);
+            }
+
+            final PendingRequest pending = new PendingRequest(ctx);
+            final long remainingNanos = remainingNanos(ctx);
+            if (remainingNanos != Long.MAX_VALUE) {
+                // Scheduled before the request is queued, so that the timeout is always cancelled on admission.
+                pending.timeoutFuture = ctx.eventLoop().schedule(() -> {
+                    if (pending.complete(false)) {
+                        pendingRequests.remove(pending);
+                        numPendingRequests.decrementAndGet();
+                    }
+                }, Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            }
+
+            // LIFO; the most recent request is admitted first.
+            pendingRequests.addFirst(pending);
+
+            // The active requests might have been completed while the request is being queued.
+            drain();
+            return pending;
+        }
+
+        private boolean canMeetDeadline(ServiceRequestContext ctx) {
+            final double avgLatencyNanos = this.avgLatencyNanos;
+            if (avgLatencyNanos == 0 || remainingNanos(ctx) > avgLatencyNanos) {
+                return true;
+            }
+            // Only the admitted requests update the average latency. Let a request probe the service when
+            // no request is in flight, so that a stale average does not reject all requests forever.
+            return numActiveRequests.get() == 0;
+        }
+
+        private boolean tryAcquire() {
+            for (;;) {
+                final int numActiveRequests = this.numActiveRequests.get();
+                final int limit = this.limit.limit();
+                if (limit != 0 && numActiveRequests >= limit) {
+                    return false;
+                }
+                if (this.numActiveRequests.compareAndSet(numActiveRequests, numActiveRequests + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void onAdmitted(ServiceRequestContext ctx) {
+            final long admittedTimeNanos = System.nanoTime();
+            ctx.log().addListener(log -> onComplete(ctx, admittedTimeNanos),
+                                  RequestLogAvailability.COMPLETE);
+        }
+
+        private void onComplete(ServiceRequestContext ctx, long admittedTimeNanos) {
+            final int numActiveRequests = this.numActiveRequests.getAndDecrement();
+            final long latencyNanos = System.nanoTime() - admittedTimeNanos;
+            synchronized (this) {
+                final double avgLatencyNanos = this.avgLatencyNanos;
+                this.avgLatencyNanos = avgLatencyNanos == 0 ? latencyNanos
+                                                            : avgLatencyNanos * (1 - LATENCY_SMOOTHING) +
+                                                              latencyNanos * LATENCY_SMOOTHING;
+            }
+            limit.onSample(latencyNanos, numActiveRequests, ctx.isTimedOut());
+            drain();
+        }
+
+        private void drain() {
+            while (!pendingRequests.isEmpty()) {
+                if (!tryAcquire()) {
+                    break;
+                }
+
+                PendingRequest pending;
+                for (;;) {
+                    pending = pendingRequests.pollFirst();
+                    if (pending == null) {
+                        break;
+                    }
+                    if (!canMeetDeadline(pending.ctx)) {
+                        if (pending.complete(false)) {
+                            pending.cancelTimeout();
+                            numPendingRequests.decrementAndGet();
+                        }
+                        continue;
+                    }
+                    if (pending.complete(true)) {
+                        pending.cancelTimeout();
+                        numPendingRequests.decrementAndGet();
+                        break;
+                    }
+                    // Timed out already.
+                }
+
+                if (pending == null) {
+                    numActiveRequests.decrementAndGet();
+                    if (pendingRequests.isEmpty()) {
+                        break;
+                    }
+                    // Another request might have been added to the queue while acquiring.
+                    continue;
+                }
+
+                onAdmitted(pending.ctx);
+            }
+        }
+    }
+
+    private static final class PendingRequest extends CompletableFuture<Boolean> {
+        final ServiceRequestContext ctx;
+        @Nullable
+        volatile ScheduledFuture<?> timeoutFuture;
+
+        PendingRequest(ServiceRequestContext ctx) {
+            this.ctx = ctx;
+        }
+
+        void cancelTimeout() {
+            final ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.util.EventLoopGroups;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.util.AttributeMap;
+
+/**
+ * Makes sure HTTP/2 connections are shared between event loops when
+ * {@link ClientFactoryBuilder#shareHttp2Connections(boolean)} is enabled.
+ */
+public class HttpClientSharedHttp2ConnectionTest {
+
+    private static final String PATH = "/test";
+    private static final int NUM_EVENT_LOOPS = 4;
+    private static final int MAX_CONCURRENT_STREAMS = 3;
+
+    private final Queue<CompletableFuture<HttpResponse>> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger opens = new AtomicInteger();
+    private final AtomicInteger closes = new AtomicInteger();
+
+    @Rule
+    public final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service(PATH, (ctx, req) -> {
+                final CompletableFuture<HttpResponse> f = new CompletableFuture<>();
+                responses.add(f);
+                return HttpResponse.from(f);
+            });
+            sb.http2MaxStreamsPerConnection(MAX_CONCURRENT_STREAMS);
+        }
+    };
+
+    private ClientFactory clientFactory;
+
+    @Before
+    public void setUp() {
+        clientFactory = new ClientFactoryBuilder()
+                .workerGroup(EventLoopGroups.newEventLoopGroup(NUM_EVENT_LOOPS), true)
+                .shareHttp2Connections(true)
+                .connectionPoolListener(new ConnectionPoolListenerAdapter() {
+                    @Override
+                    public void connectionOpen(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                               InetSocketAddress localAddr, AttributeMap attrs) {
+                        opens.incrementAndGet();
+                    }
+
+                    @Override
+                    public void connectionClosed(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                                 InetSocketAddress localAddr, AttributeMap attrs) {
+                        closes.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        completeAll();
+        clientFactory.close();
+    }
+
+    private void completeAll() {
+        for (;;) {
+            final CompletableFuture<HttpResponse> f = responses.poll();
+            if (f == null) {
+                break;
+            }
+            f.complete(HttpResponse.of(HttpStatus.OK));
+        }
+    }
+
+    @Test
+    public void shouldShareConnectionBetweenEventLoops() throws Exception {
+        final HttpClient client = HttpClient.of(clientFactory, server.uri(SessionProtocol.H2C, "/"));
+
+        // Send the requests concurrently so that they are assigned to different event loops.
+        final List<CompletableFuture<AggregatedHttpMessage>> receivedResponses = new ArrayList<>();
+        for (int i = 0; i < MAX_CONCURRENT_STREAMS; i++) {
+            receivedResponses.add(client.get(PATH).aggregate());
+        }
+
+        await().until(() -> responses.size() == MAX_CONCURRENT_STREAMS);
+        assertThat(opens).hasValue(1);
+
+        completeAll();
+        receivedResponses.forEach(f -> assertThat(f.join().status()).isEqualTo(HttpStatus.OK));
+
+        // All reserved streams must have been returned, so the connection must be reused.
+        for (int i = 0; i < MAX_CONCURRENT_STREAMS; i++) {
+            client.get(PATH);
+        }
+
+        await().until(() -> responses.size() == MAX_CONCURRENT_STREAMS);
+        assertThat(opens).hasValue(1);
+        assertThat(closes).hasValue(0);
+    }
+
+    @Test
+    public void shouldCreateConnectionWhenAllConnectionsAreFull() throws Exception {
+        final HttpClient client = HttpClient.of(clientFactory, server.uri(SessionProtocol.H2C, "/"));
+
+        // Establish the first connection.
+        client.get(PATH);
+        await().until(() -> responses.size() == 1);
+
+        for (int i = 1; i < MAX_CONCURRENT_STREAMS * 2; i++) {
+            client.get(PATH);
+        }
+
+        await().until(() -> responses.size() == MAX_CONCURRENT_STREAMS * 2);
+        assertThat(opens).hasValue(2);
+        assertThat(closes).hasValue(0);
+    }
+}
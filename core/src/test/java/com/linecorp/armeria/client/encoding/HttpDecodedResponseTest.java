@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.PooledByteBufAllocator;
+
+public class HttpDecodedResponseTest {
+
+    private static final byte[] CONTENT = Strings.repeat("Armeria is awesome. ", 64)
+                                                 .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void inflatePooledContent() throws Exception {
+        final ByteBuf buf = pooledBuffer(deflate(CONTENT));
+        final HttpResponse orig = HttpResponse.of(
+                AggregatedHttpMessage.of(HttpHeaders.of(HttpStatus.OK)
+                                                    .set(HttpHeaderNames.CONTENT_ENCODING, "deflate"),
+                                         new ByteBufHttpData(buf, true)));
+        final HttpDecodedResponse decoded = new HttpDecodedResponse(
+                orig, ImmutableMap.of("deflate", new DeflateStreamDecoderFactory()), ByteBufAllocator.DEFAULT);
+
+        final AggregatedHttpMessage res = decoded.aggregate().join();
+        // The pooled buffer was inflated as is and then released.
+        assertThat(buf.refCnt()).isZero();
+        assertThat(res.content().array()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void copyPooledContentForCustomDecoder() {
+        final ByteBuf buf = pooledBuffer(CONTENT);
+        final HttpResponse orig = HttpResponse.of(
+                AggregatedHttpMessage.of(HttpHeaders.of(HttpStatus.OK)
+                                                    .set(HttpHeaderNames.CONTENT_ENCODING, "identity"),
+                                         new ByteBufHttpData(buf, true)));
+        final StreamDecoderFactory identityFactory = new StreamDecoderFactory() {
+            @Override
+            public String encodingHeaderValue() {
+                return "identity";
+            }
+
+            @Override
+            public StreamDecoder newDecoder() {
+                return new StreamDecoder() {
+                    @Override
+                    public HttpData decode(HttpData obj) {
+                        // A custom decoder never receives a pooled buffer, which it might not release.
+                        assertThat(obj).isNotInstanceOf(ByteBufHolder.class);
+                        return obj;
+                    }
+
+                    @Override
+                    public HttpData finish() {
+                        return HttpData.EMPTY_DATA;
+                    }
+                };
+            }
+        };
+        final HttpDecodedResponse decoded = new HttpDecodedResponse(
+                orig, ImmutableMap.of("identity", identityFactory), ByteBufAllocator.DEFAULT);
+
+        final AggregatedHttpMessage res = decoded.aggregate().join();
+        assertThat(buf.refCnt()).isZero();
+        assertThat(res.content().array()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void copyPooledContentWithoutEncoding() {
+        final ByteBuf buf = pooledBuffer(CONTENT);
+        final HttpResponse orig = HttpResponse.of(
+                AggregatedHttpMessage.of(HttpHeaders.of(HttpStatus.OK), new ByteBufHttpData(buf, true)));
+        final HttpDecodedResponse decoded = new HttpDecodedResponse(
+                orig, ImmutableMap.of("deflate", new DeflateStreamDecoderFactory()), ByteBufAllocator.DEFAULT);
+
+        final AggregatedHttpMessage res = decoded.aggregate().join();
+        // The subscriber did not ask for the pooled objects, so it received a copy.
+        assertThat(buf.refCnt()).isZero();
+        assertThat(res.content().array()).isEqualTo(CONTENT);
+    }
+
+    private static ByteBuf pooledBuffer(byte[] content) {
+        return PooledByteBufAllocator.DEFAULT.directBuffer().writeBytes(content);
+    }
+
+    private static byte[] deflate(byte[] content) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(content);
+        }
+        return out.toByteArray();
+    }
+}
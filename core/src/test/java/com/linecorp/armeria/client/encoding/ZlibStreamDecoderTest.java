@@ -15,11 +15,162 @@
  */
 package com.linecorp.armeria.client.encoding;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.compression.DecompressionException;
 import io.netty.handler.codec.compression.ZlibWrapper;
 
 public class ZlibStreamDecoderTest extends AbstractStreamDecoderTest {
+
+    private static final byte[] CONTENT = Strings.repeat("Armeria is awesome. ", 1024)
+                                                 .getBytes(StandardCharsets.UTF_8);
+
     @Override
     StreamDecoder newDecoder() {
         return new ZlibStreamDecoder(ZlibWrapper.NONE);
     }
+
+    @Test
+    public void gzip() throws Exception {
+        // Repeat to make sure a pooled Inflater is reset properly.
+        for (int i = 0; i < 3; i++) {
+            final byte[] encoded = gzip(CONTENT);
+            assertThat(decode(new ZlibStreamDecoder(ZlibWrapper.GZIP), encoded, encoded.length))
+                    .isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void gzipInSmallChunks() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        assertThat(decode(new ZlibStreamDecoder(ZlibWrapper.GZIP), encoded, 3)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void gzipWithOptionalHeaderFields() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(encoded, 0, 3);
+        // FEXTRA, FNAME and FCOMMENT
+        out.write(0x04 | 0x08 | 0x10);
+        out.write(encoded, 4, 6);
+        out.write(new byte[] { 3, 0, 'a', 'b', 'c' });
+        out.write("name\0comment\0".getBytes(StandardCharsets.US_ASCII));
+        out.write(encoded, 10, encoded.length - 10);
+        final byte[] withFields = out.toByteArray();
+
+        assertThat(decode(new ZlibStreamDecoder(ZlibWrapper.GZIP), withFields, 5)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void gzipWithWrongChecksum() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        encoded[encoded.length - 8]++;
+        assertThatThrownBy(() -> decode(new ZlibStreamDecoder(ZlibWrapper.GZIP), encoded, encoded.length))
+                .isInstanceOf(DecompressionException.class);
+    }
+
+    @Test
+    public void deflate() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out)) {
+            deflaterOut.write(CONTENT);
+        }
+        final byte[] encoded = out.toByteArray();
+        assertThat(decode(new ZlibStreamDecoder(ZlibWrapper.ZLIB), encoded, 100)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void finishOnAnotherThread() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        final StreamDecoder decoder = new ZlibStreamDecoder(ZlibWrapper.GZIP);
+        decoder.decode(HttpData.of(Arrays.copyOf(encoded, encoded.length / 2)));
+
+        // The Inflater must not be returned to the pool of another thread.
+        final AtomicInteger numPooledInflaters = new AtomicInteger(-1);
+        final Thread thread = new Thread(() -> {
+            decoder.finish();
+            numPooledInflaters.set(ZlibStreamDecoder.numPooledInflaters(true));
+        });
+        thread.start();
+        thread.join();
+        assertThat(numPooledInflaters).hasValue(0);
+
+        assertThatThrownBy(() -> decoder.decode(HttpData.of(encoded)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void pooledOutput() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        final StreamDecoder decoder = new GzipStreamDecoderFactory().newDecoder(PooledByteBufAllocator.DEFAULT);
+        final HttpData decoded = decoder.decode(HttpData.of(encoded));
+        decoder.finish();
+
+        assertThat(decoded).isInstanceOf(ByteBufHttpData.class);
+        assertThat(decoded.array()).isEqualTo(CONTENT);
+        assertThat(((ByteBufHttpData) decoded).release()).isTrue();
+    }
+
+    @Test
+    public void directInput() throws Exception {
+        final byte[] encoded = gzip(CONTENT);
+        final StreamDecoder decoder = new ZlibStreamDecoder(ZlibWrapper.GZIP);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Chunks of different sizes, so that the reusable input array is grown and reused.
+        final int[] chunkSizes = { 16, 1024, 32 };
+        int i = 0;
+        for (int n = 0; i < encoded.length; n++) {
+            final int length = Math.min(chunkSizes[n % chunkSizes.length], encoded.length - i);
+            final ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(length)
+                                                              .writeBytes(encoded, i, length);
+            final HttpData decoded = decoder.decode(new ByteBufHttpData(buf, false));
+            // The received buffer is released once it is decoded.
+            assertThat(buf.refCnt()).isZero();
+            out.write(decoded.array(), decoded.offset(), decoded.length());
+            i += length;
+        }
+        decoder.finish();
+        assertThat(out.toByteArray()).isEqualTo(CONTENT);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(StreamDecoder decoder, byte[] encoded, int chunkSize) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < encoded.length; i += chunkSize) {
+                final byte[] chunk = Arrays.copyOfRange(encoded, i, Math.min(encoded.length, i + chunkSize));
+                final HttpData decoded = decoder.decode(HttpData.of(chunk));
+                out.write(decoded.array(), decoded.offset(), decoded.length());
+            }
+        } finally {
+            decoder.finish();
+        }
+        return out.toByteArray();
+    }
 }
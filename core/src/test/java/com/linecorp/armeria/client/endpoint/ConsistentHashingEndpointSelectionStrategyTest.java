@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+
+public class ConsistentHashingEndpointSelectionStrategyTest {
+
+    private static final int NUM_KEYS = 10000;
+
+    private long key;
+
+    private final ConsistentHashingEndpointSelectionStrategy strategy =
+            new ConsistentHashingEndpointSelectionStrategy(ctx -> key);
+
+    @Test
+    public void select_empty() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup());
+        assertThatThrownBy(() -> selector.select(newContext()))
+                .isInstanceOf(EndpointGroupException.class);
+    }
+
+    @Test
+    public void sameKeyToSameEndpoint() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup(endpoints(10)));
+        for (key = 0; key < 100; key++) {
+            final Endpoint endpoint = selector.select(newContext());
+            for (int i = 0; i < 5; i++) {
+                assertThat(selector.select(newContext())).isEqualTo(endpoint);
+            }
+        }
+    }
+
+    @Test
+    public void remapOnlyKeysOfChangedEndpoints() {
+        final DynamicEndpointGroup group = new DynamicEndpointGroup();
+        final List<Endpoint> endpoints = endpoints(10);
+        group.setEndpoints(endpoints);
+        final EndpointSelector selector = strategy.newSelector(group);
+        final Map<Long, Endpoint> before = selectAll(selector);
+
+        // Add an endpoint.
+        final Endpoint newEndpoint = Endpoint.of("127.0.0.1", 10000);
+        final List<Endpoint> newEndpoints = new ArrayList<>(endpoints);
+        newEndpoints.add(newEndpoint);
+        group.setEndpoints(newEndpoints);
+        final Map<Long, Endpoint> afterAdd = selectAll(selector);
+
+        int numRemapped = 0;
+        for (long k = 0; k < NUM_KEYS; k++) {
+            if (!before.get(k).equals(afterAdd.get(k))) {
+                assertThat(afterAdd.get(k)).isEqualTo(newEndpoint);
+                numRemapped++;
+            }
+        }
+        assertThat(numRemapped).isPositive().isLessThan(NUM_KEYS / 5);
+
+        // Remove an endpoint.
+        final Endpoint removedEndpoint = endpoints.get(0);
+        newEndpoints.remove(removedEndpoint);
+        group.setEndpoints(newEndpoints);
+        final Map<Long, Endpoint> afterRemove = selectAll(selector);
+        for (long k = 0; k < NUM_KEYS; k++) {
+            if (!afterAdd.get(k).equals(removedEndpoint)) {
+                assertThat(afterRemove.get(k)).isEqualTo(afterAdd.get(k));
+            } else {
+                assertThat(afterRemove.get(k)).isNotEqualTo(removedEndpoint);
+            }
+        }
+    }
+
+    @Test
+    public void updatedRingEqualsNewRing() {
+        final DynamicEndpointGroup group = new DynamicEndpointGroup();
+        final List<Endpoint> endpoints = endpoints(10);
+        group.setEndpoints(endpoints);
+        final EndpointSelector selector = strategy.newSelector(group);
+
+        // Remove some endpoints and add others, so that the points of both are merged into the old ring.
+        final List<Endpoint> newEndpoints = new ArrayList<>(endpoints.subList(3, 10));
+        newEndpoints.add(Endpoint.of("127.0.0.1", 10000));
+        newEndpoints.add(Endpoint.of("127.0.0.1", 10001));
+        group.setEndpoints(newEndpoints);
+
+        final EndpointSelector newSelector = strategy.newSelector(new StaticEndpointGroup(newEndpoints));
+        assertThat(selectAll(selector)).isEqualTo(selectAll(newSelector));
+    }
+
+    @Test
+    public void boundedLoad() {
+        final ConsistentHashingEndpointSelectionStrategy strategy =
+                new ConsistentHashingEndpointSelectionStrategy(ctx -> key, 160, 1.25);
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup(endpoints(4)));
+
+        // Send all in-flight requests with the same key.
+        final Map<Endpoint, Integer> inFlightRequests = new HashMap<>();
+        final List<ClientRequestContext> contexts = new ArrayList<>();
+        final int numRequests = 100;
+        for (int i = 0; i < numRequests; i++) {
+            final ClientRequestContext ctx = newContext();
+            contexts.add(ctx);
+            inFlightRequests.merge(selector.select(ctx), 1, Integer::sum);
+        }
+
+        assertThat(inFlightRequests).hasSize(4);
+        assertThat(inFlightRequests.values()).allSatisfy(
+                n -> assertThat(n).isLessThanOrEqualTo((int) Math.ceil(1.25 * numRequests / 4)));
+
+        // Requests are sent to the owner of the key again once the in-flight requests are done.
+        contexts.forEach(ctx -> {
+            ctx.logBuilder().endRequest();
+            ctx.logBuilder().endResponse();
+        });
+        final ClientRequestContext ownerCtx = newContext();
+        final Endpoint owner = selector.select(ownerCtx);
+        ownerCtx.logBuilder().endRequest();
+        ownerCtx.logBuilder().endResponse();
+        for (int i = 0; i < 3; i++) {
+            final ClientRequestContext ctx = newContext();
+            assertThat(selector.select(ctx)).isEqualTo(owner);
+            ctx.logBuilder().endRequest();
+            ctx.logBuilder().endResponse();
+        }
+    }
+
+    private Map<Long, Endpoint> selectAll(EndpointSelector selector) {
+        final Map<Long, Endpoint> result = new HashMap<>();
+        for (key = 0; key < NUM_KEYS; key++) {
+            result.put(key, selector.select(newContext()));
+        }
+        return result;
+    }
+
+    private static List<Endpoint> endpoints(int numEndpoints) {
+        final List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < numEndpoints; i++) {
+            endpoints.add(Endpoint.of("127.0.0.1", i + 1));
+        }
+        return endpoints;
+    }
+
+    private static ClientRequestContext newContext() {
+        return ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/"));
+    }
+}
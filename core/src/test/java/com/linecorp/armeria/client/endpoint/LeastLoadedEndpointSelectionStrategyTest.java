@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+
+public class LeastLoadedEndpointSelectionStrategyTest {
+
+    private static final Endpoint FOO = Endpoint.of("127.0.0.1", 1234);
+    private static final Endpoint BAR = Endpoint.of("127.0.0.1", 2345);
+
+    private final LeastLoadedEndpointSelectionStrategy strategy = new LeastLoadedEndpointSelectionStrategy();
+
+    @Test
+    public void select_empty() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup());
+        assertThatThrownBy(() -> selector.select(newContext()))
+                .isInstanceOf(EndpointGroupException.class);
+    }
+
+    @Test
+    public void selectEndpointWithFewerInFlightRequests() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup(FOO, BAR));
+
+        final ClientRequestContext ctx1 = newContext();
+        final Endpoint first = selector.select(ctx1);
+        final ClientRequestContext ctx2 = newContext();
+        final Endpoint second = selector.select(ctx2);
+        assertThat(second).isNotEqualTo(first);
+
+        // The first request is done, so its endpoint has no in-flight requests.
+        complete(ctx1, 10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(null)).isEqualTo(first);
+        }
+    }
+
+    @Test
+    public void selectEndpointWithLowerLatency() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup(FOO, BAR));
+
+        final ClientRequestContext ctx1 = newContext();
+        final Endpoint first = selector.select(ctx1);
+        final ClientRequestContext ctx2 = newContext();
+        final Endpoint second = selector.select(ctx2);
+        complete(ctx1, 100);
+        complete(ctx2, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(null)).isEqualTo(second);
+        }
+
+        // The slow endpoint is selected again once the fast one has enough in-flight requests.
+        int numFirstSelections = 0;
+        for (int i = 0; i < 20; i++) {
+            if (selector.select(newContext()).equals(first)) {
+                numFirstSelections++;
+            }
+        }
+        assertThat(numFirstSelections).isBetween(1, 5);
+    }
+
+    @Test
+    public void penalizeFailedEndpoint() {
+        final EndpointSelector selector = strategy.newSelector(new StaticEndpointGroup(FOO, BAR));
+
+        final ClientRequestContext ctx1 = newContext();
+        selector.select(ctx1);
+        final ClientRequestContext ctx2 = newContext();
+        final Endpoint second = selector.select(ctx2);
+
+        // The first endpoint fails fast, which must not make it look faster than the second one.
+        ctx1.logBuilder().endRequest();
+        ctx1.logBuilder().endResponse(new IllegalStateException(),
+                                      ctx1.log().requestStartTimeNanos() + TimeUnit.MILLISECONDS.toNanos(1));
+        complete(ctx2, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(null)).isEqualTo(second);
+        }
+    }
+
+    @Test
+    public void retainStatsOnUpdate() {
+        final DynamicEndpointGroup group = new DynamicEndpointGroup();
+        group.setEndpoints(ImmutableList.of(FOO, BAR));
+        final EndpointSelector selector = strategy.newSelector(group);
+
+        final ClientRequestContext ctx1 = newContext();
+        final Endpoint first = selector.select(ctx1);
+        final Endpoint second = first.equals(FOO) ? BAR : FOO;
+
+        // The in-flight request must be retained even if a new endpoint is added.
+        final Endpoint baz = Endpoint.of("127.0.0.1", 3456);
+        group.setEndpoints(ImmutableList.of(FOO, BAR, baz));
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(null)).isNotEqualTo(first);
+        }
+
+        group.setEndpoints(ImmutableList.of(FOO, BAR));
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(null)).isEqualTo(second);
+        }
+    }
+
+    private static ClientRequestContext newContext() {
+        return ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/"));
+    }
+
+    private static void complete(ClientRequestContext ctx, long latencyMillis) {
+        ctx.logBuilder().endRequest();
+        ctx.logBuilder().endResponse(ctx.log().requestStartTimeNanos() +
+                                     TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+}
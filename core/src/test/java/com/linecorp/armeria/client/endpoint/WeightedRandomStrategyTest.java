@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.client.endpoint;
+
+import static com.linecorp.armeria.client.endpoint.EndpointSelectionStrategy.WEIGHTED_RANDOM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.WeightedRandomStrategy.AliasTable;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+
+public class WeightedRandomStrategyTest {
+
+    private final ClientRequestContext ctx = ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/"));
+
+    @Test
+    public void select() {
+        final EndpointSelector selector = WEIGHTED_RANDOM.newSelector(
+                new StaticEndpointGroup(Endpoint.parse("localhost:1234"), Endpoint.parse("localhost:2345")));
+        assertThat(selector.select(ctx)).isNotNull();
+
+        final EndpointSelector emptySelector = WEIGHTED_RANDOM.newSelector(new StaticEndpointGroup());
+        assertThat(catchThrowable(() -> emptySelector.select(ctx)))
+                .isInstanceOf(EndpointGroupException.class);
+    }
+
+    @Test
+    public void ignoreZeroWeight() {
+        final EndpointSelector selector = WEIGHTED_RANDOM.newSelector(new StaticEndpointGroup(
+                Endpoint.of("127.0.0.1", 1234).withWeight(0),
+                Endpoint.of("127.0.0.1", 2345).withWeight(1)));
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(ctx).authority()).isEqualTo("127.0.0.1:2345");
+        }
+    }
+
+    @Test
+    public void aliasTableProbabilities() {
+        assertProbabilities(ImmutableList.of(Endpoint.of("127.0.0.1", 1234).withWeight(1)));
+
+        assertProbabilities(ImmutableList.of(Endpoint.of("127.0.0.1", 1234).withWeight(1),
+                                             Endpoint.of("127.0.0.1", 2345).withWeight(2),
+                                             Endpoint.of("127.0.0.1", 3456).withWeight(3)));
+
+        assertProbabilities(ImmutableList.of(Endpoint.of("127.0.0.1", 1234).withWeight(4),
+                                             Endpoint.of("127.0.0.1", 2345).withWeight(4),
+                                             Endpoint.of("127.0.0.1", 3456).withWeight(4)));
+
+        final Random rnd = new Random();
+        final ImmutableList.Builder<Endpoint> builder = ImmutableList.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add(Endpoint.of("127.0.0.1", i + 1).withWeight(rnd.nextInt(1000)));
+        }
+        assertProbabilities(builder.build());
+    }
+
+    @Test
+    public void selectFromDynamicEndpointGroup() {
+        final DynamicEndpointGroup endpointGroup = new DynamicEndpointGroup();
+        final EndpointSelector selector = WEIGHTED_RANDOM.newSelector(endpointGroup);
+        endpointGroup.setEndpoints(ImmutableList.of(Endpoint.of("127.0.0.1", 1000)));
+        assertThat(selector.select(ctx)).isEqualTo(Endpoint.of("127.0.0.1", 1000));
+
+        endpointGroup.setEndpoints(ImmutableList.of(Endpoint.of("127.0.0.1", 1111).withWeight(0),
+                                                    Endpoint.of("127.0.0.1", 2222).withWeight(2)));
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select(ctx)).isEqualTo(Endpoint.of("127.0.0.1", 2222).withWeight(2));
+        }
+    }
+
+    /**
+     * Makes sure the probability of selecting each {@link Endpoint} from the alias table is proportional to
+     * its weight.
+     */
+    private static void assertProbabilities(List<Endpoint> endpoints) {
+        final AliasTable table = new AliasTable(endpoints);
+        final int numColumns = table.numColumns();
+
+        final Map<Endpoint, Double> probabilities = new HashMap<>();
+        for (int i = 0; i < numColumns; i++) {
+            final double p = table.probability(i);
+            assertThat(p).isBetween(0.0, 1.0);
+            probabilities.merge(table.endpoint(i), p / numColumns, Double::sum);
+            probabilities.merge(table.alias(i), (1 - p) / numColumns, Double::sum);
+        }
+
+        final long totalWeight = endpoints.stream().mapToLong(Endpoint::weight).sum();
+        for (Endpoint e : endpoints) {
+            final double expected = (double) e.weight() / totalWeight;
+            assertThat(probabilities.getOrDefault(e, 0.0)).isCloseTo(expected, within(1e-9));
+        }
+    }
+}
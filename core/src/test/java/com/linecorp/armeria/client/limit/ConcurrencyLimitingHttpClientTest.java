@@ -38,9 +38,16 @@ import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.limit.ConcurrencyLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
 import com.linecorp.armeria.common.stream.NoopSubscriber;
 import com.linecorp.armeria.testing.common.EventLoopRule;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 public class ConcurrencyLimitingHttpClientTest {
 
     @ClassRule
@@ -225,6 +232,85 @@ public class ConcurrencyLimitingHttpClientTest {
         await().untilAsserted(() -> assertThat(client.numActiveRequests()).isZero());
     }
 
+    /**
+     * Tests if the limit is adjusted when the {@link RequestLog} of a delegated request is complete.
+     */
+    @Test
+    public void testAdaptiveLimit() throws Exception {
+        final ClientRequestContext ctx1 = newContext();
+        final ClientRequestContext ctx2 = newContext();
+        final HttpRequest req1 = mock(HttpRequest.class);
+        final HttpRequest req2 = mock(HttpRequest.class);
+        final HttpResponseWriter actualRes1 = HttpResponse.streaming();
+        final HttpResponseWriter actualRes2 = HttpResponse.streaming();
+
+        @SuppressWarnings("unchecked")
+        final Client<HttpRequest, HttpResponse> delegate = mock(Client.class);
+        when(delegate.execute(ctx1, req1)).thenReturn(actualRes1);
+        when(delegate.execute(ctx2, req2)).thenReturn(actualRes2);
+
+        final MeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+        final ConcurrencyLimit limit = ConcurrencyLimit.aimd(1, 1, 10);
+        final ConcurrencyLimitingHttpClient client =
+                newDecorator(limit, 10, TimeUnit.SECONDS,
+                             registry, new MeterIdPrefix("foo")).apply(delegate);
+
+        final HttpResponse res1 = client.execute(ctx1, req1);
+        final HttpResponse res2 = client.execute(ctx2, req2);
+        verify(delegate, never()).execute(ctx2, req2);
+        assertThat(client.numPendingRequests()).isOne();
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("foo.limit#value", 1.0)
+                .containsEntry("foo.activeRequests#value", 1.0)
+                .containsEntry("foo.pendingRequests#value", 1.0);
+
+        // Complete the log of req1 while the response is still open, which increases the limit.
+        ctx1.logBuilder().endRequest();
+        ctx1.logBuilder().endResponse();
+
+        await().untilAsserted(() -> verify(delegate).execute(ctx2, req2));
+        assertThat(limit.limit()).isEqualTo(2);
+        assertThat(client.numActiveRequests()).isEqualTo(2);
+        assertThat(client.numPendingRequests()).isZero();
+
+        closeAndDrain(actualRes1, res1);
+        closeAndDrain(actualRes2, res2);
+        await().untilAsserted(() -> assertThat(client.numActiveRequests()).isZero());
+    }
+
+    /**
+     * Tests if a deferred request is shed at its response timeout if it is earlier than the timeout.
+     */
+    @Test
+    public void testResponseTimeoutAsDeadline() throws Exception {
+        final ClientRequestContext ctx1 = newContext();
+        final ClientRequestContext ctx2 = newContext();
+        ctx2.setResponseTimeoutMillis(500);
+        final HttpRequest req1 = mock(HttpRequest.class);
+        final HttpRequest req2 = mock(HttpRequest.class);
+        final HttpResponseWriter actualRes1 = HttpResponse.streaming();
+
+        @SuppressWarnings("unchecked")
+        final Client<HttpRequest, HttpResponse> delegate = mock(Client.class);
+        when(delegate.execute(ctx1, req1)).thenReturn(actualRes1);
+
+        final ConcurrencyLimitingHttpClient client =
+                newDecorator(1, 1, TimeUnit.MINUTES).apply(delegate);
+
+        final HttpResponse res1 = client.execute(ctx1, req1);
+        final HttpResponse res2 = client.execute(ctx2, req2);
+
+        res2.subscribe(NoopSubscriber.get());
+        assertThatThrownBy(() -> res2.completionFuture().get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ResponseTimeoutException.class);
+        verify(delegate, never()).execute(ctx2, req2);
+        // The shed request should not be counted as pending anymore.
+        await().untilAsserted(() -> assertThat(client.numPendingRequests()).isZero());
+
+        closeAndDrain(actualRes1, res1);
+        await().untilAsserted(() -> assertThat(client.numActiveRequests()).isZero());
+    }
+
     private static ClientRequestContext newContext() {
         return ClientRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/"))
                                           .eventLoop(eventLoop.get())
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.common.HttpDataSpillFile.SpilledHttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+public class HttpDataSpillFileTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Test
+    public void closeAfterPendingWrites() {
+        final HttpDataSpillFile spillFile = new HttpDataSpillFile(tasks::add);
+        final ByteBuf foo = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+        final ByteBuf bar = Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8);
+        final SpilledHttpData spilledFoo = spillFile.write(new ByteBufHttpData(foo, false));
+        spillFile.write(new ByteBufHttpData(bar, true));
+
+        // The file is not closed until the pending writes are done.
+        spillFile.close();
+        assertThat(tasks).hasSize(2);
+        runTasks();
+
+        // Both writes succeeded, and then the file was closed.
+        assertThat(spillFile.hasFailed()).isFalse();
+        assertThat(foo.refCnt()).isZero();
+        assertThat(bar.refCnt()).isZero();
+        final CompletableFuture<HttpData> readFuture = spillFile.read(spilledFoo);
+        runTasks();
+        assertThat(readFuture).isCompletedExceptionally();
+    }
+
+    @Test
+    public void dropWritesAfterClose() {
+        final HttpDataSpillFile spillFile = new HttpDataSpillFile(tasks::add);
+        spillFile.close();
+        runTasks();
+
+        // Released quietly rather than reported as a failure.
+        final ByteBuf buf = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+        spillFile.write(new ByteBufHttpData(buf, true));
+        assertThat(tasks).isEmpty();
+        assertThat(buf.refCnt()).isZero();
+        assertThat(spillFile.hasFailed()).isFalse();
+    }
+
+    private void runTasks() {
+        for (;;) {
+            final Runnable task = tasks.poll();
+            if (task == null) {
+                return;
+            }
+            task.run();
+        }
+    }
+}
@@ -22,8 +22,15 @@ import static com.linecorp.armeria.common.MediaType.PLAIN_TEXT_UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.HttpDataSpillFile.SpilledHttpData;
 
 public class HttpRequestDuplicatorTest {
 
@@ -56,4 +63,55 @@ public class HttpRequestDuplicatorTest {
                 HttpHeaders.of(CONTENT_MD5, "37b51d194a7513e45b56f6524f2d51f2"));
         reqDuplicator.close();
     }
+
+    @Test
+    public void spillToFile() {
+        final DefaultHttpRequest publisher = new DefaultHttpRequest(HttpHeaders.of(HttpMethod.PUT, "/foo"));
+        publisher.write(HttpData.ofUtf8("foo"));
+        publisher.write(HttpData.ofUtf8("bar"));
+        publisher.write(HttpData.ofUtf8("baz"));
+        publisher.close();
+
+        // Only the first data fits in memory.
+        final HttpRequestDuplicator reqDuplicator = new HttpRequestDuplicator(publisher, 0, null, 4);
+
+        final List<HttpObject> objs = new ArrayList<>();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        reqDuplicator.duplicateStream().subscribe(new Subscriber<HttpObject>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(HttpObject obj) {
+                objs.add(obj);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(null);
+            }
+        });
+        future.join();
+
+        // The spilled data are read from the file before they are published.
+        assertThat(objs).hasSize(3);
+        assertThat(objs).allSatisfy(obj -> assertThat(obj).isInstanceOf(HttpData.class)
+                                                         .isNotInstanceOf(SpilledHttpData.class));
+        assertThat(objs).extracting(obj -> ((HttpData) obj).toStringUtf8())
+                        .containsExactly("foo", "bar", "baz");
+
+        final AggregatedHttpMessage req1 = reqDuplicator.duplicateStream().aggregate().join();
+        final AggregatedHttpMessage req2 = reqDuplicator.duplicateStream(true).aggregate().join();
+        assertThat(req1.headers()).isEqualTo(HttpHeaders.of(HttpMethod.PUT, "/foo"));
+        assertThat(req1.content().toStringUtf8()).isEqualTo("foobarbaz");
+        assertThat(req2.content().toStringUtf8()).isEqualTo("foobarbaz");
+        reqDuplicator.close();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConcurrencyLimitTest {
+
+    private static final long RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void fixed() {
+        final ConcurrencyLimit limit = ConcurrencyLimit.fixed(10);
+        limit.onSample(RTT_NANOS, 10, true);
+        assertThat(limit.limit()).isEqualTo(10);
+        assertThatThrownBy(() -> ConcurrencyLimit.fixed(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void aimd() {
+        final ConcurrencyLimit limit = ConcurrencyLimit.aimd(10, 5, 20);
+
+        // Should not grow when the limit is not reached.
+        limit.onSample(RTT_NANOS, 1, false);
+        assertThat(limit.limit()).isEqualTo(10);
+
+        limit.onSample(RTT_NANOS, 10, false);
+        assertThat(limit.limit()).isEqualTo(11);
+
+        limit.onSample(RTT_NANOS, 11, true);
+        assertThat(limit.limit()).isEqualTo(9);
+
+        // Should never go below the minimum limit.
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, 9, true);
+        }
+        assertThat(limit.limit()).isEqualTo(5);
+
+        // Should never go above the maximum limit.
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT_NANOS, 20, false);
+        }
+        assertThat(limit.limit()).isEqualTo(20);
+    }
+
+    @Test
+    public void vegas() {
+        final ConcurrencyLimit limit = ConcurrencyLimit.vegas(10, 100);
+
+        // The first sample determines the RTT without queueing.
+        limit.onSample(RTT_NANOS, 10, false);
+        assertThat(limit.limit()).isEqualTo(10);
+
+        // No queueing at the backend; grow quickly.
+        limit.onSample(RTT_NANOS, 10, false);
+        assertThat(limit.limit()).isEqualTo(16);
+
+        // The RTT doubled; i.e. half of the requests are queued.
+        limit.onSample(RTT_NANOS * 2, 16, false);
+        assertThat(limit.limit()).isEqualTo(15);
+
+        limit.onSample(RTT_NANOS, 15, true);
+        assertThat(limit.limit()).isEqualTo(14);
+    }
+
+    @Test
+    public void gradient() {
+        final ConcurrencyLimit limit = ConcurrencyLimit.gradient(20, 1, 100);
+
+        // Stable RTT; grow.
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, limit.limit(), false);
+        }
+        final int grownLimit = limit.limit();
+        assertThat(grownLimit).isGreaterThan(20);
+
+        // RTT increased sharply; shrink.
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS * 10, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isLessThan(grownLimit);
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatThrownBy(() -> ConcurrencyLimit.aimd(1, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrencyLimit.aimd(1, 5, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrencyLimit.gradient(11, 1, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -16,12 +16,52 @@
 
 package com.linecorp.armeria.common.stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
 import java.util.List;
 
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+
 public class EventLoopStreamMessageTest extends AbstractStreamMessageAndWriterTest {
 
     @Override
     <T> StreamMessageAndWriter<T> newStreamWriter(List<T> unused) {
         return new EventLoopStreamMessage<>(eventLoop.get());
     }
+
+    @Test
+    public void rejectSecondSubscriberFromOtherThread() {
+        final EventLoopStreamMessage<Object> stream = new EventLoopStreamMessage<>(eventLoop.get());
+        @SuppressWarnings("unchecked")
+        final Subscriber<Object> first = mock(Subscriber.class);
+        @SuppressWarnings("unchecked")
+        final Subscriber<Object> second = mock(Subscriber.class);
+
+        stream.subscribe(first);
+        stream.subscribe(second);
+
+        verify(first, timeout(10000)).onSubscribe(any());
+        verify(second, timeout(10000)).onError(isA(IllegalStateException.class));
+        assertThat(stream.isOpen()).isTrue();
+    }
+
+    @Test
+    public void abortFromOtherThreadBeforeSubscription() {
+        final EventLoopStreamMessage<Object> stream = new EventLoopStreamMessage<>(eventLoop.get());
+        stream.abort();
+        // Visible to the caller even before the event loop handles the abortion.
+        assertThat(stream.isOpen()).isFalse();
+
+        @SuppressWarnings("unchecked")
+        final Subscriber<Object> subscriber = mock(Subscriber.class);
+        stream.subscribe(subscriber);
+        verify(subscriber, timeout(10000)).onError(isA(AbortedStreamException.class));
+        assertThat(stream.completionFuture()).isCompletedExceptionally();
+    }
 }
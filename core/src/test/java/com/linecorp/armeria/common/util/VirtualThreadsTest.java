@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void unavailable() {
+        assumeFalse(VirtualThreads.isAvailable());
+        assertThat(VirtualThreads.unavailabilityCause()).isNotNull();
+        assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("foo-"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void propagateContext() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable());
+        final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("foo-");
+        try {
+            final ServiceRequestContext ctx = ServiceRequestContextBuilder.of(
+                    HttpRequest.of(HttpMethod.GET, "/")).build();
+            final ExecutorService contextAwareExecutor = ctx.makeContextAware(executor);
+
+            final String threadName = contextAwareExecutor.submit(() -> {
+                assertThat((ServiceRequestContext) RequestContext.current()).isSameAs(ctx);
+                return Thread.currentThread().getName();
+            }).get();
+
+            assertThat(threadName).startsWith("foo-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
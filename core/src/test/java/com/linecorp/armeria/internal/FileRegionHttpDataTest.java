@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBufUtil;
+
+public class FileRegionHttpDataTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readContentOnSlowPath() throws Exception {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, "foobarbaz".getBytes(StandardCharsets.UTF_8));
+
+        final FileRegionHttpData data = new FileRegionHttpData(path, 3, 3, true);
+        assertThat(data.length()).isEqualTo(3);
+        assertThat(data.toStringUtf8()).isEqualTo("bar");
+        assertThat(ByteBufUtil.getBytes(data.content())).isEqualTo("bar".getBytes(StandardCharsets.UTF_8));
+
+        final ByteBufHttpData copy = data.copy();
+        assertThat(copy.toStringUtf8()).isEqualTo("bar");
+        assertThat(copy.isEndOfStream()).isTrue();
+        copy.release();
+
+        assertThat(data.release()).isTrue();
+    }
+
+    @Test
+    public void toUnpooled() throws Exception {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, "foobarbaz".getBytes(StandardCharsets.UTF_8));
+
+        // A subscriber which did not ask for pooled objects gets a copy, and the file region is released.
+        final FileRegionHttpData data = new FileRegionHttpData(path, 0, 6, false);
+        final HttpData unpooled = PooledObjects.toUnpooled(data);
+        assertThat(unpooled).isNotInstanceOf(FileRegionHttpData.class);
+        assertThat(unpooled.toStringUtf8()).isEqualTo("foobar");
+        assertThat(data.refCnt()).isZero();
+    }
+}
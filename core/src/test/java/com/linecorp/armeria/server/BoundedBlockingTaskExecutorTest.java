@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class BoundedBlockingTaskExecutorTest {
+
+    private static final CountDownLatch latch = new CountDownLatch(1);
+
+    private static final BoundedBlockingTaskExecutor executor =
+            new BoundedBlockingTaskExecutorBuilder("bounded-blocking-tasks").maxThreads(1)
+                                                                            .maxQueuedTasks(1)
+                                                                            .build();
+
+    private static final ExecutorService shutDownExecutor = Executors.newSingleThreadExecutor();
+
+    static {
+        shutDownExecutor.shutdown();
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.meterRegistry(PrometheusMeterRegistries.newRegistry());
+            sb.service("/bounded", (ctx, req) -> HttpResponse.from(CompletableFuture.supplyAsync(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return HttpResponse.of(Thread.currentThread().getName());
+            }, ctx.blockingTaskExecutor())), executor);
+            sb.service("/default", (ctx, req) -> HttpResponse.from(CompletableFuture.supplyAsync(
+                    () -> HttpResponse.of(Thread.currentThread().getName()), ctx.blockingTaskExecutor())));
+            sb.service("/shutDown", (ctx, req) -> HttpResponse.from(CompletableFuture.supplyAsync(
+                    () -> HttpResponse.of(HttpStatus.OK), ctx.blockingTaskExecutor())), shutDownExecutor);
+        }
+    };
+
+    @AfterClass
+    public static void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() {
+        final HttpClient client = HttpClient.of(server.uri("/"));
+
+        // One task runs and the other waits in the queue.
+        final CompletableFuture<AggregatedHttpMessage> first = client.get("/bounded").aggregate();
+        final CompletableFuture<AggregatedHttpMessage> second = client.get("/bounded").aggregate();
+        await().until(() -> executor.getActiveCount() == 1 && executor.numQueuedTasks() == 1);
+
+        // The queue is full.
+        assertThat(client.get("/bounded").aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(executor.numRejectedTasks()).isOne();
+
+        // The other services are not affected.
+        final AggregatedHttpMessage res = client.get("/default").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.content().toStringUtf8()).startsWith("armeria-common-blocking-tasks");
+
+        latch.countDown();
+        assertThat(first.join().content().toStringUtf8()).startsWith("bounded-blocking-tasks");
+        assertThat(second.join().content().toStringUtf8()).startsWith("bounded-blocking-tasks");
+
+        final MeterRegistry registry = server.server().meterRegistry();
+        assertThat(registry.get("armeria.server.blockingTaskExecutor.rejectedTasks")
+                           .functionCounter().count()).isOne();
+        assertThat(registry.get("armeria.server.blockingTaskExecutor.waitTime")
+                           .functionTimer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shutDownExecutorIsNotUnavailable() {
+        // Only the rejection by a full BoundedBlockingTaskExecutor is converted into
+        // a 503 Service Unavailable response.
+        final HttpClient client = HttpClient.of(server.uri("/"));
+        assertThat(client.get("/shutDown").aggregate().join().status())
+                .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -39,6 +39,24 @@ public class ExactPathMappingTest {
         assertThat(result.pathParams()).isEmpty();
     }
 
+    @Test
+    public void shouldReuseResultWithoutQuery() {
+        final ExactPathMapping mapping = new ExactPathMapping("/find/me");
+        final PathMappingResult result = mapping.apply(create("/find/me"));
+        assertThat(mapping.apply(create("/find/me"))).isSameAs(result);
+
+        final PathMappingResult resultWithQuery = mapping.apply(create("/find/me", "foo=bar"));
+        assertThat(resultWithQuery).isNotSameAs(result);
+        assertThat(resultWithQuery.path()).isEqualTo("/find/me");
+        assertThat(resultWithQuery.query()).isEqualTo("foo=bar");
+
+        // Updating the shared result requires a copy.
+        final PathMappingResult mutable = result.toMutable();
+        assertThat(mutable).isNotSameAs(result);
+        mutable.setScore(PathMappingResult.HIGHEST_SCORE);
+        assertThat(result.hasLowestScore()).isTrue();
+    }
+
     @Test
     public void testLoggerNameEscaping() throws Exception {
         assertThat(ofExact("/foo/bar.txt").loggerName()).isEqualTo("foo.bar_txt");
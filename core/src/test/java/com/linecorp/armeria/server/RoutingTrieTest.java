@@ -148,6 +148,38 @@ public class RoutingTrieTest {
                 .isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    public void testFindWithExactPaths() {
+        final RoutingTrie.Builder<Object> builder = new RoutingTrie.Builder<>();
+
+        final Object value1 = new Object();
+        final Object value2 = new Object();
+        final Object value3 = new Object();
+        final Object value4 = new Object();
+
+        builder.add("/users", value1);
+        builder.add("/users/:", value2);
+        builder.add("/users/me", value3);
+        builder.add("/users/me/*", value4);
+
+        final RoutingTrie<Object> trie = builder.build();
+
+        // Found from the table of the exact paths.
+        assertThat(trie.find("/users")).containsExactly(value1);
+        assertThat(trie.find("/users/me")).containsExactly(value3);
+
+        // Found by traversing the trie.
+        assertThat(trie.find("/users/foo")).containsExactly(value2);
+        assertThat(trie.find("/users/me/foo")).containsExactly(value4);
+        assertThat(trie.find("/users/me/")).containsExactly(value4);
+        assertThat(trie.find("/user")).isEmpty();
+        assertThat(trie.find("/users/foo/bar")).isEmpty();
+
+        // The exact paths must yield the same nodes as the traversal.
+        assertThat(trie.find("/users")).isSameAs(trie.findNode("/users").values());
+        assertThat(trie.find("/users/me")).isSameAs(trie.findNode("/users/me").values());
+    }
+
     private static Node<?> testNodeWithCheckingParentPath(RoutingTrie<?> trie,
                                                           String targetPath, String parentPath,
                                                           Object... values) {
@@ -17,23 +17,43 @@ package com.linecorp.armeria.server.encoding;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
 
 import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
 
 import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpObject;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.stream.NoopSubscriber;
 import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 
 public class HttpEncodedResponseTest {
 
+    private static final String CONTENT = Strings.repeat("Armeria is awesome. ", 64);
+
     @Test
     public void testLeak() {
         final ByteBuf buf = Unpooled.buffer();
@@ -44,7 +64,8 @@ public class HttpEncodedResponseTest {
                                          MediaType.PLAIN_TEXT_UTF_8,
                                          new ByteBufHttpData(buf, true)));
         final HttpEncodedResponse encoded = new HttpEncodedResponse(
-                orig, HttpEncodingType.DEFLATE, mediaType -> true, 1);
+                orig, HttpEncodingType.DEFLATE, mediaType -> true, 1, Deflater.DEFAULT_COMPRESSION,
+                HttpEncodingFlushPolicy.everyChunk(), ByteBufAllocator.DEFAULT);
 
         // Drain the stream.
         encoded.subscribe(NoopSubscriber.get(), ImmediateEventExecutor.INSTANCE);
@@ -52,4 +73,70 @@ public class HttpEncodedResponseTest {
         // 'buf' should be released.
         assertThat(buf.refCnt()).isZero();
     }
+
+    @Test
+    public void compressPooledContent() throws Exception {
+        final ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        buf.writeCharSequence(CONTENT, StandardCharsets.UTF_8);
+
+        final HttpResponse orig = HttpResponse.of(
+                AggregatedHttpMessage.of(HttpStatus.OK,
+                                         MediaType.PLAIN_TEXT_UTF_8,
+                                         new ByteBufHttpData(buf, true)));
+        final HttpEncodedResponse encoded = new HttpEncodedResponse(
+                orig, HttpEncodingType.DEFLATE, mediaType -> true, 1, Deflater.DEFAULT_COMPRESSION,
+                HttpEncodingFlushPolicy.everyChunk(), ByteBufAllocator.DEFAULT);
+
+        final AggregatedHttpMessage res = encoded.aggregate().join();
+        // The pooled buffer was compressed as is and then released.
+        assertThat(buf.refCnt()).isZero();
+        assertThat(inflate(res.content().array())).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void flushOnlyAtEnd() throws Exception {
+        final HttpResponseWriter orig = HttpResponse.streaming();
+        final HttpEncodedResponse encoded = new HttpEncodedResponse(
+                orig, HttpEncodingType.DEFLATE, mediaType -> true, 1, Deflater.DEFAULT_COMPRESSION,
+                HttpEncodingFlushPolicy.onlyAtEnd(), ByteBufAllocator.DEFAULT);
+        final List<HttpData> chunks = new ArrayList<>();
+        encoded.subscribe(new Subscriber<HttpObject>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(HttpObject obj) {
+                if (obj instanceof HttpData) {
+                    chunks.add((HttpData) obj);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {}
+
+            @Override
+            public void onComplete() {}
+        }, ImmediateEventExecutor.INSTANCE);
+
+        orig.write(HttpHeaders.of(HttpStatus.OK).contentType(MediaType.PLAIN_TEXT_UTF_8));
+        orig.write(HttpData.ofUtf8(CONTENT));
+        orig.write(HttpData.ofUtf8(CONTENT));
+        // The compressed content is kept by the Deflater rather than flushed, except the zlib header.
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(1).isEmpty()).isTrue();
+
+        orig.close();
+        assertThat(chunks).hasSize(3);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunks.forEach(chunk -> out.write(chunk.array(), chunk.offset(), chunk.length()));
+        assertThat(inflate(out.toByteArray())).isEqualTo(CONTENT + CONTENT);
+    }
+
+    private static String inflate(byte[] compressed) throws Exception {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
 }
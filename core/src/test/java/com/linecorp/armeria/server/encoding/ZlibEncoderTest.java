@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+
+public class ZlibEncoderTest {
+
+    private static final byte[] CHUNK = Strings.repeat("Armeria is awesome. ", 1024)
+                                               .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void gzip() throws Exception {
+        // Repeat to make sure a pooled Deflater is reset properly.
+        for (int i = 0; i < 3; i++) {
+            final byte[] encoded = encode(HttpEncodingType.GZIP, Deflater.DEFAULT_COMPRESSION);
+            assertThat(decode(new GZIPInputStream(new ByteArrayInputStream(encoded)))).isEqualTo(expected());
+        }
+    }
+
+    @Test
+    public void deflate() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            final byte[] encoded = encode(HttpEncodingType.DEFLATE, Deflater.BEST_SPEED);
+            assertThat(decode(new InflaterInputStream(new ByteArrayInputStream(encoded))))
+                    .isEqualTo(expected());
+        }
+    }
+
+    @Test
+    public void encodeDirectBuffer() throws Exception {
+        final ZlibEncoder encoder = new ZlibEncoder(HttpEncodingType.GZIP, Deflater.DEFAULT_COMPRESSION,
+                                                    PooledByteBufAllocator.DEFAULT);
+        final ByteBuf in = PooledByteBufAllocator.DEFAULT.directBuffer();
+        in.writeBytes(CHUNK);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeAndRelease(out, encoder.encode(in));
+            // The reader index is not changed.
+            assertThat(in.readableBytes()).isEqualTo(CHUNK.length);
+        } finally {
+            in.release();
+        }
+        writeAndRelease(out, encoder.finish());
+
+        assertThat(decode(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))))
+                .isEqualTo(CHUNK);
+    }
+
+    @Test
+    public void flushEveryBytes() throws Exception {
+        final ZlibEncoder encoder = new ZlibEncoder(HttpEncodingType.DEFLATE, Deflater.DEFAULT_COMPRESSION,
+                                                    HttpEncodingFlushPolicy.everyBytes(CHUNK.length * 2L),
+                                                    PooledByteBufAllocator.DEFAULT);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Not flushed yet.
+        writeAndRelease(out, encoder.encode(CHUNK, 0, CHUNK.length));
+        final int unflushedLength = out.size();
+
+        // Flushed, so that everything written so far can be decompressed.
+        writeAndRelease(out, encoder.encode(CHUNK, 0, CHUNK.length));
+        assertThat(out.size()).isGreaterThan(unflushedLength);
+        final byte[] flushed = new byte[CHUNK.length * 2];
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ByteStreams.readFully(in, flushed);
+        }
+        assertThat(flushed).isEqualTo(expected(2));
+
+        writeAndRelease(out, encoder.finish());
+        assertThat(decode(new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()))))
+                .isEqualTo(expected(2));
+    }
+
+    @Test
+    public void releasedEncoder() {
+        final ZlibEncoder encoder = new ZlibEncoder(HttpEncodingType.GZIP, Deflater.DEFAULT_COMPRESSION,
+                                                    PooledByteBufAllocator.DEFAULT);
+        encoder.release();
+        // Releasing twice is fine.
+        encoder.release();
+        assertThatThrownBy(() -> encoder.encode(CHUNK, 0, CHUNK.length))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void releaseOnAnotherThread() throws Exception {
+        final ZlibEncoder encoder = new ZlibEncoder(HttpEncodingType.GZIP, Deflater.DEFAULT_COMPRESSION,
+                                                    PooledByteBufAllocator.DEFAULT);
+        encoder.encode(CHUNK, 0, CHUNK.length).release();
+
+        // The Deflater must not be returned to the pool of another thread.
+        final AtomicInteger numPooledDeflaters = new AtomicInteger(-1);
+        final Thread thread = new Thread(() -> {
+            encoder.release();
+            numPooledDeflaters.set(ZlibEncoder.numPooledDeflaters(HttpEncodingType.GZIP));
+        });
+        thread.start();
+        thread.join();
+        assertThat(numPooledDeflaters).hasValue(0);
+
+        assertThatThrownBy(() -> encoder.encode(CHUNK, 0, CHUNK.length))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static byte[] encode(HttpEncodingType encodingType, int compressionLevel) {
+        final ZlibEncoder encoder = new ZlibEncoder(encodingType, compressionLevel,
+                                                    PooledByteBufAllocator.DEFAULT);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 4; i++) {
+            final ByteBuf buf = encoder.encode(CHUNK, 0, CHUNK.length);
+            assertThat(buf.hasArray()).isTrue();
+            out.write(ByteBufUtil.getBytes(buf), 0, buf.readableBytes());
+            buf.release();
+        }
+        final ByteBuf buf = encoder.finish();
+        out.write(ByteBufUtil.getBytes(buf), 0, buf.readableBytes());
+        buf.release();
+        return out.toByteArray();
+    }
+
+    private static void writeAndRelease(ByteArrayOutputStream out, ByteBuf buf) {
+        try {
+            out.write(ByteBufUtil.getBytes(buf), 0, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static byte[] decode(InputStream in) throws IOException {
+        try (InputStream unused = in) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static byte[] expected() {
+        return expected(4);
+    }
+
+    private static byte[] expected(int numChunks) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < numChunks; i++) {
+            out.write(CHUNK, 0, CHUNK.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class HttpFileCacheTest {
+
+    private static final int FILE_SIZE = 1000;
+    private static final long MAX_CACHE_SIZE_BYTES = FILE_SIZE * 3;
+
+    private static final HttpFileCache sharedCache = HttpFileCache.ofMaxSizeBytes(MAX_CACHE_SIZE_BYTES);
+    private static final Path fooDir = newRootDir("foo");
+    private static final Path barDir = newRootDir("bar");
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.serviceUnder("/foo", HttpFileServiceBuilder.forFileSystem(fooDir)
+                                                          .cache(sharedCache)
+                                                          .build());
+            sb.serviceUnder("/bar", HttpFileServiceBuilder.forFileSystem(barDir)
+                                                          .cache(sharedCache)
+                                                          .build());
+        }
+    };
+
+    private static Path newRootDir(String prefix) {
+        try {
+            final Path rootDir = Files.createTempDirectory("armeria-" + prefix);
+            rootDir.toFile().deleteOnExit();
+            for (int i = 0; i < 10; i++) {
+                final Path file = rootDir.resolve(i + ".txt");
+                Files.write(file, content(prefix, i).getBytes(StandardCharsets.US_ASCII));
+                file.toFile().deleteOnExit();
+            }
+            return rootDir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String content(String prefix, int i) {
+        return Strings.padEnd(prefix + i, FILE_SIZE, '.');
+    }
+
+    @Test
+    public void invalidMaxSizeBytes() {
+        assertThatThrownBy(() -> HttpFileCache.ofMaxSizeBytes(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void sharedBetweenServices() {
+        final HttpClient client = HttpClient.of(server.uri("/"));
+        for (int i = 0; i < 10; i++) {
+            // The files with the same path in different services must not collide.
+            for (String prefix : new String[] { "foo", "bar" }) {
+                final AggregatedHttpMessage res =
+                        client.get('/' + prefix + '/' + i + ".txt").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                assertThat(res.content().toStringAscii()).isEqualTo(content(prefix, i));
+            }
+        }
+
+        sharedCache.cache().cleanUp();
+        final long weightedSize =
+                sharedCache.cache().policy().eviction().get().weightedSize().getAsLong();
+        assertThat(weightedSize).isPositive().isLessThanOrEqualTo(MAX_CACHE_SIZE_BYTES);
+        assertThat(sharedCache.cache().stats().evictionWeight()).isPositive();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class HttpFileServiceCompressionTest {
+
+    private static final String LARGE_CONTENT = Strings.repeat("Hello, Armeria! ", 1024);
+    private static final String SMALL_CONTENT = "Hello, Armeria!";
+    private static final byte[] RANDOM_CONTENT = new byte[4096];
+    private static final Path rootDir;
+
+    static {
+        try {
+            rootDir = Files.createTempDirectory("armeria-compression");
+            rootDir.toFile().deleteOnExit();
+            write("large.txt", LARGE_CONTENT);
+            write("small.txt", SMALL_CONTENT);
+            write("changing.txt", LARGE_CONTENT);
+            new Random(42).nextBytes(RANDOM_CONTENT);
+            final Path random = rootDir.resolve("random.txt");
+            Files.write(random, RANDOM_CONTENT);
+            random.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(String fileName, String content) throws IOException {
+        final Path file = rootDir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        file.toFile().deleteOnExit();
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.serviceUnder("/", HttpFileServiceBuilder.forFileSystem(rootDir)
+                                                       .compressCachedFiles(true)
+                                                       .build());
+        }
+    };
+
+    @Test
+    public void gzip() throws Exception {
+        final AggregatedHttpMessage res = getCompressed("/large.txt", "gzip, deflate");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(res.headers().get(HttpHeaderNames.VARY)).isEqualTo("accept-encoding");
+        assertThat(res.headers().getInt(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(res.content().length());
+        assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(res.content().array()))))
+                .isEqualTo(LARGE_CONTENT);
+
+        // A compressed representation must have a different entity tag.
+        final AggregatedHttpMessage uncompressed = get("/large.txt", null);
+        final String etag = res.headers().get(HttpHeaderNames.ETAG);
+        assertThat(etag).isNotNull().isNotEqualTo(uncompressed.headers().get(HttpHeaderNames.ETAG));
+
+        // The compressed content must be cached.
+        final AggregatedHttpMessage res2 = get("/large.txt", "gzip");
+        assertThat(res2.headers().get(HttpHeaderNames.ETAG)).isEqualTo(etag);
+        assertThat(res2.content().array()).isEqualTo(res.content().array());
+    }
+
+    @Test
+    public void deflate() throws Exception {
+        final AggregatedHttpMessage res = getCompressed("/large.txt", "deflate");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("deflate");
+        assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(res.content().array()))))
+                .isEqualTo(LARGE_CONTENT);
+    }
+
+    @Test
+    public void honorQValues() throws Exception {
+        // gzip is refused explicitly.
+        final AggregatedHttpMessage res = getCompressed("/large.txt", "gzip;q=0, deflate");
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("deflate");
+
+        // deflate is weighted higher.
+        final AggregatedHttpMessage res2 = getCompressed("/large.txt", "gzip;q=0.5, deflate;q=0.8");
+        assertThat(res2.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("deflate");
+
+        // Neither is accepted.
+        final AggregatedHttpMessage res3 = get("/large.txt", "gzip;q=0, deflate;q=0");
+        assertThat(res3.headers().contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+        assertThat(res3.content().toStringUtf8()).isEqualTo(LARGE_CONTENT);
+    }
+
+    @Test
+    public void notAccepted() {
+        final AggregatedHttpMessage res = get("/large.txt", null);
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+        assertThat(res.headers().get(HttpHeaderNames.VARY)).isEqualTo("accept-encoding");
+        assertThat(res.content().toStringUtf8()).isEqualTo(LARGE_CONTENT);
+    }
+
+    @Test
+    public void tooSmallToCompress() {
+        final AggregatedHttpMessage res = get("/small.txt", "gzip");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+        assertThat(res.content().toStringUtf8()).isEqualTo(SMALL_CONTENT);
+    }
+
+    @Test
+    public void notWorthCompressing() {
+        // The original content is served until the compressed content is cached, and then as well
+        // because the compressed content is not smaller than the original content.
+        for (int i = 0; i < 3; i++) {
+            final AggregatedHttpMessage res = get("/random.txt", "gzip");
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.headers().contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+            assertThat(res.content().array()).isEqualTo(RANDOM_CONTENT);
+        }
+    }
+
+    @Test
+    public void modifiedFile() throws Exception {
+        final AggregatedHttpMessage res = getCompressed("/changing.txt", "gzip");
+        assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(res.content().array()))))
+                .isEqualTo(LARGE_CONTENT);
+
+        final String newContent = LARGE_CONTENT + "Modified!";
+        final Path file = rootDir.resolve("changing.txt");
+        Files.write(file, newContent.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        final AggregatedHttpMessage res2 = getCompressed("/changing.txt", "gzip");
+        assertThat(res2.headers().get(HttpHeaderNames.ETAG))
+                .isNotEqualTo(res.headers().get(HttpHeaderNames.ETAG));
+        assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(res2.content().array()))))
+                .isEqualTo(newContent);
+    }
+
+    private static AggregatedHttpMessage get(String path, @Nullable String acceptEncoding) {
+        final HttpHeaders headers = HttpHeaders.of(HttpMethod.GET, path);
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return HttpClient.of(server.uri("/")).execute(headers).aggregate().join();
+    }
+
+    /**
+     * Sends requests until the compressed content is served, because a file is compressed in background
+     * and the original content is served until then.
+     */
+    private static AggregatedHttpMessage getCompressed(String path, String acceptEncoding) {
+        final AtomicReference<AggregatedHttpMessage> res = new AtomicReference<>();
+        await().until(() -> {
+            res.set(get(path, acceptEncoding));
+            return res.get().headers().contains(HttpHeaderNames.CONTENT_ENCODING);
+        });
+        return res.get();
+    }
+
+    private static String decompress(InputStream in) throws IOException {
+        try (InputStream i = in) {
+            return new String(ByteStreams.toByteArray(i), StandardCharsets.UTF_8);
+        }
+    }
+}
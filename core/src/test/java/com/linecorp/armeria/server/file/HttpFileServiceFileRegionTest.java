@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.FilteredHttpResponse;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.internal.FileRegionHttpData;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.encoding.HttpEncodingService;
+import com.linecorp.armeria.server.logging.LoggingService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+/**
+ * Makes sure {@link HttpFileServiceBuilder#useFileRegion(boolean)} serves the same content regardless of
+ * the session protocol and the decorators.
+ */
+public class HttpFileServiceFileRegionTest {
+
+    // Larger than the maximum length of a file region.
+    private static final byte[] content = new byte[3 * 1024 * 1024 + 17];
+    private static final Path rootDir;
+
+    static {
+        ThreadLocalRandom.current().nextBytes(content);
+        try {
+            rootDir = Files.createTempDirectory("armeria-file-region");
+            rootDir.toFile().deleteOnExit();
+            final Path large = rootDir.resolve("large.txt");
+            Files.write(large, content);
+            large.toFile().deleteOnExit();
+            final Path empty = rootDir.resolve("empty.txt");
+            Files.write(empty, new byte[0]);
+            empty.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The number of the FileRegionHttpData which reached a decorator.
+    private static final AtomicInteger numFileRegionsInDecorator = new AtomicInteger();
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            final HttpFileService service = HttpFileServiceBuilder.forFileSystem(rootDir)
+                                                                  .useFileRegion(true)
+                                                                  .build();
+            sb.serviceUnder("/files", service);
+            sb.serviceUnder("/encoded", service.decorate(
+                    delegate -> new HttpEncodingService(delegate, unused -> true, 1024)));
+            sb.serviceUnder("/logged", service.decorate(LoggingService.newDecorator()));
+            // Aggregates the response, which accesses the content.
+            sb.serviceUnder("/aggregated", service.decorate(
+                    (delegate, ctx, req) -> HttpResponse.from(
+                            delegate.serve(ctx, req).aggregate().thenApply(HttpResponse::of))));
+            // Inspects every object with the pooled objects, which would receive a file region as is.
+            sb.serviceUnder("/inspected", service.decorate(
+                    (delegate, ctx, req) -> new FilteredHttpResponse(delegate.serve(ctx, req), true) {
+                        @Override
+                        protected HttpObject filter(HttpObject obj) {
+                            if (obj instanceof FileRegionHttpData) {
+                                numFileRegionsInDecorator.incrementAndGet();
+                            }
+                            return obj;
+                        }
+                    }));
+        }
+    };
+
+    @Test
+    public void http1() {
+        final AggregatedHttpMessage res = get(SessionProtocol.H1C, "/files/large.txt");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().getInt(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(content.length);
+        assertThat(res.content().array()).isEqualTo(content);
+    }
+
+    @Test
+    public void http1EmptyFile() {
+        final AggregatedHttpMessage res = get(SessionProtocol.H1C, "/files/empty.txt");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.content().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void http2() {
+        // A file region is never used for HTTP/2.
+        final AggregatedHttpMessage res = get(SessionProtocol.H2C, "/files/large.txt");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.content().array()).isEqualTo(content);
+    }
+
+    @Test
+    public void http1WithEncodingDecorator() throws Exception {
+        final HttpClient client = HttpClient.of(server.uri(SessionProtocol.H1C, "/"));
+        final AggregatedHttpMessage res = client.execute(
+                HttpHeaders.of(HttpMethod.GET, "/encoded/large.txt")
+                           .set(HttpHeaderNames.ACCEPT_ENCODING, "gzip")).aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(res.content().array()))) {
+            assertThat(ByteStreams.toByteArray(in)).isEqualTo(content);
+        }
+    }
+
+    @Test
+    public void http1WithDecorators() {
+        // A decorator must never get a FileRegionHttpData, whose array() and content() block the event loop.
+        for (String prefix : new String[] { "/logged", "/aggregated", "/inspected" }) {
+            final AggregatedHttpMessage res = get(SessionProtocol.H1C, prefix + "/large.txt");
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.content().array()).isEqualTo(content);
+        }
+        assertThat(numFileRegionsInDecorator).hasValue(0);
+    }
+
+    private static AggregatedHttpMessage get(SessionProtocol protocol, String path) {
+        return HttpClient.of(server.uri(protocol, "/")).get(path).aggregate().join();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+public class AccessLogFormatterTest {
+
+    @Test
+    public void emptyFormat() {
+        assertThat(AccessLogFormatter.of(ImmutableList.of()).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void skipUnavailableComponents() {
+        final AccessLogFormatter formatter =
+                AccessLogFormatter.of(AccessLogFormats.parseCustom("%l %u \"%r\" %s %b %{Content-Type}o"));
+        final ServiceRequestContext ctx =
+                ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/armeria/log")).build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+
+        logBuilder.endRequest();
+        assertThat(formatter.format(ctx.log())).isEqualTo("- - \"GET /armeria/log h2c\" - - -");
+
+        logBuilder.responseHeaders(HttpHeaders.of(HttpStatus.OK).contentType(MediaType.PLAIN_TEXT_UTF_8));
+        assertThat(formatter.format(ctx.log()))
+                .isEqualTo("- - \"GET /armeria/log h2c\" 200 - text/plain; charset=utf-8");
+
+        logBuilder.responseLength(1024);
+        logBuilder.endResponse();
+        assertThat(formatter.format(new StringBuilder("> "), ctx.log()).toString())
+                .isEqualTo("> - - \"GET /armeria/log h2c\" 200 1024 text/plain; charset=utf-8");
+    }
+}
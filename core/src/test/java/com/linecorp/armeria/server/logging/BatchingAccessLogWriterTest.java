@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.testing.common.EventLoopRule;
+
+public class BatchingAccessLogWriterTest {
+
+    @ClassRule
+    public static final EventLoopRule eventLoop = new EventLoopRule();
+
+    @Test
+    public void writeInBatches() throws Exception {
+        final ConcurrentLinkedQueue<List<RequestLog>> batches = new ConcurrentLinkedQueue<>();
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(
+                new RecordingWriter(batches), Runnable::run, 4, 16);
+
+        final List<RequestLog> logs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            logs.add(newLog());
+        }
+
+        eventLoop.get().execute(() -> {
+            for (RequestLog log : logs) {
+                try {
+                    writer.log(log);
+                } catch (Exception e) {
+                    throw new Error(e);
+                }
+            }
+        });
+
+        // The first batch is written when full, and the rest after the event loop handles the current task.
+        await().untilAsserted(() -> assertThat(batches).hasSize(2));
+        assertThat(batches).containsExactly(logs.subList(0, 4), logs.subList(4, 6));
+        assertThat(writer.numPendingLogs()).isZero();
+        assertThat(writer.numDroppedLogs()).isZero();
+    }
+
+    @Test
+    public void writeImmediatelyOutsideEventLoop() throws Exception {
+        final ConcurrentLinkedQueue<List<RequestLog>> batches = new ConcurrentLinkedQueue<>();
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(
+                new RecordingWriter(batches), Runnable::run, 4, 16);
+
+        final RequestLog log = newLog();
+        writer.log(log);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.peek()).containsExactly(log);
+    }
+
+    @Test
+    public void dropOnOverflow() throws Exception {
+        final ConcurrentLinkedQueue<List<RequestLog>> batches = new ConcurrentLinkedQueue<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = tasks::add;
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(
+                new RecordingWriter(batches), executor, 1, 2);
+
+        for (int i = 0; i < 5; i++) {
+            writer.log(newLog());
+        }
+        assertThat(writer.numPendingLogs()).isEqualTo(2);
+        assertThat(writer.numDroppedLogs()).isEqualTo(3);
+
+        tasks.forEach(Runnable::run);
+        assertThat(batches).hasSize(2);
+        assertThat(writer.numPendingLogs()).isZero();
+        assertThat(writer.shutdown().isDone()).isTrue();
+    }
+
+    @Test
+    public void shutdownAfterPendingLogsAreWritten() throws Exception {
+        final ConcurrentLinkedQueue<List<RequestLog>> batches = new ConcurrentLinkedQueue<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(
+                new RecordingWriter(batches), tasks::add, 1, 2);
+
+        writer.log(newLog());
+        assertThat(writer.shutdown().isDone()).isFalse();
+
+        tasks.forEach(Runnable::run);
+        assertThat(batches).hasSize(1);
+        assertThat(writer.shutdown().isDone()).isTrue();
+    }
+
+    @Test
+    public void shutdownAfterBatchesAreFlushed() throws Exception {
+        final ConcurrentLinkedQueue<List<RequestLog>> batches = new ConcurrentLinkedQueue<>();
+        final RecordingWriter delegate = new RecordingWriter(batches);
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(delegate, Runnable::run, 4, 16);
+
+        final List<RequestLog> logs = ImmutableList.of(newLog(), newLog());
+        final CompletableFuture<CompletableFuture<Void>> shutdownFuture = new CompletableFuture<>();
+        eventLoop.get().execute(() -> {
+            for (RequestLog log : logs) {
+                try {
+                    writer.log(log);
+                } catch (Exception e) {
+                    throw new Error(e);
+                }
+            }
+            // Shut down before the batch is flushed.
+            shutdownFuture.complete(writer.shutdown());
+        });
+
+        shutdownFuture.join().join();
+        assertThat(batches).containsExactly(logs);
+        assertThat(delegate.numBatchesOnShutdown).isEqualTo(1);
+
+        // The delegate is shut down only once.
+        assertThat(writer.shutdown()).isSameAs(shutdownFuture.join());
+        assertThat(delegate.numShutdowns).hasValue(1);
+    }
+
+    @Test
+    public void writeRemainingLogsAfterFailure() throws Exception {
+        final ConcurrentLinkedQueue<RequestLog> written = new ConcurrentLinkedQueue<>();
+        final AtomicInteger numLogs = new AtomicInteger();
+        final AccessLogWriter delegate = log -> {
+            if (numLogs.getAndIncrement() == 0) {
+                throw new IllegalStateException("failed to write");
+            }
+            written.add(log);
+        };
+        final BatchingAccessLogWriter writer = new BatchingAccessLogWriter(delegate, Runnable::run, 4, 16);
+
+        final List<RequestLog> logs = ImmutableList.of(newLog(), newLog(), newLog());
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        eventLoop.get().execute(() -> {
+            for (RequestLog log : logs) {
+                try {
+                    writer.log(log);
+                } catch (Exception e) {
+                    throw new Error(e);
+                }
+            }
+            future.complete(null);
+        });
+
+        future.join();
+        // The failure of the first log does not lose the rest of the batch.
+        await().untilAsserted(() -> assertThat(written).containsExactly(logs.get(1), logs.get(2)));
+    }
+
+    private static RequestLog newLog() {
+        final RequestContext ctx = mock(RequestContext.class);
+        when(ctx.eventLoop()).thenReturn(eventLoop.get());
+        final RequestLog log = mock(RequestLog.class);
+        when(log.context()).thenReturn(ctx);
+        return log;
+    }
+
+    private static final class RecordingWriter implements AccessLogWriter {
+
+        private final ConcurrentLinkedQueue<List<RequestLog>> batches;
+        final AtomicInteger numShutdowns = new AtomicInteger();
+        volatile int numBatchesOnShutdown = -1;
+
+        RecordingWriter(ConcurrentLinkedQueue<List<RequestLog>> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void log(RequestLog log) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void logAll(List<RequestLog> logs) {
+            batches.add(logs);
+        }
+
+        @Override
+        public CompletableFuture<Void> shutdown() {
+            numShutdowns.incrementAndGet();
+            numBatchesOnShutdown = batches.size();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+public class FileAccessLogWriterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeLines() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("access.log");
+        final FileAccessLogWriter writer = new FileAccessLogWriterBuilder(path).customFormat("%a").build();
+
+        writer.log(newLog("10.0.0.1"));
+        writer.logAll(ImmutableList.of(newLog("10.0.0.2"), newLog("10.0.0.3")));
+        writer.shutdown().join();
+
+        assertThat(Files.readAllLines(path, StandardCharsets.UTF_8))
+                .containsExactly("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        assertThat(writer.numQueuedLines()).isZero();
+        assertThat(writer.numDroppedLines()).isZero();
+
+        // Cannot log anymore after the shutdown.
+        writer.log(newLog("10.0.0.4"));
+        assertThat(writer.numDroppedLines()).isOne();
+    }
+
+    @Test
+    public void rotateBySize() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("access.log");
+        final FileAccessLogWriter writer = new FileAccessLogWriterBuilder(path).customFormat("%a")
+                                                                               .maxFileSizeBytes(20)
+                                                                               .build();
+
+        // Each line is 9 bytes long, so a file can have at most 2 lines.
+        for (int i = 1; i <= 5; i++) {
+            writer.log(newLog("10.0.0." + i));
+            await().until(() -> writer.numQueuedLines() == 0);
+        }
+        writer.shutdown().join();
+
+        final File[] files = folder.getRoot().listFiles();
+        assertThat(files).hasSize(3);
+
+        final List<String> lines = new ArrayList<>();
+        for (File f : files) {
+            final List<String> linesInFile = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+            assertThat(linesInFile.size()).isBetween(1, 2);
+            lines.addAll(linesInFile);
+        }
+        assertThat(lines).containsExactlyInAnyOrder("10.0.0.1", "10.0.0.2", "10.0.0.3",
+                                                     "10.0.0.4", "10.0.0.5");
+        assertThat(Files.readAllLines(path, StandardCharsets.UTF_8)).containsExactly("10.0.0.5");
+    }
+
+    @Test
+    public void releaseQueuedLinesOnFormatFailure() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("access.log");
+        final FileAccessLogWriter writer = new FileAccessLogWriterBuilder(path).customFormat("%a").build();
+
+        final RequestLog log = mock(RequestLog.class);
+        when(log.isAvailable(any(RequestLogAvailability.class))).thenThrow(new IllegalStateException());
+        assertThatThrownBy(() -> writer.log(log)).isInstanceOf(IllegalStateException.class);
+        assertThat(writer.numQueuedLines()).isZero();
+
+        writer.log(newLog("10.0.0.1"));
+        writer.shutdown().join();
+        assertThat(Files.readAllLines(path, StandardCharsets.UTF_8)).containsExactly("10.0.0.1");
+    }
+
+    @Test
+    public void dropLinesQueuedAfterTermination() throws Exception {
+        final Path path = folder.getRoot().toPath().resolve("access.log");
+        final FileAccessLogWriter writer = new FileAccessLogWriterBuilder(path).customFormat("%a").build();
+
+        // Shut down the writer while the log is being formatted, i.e. after the shutdown check of logAll().
+        final RequestLog log = spy(newLog("10.0.0.1"));
+        final AtomicBoolean shutDown = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (shutDown.compareAndSet(false, true)) {
+                writer.shutdown().join();
+            }
+            return invocation.callRealMethod();
+        }).when(log).isAvailable(any(RequestLogAvailability.class));
+
+        writer.log(log);
+        assertThat(shutDown).isTrue();
+        assertThat(writer.numQueuedLines()).isZero();
+        assertThat(writer.numDroppedLines()).isOne();
+        assertThat(path).doesNotExist();
+    }
+
+    private static RequestLog newLog(String clientAddress) throws Exception {
+        return ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/"))
+                                           .clientAddress(InetAddress.getByName(clientAddress))
+                                           .build()
+                                           .log();
+    }
+}
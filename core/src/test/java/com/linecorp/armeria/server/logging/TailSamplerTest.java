@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.internal.logging.BoundTailSamplers;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceConfig;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+public class TailSamplerTest {
+
+    @Test
+    public void keepFailedAndSlowRequests() {
+        final TailSampler sampler = new TailSamplerBuilder().successRate(0.0f)
+                                                            .slowRequestThreshold(Duration.ofSeconds(1))
+                                                            .build();
+
+        assertThat(sampler.isSampled(newLog(HttpStatus.OK, null, 1000))).isFalse();
+        assertThat(sampler.isSampled(newLog(HttpStatus.NOT_FOUND, null, 1000))).isFalse();
+        assertThat(sampler.isSampled(newLog(HttpStatus.OK, null, Duration.ofSeconds(2).toNanos())))
+                .isTrue();
+        assertThat(sampler.isSampled(newLog(HttpStatus.SERVICE_UNAVAILABLE, null, 1000))).isTrue();
+        assertThat(sampler.isSampled(newLog(HttpStatus.OK, new Exception(), 1000))).isTrue();
+    }
+
+    @Test
+    public void dropFailedRequests() {
+        final TailSampler sampler = new TailSamplerBuilder().failureRate(0.0f).build();
+
+        assertThat(sampler.isSampled(newLog(HttpStatus.OK, null, 1000))).isTrue();
+        assertThat(sampler.isSampled(newLog(HttpStatus.INTERNAL_SERVER_ERROR, null, 1000))).isFalse();
+    }
+
+    @Test
+    public void rateLimit() {
+        final TailSampler sampler = new TailSamplerBuilder().maxSampledPerSecond(10).build();
+        final RequestLog log = newLog(HttpStatus.OK, null, 1000);
+
+        int numSampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.isSampled(log)) {
+                numSampled++;
+            }
+        }
+
+        // At most two windows could have been used if the second changed in the middle.
+        assertThat(numSampled).isBetween(10, 20);
+        assertThat(sampler.numRateLimited()).isEqualTo(100 - numSampled);
+    }
+
+    @Test
+    public void successRateForService() {
+        final Server server = new ServerBuilder().service("/foo", (ctx, req) -> HttpResponse.of(200))
+                                                 .service("/bar", (ctx, req) -> HttpResponse.of(200))
+                                                 .build();
+        final TailSampler sampler = new TailSamplerBuilder()
+                .successRate(cfg -> isFoo(cfg) ? 0.0f : null)
+                .build();
+        final RequestLog log = newLog(HttpStatus.OK, null, 1000);
+
+        final List<ServiceConfig> configs = server.config().serviceConfigs();
+        assertThat(configs).hasSize(2);
+        for (ServiceConfig cfg : configs) {
+            assertThat(sampler.forService(cfg).isSampled(log)).isEqualTo(!isFoo(cfg));
+        }
+    }
+
+    @Test
+    public void resolveBoundSamplerForEachService() {
+        final Server server = new ServerBuilder().service("/foo", (ctx, req) -> HttpResponse.of(200))
+                                                 .service("/bar", (ctx, req) -> HttpResponse.of(200))
+                                                 .build();
+        final TailSampler sampler = new TailSamplerBuilder()
+                .successRate(cfg -> isFoo(cfg) ? 0.0f : null)
+                .build();
+        final BoundTailSamplers tailSamplers = new BoundTailSamplers(sampler);
+        final RequestLog log = newLog(HttpStatus.OK, null, 1000);
+
+        // A decorator bound to both services must not use the rate of the service added last.
+        final List<ServiceConfig> configs = server.config().serviceConfigs();
+        configs.forEach(tailSamplers::add);
+        for (ServiceConfig cfg : configs) {
+            final ServiceRequestContext ctx = mock(ServiceRequestContext.class);
+            when(ctx.virtualHost()).thenReturn(cfg.virtualHost());
+            when(ctx.pathMapping()).thenReturn(cfg.pathMapping());
+            assertThat(tailSamplers.get(ctx).isSampled(log)).isEqualTo(!isFoo(cfg));
+        }
+    }
+
+    @Test
+    public void doNotRebindBoundSampler() {
+        final Server server = new ServerBuilder().service("/foo", (ctx, req) -> HttpResponse.of(200))
+                                                 .build();
+        final ServiceConfig cfg = server.config().serviceConfigs().get(0);
+        final TailSampler sampler = new TailSamplerBuilder().build().forService(cfg);
+        assertThatThrownBy(() -> sampler.forService(cfg)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void invalidRate() {
+        assertThatThrownBy(() -> new TailSamplerBuilder().successRate(1.1f))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TailSamplerBuilder().failureRate(0.001f))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TailSamplerBuilder().maxSampledPerSecond(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static boolean isFoo(ServiceConfig cfg) {
+        return "/foo".equals(cfg.pathMapping().exactPath().orElse(null));
+    }
+
+    private static RequestLog newLog(HttpStatus status, @Nullable Throwable cause, long totalDurationNanos) {
+        final RequestLog log = mock(RequestLog.class);
+        when(log.status()).thenReturn(status);
+        when(log.responseCause()).thenReturn(cause);
+        when(log.totalDurationNanos()).thenReturn(totalDurationNanos);
+        return log;
+    }
+}
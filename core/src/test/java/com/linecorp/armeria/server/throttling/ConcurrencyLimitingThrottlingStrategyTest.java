@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.limit.ConcurrencyLimit;
+import com.linecorp.armeria.common.util.EventLoopGroups;
+import com.linecorp.armeria.server.HttpService;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class ConcurrencyLimitingThrottlingStrategyTest {
+
+    private final Queue<CompletableFuture<HttpResponse>> responses = new ConcurrentLinkedQueue<>();
+
+    private final HttpService service = (ctx, req) -> {
+        final CompletableFuture<HttpResponse> f = new CompletableFuture<>();
+        responses.add(f);
+        return HttpResponse.from(f);
+    };
+
+    @Rule
+    public ServerRule serverRule = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/queue", service.decorate(ThrottlingHttpService.newDecorator(
+                    new ConcurrencyLimitingThrottlingStrategy<>(() -> ConcurrencyLimit.fixed(1), 1))));
+
+            // The first request takes longer than the request timeout of the following requests.
+            final AtomicInteger numRequests = new AtomicInteger();
+            sb.service("/slow", service.decorate(ThrottlingHttpService.newDecorator(
+                    new ConcurrencyLimitingThrottlingStrategy<>(() -> ConcurrencyLimit.fixed(1), 1)))
+                                       .decorate((delegate, ctx, req) -> {
+                                           ctx.setRequestTimeoutMillis(
+                                                   numRequests.getAndIncrement() == 0 ? 1000 : 500);
+                                           return delegate.serve(ctx, req);
+                                       }));
+        }
+    };
+
+    // Use a single event loop so that all requests are sent in order via a single connection.
+    private final ClientFactory clientFactory =
+            new ClientFactoryBuilder().workerGroup(EventLoopGroups.newEventLoopGroup(1), true).build();
+
+    @After
+    public void tearDown() {
+        completeAll();
+        clientFactory.close();
+    }
+
+    private void completeAll() {
+        for (;;) {
+            final CompletableFuture<HttpResponse> f = responses.poll();
+            if (f == null) {
+                break;
+            }
+            f.complete(HttpResponse.of(HttpStatus.OK));
+        }
+    }
+
+    @Test
+    public void queueAndReject() throws Exception {
+        final HttpClient client = HttpClient.of(clientFactory, serverRule.uri("/"));
+
+        // The first request is admitted.
+        final CompletableFuture<AggregatedHttpMessage> res1 = client.get("/queue").aggregate();
+        await().until(() -> responses.size() == 1);
+
+        // The second request waits in the queue.
+        final CompletableFuture<AggregatedHttpMessage> res2 = client.get("/queue").aggregate();
+
+        // The third request is rejected because the queue is full.
+        assertThat(client.get("/queue").aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(res2).isNotDone();
+
+        // Complete the first request so that the second request is admitted.
+        responses.poll().complete(HttpResponse.of(HttpStatus.OK));
+        assertThat(res1.join().status()).isEqualTo(HttpStatus.OK);
+        await().until(() -> responses.size() == 1);
+        responses.poll().complete(HttpResponse.of(HttpStatus.OK));
+        assertThat(res2.join().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void probeWhenAverageLatencyIsStale() throws Exception {
+        final HttpClient client = HttpClient.of(clientFactory, serverRule.uri("/"));
+
+        // The first request times out, so the average latency becomes longer than the timeout of the next one.
+        assertThat(client.get("/slow").aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(responses).hasSize(1);
+        responses.poll().complete(HttpResponse.of(HttpStatus.OK));
+
+        // The next request is still admitted because no request is in flight.
+        final CompletableFuture<AggregatedHttpMessage> res = client.get("/slow").aggregate();
+        await().until(() -> responses.size() == 1);
+        responses.poll().complete(HttpResponse.of(HttpStatus.OK));
+        assertThat(res.join().status()).isEqualTo(HttpStatus.OK);
+    }
+}
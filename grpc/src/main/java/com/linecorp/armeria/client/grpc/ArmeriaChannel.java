@@ -16,6 +16,8 @@
 
 package com.linecorp.armeria.client.grpc;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.net.URI;
 
 import javax.annotation.Nullable;
@@ -72,6 +74,7 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
     @Nullable
     private final MessageMarshaller jsonMarshaller;
     private final String advertisedEncodingsHeader;
+    private final int minCompressionSizeBytes;
 
     ArmeriaChannel(ClientBuilderParams params,
                    Client<HttpRequest, HttpResponse> httpClient,
@@ -90,6 +93,10 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
 
         advertisedEncodingsHeader = String.join(
                 ",", DecompressorRegistry.getDefaultInstance().getAdvertisedMessageEncodings());
+
+        minCompressionSizeBytes = options().getOrElse(GrpcClientOptions.MIN_COMPRESSION_SIZE_BYTES, 0);
+        checkArgument(minCompressionSizeBytes >= 0,
+                      "MIN_COMPRESSION_SIZE_BYTES: %s (expected: >= 0)", minCompressionSizeBytes);
     }
 
     @Override
@@ -109,6 +116,7 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
                 method,
                 options().getOrElse(GrpcClientOptions.MAX_OUTBOUND_MESSAGE_SIZE_BYTES,
                                     ArmeriaMessageFramer.NO_MAX_OUTBOUND_MESSAGE_SIZE),
+                minCompressionSizeBytes,
                 options().getOrElse(
                         GrpcClientOptions.MAX_INBOUND_MESSAGE_SIZE_BYTES,
                         options().getOrElse(
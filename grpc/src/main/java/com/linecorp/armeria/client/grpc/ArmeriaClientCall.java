@@ -110,6 +110,7 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
             HttpRequestWriter req,
             MethodDescriptor<I, O> method,
             int maxOutboundMessageSizeBytes,
+            int minCompressionSizeBytes,
             int maxInboundMessageSizeBytes,
             CallOptions callOptions,
             CompressorRegistry compressorRegistry,
@@ -127,7 +128,8 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
         this.decompressorRegistry = decompressorRegistry;
         this.unsafeWrapResponseBuffers = unsafeWrapResponseBuffers;
         this.advertisedEncodingsHeader = advertisedEncodingsHeader;
-        messageFramer = new ArmeriaMessageFramer(ctx.alloc(), maxOutboundMessageSizeBytes);
+        messageFramer = new ArmeriaMessageFramer(ctx.alloc(), maxOutboundMessageSizeBytes,
+                                                 minCompressionSizeBytes);
         marshaller = new GrpcMessageMarshaller<>(
                 ctx.alloc(), serializationFormat, method, jsonMarshaller,
                 unsafeWrapResponseBuffers);
@@ -243,7 +245,7 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
                 ctx.logBuilder().requestContent(GrpcLogUtil.rpcRequest(method, message), null);
             }
             final ByteBuf serialized = marshaller.serializeRequest(message);
-            req.write(messageFramer.writePayload(serialized));
+            req.write(messageFramer.writePayload(serialized, marshaller.isRequestFrameHeaderReserved()));
             req.onDemand(() -> {
                 if (pendingMessagesUpdater.decrementAndGet(this) == 0) {
                     try (SafeCloseable ignored = ctx.push()) {
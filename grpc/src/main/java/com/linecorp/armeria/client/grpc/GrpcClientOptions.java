@@ -39,6 +39,14 @@ public final class GrpcClientOptions {
     public static final ClientOption<Integer> MAX_OUTBOUND_MESSAGE_SIZE_BYTES = ClientOption.valueOf(
             "MAX_OUTBOUND_MESSAGE_SIZE_BYTES");
 
+    /**
+     * The minimum size, in bytes, of messages sent in a request to compress. Messages smaller than this are
+     * sent uncompressed even if a compressor is specified in {@link io.grpc.CallOptions}. If not set, all
+     * messages are compressed when a compressor is specified.
+     */
+    public static final ClientOption<Integer> MIN_COMPRESSION_SIZE_BYTES = ClientOption.valueOf(
+            "MIN_COMPRESSION_SIZE_BYTES");
+
     /**
      * Enables unsafe retention of response buffers. Can improve performance when working with very large
      * (i.e., several megabytes) payloads.
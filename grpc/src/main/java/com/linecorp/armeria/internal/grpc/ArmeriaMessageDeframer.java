@@ -91,8 +91,9 @@ public class ArmeriaMessageDeframer implements AutoCloseable {
 
     /**
      * A deframed message. For uncompressed messages, we have the entire buffer available and return it
-     * as is in {@code buf} to optimize parsing. For compressed messages, we will parse incrementally
-     * and thus return a {@link InputStream} in {@code stream}.
+     * as is in {@code buf} to optimize parsing. Messages compressed with gzip are decompressed into
+     * {@code buf} as well. For messages compressed with other codecs, we will parse incrementally and thus
+     * return a {@link InputStream} in {@code stream}.
      */
     public static class ByteBufOrStream {
         @Nullable
@@ -502,6 +503,25 @@ public class ArmeriaMessageDeframer implements AutoCloseable {
                                  .asRuntimeException();
         }
 
+        if (PooledGzipCodec.isGzip(decompressor)) {
+            // Decompress into a pooled buffer, so that the message is parsed from the buffer.
+            final ByteBuf decompressed;
+            boolean success = false;
+            try {
+                decompressed = PooledGzipCodec.decompress(alloc, buf, maxMessageSizeBytes, DEBUG_STRING);
+                success = true;
+            } finally {
+                if (!success) {
+                    buf.release();
+                }
+            }
+            if (decompressed != null) {
+                buf.release();
+                return new ByteBufOrStream(decompressed);
+            }
+            // Fall back to the stream, which supports all gzip headers.
+        }
+
         try {
             // Enforce the maxMessageSizeBytes limit on the returned stream.
             final InputStream unlimitedStream =
@@ -46,6 +46,7 @@
 
 package com.linecorp.armeria.internal.grpc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -78,12 +79,18 @@ public class ArmeriaMessageFramer implements AutoCloseable {
 
     public static final int NO_MAX_OUTBOUND_MESSAGE_SIZE = -1;
 
-    private static final int HEADER_LENGTH = 5;
+    /**
+     * The length of the header of a gRPC frame, which consists of the compressed flag and the length of
+     * the message.
+     */
+    public static final int HEADER_LENGTH = 5;
+
     private static final byte UNCOMPRESSED = 0;
     private static final byte COMPRESSED = 1;
 
     private final ByteBufAllocator alloc;
     private final int maxOutboundMessageSize;
+    private final int minCompressionSizeBytes;
 
     private boolean messageCompression;
     @Nullable
@@ -91,8 +98,20 @@ public class ArmeriaMessageFramer implements AutoCloseable {
     private boolean closed;
 
     public ArmeriaMessageFramer(ByteBufAllocator alloc, int maxOutboundMessageSize) {
+        this(alloc, maxOutboundMessageSize, 0);
+    }
+
+    /**
+     * Creates a new instance which does not compress a message smaller than
+     * {@code minCompressionSizeBytes}, even if message compression is enabled.
+     */
+    public ArmeriaMessageFramer(ByteBufAllocator alloc, int maxOutboundMessageSize,
+                                int minCompressionSizeBytes) {
+        checkArgument(minCompressionSizeBytes >= 0,
+                      "minCompressionSizeBytes: %s (expected: >= 0)", minCompressionSizeBytes);
         this.alloc = requireNonNull(alloc, "alloc");
         this.maxOutboundMessageSize = maxOutboundMessageSize;
+        this.minCompressionSizeBytes = minCompressionSizeBytes;
     }
 
     /**
@@ -103,15 +122,34 @@ public class ArmeriaMessageFramer implements AutoCloseable {
      * @return a {@link ByteBufHttpData} with the framed payload. Ownership is passed to caller.
      */
     public ByteBufHttpData writePayload(ByteBuf message) {
+        return writePayload(message, false);
+    }
+
+    /**
+     * Writes out a payload message.
+     *
+     * <p>If {@code headerReserved} is {@code true} and the message is not compressed, the header is written
+     * into the {@link #HEADER_LENGTH} bytes before the reader index of the message so that the message is
+     * framed without any copy or composition. A message compressed with gzip is framed in the same way.
+     *
+     * @param message the message to be written out. Ownership is taken by {@link ArmeriaMessageFramer}.
+     * @param headerReserved whether the {@link #HEADER_LENGTH} bytes before the reader index of
+     *                       the {@code message} are reserved for the header, e.g. by
+     *                       {@link GrpcMessageMarshaller}. Must be {@code false} if the bytes belong to
+     *                       anything else.
+     *
+     * @return a {@link ByteBufHttpData} with the framed payload. Ownership is passed to caller.
+     */
+    public ByteBufHttpData writePayload(ByteBuf message, boolean headerReserved) {
         verifyNotClosed();
         final boolean compressed = messageCompression && compressor != Codec.Identity.NONE;
         final int messageLength = message.readableBytes();
         try {
             final ByteBuf buf;
-            if (messageLength != 0 && compressed) {
+            if (messageLength != 0 && messageLength >= minCompressionSizeBytes && compressed) {
                 buf = writeCompressed(message);
             } else {
-                buf = writeUncompressed(message);
+                buf = writeUncompressed(message, headerReserved);
             }
             return new ByteBufHttpData(buf, false);
         } catch (IOException | RuntimeException e) {
@@ -132,6 +170,17 @@ public class ArmeriaMessageFramer implements AutoCloseable {
     }
 
     private ByteBuf writeCompressed(ByteBuf message) throws IOException {
+        if (PooledGzipCodec.isGzip(compressor)) {
+            final ByteBuf compressed;
+            try {
+                compressed = PooledGzipCodec.compress(alloc, message, HEADER_LENGTH);
+            } finally {
+                message.release();
+            }
+            // The codec reserves the space for the header.
+            return write(compressed, true, true);
+        }
+
         final CompositeByteBuf compressed = alloc.compositeBuffer();
         try (OutputStream compressingStream = compressor.compress(new ByteBufOutputStream(compressed))) {
             compressingStream.write(ByteBufUtil.getBytes(message));
@@ -139,14 +188,14 @@ public class ArmeriaMessageFramer implements AutoCloseable {
             message.release();
         }
 
-        return write(compressed, true);
+        return write(compressed, true, false);
     }
 
-    private ByteBuf writeUncompressed(ByteBuf message) {
-        return write(message, false);
+    private ByteBuf writeUncompressed(ByteBuf message, boolean headerReserved) {
+        return write(message, false, headerReserved);
     }
 
-    private ByteBuf write(ByteBuf message, boolean compressed) {
+    private ByteBuf write(ByteBuf message, boolean compressed, boolean headerReserved) {
         final int messageLength = message.readableBytes();
         if (maxOutboundMessageSize >= 0 && messageLength > maxOutboundMessageSize) {
             message.release();
@@ -157,6 +206,13 @@ public class ArmeriaMessageFramer implements AutoCloseable {
                     .asRuntimeException();
         }
 
+        if (headerReserved) {
+            final int headerIndex = message.readerIndex() - HEADER_LENGTH;
+            message.setByte(headerIndex, compressed ? COMPRESSED : UNCOMPRESSED);
+            message.setInt(headerIndex + 1, messageLength);
+            return message.readerIndex(headerIndex);
+        }
+
         // Here comes some heuristics.
         // TODO(trustin): Consider making this configurable.
         if (messageLength <= 128) {
@@ -21,12 +21,16 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
 import org.curioswitch.common.protobuf.json.MessageMarshaller;
 
 import com.google.common.io.ByteStreams;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -46,7 +50,6 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.CompositeByteBuf;
-import io.netty.buffer.Unpooled;
 
 /**
  * Marshaller for gRPC method request or response messages to and from {@link ByteBuf}. Will attempt to use
@@ -66,6 +69,8 @@ public class GrpcMessageMarshaller<I, O> {
     private final MessageMarshaller jsonMarshaller;
     private final MessageType requestType;
     private final MessageType responseType;
+    private final boolean requestFrameHeaderReserved;
+    private final boolean responseFrameHeaderReserved;
     private final boolean unsafeWrapDeserializedBuffer;
 
     public GrpcMessageMarshaller(ByteBufAllocator alloc,
@@ -82,6 +87,27 @@ public class GrpcMessageMarshaller<I, O> {
         this.jsonMarshaller = jsonMarshaller;
         requestType = marshallerType(method.getRequestMarshaller());
         responseType = marshallerType(method.getResponseMarshaller());
+        final boolean proto = GrpcSerializationFormats.isProto(serializationFormat);
+        requestFrameHeaderReserved = proto && requestType == MessageType.PROTOBUF;
+        responseFrameHeaderReserved = proto && responseType == MessageType.PROTOBUF;
+    }
+
+    /**
+     * Returns whether the {@link ByteBuf}s returned by {@link #serializeRequest(Object)} have
+     * {@link ArmeriaMessageFramer#HEADER_LENGTH} bytes reserved before their reader index, so that
+     * {@link ArmeriaMessageFramer#writePayload(ByteBuf, boolean)} can write the header in place.
+     */
+    public boolean isRequestFrameHeaderReserved() {
+        return requestFrameHeaderReserved;
+    }
+
+    /**
+     * Returns whether the {@link ByteBuf}s returned by {@link #serializeResponse(Object)} have
+     * {@link ArmeriaMessageFramer#HEADER_LENGTH} bytes reserved before their reader index, so that
+     * {@link ArmeriaMessageFramer#writePayload(ByteBuf, boolean)} can write the header in place.
+     */
+    public boolean isResponseFrameHeaderReserved() {
+        return responseFrameHeaderReserved;
     }
 
     public ByteBuf serializeRequest(I message) throws IOException {
@@ -171,14 +197,15 @@ public class GrpcMessageMarshaller<I, O> {
     private ByteBuf serializeProto(Message message) throws IOException {
         if (GrpcSerializationFormats.isProto(serializationFormat)) {
             final int serializedSize = message.getSerializedSize();
-            if (serializedSize == 0) {
-                return Unpooled.EMPTY_BUFFER;
-            }
-            final ByteBuf buf = alloc.buffer(serializedSize);
+            // Reserve the space for the header so that ArmeriaMessageFramer does not need to prepend it.
+            // Note that the space is reserved even for an empty message, as promised by
+            // isRequestFrameHeaderReserved() and isResponseFrameHeaderReserved().
+            final int headerLength = ArmeriaMessageFramer.HEADER_LENGTH;
+            final ByteBuf buf = alloc.buffer(headerLength + serializedSize);
             boolean success = false;
             try {
-                message.writeTo(CodedOutputStream.newInstance(buf.nioBuffer(0, serializedSize)));
-                buf.writerIndex(serializedSize);
+                message.writeTo(CodedOutputStream.newInstance(buf.nioBuffer(headerLength, serializedSize)));
+                buf.setIndex(headerLength, headerLength + serializedSize);
                 success = true;
             } finally {
                 if (!success) {
@@ -210,7 +237,13 @@ public class GrpcMessageMarshaller<I, O> {
                 return prototype.getDefaultInstanceForType();
             }
             final CodedInputStream stream;
-            if (unsafeWrapDeserializedBuffer) {
+            if (buf.nioBufferCount() > 1) {
+                // The message spans several buffers, e.g. a CompositeByteBuf of the received buffers.
+                // Read them in place rather than from the single copy which nioBuffer() would make.
+                // Note that the parsed message cannot alias them, because a concatenated ByteString is
+                // read as a stream.
+                stream = concat(buf.nioBuffers()).newCodedInput();
+            } else if (unsafeWrapDeserializedBuffer) {
                 stream = UnsafeByteOperations.unsafeWrap(buf.nioBuffer()).newCodedInput();
                 stream.enableAliasing(true);
             } else {
@@ -241,6 +274,14 @@ public class GrpcMessageMarshaller<I, O> {
         throw new IllegalStateException("Unknown serialization format: " + serializationFormat);
     }
 
+    private static ByteString concat(ByteBuffer[] buffers) {
+        final List<ByteString> byteStrings = new ArrayList<>(buffers.length);
+        for (ByteBuffer buffer : buffers) {
+            byteStrings.add(UnsafeByteOperations.unsafeWrap(buffer));
+        }
+        return ByteString.copyFrom(byteStrings);
+    }
+
     private static MessageType marshallerType(Marshaller<?> marshaller) {
         return marshaller instanceof PrototypeMarshaller ? MessageType.PROTOBUF : MessageType.UNKNOWN;
     }
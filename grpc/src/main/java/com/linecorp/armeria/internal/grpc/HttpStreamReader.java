@@ -79,7 +79,16 @@ public class HttpStreamReader implements Subscriber<HttpObject>, BiFunction<Void
             deferredInitialMessageRequest += numMessages;
             return;
         }
-        deframer.request(numMessages);
+        try {
+            deframer.request(numMessages);
+        } catch (Throwable cause) {
+            try {
+                transportStatusListener.transportReportStatus(Status.fromThrowable(cause));
+                return;
+            } finally {
+                deframer.close();
+            }
+        }
         requestHttpFrame();
     }
 
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.grpc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+import io.grpc.Codec;
+import io.grpc.Status;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Compresses and decompresses gRPC messages in the gzip format from and to pooled {@link ByteBuf}s, as
+ * {@link Codec.Gzip} does over streams. The {@link Deflater} and {@link Inflater} are reused by each thread,
+ * i.e. each event loop, rather than being created for each message.
+ */
+final class PooledGzipCodec {
+
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final byte[] GZIP_HEADER = gzipHeader();
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int CHUNK_LENGTH = 8192;
+
+    private static final FastThreadLocal<PooledGzipCodec> codecs = new FastThreadLocal<PooledGzipCodec>() {
+        @Override
+        protected PooledGzipCodec initialValue() {
+            return new PooledGzipCodec();
+        }
+
+        @Override
+        protected void onRemoval(PooledGzipCodec codec) {
+            codec.deflater.end();
+            codec.inflater.end();
+        }
+    };
+
+    private static byte[] gzipHeader() {
+        // Use the same header as GZIPOutputStream, which is used by Codec.Gzip, whose operating system
+        // field differs between JDK versions.
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new GZIPOutputStream(out).close();
+        } catch (IOException e) {
+            throw new Error(e);
+        }
+        return Arrays.copyOf(out.toByteArray(), GZIP_HEADER_LENGTH);
+    }
+
+    /**
+     * Returns whether the specified {@link Codec} can be replaced with this codec.
+     */
+    static boolean isGzip(Object codec) {
+        return codec instanceof Codec.Gzip;
+    }
+
+    /**
+     * Compresses the readable bytes of the specified {@link ByteBuf} into a new {@link ByteBuf} which has
+     * {@code headroom} bytes reserved before its reader index. The specified {@link ByteBuf} is not released.
+     */
+    static ByteBuf compress(ByteBufAllocator alloc, ByteBuf message, int headroom) {
+        return codecs.get().doCompress(alloc, message, headroom);
+    }
+
+    /**
+     * Decompresses the readable bytes of the specified {@link ByteBuf} into a new {@link ByteBuf}.
+     * The specified {@link ByteBuf} is not released.
+     *
+     * @return the decompressed {@link ByteBuf}, or {@code null} if the gzip header has optional fields
+     *         which are not supported by this codec
+     */
+    @Nullable
+    static ByteBuf decompress(ByteBufAllocator alloc, ByteBuf compressed, int maxMessageSizeBytes,
+                              String debugString) {
+        return codecs.get().doDecompress(alloc, compressed, maxMessageSizeBytes, debugString);
+    }
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[CHUNK_LENGTH];
+    private final byte[] probe = new byte[1];
+
+    private PooledGzipCodec() {}
+
+    private ByteBuf doCompress(ByteBufAllocator alloc, ByteBuf message, int headroom) {
+        final int length = message.readableBytes();
+        // The deflate output of incompressible data is a little larger than the input.
+        final int estimatedLength = headroom + GZIP_HEADER_LENGTH + length + (length >>> 12) + 64 +
+                                    GZIP_TRAILER_LENGTH;
+        final ByteBuf out = alloc.heapBuffer(estimatedLength);
+        boolean success = false;
+        try {
+            out.setIndex(headroom, headroom);
+            out.writeBytes(GZIP_HEADER);
+
+            if (message.hasArray()) {
+                deflate(out, message.array(), message.arrayOffset() + message.readerIndex(), length);
+            } else {
+                // Copy a chunk at a time so that a direct or composite buffer is not copied as a whole.
+                final int readerIndex = message.readerIndex();
+                for (int i = 0; i < length; i += CHUNK_LENGTH) {
+                    final int chunkLength = Math.min(CHUNK_LENGTH, length - i);
+                    message.getBytes(readerIndex + i, chunk, 0, chunkLength);
+                    deflate(out, chunk, 0, chunkLength);
+                }
+            }
+
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflateOnce(out);
+            }
+
+            out.writeIntLE((int) crc.getValue());
+            out.writeIntLE(length);
+            success = true;
+            return out;
+        } finally {
+            deflater.reset();
+            crc.reset();
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    private void deflate(ByteBuf out, byte[] input, int offset, int length) {
+        crc.update(input, offset, length);
+        deflater.setInput(input, offset, length);
+        while (!deflater.needsInput()) {
+            deflateOnce(out);
+        }
+    }
+
+    private void deflateOnce(ByteBuf out) {
+        if (!out.isWritable()) {
+            out.ensureWritable(CHUNK_LENGTH);
+        }
+        final int writerIndex = out.writerIndex();
+        final int numBytes = deflater.deflate(out.array(), out.arrayOffset() + writerIndex,
+                                              out.writableBytes());
+        out.writerIndex(writerIndex + numBytes);
+    }
+
+    @Nullable
+    private ByteBuf doDecompress(ByteBufAllocator alloc, ByteBuf compressed, int maxMessageSizeBytes,
+                                 String debugString) {
+        final int readerIndex = compressed.readerIndex();
+        final int length = compressed.readableBytes();
+        if (length < GZIP_HEADER_LENGTH + GZIP_TRAILER_LENGTH ||
+            compressed.getUnsignedByte(readerIndex) != 0x1f ||
+            compressed.getUnsignedByte(readerIndex + 1) != 0x8b ||
+            compressed.getByte(readerIndex + 2) != Deflater.DEFLATED) {
+            throw invalidFrame(debugString, null);
+        }
+        if (compressed.getByte(readerIndex + 3) != 0) {
+            // Has the optional fields such as the file name.
+            return null;
+        }
+
+        final int bodyIndex = readerIndex + GZIP_HEADER_LENGTH;
+        final int bodyLength = length - GZIP_HEADER_LENGTH - GZIP_TRAILER_LENGTH;
+        final int expectedCrc = compressed.getIntLE(bodyIndex + bodyLength);
+        final int expectedLength = compressed.getIntLE(bodyIndex + bodyLength + 4);
+
+        // The length in the trailer is only a hint because it may be forged. Note that deflate cannot
+        // compress data more than about 1032 times.
+        final long maxExpectedLength = Math.min(maxMessageSizeBytes, bodyLength * 1032L);
+        final int initialCapacity = expectedLength >= 0 && expectedLength <= maxExpectedLength ? expectedLength
+                                                                                              : bodyLength;
+        final ByteBuf out = alloc.heapBuffer(Math.max(initialCapacity, 64));
+        boolean success = false;
+        try {
+            if (compressed.hasArray()) {
+                inflate(out, compressed.array(), compressed.arrayOffset() + bodyIndex, bodyLength,
+                        maxMessageSizeBytes, debugString);
+            } else {
+                for (int i = 0; i < bodyLength && !inflater.finished(); i += CHUNK_LENGTH) {
+                    final int chunkLength = Math.min(CHUNK_LENGTH, bodyLength - i);
+                    compressed.getBytes(bodyIndex + i, chunk, 0, chunkLength);
+                    inflate(out, chunk, 0, chunkLength, maxMessageSizeBytes, debugString);
+                }
+            }
+
+            if (!inflater.finished() || inflater.getBytesRead() != bodyLength) {
+                // Truncated, or followed by another gzip member which is not supported by this codec.
+                return null;
+            }
+            if (expectedLength != out.readableBytes()) {
+                throw invalidFrame(debugString, null);
+            }
+            crc.update(out.array(), out.arrayOffset() + out.readerIndex(), out.readableBytes());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw invalidFrame(debugString, null);
+            }
+            success = true;
+            return out;
+        } catch (DataFormatException e) {
+            throw invalidFrame(debugString, e);
+        } finally {
+            inflater.reset();
+            crc.reset();
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    private void inflate(ByteBuf out, byte[] input, int offset, int length,
+                         int maxMessageSizeBytes, String debugString) throws DataFormatException {
+        inflater.setInput(input, offset, length);
+        for (;;) {
+            final int writerIndex = out.writerIndex();
+            final int numBytes;
+            if (writerIndex >= maxMessageSizeBytes) {
+                // Check if there is more output beyond the limit.
+                numBytes = inflater.inflate(probe);
+                if (numBytes > 0) {
+                    throw Status.RESOURCE_EXHAUSTED.withDescription(String.format(
+                            "%s: Compressed frame exceeds maximum frame size: %d. Bytes read: %d. ",
+                            debugString, maxMessageSizeBytes, (long) writerIndex + 1)).asRuntimeException();
+                }
+            } else {
+                if (!out.isWritable()) {
+                    out.ensureWritable(Math.min(Math.max(writerIndex, CHUNK_LENGTH),
+                                                maxMessageSizeBytes - writerIndex));
+                }
+                final int maxLength = Math.min(out.writableBytes(), maxMessageSizeBytes - writerIndex);
+                numBytes = inflater.inflate(out.array(), out.arrayOffset() + writerIndex, maxLength);
+                out.writerIndex(writerIndex + numBytes);
+            }
+
+            if (numBytes == 0) {
+                // Note that the inflater may have pending output even if it needs more input, so check this
+                // only when there was no output.
+                if (inflater.finished() || inflater.needsInput()) {
+                    return;
+                }
+                // Needs a preset dictionary, which is not allowed in gzip.
+                throw invalidFrame(debugString, null);
+            }
+        }
+    }
+
+    private static RuntimeException invalidFrame(String debugString, @Nullable Throwable cause) {
+        return Status.INTERNAL.withDescription(debugString + ": Invalid gzip compressed frame")
+                              .withCause(cause).asRuntimeException();
+    }
+}
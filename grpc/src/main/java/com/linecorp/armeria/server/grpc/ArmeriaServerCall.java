@@ -27,6 +27,7 @@ import java.io.UncheckedIOException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.annotation.Nullable;
@@ -146,6 +147,7 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
                       HttpResponseWriter res,
                       int maxInboundMessageSizeBytes,
                       int maxOutboundMessageSizeBytes,
+                      int minCompressionSizeBytes,
                       ServiceRequestContext ctx,
                       SerializationFormat serializationFormat,
                       @Nullable MessageMarshaller jsonMarshaller,
@@ -165,7 +167,8 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
                         ctx.alloc())
                         .decompressor(clientDecompressor(clientHeaders, decompressorRegistry)),
                 this);
-        messageFramer = new ArmeriaMessageFramer(ctx.alloc(), maxOutboundMessageSizeBytes);
+        messageFramer = new ArmeriaMessageFramer(ctx.alloc(), maxOutboundMessageSizeBytes,
+                                                 minCompressionSizeBytes);
         this.res = requireNonNull(res, "res");
         this.compressorRegistry = requireNonNull(compressorRegistry, "compressorRegistry");
         clientAcceptEncoding =
@@ -256,14 +259,11 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
         }
 
         try {
-            res.write(messageFramer.writePayload(marshaller.serializeResponse(message)));
+            res.write(messageFramer.writePayload(marshaller.serializeResponse(message),
+                                                 marshaller.isResponseFrameHeaderReserved()));
             res.onDemand(() -> {
                 if (pendingMessagesUpdater.decrementAndGet(this) == 0) {
-                    if (useBlockingTaskExecutor) {
-                        ctx.blockingTaskExecutor().execute(this::invokeOnReady);
-                    } else {
-                        invokeOnReady();
-                    }
+                    invokeListener(this::invokeOnReady);
                 }
             });
         } catch (RuntimeException e) {
@@ -394,11 +394,7 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
             GrpcUnsafeBufferUtil.storeBuffer(message.buf(), request, ctx);
         }
 
-        if (useBlockingTaskExecutor) {
-            ctx.blockingTaskExecutor().execute(() -> invokeOnMessage(request));
-        } else {
-            invokeOnMessage(request);
-        }
+        invokeListener(() -> invokeOnMessage(request));
     }
 
     private void invokeOnMessage(I request) {
@@ -417,11 +413,7 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
                 ctx.logBuilder().requestContent(GrpcLogUtil.rpcRequest(method), null);
             }
 
-            if (useBlockingTaskExecutor) {
-                ctx.blockingTaskExecutor().execute(this::invokeHalfClose);
-            } else {
-                invokeHalfClose();
-            }
+            invokeListener(this::invokeHalfClose);
         }
     }
 
@@ -452,18 +444,10 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
             messageFramer.close();
             ctx.logBuilder().responseContent(GrpcLogUtil.rpcResponse(newStatus, firstResponse), null);
             if (newStatus.isOk()) {
-                if (useBlockingTaskExecutor) {
-                    ctx.blockingTaskExecutor().execute(this::invokeOnComplete);
-                } else {
-                    invokeOnComplete();
-                }
+                invokeListenerOnClose(this::invokeOnComplete);
             } else {
                 cancelled = true;
-                if (useBlockingTaskExecutor) {
-                    ctx.blockingTaskExecutor().execute(this::invokeOnCancel);
-                } else {
-                    invokeOnCancel();
-                }
+                invokeListenerOnClose(this::invokeOnCancel);
                 // Transport error, not business logic error, so reset the stream.
                 if (!closeCalled) {
                     final StatusException statusException = newStatus.asException();
@@ -478,6 +462,47 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
         }
     }
 
+    /**
+     * Invokes the {@link ServerCall.Listener} with the specified task, in the blocking task executor if
+     * {@code useBlockingTaskExecutor} is enabled. The call is closed with {@link Status#UNAVAILABLE} if
+     * the executor rejects the task, e.g. because the queue of a
+     * {@link com.linecorp.armeria.server.BoundedBlockingTaskExecutor} is full.
+     */
+    private void invokeListener(Runnable task) {
+        if (!useBlockingTaskExecutor) {
+            task.run();
+            return;
+        }
+
+        try {
+            ctx.blockingTaskExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            if (!closeCalled) {
+                close(Status.UNAVAILABLE.withDescription("Rejected by the blocking task executor")
+                                        .withCause(e), EMPTY_METADATA);
+            }
+        }
+    }
+
+    /**
+     * Notifies the {@link ServerCall.Listener} that the call has been closed with the specified task.
+     * Unlike {@link #invokeListener(Runnable)}, the task is run in the current thread if the blocking task
+     * executor rejects it, because the call cannot be closed anymore and the listener must be notified
+     * to release its resources.
+     */
+    private void invokeListenerOnClose(Runnable task) {
+        if (!useBlockingTaskExecutor) {
+            task.run();
+            return;
+        }
+
+        try {
+            ctx.blockingTaskExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
     private void invokeOnComplete() {
         try (SafeCloseable ignored = ctx.push()) {
             listener.onComplete();
@@ -89,6 +89,7 @@ public final class GrpcService extends AbstractHttpService
     private final Set<SerializationFormat> supportedSerializationFormats;
     @Nullable private final MessageMarshaller jsonMarshaller;
     private final int maxOutboundMessageSizeBytes;
+    private final int minCompressionSizeBytes;
     private final boolean useBlockingTaskExecutor;
     private final boolean unsafeWrapRequestBuffers;
     private final String advertisedEncodingsHeader;
@@ -101,6 +102,7 @@ public final class GrpcService extends AbstractHttpService
                 CompressorRegistry compressorRegistry,
                 Set<SerializationFormat> supportedSerializationFormats,
                 int maxOutboundMessageSizeBytes,
+                int minCompressionSizeBytes,
                 boolean useBlockingTaskExecutor,
                 boolean unsafeWrapRequestBuffers,
                 int maxInboundMessageSizeBytes) {
@@ -111,6 +113,7 @@ public final class GrpcService extends AbstractHttpService
         this.supportedSerializationFormats = supportedSerializationFormats;
         jsonMarshaller = jsonMarshaller(registry, supportedSerializationFormats);
         this.maxOutboundMessageSizeBytes = maxOutboundMessageSizeBytes;
+        this.minCompressionSizeBytes = minCompressionSizeBytes;
         this.useBlockingTaskExecutor = useBlockingTaskExecutor;
         this.unsafeWrapRequestBuffers = unsafeWrapRequestBuffers;
         this.maxInboundMessageSizeBytes = maxInboundMessageSizeBytes;
@@ -186,6 +189,7 @@ public final class GrpcService extends AbstractHttpService
                 res,
                 maxInboundMessageSizeBytes,
                 maxOutboundMessageSizeBytes,
+                minCompressionSizeBytes,
                 ctx,
                 serializationFormat,
                 jsonMarshaller,
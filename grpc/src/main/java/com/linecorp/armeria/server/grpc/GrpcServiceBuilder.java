@@ -69,6 +69,8 @@ public final class GrpcServiceBuilder {
 
     private int maxOutboundMessageSizeBytes = ArmeriaMessageFramer.NO_MAX_OUTBOUND_MESSAGE_SIZE;
 
+    private int minCompressionSizeBytes;
+
     private boolean enableUnframedRequests;
 
     private boolean useBlockingTaskExecutor;
@@ -179,6 +181,18 @@ public final class GrpcServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the minimum size in bytes of an outgoing message to compress. A message smaller than this is sent
+     * uncompressed even if message compression is enabled, because compressing a tiny message costs more than
+     * it saves. If not set, all messages are compressed when message compression is enabled.
+     */
+    public GrpcServiceBuilder minCompressionSizeBytes(int minCompressionSizeBytes) {
+        checkArgument(minCompressionSizeBytes >= 0,
+                      "minCompressionSizeBytes: %s (expected: >= 0)", minCompressionSizeBytes);
+        this.minCompressionSizeBytes = minCompressionSizeBytes;
+        return this;
+    }
+
     /**
      * Sets whether the service handles requests not framed using the gRPC wire protocol. Such requests should
      * only have the serialized message as the request content, and the response content will only have the
@@ -254,6 +268,7 @@ public final class GrpcServiceBuilder {
                 firstNonNull(compressorRegistry, CompressorRegistry.getDefaultInstance()),
                 supportedSerializationFormats,
                 maxOutboundMessageSizeBytes,
+                minCompressionSizeBytes,
                 useBlockingTaskExecutor,
                 unsafeWrapRequestBuffers,
                 maxInboundMessageSizeBytes);
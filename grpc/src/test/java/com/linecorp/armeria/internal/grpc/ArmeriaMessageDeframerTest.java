@@ -46,6 +46,7 @@ import com.linecorp.armeria.grpc.testing.Messages.SimpleRequest;
 import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer.ByteBufOrStream;
 
 import io.grpc.Codec.Gzip;
+import io.grpc.Status.Code;
 import io.grpc.StatusRuntimeException;
 import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
@@ -183,6 +184,33 @@ public class ArmeriaMessageDeframerTest {
         verify(listener).messageRead(messageCaptor.capture());
         verifyNoMoreInteractions(listener);
         final ByteBufOrStream message = messageCaptor.getValue();
+        // Decompressed into a buffer rather than a stream.
+        assertThat(message.buf()).isNotNull();
+        assertThat(ByteBufUtil.getBytes(message.buf())).isEqualTo(GrpcTestUtil.REQUEST_MESSAGE.toByteArray());
+        message.buf().release();
+    }
+
+    @Test
+    public void deframe_compressedWithOptionalHeaderFields() throws Exception {
+        // Add the file name field to the gzip header, which is not supported by the pooled codec.
+        final byte[] frame = GrpcTestUtil.compressedFrame(GrpcTestUtil.requestByteBuf());
+        final byte[] fileName = { 'a', 0 };
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(1);
+        buf.writeInt(frame.length - 5 + fileName.length);
+        buf.writeBytes(frame, 5, 3);
+        buf.writeByte(0x08); // FNAME
+        buf.writeBytes(frame, 9, 6);
+        buf.writeBytes(fileName);
+        buf.writeBytes(frame, 15, frame.length - 15);
+
+        deframer.request(1);
+        deframer.deframe(HttpData.of(ByteBufUtil.getBytes(buf)), false);
+        buf.release();
+        final ArgumentCaptor<ByteBufOrStream> messageCaptor = ArgumentCaptor.forClass(ByteBufOrStream.class);
+        verify(listener).messageRead(messageCaptor.capture());
+        verifyNoMoreInteractions(listener);
+        final ByteBufOrStream message = messageCaptor.getValue();
         assertThat(message.stream()).isNotNull();
         final byte[] messageBytes;
         try (InputStream stream = message.stream()) {
@@ -217,14 +245,11 @@ public class ArmeriaMessageDeframerTest {
         final byte[] frame = GrpcTestUtil.compressedFrame(Unpooled.wrappedBuffer(request.toByteArray()));
         assertThat(frame.length).isLessThan(1024);
         deframer.request(1);
-        deframer.deframe(HttpData.of(frame), false);
-        final ArgumentCaptor<ByteBufOrStream> messageCaptor = ArgumentCaptor.forClass(ByteBufOrStream.class);
-        verify(listener).messageRead(messageCaptor.capture());
-        verifyNoMoreInteractions(listener);
-        try (InputStream stream = messageCaptor.getValue().stream()) {
-            assertThatThrownBy(() -> ByteStreams.toByteArray(stream))
-                    .isInstanceOf(StatusRuntimeException.class);
-        }
+        assertThatThrownBy(() -> deframer.deframe(HttpData.of(frame), false))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                    assertThat(e.getStatus().getCode()).isEqualTo(Code.RESOURCE_EXHAUSTED);
+                });
+        verifyZeroInteractions(listener);
     }
 
     private void verifyAndReleaseMessage(ByteBufOrStream message) {
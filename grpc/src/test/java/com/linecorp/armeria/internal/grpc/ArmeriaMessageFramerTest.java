@@ -35,6 +35,8 @@ import com.linecorp.armeria.unsafe.ByteBufHttpData;
 import io.grpc.Codec.Gzip;
 import io.grpc.StatusRuntimeException;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 
 public class ArmeriaMessageFramerTest {
@@ -60,6 +62,36 @@ public class ArmeriaMessageFramerTest {
         framed.release();
     }
 
+    @Test
+    public void writeUncompressedWithReservedHeader() throws Exception {
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeZero(ArmeriaMessageFramer.HEADER_LENGTH);
+        buf.writeBytes(GrpcTestUtil.requestByteBuf());
+        buf.readerIndex(ArmeriaMessageFramer.HEADER_LENGTH);
+        final ByteBufHttpData framed = framer.writePayload(buf, true);
+        // The header has been written in place.
+        assertThat(framed.content()).isSameAs(buf);
+        assertThat(framed.array()).isEqualTo(GrpcTestUtil.uncompressedFrame(GrpcTestUtil.requestByteBuf()));
+        framed.release();
+        assertThat(buf.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void writeUncompressedWithoutReservedHeader() throws Exception {
+        final byte[] prefix = { 1, 2, 3, 4, 5 };
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(prefix);
+        buf.writeBytes(GrpcTestUtil.requestByteBuf());
+        buf.readerIndex(prefix.length);
+        buf.retain();
+        final ByteBufHttpData framed = framer.writePayload(buf);
+        assertThat(framed.array()).isEqualTo(GrpcTestUtil.uncompressedFrame(GrpcTestUtil.requestByteBuf()));
+        framed.release();
+        // The bytes before the reader index must not be overwritten unless reserved for the header.
+        assertThat(ByteBufUtil.getBytes(buf, 0, prefix.length)).isEqualTo(prefix);
+        buf.release();
+    }
+
     @Test
     public void compressed() throws Exception {
         framer.setCompressor(new Gzip());
@@ -71,6 +103,31 @@ public class ArmeriaMessageFramerTest {
         framed.release();
     }
 
+    @Test
+    public void smallMessageNotCompressed() throws Exception {
+        framer.close();
+        final int messageLength = GrpcTestUtil.REQUEST_MESSAGE.getSerializedSize();
+        framer = new ArmeriaMessageFramer(UnpooledByteBufAllocator.DEFAULT, 1024, messageLength + 1);
+        framer.setCompressor(new Gzip());
+        framer.setMessageCompression(true);
+        final ByteBuf buf = GrpcTestUtil.requestByteBuf();
+        final ByteBufHttpData framed = framer.writePayload(buf);
+        assertThat(framed.array()).isEqualTo(GrpcTestUtil.uncompressedFrame(GrpcTestUtil.requestByteBuf()));
+        assertThat(buf.refCnt()).isEqualTo(0);
+        framed.release();
+    }
+
+    @Test
+    public void compressedDirectBuffer() throws Exception {
+        framer.setCompressor(new Gzip());
+        framer.setMessageCompression(true);
+        final ByteBuf buf = Unpooled.directBuffer().writeBytes(GrpcTestUtil.REQUEST_MESSAGE.toByteArray());
+        final ByteBufHttpData framed = framer.writePayload(buf);
+        assertThat(framed.array()).isEqualTo(GrpcTestUtil.compressedFrame(GrpcTestUtil.requestByteBuf()));
+        assertThat(buf.refCnt()).isEqualTo(0);
+        framed.release();
+    }
+
     @Test
     public void emptyNotCompressed() throws Exception {
         framer.setCompressor(new Gzip());
@@ -33,6 +33,7 @@ import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer.ByteBufOrStream
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 
 public class GrpcMessageMarshallerTest {
 
@@ -56,6 +57,9 @@ public class GrpcMessageMarshallerTest {
         final ByteBuf serialized = marshaller.serializeRequest(GrpcTestUtil.REQUEST_MESSAGE);
         assertThat(ByteBufUtil.getBytes(serialized))
                 .containsExactly(GrpcTestUtil.REQUEST_MESSAGE.toByteArray());
+        // The space for the header of the frame is reserved.
+        assertThat(marshaller.isRequestFrameHeaderReserved()).isTrue();
+        assertThat(serialized.readerIndex()).isEqualTo(ArmeriaMessageFramer.HEADER_LENGTH);
         serialized.release();
     }
 
@@ -89,6 +93,24 @@ public class GrpcMessageMarshallerTest {
         buf.release();
     }
 
+    @Test
+    public void deserializeRequest_compositeByteBuf() throws Exception {
+        final byte[] serialized = GrpcTestUtil.REQUEST_MESSAGE.toByteArray();
+        final int half = serialized.length / 2;
+        final ByteBuf first = ByteBufAllocator.DEFAULT.directBuffer().writeBytes(serialized, 0, half);
+        final ByteBuf second = ByteBufAllocator.DEFAULT.directBuffer()
+                                                   .writeBytes(serialized, half, serialized.length - half);
+        final CompositeByteBuf buf = ByteBufAllocator.DEFAULT.compositeBuffer()
+                                                             .addComponents(true, first, second);
+        assertThat(buf.nioBufferCount()).isEqualTo(2);
+
+        final SimpleRequest request = marshaller.deserializeRequest(new ByteBufOrStream(buf));
+        assertThat(request).isEqualTo(GrpcTestUtil.REQUEST_MESSAGE);
+        // The received buffers are released as soon as the message is parsed.
+        assertThat(first.refCnt()).isZero();
+        assertThat(second.refCnt()).isZero();
+    }
+
     @Test
     public void deserializeRequest_stream() throws Exception {
         final SimpleRequest request = marshaller.deserializeRequest(
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.grpc.Status.Code;
+import io.grpc.StatusRuntimeException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+public class PooledGzipCodecTest {
+
+    private static final String DEBUG_STRING = PooledGzipCodecTest.class.getSimpleName();
+
+    @Test
+    public void compositeBuffer() {
+        // Larger than a chunk, and compressed to more than a chunk.
+        final byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        final CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.directBuffer().writeBytes(data, 0, 30000));
+        composite.addComponent(true, Unpooled.directBuffer().writeBytes(data, 30000, 70000));
+
+        final ByteBuf compressed = PooledGzipCodec.compress(ByteBufAllocator.DEFAULT, composite, 5);
+        composite.release();
+        assertThat(compressed.readerIndex()).isEqualTo(5);
+
+        final ByteBuf decompressed = PooledGzipCodec.decompress(ByteBufAllocator.DEFAULT, compressed,
+                                                                Integer.MAX_VALUE, DEBUG_STRING);
+        compressed.release();
+        assertThat(decompressed).isNotNull();
+        assertThat(ByteBufUtil.getBytes(decompressed)).isEqualTo(data);
+        decompressed.release();
+    }
+
+    @Test
+    public void tooLarge() {
+        final ByteBuf data = Unpooled.buffer().writeZero(1025);
+        final ByteBuf compressed = PooledGzipCodec.compress(ByteBufAllocator.DEFAULT, data, 0);
+        data.release();
+
+        assertThatThrownBy(() -> PooledGzipCodec.decompress(ByteBufAllocator.DEFAULT, compressed,
+                                                            1024, DEBUG_STRING))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                    assertThat(e.getStatus().getCode()).isEqualTo(Code.RESOURCE_EXHAUSTED);
+                });
+        assertThat(compressed.release()).isTrue();
+    }
+
+    @Test
+    public void multipleMembers() {
+        final ByteBuf data = Unpooled.buffer().writeZero(1024);
+        final ByteBuf compressed = PooledGzipCodec.compress(ByteBufAllocator.DEFAULT, data, 0);
+        data.release();
+        final ByteBuf concatenated = Unpooled.wrappedBuffer(compressed, compressed.retainedDuplicate());
+
+        // Not supported, so that the caller falls back to the stream.
+        assertThat(PooledGzipCodec.decompress(ByteBufAllocator.DEFAULT, concatenated,
+                                              Integer.MAX_VALUE, DEBUG_STRING)).isNull();
+        concatenated.release();
+    }
+}
@@ -19,6 +19,7 @@ package com.linecorp.armeria.server.grpc;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -27,6 +28,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.IdentityHashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import org.curioswitch.common.protobuf.json.MessageMarshaller;
 import org.junit.After;
@@ -49,7 +51,10 @@ import com.linecorp.armeria.grpc.testing.Messages.SimpleRequest;
 import com.linecorp.armeria.grpc.testing.Messages.SimpleResponse;
 import com.linecorp.armeria.grpc.testing.TestServiceGrpc;
 import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer.ByteBufOrStream;
+import com.linecorp.armeria.internal.grpc.GrpcHeaderNames;
 import com.linecorp.armeria.internal.grpc.GrpcTestUtil;
+import com.linecorp.armeria.server.BoundedBlockingTaskExecutor;
+import com.linecorp.armeria.server.BoundedBlockingTaskExecutorBuilder;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.ServiceRequestContextBuilder;
 import com.linecorp.armeria.testing.common.EventLoopRule;
@@ -111,6 +116,7 @@ public class ArmeriaServerCallTest {
                 res,
                 MAX_MESSAGE_BYTES,
                 MAX_MESSAGE_BYTES,
+                0,
                 ctx,
                 GrpcSerializationFormats.PROTO,
                 MessageMarshaller.builder().build(),
@@ -164,6 +170,7 @@ public class ArmeriaServerCallTest {
                 res,
                 MAX_MESSAGE_BYTES,
                 MAX_MESSAGE_BYTES,
+                0,
                 ctx,
                 GrpcSerializationFormats.PROTO,
                 MessageMarshaller.builder().build(),
@@ -177,6 +184,68 @@ public class ArmeriaServerCallTest {
         verify(buffersAttr).put(any(), same(buf));
     }
 
+    @Test
+    public void messageRead_rejectedByBlockingTaskExecutor() throws Exception {
+        tearDown();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BoundedBlockingTaskExecutor blockingTaskExecutor =
+                new BoundedBlockingTaskExecutorBuilder("grpc-bounded-tasks").maxThreads(1)
+                                                                            .maxQueuedTasks(1)
+                                                                            .build();
+        try {
+            // Saturate the executor; one task runs and the other waits in the queue.
+            for (int i = 0; i < 2; i++) {
+                blockingTaskExecutor.execute(() -> {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            await().until(() -> blockingTaskExecutor.numQueuedTasks() == 1);
+
+            ctx = ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.POST, "/"))
+                                              .eventLoop(eventLoop.get())
+                                              .serverConfigurator(sb -> sb.blockingTaskExecutor(
+                                                      blockingTaskExecutor))
+                                              .build();
+            call = new ArmeriaServerCall<>(
+                    HttpHeaders.of(),
+                    TestServiceGrpc.getUnaryCallMethod(),
+                    CompressorRegistry.getDefaultInstance(),
+                    DecompressorRegistry.getDefaultInstance(),
+                    res,
+                    MAX_MESSAGE_BYTES,
+                    MAX_MESSAGE_BYTES,
+                    0,
+                    ctx,
+                    GrpcSerializationFormats.PROTO,
+                    MessageMarshaller.builder().build(),
+                    false,
+                    true,
+                    "gzip");
+            call.setListener(listener);
+            call.messageReader().onSubscribe(subscription);
+
+            // messageRead is always called from the event loop.
+            eventLoop.get().submit(() -> call.messageRead(
+                    new ByteBufOrStream(GrpcTestUtil.requestByteBuf()))).syncUninterruptibly();
+
+            assertThat(call.isCloseCalled()).isTrue();
+            verify(res).tryWrite(argThat(trailers -> "14".equals(
+                    ((HttpHeaders) trailers).get(GrpcHeaderNames.GRPC_STATUS))));
+            verify(listener, never()).onMessage(any());
+            // The listener is notified in the event loop because the blocking task executor rejects it.
+            verify(listener).onCancel();
+            assertThat(blockingTaskExecutor.numRejectedTasks()).isEqualTo(2);
+        } finally {
+            latch.countDown();
+            blockingTaskExecutor.shutdown();
+        }
+    }
+
     @Test
     public void messageReadAfterClose_stream() {
         call.close(Status.ABORTED, new Metadata());
@@ -17,8 +17,10 @@ package com.linecorp.armeria.server.logging.kafka;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -29,6 +31,9 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.RateLimiter;
+
 import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.server.logging.AccessLogWriter;
 
@@ -38,15 +43,51 @@ import com.linecorp.armeria.server.logging.AccessLogWriter;
  * <p>This method returns immediately after the {@link Producer#send(ProducerRecord, Callback)} returns rather
  * than waiting for returned {@link Future} completes so logs which are written and are not yet flushed can
  * be lost if an application crashes in unclean way.
+ *
+ * <p>The {@link Producer} sends the records in batches on its own, so it is recommended to configure
+ * {@code linger.ms} and {@code compression.type} of the {@link Producer}, e.g. {@code 10} and {@code lz4},
+ * so that it accumulates more access logs into a batch and compresses them together. Use
+ * {@link com.linecorp.armeria.server.logging.BatchingAccessLogWriter} to hand over the access logs to
+ * the {@link Producer} in batches outside of the event loops. Use
+ * {@link #ofBatching(KafkaLogBatcher, Function)} to aggregate many access logs into a single framed record
+ * instead of sending a record for each access log.
+ *
+ * <p>{@link Producer#send(ProducerRecord, Callback)} blocks up to {@code max.block.ms} when the buffer of
+ * the {@link Producer} is full, which stalls the event loop which writes the access log. It is highly
+ * recommended to set {@code max.block.ms} to {@code 0}, so that the records are dropped instead when Kafka
+ * cannot keep up with the access logs. Note that the {@link Producer} also drops the records of a topic whose
+ * metadata has not been fetched yet in that case. The number of the dropped records is available via
+ * {@link #numDroppedRecords()}, and a warning is logged at most once per second.
  */
 public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaAccessLogWriter.class);
 
+    /**
+     * Returns a new {@link AccessLogWriter} which adds the access logs to the specified
+     * {@link KafkaLogBatcher}, so that many access logs are sent as a single framed record.
+     * The {@link KafkaLogBatcher} is shut down when the returned {@link AccessLogWriter} is shut down.
+     *
+     * @param batcher the {@link KafkaLogBatcher} which aggregates the access logs
+     * @param valueExtractor a {@link Function} that serializes a {@link RequestLog} into the frame of
+     *                       the {@link KafkaLogFraming} of the {@link KafkaLogBatcher}, e.g. a JSON object
+     *                       without a line feed. The {@link Function} is allowed to return {@code null}
+     *                       to skip logging for the given {@link RequestLog}.
+     */
+    public static AccessLogWriter ofBatching(KafkaLogBatcher batcher,
+                                             Function<? super RequestLog, byte[]> valueExtractor) {
+        requireNonNull(batcher, "batcher");
+        requireNonNull(valueExtractor, "valueExtractor");
+        return new BatchingWriter(batcher, valueExtractor);
+    }
+
     private final Producer<K, V> producer;
     private final String topic;
     private final Function<? super RequestLog, ? extends K> keyExtractor;
     private final Function<? super RequestLog, ? extends V> valueExtractor;
+    private final Callback callback;
+    private final LongAdder numDroppedRecords = new LongAdder();
+    private final RateLimiter warningRateLimiter = RateLimiter.create(1);
 
     /**
      * Creates a new instance.
@@ -90,6 +131,12 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
         this.topic = requireNonNull(topic, "topic");
         this.keyExtractor = keyExtractor == null ? log -> null : keyExtractor;
         this.valueExtractor = requireNonNull(valueExtractor, "valueExtractor");
+        // Share one Callback between all records rather than creating one for each record.
+        callback = (metadata, exception) -> {
+            if (exception != null) {
+                onDropped(exception);
+            }
+        };
     }
 
     @Override
@@ -100,16 +147,87 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
         }
 
         final K key = keyExtractor.apply(log);
-        final ProducerRecord<K, V> producerRecord = new ProducerRecord<>(topic, key, value);
-        producer.send(producerRecord, (metadata, exception) -> {
-            if (exception != null) {
-                logger.warn("Failed to send a record to Kafka: {}", producerRecord, exception);
+        try {
+            producer.send(new ProducerRecord<>(topic, key, value), callback);
+        } catch (Exception e) {
+            onDropped(e);
+        }
+    }
+
+    @Override
+    public void logAll(List<RequestLog> logs) {
+        for (RequestLog log : logs) {
+            try {
+                log(log);
+            } catch (Exception e) {
+                // Do not lose the rest of the batch.
+                onDropped(e);
             }
-        });
+        }
+    }
+
+    private void onDropped(Throwable cause) {
+        numDroppedRecords.increment();
+        // Do not flood the log when Kafka cannot keep up with the access logs.
+        if (warningRateLimiter.tryAcquire()) {
+            logger.warn("Failed to send a record to Kafka topic: {} (dropped records: {})",
+                        topic, numDroppedRecords(), cause);
+        }
+    }
+
+    /**
+     * Returns the number of the records which were not sent to Kafka, e.g. because the buffer of
+     * the {@link Producer} was full or the {@link RequestLog} could not be converted into a record.
+     */
+    public long numDroppedRecords() {
+        return numDroppedRecords.sum();
     }
 
     @Override
     public CompletableFuture<Void> shutdown() {
         return CompletableFuture.runAsync(producer::close);
     }
+
+    private static final class BatchingWriter implements AccessLogWriter {
+
+        private final KafkaLogBatcher batcher;
+        private final Function<? super RequestLog, byte[]> valueExtractor;
+
+        BatchingWriter(KafkaLogBatcher batcher, Function<? super RequestLog, byte[]> valueExtractor) {
+            this.batcher = batcher;
+            this.valueExtractor = valueExtractor;
+        }
+
+        @Override
+        public void log(RequestLog log) {
+            final byte[] value;
+            try {
+                value = valueExtractor.apply(log);
+            } catch (Exception e) {
+                batcher.onDropped(1, e);
+                return;
+            }
+            if (value != null) {
+                batcher.add(value);
+            }
+        }
+
+        @Override
+        public void logAll(List<RequestLog> logs) {
+            // Do not lose the rest of the batch; log() never throws.
+            logs.forEach(this::log);
+        }
+
+        @Override
+        public CompletableFuture<Void> shutdown() {
+            return batcher.shutdown();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("batcher", batcher)
+                              .toString();
+        }
+    }
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.RateLimiter;
+
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Aggregates serialized logs into framed Kafka records, so that the throughput of the log shipping does not
+ * depend on the overhead of each {@link ProducerRecord}. The logs are copied into the current batch with
+ * the {@link KafkaLogFraming}, e.g. as newline-delimited JSON, and the batch is sent as the value of
+ * a single record without a key when it reaches {@code maxBatchBytes} or when {@code linger} passes after
+ * its first log. The records are sent from a background thread, so that a {@link Producer} which blocks
+ * does not stall the caller.
+ *
+ * <p>The number of the bytes which were added but not acknowledged by Kafka yet is bounded by
+ * {@code maxBufferedBytes}. A log added while the buffer is full is handled with
+ * the {@link KafkaOverflowPolicy}. The logs which were dropped or failed to be sent are counted in
+ * {@link #numDroppedRecords()}.
+ *
+ * <pre>{@code
+ * KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, "access-logs")
+ *         .framing(KafkaLogFraming.NEWLINE_DELIMITED)
+ *         .linger(Duration.ofMillis(100))
+ *         .build();
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.accessLogWriter(KafkaAccessLogWriter.ofBatching(batcher, log -> toJson(log)), true);
+ * }</pre>
+ *
+ * @see KafkaLogBatcherBuilder
+ */
+public final class KafkaLogBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaLogBatcher.class);
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final KafkaLogFraming framing;
+    private final int maxBatchBytes;
+    private final long maxBufferedBytes;
+    private final long lingerNanos;
+    private final KafkaOverflowPolicy overflowPolicy;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final LongAdder numDroppedRecords = new LongAdder();
+    private final RateLimiter warningRateLimiter = RateLimiter.create(1);
+
+    // Guarded by the lock.
+    private final byte[] batch;
+    private int batchBytes;
+    private int batchRecords;
+    private long batchGeneration;
+    private long numBufferedBytes;
+    private boolean closed;
+    @Nullable
+    private CompletableFuture<Void> shutdownFuture;
+
+    KafkaLogBatcher(Producer<byte[], byte[]> producer, String topic, KafkaLogFraming framing,
+                    int maxBatchBytes, long maxBufferedBytes, long lingerNanos,
+                    KafkaOverflowPolicy overflowPolicy) {
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+        this.framing = requireNonNull(framing, "framing");
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.lingerNanos = lingerNanos;
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy");
+        batch = new byte[maxBatchBytes];
+
+        executor = new ScheduledThreadPoolExecutor(
+                1, new DefaultThreadFactory("armeria-kafka-log-batcher", true));
+        // Do not wait for the linger of the batches which are flushed by shutdown().
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Returns the Kafka topic which the batches are sent to.
+     */
+    public String topic() {
+        return topic;
+    }
+
+    /**
+     * Adds the specified serialized log to the current batch.
+     */
+    public void add(byte[] value) {
+        requireNonNull(value, "value");
+        final int frameSize = framing.frameSize(value.length);
+        if (frameSize > maxBufferedBytes) {
+            onDropped(1, null);
+            return;
+        }
+
+        lock.lock();
+        try {
+            while (!closed && numBufferedBytes + frameSize > maxBufferedBytes) {
+                if (overflowPolicy == KafkaOverflowPolicy.DROP) {
+                    onDropped(1, null);
+                    return;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                onDropped(1, null);
+                return;
+            }
+
+            numBufferedBytes += frameSize;
+            if (frameSize > maxBatchBytes) {
+                // Too large to share a batch with the others.
+                final byte[] record = new byte[frameSize];
+                framing.write(record, 0, value);
+                send(record, 1);
+                return;
+            }
+
+            if (batchBytes + frameSize > maxBatchBytes) {
+                flushLocked();
+            }
+            batchBytes += framing.write(batch, batchBytes, value);
+            if (batchRecords++ == 0) {
+                final long generation = batchGeneration;
+                executor.schedule(() -> flushLingered(generation), lingerNanos, TimeUnit.NANOSECONDS);
+            }
+            if (batchBytes == maxBatchBytes) {
+                flushLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the current batch without waiting for the linger.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLingered(long generation) {
+        lock.lock();
+        try {
+            // Do nothing if the batch has been flushed since it was scheduled.
+            if (batchGeneration == generation) {
+                flushLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        if (batchRecords == 0) {
+            return;
+        }
+        final byte[] record = Arrays.copyOf(batch, batchBytes);
+        final int numRecords = batchRecords;
+        batchBytes = 0;
+        batchRecords = 0;
+        batchGeneration++;
+        send(record, numRecords);
+    }
+
+    private void send(byte[] record, int numRecords) {
+        executor.execute(() -> {
+            try {
+                producer.send(new ProducerRecord<>(topic, record),
+                              (metadata, exception) -> onSent(record.length, numRecords, exception));
+            } catch (Exception e) {
+                onSent(record.length, numRecords, e);
+            }
+        });
+    }
+
+    private void onSent(int numBytes, int numRecords, @Nullable Exception cause) {
+        lock.lock();
+        try {
+            numBufferedBytes -= numBytes;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (cause != null) {
+            onDropped(numRecords, cause);
+        }
+    }
+
+    void onDropped(int numRecords, @Nullable Throwable cause) {
+        numDroppedRecords.add(numRecords);
+        // Do not flood the log when Kafka cannot keep up with the logs.
+        if (warningRateLimiter.tryAcquire()) {
+            if (cause != null) {
+                logger.warn("Failed to send logs to Kafka topic: {} (dropped records: {})",
+                            topic, numDroppedRecords(), cause);
+            } else {
+                logger.warn("Dropped a log because the buffer of Kafka topic {} is full " +
+                            "(dropped records: {}, max buffered bytes: {})",
+                            topic, numDroppedRecords(), maxBufferedBytes);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the bytes which were added but not acknowledged by Kafka yet.
+     */
+    public long numBufferedBytes() {
+        lock.lock();
+        try {
+            return numBufferedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the logs which were not sent to Kafka, because the buffer was full or
+     * their batch failed to be sent.
+     */
+    public long numDroppedRecords() {
+        return numDroppedRecords.sum();
+    }
+
+    /**
+     * Registers the gauge of {@link #numBufferedBytes()} and the counter of {@link #numDroppedRecords()} to
+     * the specified {@link MeterRegistry}.
+     */
+    public void registerMetrics(MeterRegistry registry, MeterIdPrefix idPrefix) {
+        requireNonNull(registry, "registry");
+        requireNonNull(idPrefix, "idPrefix");
+        registry.gauge(idPrefix.name("bufferedBytes"), idPrefix.tags(),
+                       this, KafkaLogBatcher::numBufferedBytes);
+        registry.more().counter(idPrefix.name("droppedRecords"), idPrefix.tags(),
+                                this, KafkaLogBatcher::numDroppedRecords);
+    }
+
+    /**
+     * Sends the current batch and closes the {@link Producer}, which waits for the records sent so far.
+     * The logs added after this method is invoked are dropped.
+     */
+    public CompletableFuture<Void> shutdown() {
+        lock.lock();
+        try {
+            if (shutdownFuture == null) {
+                closed = true;
+                flushLocked();
+                // Wake up the callers blocked by the BLOCK policy, so that they drop their logs.
+                notFull.signalAll();
+
+                // Closed after the batches which were queued before.
+                shutdownFuture = CompletableFuture.runAsync(producer::close, executor);
+                executor.shutdown();
+            }
+            return shutdownFuture;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("topic", topic)
+                          .add("framing", framing)
+                          .add("maxBatchBytes", maxBatchBytes)
+                          .add("maxBufferedBytes", maxBufferedBytes)
+                          .add("lingerNanos", lingerNanos)
+                          .add("overflowPolicy", overflowPolicy)
+                          .toString();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import org.apache.kafka.clients.producer.Producer;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Builds a new {@link KafkaLogBatcher}.
+ */
+public final class KafkaLogBatcherBuilder {
+
+    static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+    static final long DEFAULT_MAX_BUFFERED_BYTES = 32L * 1024 * 1024;
+    static final Duration DEFAULT_LINGER = Duration.ofMillis(50);
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private KafkaLogFraming framing = KafkaLogFraming.NEWLINE_DELIMITED;
+    private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+    private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+    private Duration linger = DEFAULT_LINGER;
+    private KafkaOverflowPolicy overflowPolicy = KafkaOverflowPolicy.DROP;
+
+    /**
+     * Creates a new builder which sends the batches to the specified {@code topic} with
+     * the specified {@link Producer}. The {@link Producer} is closed when the {@link KafkaLogBatcher} is
+     * shut down.
+     */
+    public KafkaLogBatcherBuilder(Producer<byte[], byte[]> producer, String topic) {
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+    }
+
+    /**
+     * Sets the {@link KafkaLogFraming} of the logs in a batch. The default is
+     * {@link KafkaLogFraming#NEWLINE_DELIMITED}.
+     */
+    public KafkaLogBatcherBuilder framing(KafkaLogFraming framing) {
+        this.framing = requireNonNull(framing, "framing");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of a batch, which is sent as soon as it is full. A log larger than
+     * this is sent in a batch of its own. The default is 64 KiB.
+     */
+    public KafkaLogBatcherBuilder maxBatchBytes(int maxBatchBytes) {
+        checkArgument(maxBatchBytes > 0, "maxBatchBytes: %s (expected: > 0)", maxBatchBytes);
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes which were added but not acknowledged by Kafka yet. A log added
+     * while the buffer is full is handled with the {@link KafkaOverflowPolicy}. The default is 32 MiB.
+     */
+    public KafkaLogBatcherBuilder maxBufferedBytes(long maxBufferedBytes) {
+        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes: %s (expected: > 0)", maxBufferedBytes);
+        this.maxBufferedBytes = maxBufferedBytes;
+        return this;
+    }
+
+    /**
+     * Sets how long a batch waits for more logs after its first log is added. The default is
+     * 50 milliseconds.
+     */
+    public KafkaLogBatcherBuilder linger(Duration linger) {
+        requireNonNull(linger, "linger");
+        checkArgument(!linger.isNegative() && !linger.isZero(), "linger: %s (expected: > 0)", linger);
+        this.linger = linger;
+        return this;
+    }
+
+    /**
+     * Sets the {@link KafkaOverflowPolicy} which is applied to a log added while the buffer is full.
+     * The default is {@link KafkaOverflowPolicy#DROP}.
+     */
+    public KafkaLogBatcherBuilder overflowPolicy(KafkaOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link KafkaLogBatcher} based on the properties of this builder.
+     */
+    public KafkaLogBatcher build() {
+        checkState(maxBufferedBytes >= maxBatchBytes,
+                   "maxBufferedBytes: %s (expected: >= maxBatchBytes (%s))", maxBufferedBytes, maxBatchBytes);
+        return new KafkaLogBatcher(producer, topic, framing, maxBatchBytes, maxBufferedBytes,
+                                   linger.toNanos(), overflowPolicy);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("topic", topic)
+                          .add("framing", framing)
+                          .add("maxBatchBytes", maxBatchBytes)
+                          .add("maxBufferedBytes", maxBufferedBytes)
+                          .add("linger", linger)
+                          .add("overflowPolicy", overflowPolicy)
+                          .toString();
+    }
+}
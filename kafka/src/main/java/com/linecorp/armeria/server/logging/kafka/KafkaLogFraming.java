@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+/**
+ * The format of the frames which {@link KafkaLogBatcher} aggregates into a Kafka record.
+ */
+public enum KafkaLogFraming {
+    /**
+     * Each log is followed by a line feed ({@code '\n'}), e.g. newline-delimited JSON. A log must not
+     * contain a line feed.
+     */
+    NEWLINE_DELIMITED {
+        @Override
+        int frameSize(int length) {
+            return length + 1;
+        }
+
+        @Override
+        int write(byte[] dst, int dstIndex, byte[] value) {
+            System.arraycopy(value, 0, dst, dstIndex, value.length);
+            dst[dstIndex + value.length] = '\n';
+            return frameSize(value.length);
+        }
+    },
+    /**
+     * Each log is preceded by its length as a 32-bit big-endian integer.
+     */
+    LENGTH_PREFIXED {
+        @Override
+        int frameSize(int length) {
+            return length + 4;
+        }
+
+        @Override
+        int write(byte[] dst, int dstIndex, byte[] value) {
+            final int length = value.length;
+            dst[dstIndex] = (byte) (length >>> 24);
+            dst[dstIndex + 1] = (byte) (length >>> 16);
+            dst[dstIndex + 2] = (byte) (length >>> 8);
+            dst[dstIndex + 3] = (byte) length;
+            System.arraycopy(value, 0, dst, dstIndex + 4, length);
+            return frameSize(length);
+        }
+    };
+
+    /**
+     * Returns the number of bytes of the frame of a log whose length is {@code length}.
+     */
+    abstract int frameSize(int length);
+
+    /**
+     * Writes the frame of the specified {@code value} into {@code dst} at {@code dstIndex}.
+     *
+     * @return the number of the written bytes
+     */
+    abstract int write(byte[] dst, int dstIndex, byte[] value);
+}
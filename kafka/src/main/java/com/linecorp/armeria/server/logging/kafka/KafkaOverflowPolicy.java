@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+/**
+ * What {@link KafkaLogBatcher} does with a log when its buffer is full.
+ */
+public enum KafkaOverflowPolicy {
+    /**
+     * Drops the log and counts it in {@link KafkaLogBatcher#numDroppedRecords()}.
+     */
+    DROP,
+    /**
+     * Blocks the caller until Kafka acknowledges enough buffered logs. Do not use this policy when
+     * the logs are added from an event loop, e.g. use it with
+     * {@link com.linecorp.armeria.server.logging.BatchingAccessLogWriter} whose background thread
+     * adds the logs.
+     */
+    BLOCK
+}
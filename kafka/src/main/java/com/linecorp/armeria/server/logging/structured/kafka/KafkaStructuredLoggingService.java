@@ -20,6 +20,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.Properties;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -29,14 +30,21 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.logging.TailSampler;
 import com.linecorp.armeria.server.logging.kafka.KafkaAccessLogWriter;
+import com.linecorp.armeria.server.logging.kafka.KafkaLogBatcher;
+import com.linecorp.armeria.server.logging.kafka.KafkaLogFraming;
 import com.linecorp.armeria.server.logging.structured.StructuredLogBuilder;
 import com.linecorp.armeria.server.logging.structured.StructuredLoggingService;
 
@@ -96,6 +104,31 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
                 service, logBuilder, producer, topic, keySelector, false);
     }
 
+    /**
+     * Creates a decorator which provides {@link StructuredLoggingService} which sends only the logs sampled by
+     * the specified {@link TailSampler}.
+     *
+     * @param producer a kafka {@link Producer} producer which is used to send logs to Kafka
+     * @param topic a name of topic which is used to send logs
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct a log entry
+     * @param keySelector a {@link KeySelector} which is used to decide what key to use for the log
+     * @param tailSampler the {@link TailSampler} which decides whether a complete {@link RequestLog} is sent
+     * @param <I> the {@link Request} type
+     * @param <O> the {@link Response} type
+     * @param <L> the type of the structured log representation
+     *
+     * @return a service decorator which adds structured logging support integrated to Kafka
+     */
+    public static <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            Producer<byte[], L> producer, String topic,
+            StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector,
+            TailSampler tailSampler) {
+        requireNonNull(tailSampler, "tailSampler");
+        return service -> new KafkaStructuredLoggingService<>(
+                service, logBuilder, producer, topic, keySelector, tailSampler, false);
+    }
+
     /**
      * Creates a decorator which provides {@link StructuredLoggingService} with defaulting key to null.
      *
@@ -137,6 +170,32 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
                 service, logBuilder, producer, topic, keySelector, true);
     }
 
+    /**
+     * Creates a decorator which provides {@link StructuredLoggingService} with default {@link Producer},
+     * which sends only the logs sampled by the specified {@link TailSampler}.
+     *
+     * @param bootstrapServers a {@code bootstrap.servers} config to specify destination Kafka cluster
+     * @param topic a name of topic which is used to send logs
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct a log entry
+     * @param keySelector a {@link KeySelector} which is used to decide what key to use for the log
+     * @param tailSampler the {@link TailSampler} which decides whether a complete {@link RequestLog} is sent
+     * @param <I> the {@link Request} type
+     * @param <O> the {@link Response} type
+     * @param <L> the type of the structured log representation
+     *
+     * @return a service decorator which adds structured logging support integrated to Kafka
+     */
+    public static <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            String bootstrapServers, String topic,
+            StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector,
+            TailSampler tailSampler) {
+        requireNonNull(tailSampler, "tailSampler");
+        final Producer<byte[], L> producer = new KafkaProducer<>(newDefaultConfig(bootstrapServers));
+        return service -> new KafkaStructuredLoggingService<>(
+                service, logBuilder, producer, topic, keySelector, tailSampler, true);
+    }
+
     /**
      * Creates a decorator which provides {@link StructuredLoggingService} with default {@link Producer}
      * and defaulting key to null.
@@ -156,7 +215,32 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
         return newDecorator(bootstrapServers, topic, logBuilder, null);
     }
 
-    private static Properties newDefaultConfig(String bootstrapServers) {
+    /**
+     * Creates a decorator which provides {@link StructuredLoggingService} which adds the service logs to
+     * the specified {@link KafkaLogBatcher}, so that many service logs are sent as a single framed record.
+     * The {@link KafkaLogBatcher} is shut down when the server stops.
+     *
+     * @param batcher the {@link KafkaLogBatcher} which aggregates the service logs
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct a log entry
+     * @param serializer a {@link Serializer} which serializes a log entry into the frame of
+     *                   the {@link KafkaLogFraming} of the {@link KafkaLogBatcher},
+     *                   e.g. {@link StructuredLogJsonKafkaSerializer}
+     * @param <I> the {@link Request} type
+     * @param <O> the {@link Response} type
+     * @param <L> the type of the structured log representation
+     *
+     * @return a service decorator which adds structured logging support integrated to Kafka
+     */
+    public static <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            KafkaLogBatcher batcher, StructuredLogBuilder<L> logBuilder, Serializer<? super L> serializer) {
+        requireNonNull(batcher, "batcher");
+        requireNonNull(serializer, "serializer");
+        return service -> new KafkaStructuredLoggingService<>(service, logBuilder, batcher, serializer);
+    }
+
+    @VisibleForTesting
+    static Properties newDefaultConfig(String bootstrapServers) {
         final Properties producerConfig = new Properties();
 
         producerConfig.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -170,10 +254,17 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
         return producerConfig;
     }
 
+    @Nullable
     private final Producer<byte[], L> producer;
     private final String topic;
     private final KeySelector<L> keySelector;
     private final boolean needToCloseProducer;
+    @Nullable
+    private final KafkaLogBatcher batcher;
+    @Nullable
+    private final Serializer<? super L> serializer;
+    private final LongAdder numDroppedRecords = new LongAdder();
+    private final RateLimiter warningRateLimiter = RateLimiter.create(1);
 
     KafkaStructuredLoggingService(Service<I, O> delegate,
                                   StructuredLogBuilder<L> logBuilder,
@@ -181,29 +272,94 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
                                   String topic,
                                   @Nullable KeySelector<L> keySelector,
                                   boolean needToCloseProducer) {
-        super(delegate, logBuilder);
+        this(delegate, logBuilder, producer, topic, keySelector, null, needToCloseProducer);
+    }
+
+    KafkaStructuredLoggingService(Service<I, O> delegate,
+                                  StructuredLogBuilder<L> logBuilder,
+                                  Producer<byte[], L> producer,
+                                  String topic,
+                                  @Nullable KeySelector<L> keySelector,
+                                  @Nullable TailSampler tailSampler,
+                                  boolean needToCloseProducer) {
+        super(delegate, logBuilder, tailSampler);
 
         this.producer = requireNonNull(producer, "producer");
         this.topic = requireNonNull(topic, "topic");
         this.keySelector = keySelector == null ? (res, log) -> null : keySelector;
         this.needToCloseProducer = needToCloseProducer;
+        batcher = null;
+        serializer = null;
+    }
+
+    KafkaStructuredLoggingService(Service<I, O> delegate,
+                                  StructuredLogBuilder<L> logBuilder,
+                                  KafkaLogBatcher batcher,
+                                  Serializer<? super L> serializer) {
+        super(delegate, logBuilder);
+
+        producer = null;
+        topic = batcher.topic();
+        keySelector = (res, log) -> null;
+        needToCloseProducer = false;
+        this.batcher = batcher;
+        this.serializer = serializer;
     }
 
     @Override
     protected void writeLog(RequestLog log, L structuredLog) {
+        if (batcher != null) {
+            assert serializer != null;
+            try {
+                final byte[] value = serializer.serialize(topic, structuredLog);
+                if (value != null) {
+                    batcher.add(value);
+                }
+            } catch (Exception e) {
+                onDropped(e);
+            }
+            return;
+        }
+
+        assert producer != null;
         final byte[] key = keySelector.selectKey(log, structuredLog);
 
         final ProducerRecord<byte[], L> producerRecord = new ProducerRecord<>(topic, key, structuredLog);
-        producer.send(producerRecord, (metadata, exception) -> {
-            if (exception != null) {
-                logger.warn("failed to send service log to Kafka {}", producerRecord, exception);
-            }
-        });
+        try {
+            producer.send(producerRecord, (metadata, exception) -> {
+                if (exception != null) {
+                    onDropped(exception);
+                }
+            });
+        } catch (Exception e) {
+            onDropped(e);
+        }
+    }
+
+    private void onDropped(Throwable cause) {
+        numDroppedRecords.increment();
+        // Do not flood the log when Kafka cannot keep up with the service logs.
+        if (warningRateLimiter.tryAcquire()) {
+            logger.warn("failed to send service log to Kafka topic: {} (dropped records: {})",
+                        topic, numDroppedRecords(), cause);
+        }
+    }
+
+    /**
+     * Returns the number of the service logs which were not sent to Kafka, e.g. because the buffer of
+     * the {@link Producer} was full. The logs dropped by a {@link KafkaLogBatcher} are counted in
+     * {@link KafkaLogBatcher#numDroppedRecords()}.
+     */
+    public long numDroppedRecords() {
+        return numDroppedRecords.sum();
     }
 
     @Override
     protected void close() {
-        if (needToCloseProducer) {
+        if (batcher != null) {
+            batcher.shutdown();
+        } else if (needToCloseProducer) {
+            assert producer != null;
             producer.close();
         }
     }
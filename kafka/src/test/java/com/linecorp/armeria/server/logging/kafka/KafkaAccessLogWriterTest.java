@@ -15,6 +15,7 @@
  */
 package com.linecorp.armeria.server.logging.kafka;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -22,9 +23,15 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import java.time.Duration;
+
+import org.apache.kafka.clients.producer.BufferExhaustedException;
 import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -33,7 +40,10 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.google.common.collect.ImmutableList;
+
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.server.logging.AccessLogWriter;
 
 public class KafkaAccessLogWriterTest {
     @Rule
@@ -83,6 +93,91 @@ public class KafkaAccessLogWriterTest {
         assertThat(record.value()).isEqualTo("kawamuray");
     }
 
+    @Test
+    public void logAll() {
+        final MockProducer<String, String> producer =
+                new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        final KafkaAccessLogWriter<String, String> service =
+                new KafkaAccessLogWriter<>(producer, TOPIC_NAME, RequestLog::authority);
+
+        final RequestLog log1 = mock(RequestLog.class);
+        when(log1.authority()).thenReturn("foo");
+        final RequestLog log2 = mock(RequestLog.class);
+        final RequestLog log3 = mock(RequestLog.class);
+        when(log3.authority()).thenReturn("bar");
+
+        // log2 has no value, so it must be skipped.
+        service.logAll(ImmutableList.of(log1, log2, log3));
+
+        assertThat(producer.history()).extracting(ProducerRecord::value).containsExactly("foo", "bar");
+        assertThat(producer.history()).extracting(ProducerRecord::topic).containsOnly(TOPIC_NAME);
+    }
+
+    @Test
+    public void logAllAfterFailure() {
+        final MockProducer<String, String> producer =
+                new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        final KafkaAccessLogWriter<String, String> service =
+                new KafkaAccessLogWriter<>(producer, TOPIC_NAME, RequestLog::authority);
+
+        final RequestLog log1 = mock(RequestLog.class);
+        when(log1.authority()).thenReturn("foo");
+        final RequestLog log2 = mock(RequestLog.class);
+        when(log2.authority()).thenThrow(new IllegalStateException());
+        final RequestLog log3 = mock(RequestLog.class);
+        when(log3.authority()).thenReturn("bar");
+
+        // log2 fails, but the rest of the batch must be sent.
+        service.logAll(ImmutableList.of(log1, log2, log3));
+        assertThat(producer.history()).extracting(ProducerRecord::value).containsExactly("foo", "bar");
+        assertThat(service.numDroppedRecords()).isOne();
+
+        // A record which failed to be sent is counted as dropped.
+        producer.errorNext(new BufferExhaustedException("buffer full"));
+        producer.completeNext();
+        assertThat(service.numDroppedRecords()).isEqualTo(2);
+    }
+
+    @Test
+    public void logAllInBatches() throws Exception {
+        final MockProducer<byte[], byte[]> producer =
+                new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .linger(Duration.ofMinutes(1))
+                .build();
+        final AccessLogWriter writer = KafkaAccessLogWriter.ofBatching(
+                batcher, log -> log.authority() != null ? log.authority().getBytes(UTF_8) : null);
+
+        final RequestLog log1 = mock(RequestLog.class);
+        when(log1.authority()).thenReturn("foo");
+        final RequestLog log2 = mock(RequestLog.class);
+        final RequestLog log3 = mock(RequestLog.class);
+        when(log3.authority()).thenThrow(new IllegalStateException());
+        final RequestLog log4 = mock(RequestLog.class);
+        when(log4.authority()).thenReturn("bar");
+
+        // log2 has no value and log3 fails, but the rest of the batch must be sent.
+        writer.logAll(ImmutableList.of(log1, log2, log3, log4));
+        writer.shutdown().join();
+
+        // All access logs are sent in a single record.
+        assertThat(producer.history()).hasSize(1);
+        assertThat(new String(producer.history().get(0).value(), UTF_8)).isEqualTo("foo\nbar\n");
+        assertThat(batcher.numDroppedRecords()).isOne();
+    }
+
+    @Test
+    public void dropWhenSendFails() {
+        when(producer.send(any(), any(Callback.class))).thenThrow(new IllegalStateException());
+        final KafkaAccessLogWriter<String, String> service =
+                new KafkaAccessLogWriter<>(producer, TOPIC_NAME, log -> "");
+
+        // Must not propagate the failure to the caller, i.e. the event loop.
+        service.log(mock(RequestLog.class));
+        service.log(mock(RequestLog.class));
+        assertThat(service.numDroppedRecords()).isEqualTo(2);
+    }
+
     @Test
     public void closeProducerWhenRequested() {
         final KafkaAccessLogWriter<String, String> service =
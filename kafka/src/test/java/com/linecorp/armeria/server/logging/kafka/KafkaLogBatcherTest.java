@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.Test;
+
+public class KafkaLogBatcherTest {
+
+    private static final String TOPIC_NAME = "topic-test";
+
+    private static MockProducer<byte[], byte[]> newProducer(boolean autoComplete) {
+        return new MockProducer<>(autoComplete, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    private static String value(MockProducer<byte[], byte[]> producer, int index) {
+        return new String(producer.history().get(index).value(), UTF_8);
+    }
+
+    @Test
+    public void sendFullBatch() {
+        final MockProducer<byte[], byte[]> producer = newProducer(true);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .maxBatchBytes(10)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        batcher.add("abc".getBytes(UTF_8));
+        batcher.add("def".getBytes(UTF_8));
+        // Does not fit into the current batch, so the current batch is sent.
+        batcher.add("ghi".getBytes(UTF_8));
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(1));
+        final ProducerRecord<byte[], byte[]> record = producer.history().get(0);
+        assertThat(record.topic()).isEqualTo(TOPIC_NAME);
+        assertThat(record.key()).isNull();
+        assertThat(value(producer, 0)).isEqualTo("abc\ndef\n");
+
+        batcher.shutdown().join();
+        assertThat(producer.history()).hasSize(2);
+        assertThat(value(producer, 1)).isEqualTo("ghi\n");
+        assertThat(batcher.numBufferedBytes()).isZero();
+    }
+
+    @Test
+    public void sendAfterLinger() {
+        final MockProducer<byte[], byte[]> producer = newProducer(true);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .linger(Duration.ofMillis(10))
+                .build();
+
+        batcher.add("foo".getBytes(UTF_8));
+        batcher.add("bar".getBytes(UTF_8));
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(1));
+        assertThat(value(producer, 0)).isEqualTo("foo\nbar\n");
+        batcher.shutdown().join();
+    }
+
+    @Test
+    public void lengthPrefixed() {
+        final MockProducer<byte[], byte[]> producer = newProducer(true);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .framing(KafkaLogFraming.LENGTH_PREFIXED)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        batcher.add(new byte[] { 1, 2 });
+        batcher.add(new byte[0]);
+        batcher.shutdown().join();
+
+        assertThat(producer.history()).hasSize(1);
+        assertThat(producer.history().get(0).value()).isEqualTo(new byte[] { 0, 0, 0, 2, 1, 2,
+                                                                             0, 0, 0, 0 });
+    }
+
+    @Test
+    public void sendLargeLogAlone() {
+        final MockProducer<byte[], byte[]> producer = newProducer(true);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .maxBatchBytes(4)
+                .build();
+
+        batcher.add("foobar".getBytes(UTF_8));
+        batcher.shutdown().join();
+
+        assertThat(producer.history()).hasSize(1);
+        assertThat(value(producer, 0)).isEqualTo("foobar\n");
+    }
+
+    @Test
+    public void dropWhenBufferIsFull() {
+        final MockProducer<byte[], byte[]> producer = newProducer(false);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .maxBatchBytes(4)
+                .maxBufferedBytes(8)
+                .overflowPolicy(KafkaOverflowPolicy.DROP)
+                .build();
+
+        // Each log fills a batch.
+        batcher.add("abc".getBytes(UTF_8));
+        batcher.add("def".getBytes(UTF_8));
+        assertThat(batcher.numBufferedBytes()).isEqualTo(8);
+
+        // Not acknowledged yet, so the buffer is full.
+        batcher.add("ghi".getBytes(UTF_8));
+        assertThat(batcher.numDroppedRecords()).isOne();
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(2));
+        assertThat(producer.completeNext()).isTrue();
+        assertThat(batcher.numBufferedBytes()).isEqualTo(4);
+
+        batcher.add("jkl".getBytes(UTF_8));
+        assertThat(batcher.numDroppedRecords()).isOne();
+        assertThat(batcher.numBufferedBytes()).isEqualTo(8);
+    }
+
+    @Test
+    public void blockWhenBufferIsFull() throws Exception {
+        final MockProducer<byte[], byte[]> producer = newProducer(false);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .maxBatchBytes(4)
+                .maxBufferedBytes(4)
+                .overflowPolicy(KafkaOverflowPolicy.BLOCK)
+                .build();
+
+        batcher.add("abc".getBytes(UTF_8));
+        final CompletableFuture<Void> blocked =
+                CompletableFuture.runAsync(() -> batcher.add("def".getBytes(UTF_8)));
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(1));
+        Thread.sleep(100);
+        assertThat(blocked).isNotDone();
+
+        // The caller is unblocked once Kafka acknowledges the first batch.
+        assertThat(producer.completeNext()).isTrue();
+        blocked.join();
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(2));
+        assertThat(value(producer, 1)).isEqualTo("def\n");
+        assertThat(batcher.numDroppedRecords()).isZero();
+    }
+
+    @Test
+    public void countFailedBatch() {
+        final MockProducer<byte[], byte[]> producer = newProducer(false);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME)
+                .linger(Duration.ofMinutes(1))
+                .build();
+
+        batcher.add("foo".getBytes(UTF_8));
+        batcher.add("bar".getBytes(UTF_8));
+        batcher.flush();
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(1));
+        assertThat(producer.errorNext(new BufferExhaustedException("buffer full"))).isTrue();
+        // Both logs in the batch are lost.
+        assertThat(batcher.numDroppedRecords()).isEqualTo(2);
+        assertThat(batcher.numBufferedBytes()).isZero();
+    }
+
+    @Test
+    public void closeProducerOnShutdown() {
+        @SuppressWarnings("unchecked")
+        final Producer<byte[], byte[]> producer = mock(Producer.class);
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME).build();
+
+        batcher.shutdown().join();
+        verify(producer).close();
+
+        // Dropped after the shutdown.
+        batcher.add("foo".getBytes(UTF_8));
+        assertThat(batcher.numDroppedRecords()).isOne();
+    }
+}
@@ -16,16 +16,27 @@
 
 package com.linecorp.armeria.server.logging.structured.kafka;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import java.util.Map;
+import java.util.Properties;
+
 import javax.annotation.Nullable;
 
+import org.apache.kafka.clients.producer.BufferExhaustedException;
 import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -34,9 +45,16 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+import com.linecorp.armeria.server.logging.TailSampler;
+import com.linecorp.armeria.server.logging.TailSamplerBuilder;
+import com.linecorp.armeria.server.logging.kafka.KafkaLogBatcher;
+import com.linecorp.armeria.server.logging.kafka.KafkaLogBatcherBuilder;
 
 public class KafkaStructuredLoggingServiceTest {
     @Rule
@@ -52,6 +70,19 @@ public class KafkaStructuredLoggingServiceTest {
         }
     }
 
+    private static final class NameSerializer implements Serializer<SimpleStructuredLog> {
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {}
+
+        @Override
+        public byte[] serialize(String topic, SimpleStructuredLog data) {
+            return data.name.getBytes(UTF_8);
+        }
+
+        @Override
+        public void close() {}
+    }
+
     @Mock
     private static Service<HttpRequest, HttpResponse> service;
 
@@ -68,6 +99,9 @@ public class KafkaStructuredLoggingServiceTest {
     @Mock
     private Producer<byte[], SimpleStructuredLog> producer;
 
+    @Mock
+    private Serializer<SimpleStructuredLog> serializer;
+
     @Captor
     private ArgumentCaptor<ProducerRecord<byte[], SimpleStructuredLog>> captor;
 
@@ -102,6 +136,70 @@ public class KafkaStructuredLoggingServiceTest {
         assertThat(record.value()).isEqualTo(log);
     }
 
+    @Test
+    public void testSendOnlySampledLogs() throws Exception {
+        final TailSampler tailSampler = new TailSamplerBuilder().successRate(0.0f)
+                                                                .slowRequestRate(0.0f)
+                                                                .failureRate(0.0f)
+                                                                .build();
+        final KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog> service =
+                new KafkaStructuredLoggingService<>(KafkaStructuredLoggingServiceTest.service,
+                                                    log -> new SimpleStructuredLog("kawamuray"),
+                                                    producer, TOPIC_NAME, null, tailSampler, false);
+
+        final ServiceRequestContext ctx =
+                ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/")).build();
+        service.serve(ctx, ctx.request());
+        ctx.logBuilder().endRequest();
+        ctx.logBuilder().endResponse();
+
+        verify(producer, never()).send(any(), any());
+    }
+
+    @Test
+    public void testDefaultConfigKeepsProducerDefaults() {
+        // Dropping records instead of blocking must be opted in.
+        final Properties config = KafkaStructuredLoggingService.newDefaultConfig("localhost:9092");
+        assertThat(config.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)).isEqualTo("localhost:9092");
+        assertThat(config.getProperty(ProducerConfig.MAX_BLOCK_MS_CONFIG)).isNull();
+        assertThat(config.getProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG)).isNull();
+    }
+
+    @Test
+    public void testBatching() {
+        final MockProducer<byte[], byte[]> producer =
+                new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        final KafkaLogBatcher batcher = new KafkaLogBatcherBuilder(producer, TOPIC_NAME).build();
+        final KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog> service =
+                new KafkaStructuredLoggingService<>(KafkaStructuredLoggingServiceTest.service, log -> null,
+                                                    batcher, new NameSerializer());
+
+        service.writeLog(null, new SimpleStructuredLog("foo"));
+        service.writeLog(null, new SimpleStructuredLog("bar"));
+        batcher.flush();
+
+        await().untilAsserted(() -> assertThat(producer.history()).hasSize(1));
+        final ProducerRecord<byte[], byte[]> record = producer.history().get(0);
+        assertThat(record.topic()).isEqualTo(TOPIC_NAME);
+        assertThat(record.key()).isNull();
+        assertThat(new String(record.value(), UTF_8)).isEqualTo("foo\nbar\n");
+        batcher.shutdown().join();
+    }
+
+    @Test
+    public void testDropWhenSendFails() {
+        final MockProducer<byte[], SimpleStructuredLog> producer =
+                new MockProducer<>(false, new ByteArraySerializer(), serializer);
+        final KafkaStructuredLoggingServiceExposed service =
+                new KafkaStructuredLoggingServiceExposed(producer, null, false);
+
+        service.writeLog(null, new SimpleStructuredLog("foo"));
+        service.writeLog(null, new SimpleStructuredLog("bar"));
+        producer.errorNext(new BufferExhaustedException("buffer full"));
+        producer.completeNext();
+        assertThat(service.numDroppedRecords()).isOne();
+    }
+
     @Test
     public void testCloseProducerWhenRequested() {
         final KafkaStructuredLoggingServiceExposed service =
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -603,6 +604,13 @@ public final class THttpService extends AbstractHttpService {
 
         try (SafeCloseable ignored = ctx.push()) {
             reply = delegate.serve(ctx, call);
+        } catch (RejectedExecutionException cause) {
+            // The request was not handed over to the handler because the blocking task executor rejected it,
+            // e.g. the queue of a BoundedBlockingTaskExecutor is full. Fail the HTTP response instead of
+            // encoding a Thrift exception, so that the client gets a 503 Service Unavailable response.
+            // Note that an exception raised by the handler is always propagated via the RpcResponse.
+            res.completeExceptionally(cause);
+            return;
         } catch (Throwable cause) {
             handleException(ctx, new DefaultRpcResponse(cause), res, serializationFormat, seqId, func, cause);
             return;
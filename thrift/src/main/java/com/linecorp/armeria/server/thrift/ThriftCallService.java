@@ -139,16 +139,21 @@ public final class ThriftCallService implements Service<RpcRequest, RpcResponse>
             ServiceRequestContext ctx,
             Object impl, ThriftFunction func, List<Object> args, DefaultRpcResponse reply) {
 
+        final TBase<?, ?> tArgs;
         try {
-            final TBase<?, ?> tArgs = func.newArgs(args);
+            tArgs = func.newArgs(args);
             if (func.isAsync()) {
                 invokeAsynchronously(impl, func, tArgs, reply);
-            } else {
-                invokeSynchronously(ctx, impl, func, tArgs, reply);
+                return;
             }
         } catch (Throwable t) {
             reply.completeExceptionally(t);
+            return;
         }
+
+        // A RejectedExecutionException raised by the blocking task executor is thrown to the caller,
+        // so that the rejection is not mistaken for an exception raised by the handler.
+        invokeSynchronously(ctx, impl, func, tArgs, reply);
     }
 
     private static void invokeAsynchronously(
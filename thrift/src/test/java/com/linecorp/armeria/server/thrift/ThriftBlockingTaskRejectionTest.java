@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.thrift;
+
+import static com.linecorp.armeria.common.thrift.ThriftSerializationFormats.BINARY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.InvalidResponseException;
+import com.linecorp.armeria.server.BoundedBlockingTaskExecutor;
+import com.linecorp.armeria.server.BoundedBlockingTaskExecutorBuilder;
+import com.linecorp.armeria.server.PathMapping;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.service.test.thrift.main.HelloService;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+public class ThriftBlockingTaskRejectionTest {
+
+    private static final CountDownLatch latch = new CountDownLatch(1);
+
+    private static final BoundedBlockingTaskExecutor executor =
+            new BoundedBlockingTaskExecutorBuilder("thrift-bounded-tasks").maxThreads(1)
+                                                                          .maxQueuedTasks(1)
+                                                                          .build();
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service(PathMapping.ofExact("/hello"),
+                       THttpService.of((HelloService.Iface) name -> "Hello, " + name + '!'),
+                       executor);
+        }
+    };
+
+    @AfterClass
+    public static void shutdownExecutor() {
+        latch.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        // Saturate the executor; one task runs and the other waits in the queue.
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        await().until(() -> executor.getActiveCount() == 1 && executor.numQueuedTasks() == 1);
+
+        // The rejection is not encoded as a Thrift exception but answered with a 503 response.
+        final HelloService.Iface client = Clients.newClient(server.uri(BINARY, "/hello"),
+                                                            HelloService.Iface.class);
+        assertThatThrownBy(() -> client.hello("Trustin"))
+                .isInstanceOf(InvalidResponseException.class)
+                .hasMessageContaining("503 Service Unavailable");
+        assertThat(executor.numRejectedTasks()).isOne();
+
+        latch.countDown();
+        await().until(() -> executor.getActiveCount() == 0 && executor.numQueuedTasks() == 0);
+        assertThat(client.hello("Trustin")).isEqualTo("Hello, Trustin!");
+    }
+}